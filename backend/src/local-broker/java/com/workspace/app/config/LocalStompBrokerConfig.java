@@ -0,0 +1,49 @@
+package com.workspace.app.config;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.io.File;
+
+/**
+ * Embedded STOMP broker for local multi-node runs
+ * Only compiled with the local-broker Maven profile and enabled by the
+ * local-broker Spring profile; other backend instances on the same machine
+ * relay through it with websocket.broker.relay.embedded=false.
+ */
+@org.springframework.context.annotation.Configuration
+@ConditionalOnProperty(name = "websocket.broker.relay.embedded", havingValue = "true")
+public class LocalStompBrokerConfig {
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    /**
+     * Artemis with a single STOMP acceptor, no persistence and no security
+     * /topic maps to multicast addresses and /queue to anycast, matching the
+     * semantics the simple broker gives those prefixes.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EmbeddedActiveMQ localStompBroker() throws Exception {
+        File instanceDir = new File(System.getProperty("java.io.tmpdir"), "worksynk-broker-" + relayPort);
+
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://" + relayHost + ":" + relayPort
+                        + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        configuration.setBrokerInstance(instanceDir);
+
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        return broker;
+    }
+}
@@ -0,0 +1,188 @@
+package com.workspace.app.cluster;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.workspace.app.WorkspaceAppApplication;
+import com.workspace.app.model.Message;
+import com.workspace.app.service.ClusterEventBus;
+import com.workspace.app.service.CompactPayloadService;
+import com.workspace.app.service.RecentMessageBuffer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes relaying through the embedded broker of the local-broker profile
+ * Node A runs the broker; node B connects to it as a second instance would.
+ * Needs no MongoDB: buffers are seeded directly and the checks only use the
+ * broker and the cluster event bus.
+ */
+class LocalBrokerClusterTest {
+
+    private static int relayPort;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        relayPort = freePort();
+        nodeA = startNode(true);
+        nodeB = startNode(false);
+        awaitTrue(() -> brokerAvailable(nodeA) && brokerAvailable(nodeB), 30_000);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void nodesHaveDistinctIds() {
+        assertThat(nodeA.getBean(ClusterEventBus.class).getNodeId())
+                .isNotEqualTo(nodeB.getBean(ClusterEventBus.class).getNodeId());
+    }
+
+    @Test
+    void recentBufferChangesReachTheOtherNode() throws Exception {
+        String roomId = "cluster-room-buffer";
+        RecentMessageBuffer bufferA = nodeA.getBean(RecentMessageBuffer.class);
+        RecentMessageBuffer bufferB = nodeB.getBean(RecentMessageBuffer.class);
+        Cache<String, List<Message>> buffersB = buffers(bufferB);
+        buffers(bufferA).put(roomId, List.of());
+        buffersB.put(roomId, List.of());
+
+        Message message = message(roomId, "m-1", "hello");
+        bufferA.append(message);
+        awaitTrue(() -> texts(buffersB.getIfPresent(roomId)).equals(List.of("hello")), 10_000);
+        assertThat(buffersB.getIfPresent(roomId).get(0).getCreatedAt()).isEqualTo(message.getCreatedAt());
+
+        message.setText("hello again");
+        message.markAsEdited();
+        bufferA.update(message);
+        awaitTrue(() -> texts(buffersB.getIfPresent(roomId)).equals(List.of("hello again")), 10_000);
+
+        message.markAsDeleted();
+        bufferA.update(message);
+        awaitTrue(() -> texts(buffersB.getIfPresent(roomId)).isEmpty(), 10_000);
+
+        bufferA.invalidate(roomId);
+        awaitTrue(() -> buffersB.getIfPresent(roomId) == null, 10_000);
+    }
+
+    @Test
+    void compactFramesArePublishedForSubscribersOnOtherNodes() throws Exception {
+        String roomId = "cluster-room-cbor";
+        BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+
+        // A compact subscriber that node A cannot see
+        ReactorNettyTcpStompClient client = new ReactorNettyTcpStompClient("localhost", relayPort);
+        StompSession session = client.connectAsync(new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+        try {
+            session.subscribe(CompactPayloadService.compactDestination(roomId), new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    if ("cbor".equals(headers.getFirst(CompactPayloadService.ENCODING_HEADER))) {
+                        frames.add((byte[]) payload);
+                    }
+                }
+            });
+
+            // The subscription is registered asynchronously; publish until it is live
+            CompactPayloadService compactA = nodeA.getBean(CompactPayloadService.class);
+            byte[] frame = null;
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (frame == null && System.currentTimeMillis() < deadline) {
+                compactA.publish(roomId, message(roomId, "m-2", "compact"));
+                frame = frames.poll(200, TimeUnit.MILLISECONDS);
+            }
+            assertThat(frame).isNotEmpty();
+        } finally {
+            session.disconnect();
+            client.shutdown();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(boolean embedded) {
+        return new SpringApplicationBuilder(WorkspaceAppApplication.class)
+                .profiles("local-broker")
+                // Arguments, so they win over application.yml
+                .run(
+                        "--server.port=0",
+                        "--websocket.broker.relay.port=" + relayPort,
+                        "--websocket.broker.relay.embedded=" + embedded,
+                        // No MongoDB; fail its calls fast instead of waiting on the configured cluster
+                        "--spring.data.mongodb.uri=mongodb://localhost:1/worksynk-test?serverSelectionTimeoutMS=200",
+                        "--VIDEOSDK_API_KEY=test",
+                        "--VIDEOSDK_SECRET=test",
+                        "--spring.devtools.restart.enabled=false",
+                        "--mongo.indexes.verify-on-startup=false",
+                        "--mongo.indexes.build-on-startup=false",
+                        "--room.acl-index.warm-up-enabled=false",
+                        "--room.members.backfill-counts-on-startup=false",
+                        "--room.members.migration.enabled=false",
+                        "--room.members.reconcile-counts.enabled=false");
+    }
+
+    private static boolean brokerAvailable(ConfigurableApplicationContext node) {
+        return Boolean.TRUE.equals(node.getBean(ClusterEventBus.class).getStats().get("brokerAvailable"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<String, List<Message>> buffers(RecentMessageBuffer buffer) {
+        return (Cache<String, List<Message>>) ReflectionTestUtils.getField(buffer, "buffers");
+    }
+
+    private static List<String> texts(List<Message> messages) {
+        return messages == null ? List.of("<not buffered>") : messages.stream().map(Message::getText).toList();
+    }
+
+    private static Message message(String roomId, String id, String text) {
+        Message message = new Message(roomId, "user-1", "user1", text);
+        message.setId(id);
+        message.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0, 0));
+        return message;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in %d ms", timeoutMs).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
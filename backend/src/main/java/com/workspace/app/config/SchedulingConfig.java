@@ -0,0 +1,74 @@
+package com.workspace.app.config;
+
+import com.workspace.app.service.RoomMemberCountBackfill;
+import com.workspace.app.service.RoomMembershipMigrator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Duration;
+
+/**
+ * Schedulers for background jobs
+ * Without this, @Scheduled methods share the broker's messageBrokerTaskScheduler
+ * with STOMP heartbeats. Short jobs (flushes, ticks, watchdogs) get their own
+ * taskScheduler instead, and the long Mongo passes (membership migration
+ * sweep, member count reconcile) run on a separate maintenance scheduler so
+ * a slow collection scan cannot hold up the ticks either.
+ */
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    @Value("${scheduling.pool-size:4}")
+    private int poolSize;
+
+    @Value("${scheduling.maintenance-pool-size:1}")
+    private int maintenancePoolSize;
+
+    @Value("${room.members.migration.interval-ms:10000}")
+    private long migrationIntervalMs;
+
+    @Value("${room.members.reconcile-counts.interval-ms:300000}")
+    private long reconcileIntervalMs;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        return scheduler(poolSize, "scheduled-");
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler maintenanceTaskScheduler() {
+        return scheduler(maintenancePoolSize, "mongo-maintenance-");
+    }
+
+    /**
+     * The Mongo maintenance jobs, on their own scheduler
+     */
+    @Bean
+    public ScheduledTaskRegistrar maintenanceTasks(RoomMembershipMigrator roomMembershipMigrator,
+                                                   RoomMemberCountBackfill roomMemberCountBackfill) {
+        ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+        registrar.setTaskScheduler(maintenanceTaskScheduler());
+        registrar.addFixedDelayTask(new FixedDelayTask(roomMembershipMigrator::sweep,
+                Duration.ofMillis(migrationIntervalMs), Duration.ofMillis(migrationIntervalMs)));
+        registrar.addFixedDelayTask(new FixedDelayTask(roomMemberCountBackfill::reconcile,
+                Duration.ofMillis(reconcileIntervalMs), Duration.ofMillis(reconcileIntervalMs)));
+        return registrar;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(taskScheduler());
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(int threads, String threadNamePrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, threads));
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        return scheduler;
+    }
+}
@@ -1,11 +1,27 @@
 package com.workspace.app.config;
 
+import com.workspace.app.security.RoomSubscriptionInterceptor;
+import com.workspace.app.security.StompAuthChannelInterceptor;
+import com.workspace.app.service.ClusterEventBus;
+import com.workspace.app.websocket.CompactEncodingInterceptor;
+import com.workspace.app.websocket.DeflateStatsCollector;
+import com.workspace.app.websocket.NativeTransportHandshakeInterceptor;
+import com.workspace.app.websocket.OrderedInboundExecutor;
+import com.workspace.app.websocket.OutboundBackpressureManager;
+import com.workspace.app.websocket.PresenceHeartbeatInterceptor;
+import com.workspace.app.websocket.ReconnectingRelayTcpClient;
+import com.workspace.app.websocket.ShardedBrokerExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket configuration for real-time chat functionality
@@ -18,14 +34,116 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${websocket.allowed-origins}")
     private String allowedOrigins;
     
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+    
+    @Value("${websocket.broker.shards:0}")
+    private int brokerShards;
+    
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+    
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+    
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+    
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+    
+    @Value("${websocket.broker.relay.heartbeat-ms:10000}")
+    private long relayHeartbeatMs;
+    
+    @Value("${websocket.broker.relay.connect-timeout-ms:5000}")
+    private int relayConnectTimeoutMs;
+    
+    @Value("${websocket.broker.relay.reconnect-initial-ms:1000}")
+    private long relayReconnectInitialMs;
+    
+    @Value("${websocket.broker.relay.reconnect-max-ms:30000}")
+    private long relayReconnectMaxMs;
+    
+    @Value("${websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+    
+    @Value("${websocket.inbound.ordered:true}")
+    private boolean orderedInbound;
+    
+    @Value("${websocket.inbound.threads:0}")
+    private int inboundThreads;
+    
+    @Value("${websocket.inbound.max-queued-per-key:1000}")
+    private int inboundMaxQueuedPerKey;
+    
+    @Value("${websocket.outbound.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+    
+    @Value("${websocket.outbound.buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+    
+    @Value("${websocket.inbound.message-size-limit:65536}")
+    private int messageSizeLimit;
+    
+    @Autowired
+    private StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    
+    @Autowired
+    private RoomSubscriptionInterceptor roomSubscriptionInterceptor;
+    
+    @Autowired
+    private PresenceHeartbeatInterceptor presenceHeartbeatInterceptor;
+    
+    @Autowired
+    private CompactEncodingInterceptor compactEncodingInterceptor;
+    
+    @Autowired
+    private OutboundBackpressureManager outboundBackpressureManager;
+    
+    @Autowired
+    private DeflateStatsCollector deflateStatsCollector;
+    
+    @Autowired
+    @Lazy
+    private TaskScheduler messageBrokerTaskScheduler;
+    
     /**
      * Configure message broker for pub/sub messaging
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple memory-based message broker to carry messages
-        // back to the client on destinations prefixed with "/topic" and "/queue"
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // Clustered mode: relay "/topic" and "/queue" through an external STOMP broker
+            // so every backend instance sees every room's messages
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(relayHeartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(relayHeartbeatMs)
+                    .setTcpClient(new ReconnectingRelayTcpClient(relayHost, relayPort,
+                            relayConnectTimeoutMs, relayReconnectInitialMs, relayReconnectMaxMs))
+                    // Resolve user destinations (errors, confirmations) across nodes;
+                    // ClusterEventRelayPostProcessor adds the node-to-node event subscription
+                    .setUserDestinationBroadcast(ClusterEventBus.SYSTEM_DESTINATION_PREFIX + "unresolved-user-destination")
+                    .setUserRegistryBroadcast(ClusterEventBus.SYSTEM_DESTINATION_PREFIX + "user-registry");
+        } else {
+            // Enable a simple memory-based message broker to carry messages
+            // back to the client on destinations prefixed with "/topic" and "/queue"
+            // Heartbeats let dead connections (and their presence) expire
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+            
+            // Sharded mode: fan out per room on N ordered workers instead of the caller thread
+            if ("sharded".equalsIgnoreCase(brokerMode)) {
+                config.configureBrokerChannel().taskExecutor(new ShardedBrokerExecutor(brokerShards));
+                config.setPreservePublishOrder(true);
+            }
+        }
         
         // Designate the "/app" prefix for messages that are bound 
         // for @MessageMapping-annotated methods
@@ -46,12 +164,45 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .withSockJS(); // Enable SockJS fallback
         
         // Register endpoint without SockJS for native WebSocket support
+        // (binary frames, so these sessions may negotiate compact encoding)
         registry.addEndpoint("/ws")
-                .setAllowedOrigins(allowedOrigins.split(","));
+                .setAllowedOrigins(allowedOrigins.split(","))
+                .addInterceptors(new NativeTransportHandshakeInterceptor());
                 
         // Future video call WebSocket endpoint placeholder
         registry.addEndpoint("/ws/video")
                 .setAllowedOrigins(allowedOrigins.split(","))
                 .withSockJS();
     }
+    
+    /**
+     * Authenticate STOMP sessions once on CONNECT, then authorize room subscriptions
+     * SENDs run per-room FIFO and session frames per-session FIFO on a shared pool.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor, presenceHeartbeatInterceptor,
+                compactEncodingInterceptor, roomSubscriptionInterceptor);
+        if (orderedInbound) {
+            registration.taskExecutor(new OrderedInboundExecutor(inboundThreads, inboundMaxQueuedPerKey));
+        }
+    }
+    
+    /**
+     * Outbound limits per session
+     * The backpressure decorator enforces the buffer-size and send-time limits
+     * (drop typing/presence, then disconnect with "resync"; its watchdog closes
+     * writes stuck past the time limit). Spring wraps sessions in its
+     * ConcurrentWebSocketSessionDecorator above that queue, where sends return
+     * at once, so the same limits are passed to it only for consistency.
+     * Deflate sampling sits below the queue so it runs on the sender threads.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(outboundBackpressureManager)
+                .addDecoratorFactory(deflateStatsCollector);
+    }
 }
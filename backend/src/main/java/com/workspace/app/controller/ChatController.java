@@ -2,9 +2,12 @@ package com.workspace.app.controller;
 
 import com.workspace.app.dto.MessageRequest;
 import com.workspace.app.model.Message;
-import com.workspace.app.security.JwtUtils;
+import com.workspace.app.security.JwtPrincipal;
 import com.workspace.app.service.MessageService;
+import com.workspace.app.service.RoomBroadcastService;
 import com.workspace.app.service.RoomService;
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import com.workspace.app.service.TypingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,7 +18,9 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 /**
  * WebSocket Controller for real-time chat functionality
@@ -33,35 +38,49 @@ public class ChatController {
     private RoomService roomService;
     
     @Autowired
-    private JwtUtils jwtUtils;
+    private SimpMessagingTemplate messagingTemplate;
     
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private RoomSubscriptionRegistry subscriptionRegistry;
+    
+    @Autowired
+    private TypingService typingService;
+    
+    @Autowired
+    private RoomBroadcastService roomBroadcastService;
     
     /**
      * Handle sending messages to a room
      * WebSocket endpoint: /app/chat.sendMessage
      */
     @MessageMapping("/chat.sendMessage")
-    public void sendMessage(@Payload MessageRequest messageRequest, @Header("Authorization") String authHeader) {
+    public void sendMessage(@Payload MessageRequest messageRequest, Principal principal) {
         try {
-            // Extract user ID from JWT token
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return; // Invalid token, ignore message
-            }
-            
-            // Send message
-            Message message = messageService.sendMessage(messageRequest, userId);
-            
-            // Broadcast message to all room subscribers
-            messagingTemplate.convertAndSend("/topic/room/" + messageRequest.getRoomId(), message);
+            // User was authenticated when the session connected
+            String userId = principal.getName();
+            
+            // Send message and broadcast to all room subscribers once it is persisted
+            messageService.sendMessageAsync(messageRequest, userId).whenComplete((message, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    logger.error("Error saving message: {}", cause.getMessage(), cause);
+                    messagingTemplate.convertAndSendToUser(
+                        userId, 
+                        "/queue/errors", 
+                        Map.of("error", "Failed to send message. Please try again.")
+                    );
+                    return;
+                }
+                
+                typingService.stopTyping(messageRequest.getRoomId(), userId);
+                roomBroadcastService.broadcast(messageRequest.getRoomId(), message);
+            });
             
         } catch (Exception e) {
             logger.error("Error sending message: {}", e.getMessage(), e);
             // Send error message back to sender
             messagingTemplate.convertAndSendToUser(
-                extractUserIdFromAuth(authHeader), 
+                principal.getName(), 
                 "/queue/errors", 
                 Map.of("error", "Failed to send message. Please try again.")
             );
@@ -71,26 +90,19 @@ public class ChatController {
     /**
      * Handle user joining a room
      * WebSocket endpoint: /app/chat.joinRoom
+     * Presence is announced from the room subscription itself (RoomPresenceService),
+     * so nothing is persisted here.
      */
     @MessageMapping("/chat.joinRoom/{roomId}")
-    public void joinRoom(@DestinationVariable String roomId, @Header("Authorization") String authHeader) {
+    public void joinRoom(@DestinationVariable String roomId, Principal principal) {
         try {
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return;
-            }
+            String userId = principal.getName();
             
             // Verify user is a member of the room
             if (!roomService.isUserMemberOfRoom(userId, roomId)) {
                 return; // User not authorized for this room
             }
             
-            // Send system message about user joining
-            Message systemMessage = messageService.sendSystemMessage(roomId, "A user joined the room");
-            
-            // Broadcast to room
-            messagingTemplate.convertAndSend("/topic/room/" + roomId, systemMessage);
-            
             // Send confirmation to user
             messagingTemplate.convertAndSendToUser(
                 userId, 
@@ -106,20 +118,12 @@ public class ChatController {
     /**
      * Handle user leaving a room
      * WebSocket endpoint: /app/chat.leaveRoom
+     * Presence "left" follows from the client unsubscribing; only clear typing state.
      */
     @MessageMapping("/chat.leaveRoom/{roomId}")
-    public void leaveRoom(@DestinationVariable String roomId, @Header("Authorization") String authHeader) {
+    public void leaveRoom(@DestinationVariable String roomId, Principal principal) {
         try {
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return;
-            }
-            
-            // Send system message about user leaving
-            Message systemMessage = messageService.sendSystemMessage(roomId, "A user left the room");
-            
-            // Broadcast to room
-            messagingTemplate.convertAndSend("/topic/room/" + roomId, systemMessage);
+            typingService.stopTyping(roomId, principal.getName());
             
         } catch (Exception e) {
             System.err.println("Error leaving room: " + e.getMessage());
@@ -129,32 +133,26 @@ public class ChatController {
     /**
      * Handle typing indicator
      * WebSocket endpoint: /app/chat.typing
+     * Only updates in-memory state; TypingService publishes aggregated snapshots.
      */
     @MessageMapping("/chat.typing")
-    public void handleTyping(@Payload Map<String, String> typingData, @Header("Authorization") String authHeader) {
+    public void handleTyping(@Payload Map<String, String> typingData, Principal principal,
+                             @Header("simpSessionId") String sessionId) {
         try {
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return;
-            }
+            String userId = principal.getName();
             
             String roomId = typingData.get("roomId");
-            String username = typingData.get("username");
             boolean isTyping = Boolean.parseBoolean(typingData.get("isTyping"));
+            String username = principal instanceof JwtPrincipal jwtPrincipal
+                    ? jwtPrincipal.getUsername()
+                    : typingData.get("username");
             
-            // Verify user is a member of the room
-            if (!roomService.isUserMemberOfRoom(userId, roomId)) {
+            // Membership was authorized when the session subscribed to the room
+            if (!subscriptionRegistry.isSessionSubscribed(sessionId, roomId)) {
                 return;
             }
             
-            // Broadcast typing status to room (except to sender)
-            Map<String, Object> typingStatus = Map.of(
-                "userId", userId,
-                "username", username,
-                "isTyping", isTyping
-            );
-            
-            messagingTemplate.convertAndSend("/topic/room/" + roomId + "/typing", typingStatus);
+            typingService.update(roomId, userId, username, isTyping);
             
         } catch (Exception e) {
             System.err.println("Error handling typing: " + e.getMessage());
@@ -166,12 +164,9 @@ public class ChatController {
      * WebSocket endpoint: /app/chat.editMessage
      */
     @MessageMapping("/chat.editMessage")
-    public void editMessage(@Payload Map<String, String> editData, @Header("Authorization") String authHeader) {
+    public void editMessage(@Payload Map<String, String> editData, Principal principal) {
         try {
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return;
-            }
+            String userId = principal.getName();
             
             String messageId = editData.get("messageId");
             String newText = editData.get("newText");
@@ -185,7 +180,7 @@ public class ChatController {
         } catch (Exception e) {
             System.err.println("Error editing message: " + e.getMessage());
             messagingTemplate.convertAndSendToUser(
-                extractUserIdFromAuth(authHeader), 
+                principal.getName(), 
                 "/queue/errors", 
                 Map.of("error", e.getMessage())
             );
@@ -197,12 +192,9 @@ public class ChatController {
      * WebSocket endpoint: /app/chat.deleteMessage
      */
     @MessageMapping("/chat.deleteMessage")
-    public void deleteMessage(@Payload Map<String, String> deleteData, @Header("Authorization") String authHeader) {
+    public void deleteMessage(@Payload Map<String, String> deleteData, Principal principal) {
         try {
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return;
-            }
+            String userId = principal.getName();
             
             String messageId = deleteData.get("messageId");
             
@@ -215,7 +207,7 @@ public class ChatController {
         } catch (Exception e) {
             System.err.println("Error deleting message: " + e.getMessage());
             messagingTemplate.convertAndSendToUser(
-                extractUserIdFromAuth(authHeader), 
+                principal.getName(), 
                 "/queue/errors", 
                 Map.of("error", e.getMessage())
             );
@@ -227,12 +219,9 @@ public class ChatController {
      * WebSocket endpoint: /app/chat.startVideoCall
      */
     @MessageMapping("/chat.startVideoCall")
-    public void startVideoCall(@Payload Map<String, String> videoData, @Header("Authorization") String authHeader) {
+    public void startVideoCall(@Payload Map<String, String> videoData, Principal principal) {
         try {
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return;
-            }
+            String userId = principal.getName();
             
             String roomId = videoData.get("roomId");
             String videoCallData = videoData.get("videoCallData");
@@ -255,7 +244,7 @@ public class ChatController {
         } catch (Exception e) {
             System.err.println("Error starting video call: " + e.getMessage());
             messagingTemplate.convertAndSendToUser(
-                extractUserIdFromAuth(authHeader), 
+                principal.getName(), 
                 "/queue/errors", 
                 Map.of("error", e.getMessage())
             );
@@ -267,12 +256,9 @@ public class ChatController {
      * WebSocket endpoint: /app/chat.endVideoCall
      */
     @MessageMapping("/chat.endVideoCall")
-    public void endVideoCall(@Payload Map<String, String> videoData, @Header("Authorization") String authHeader) {
+    public void endVideoCall(@Payload Map<String, String> videoData, Principal principal) {
         try {
-            String userId = extractUserIdFromAuth(authHeader);
-            if (userId == null) {
-                return;
-            }
+            String userId = principal.getName();
             
             String roomId = videoData.get("roomId");
             String videoCallData = videoData.get("videoCallData");
@@ -294,31 +280,10 @@ public class ChatController {
         } catch (Exception e) {
             System.err.println("Error ending video call: " + e.getMessage());
             messagingTemplate.convertAndSendToUser(
-                extractUserIdFromAuth(authHeader), 
+                principal.getName(), 
                 "/queue/errors", 
                 Map.of("error", e.getMessage())
             );
         }
     }
-    
-    /**
-     * Extract user ID from Authorization header
-     */
-    private String extractUserIdFromAuth(String authHeader) {
-        try {
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return null;
-            }
-            
-            String token = authHeader.substring(7);
-            if (!jwtUtils.validateJwtToken(token)) {
-                return null;
-            }
-            
-            return jwtUtils.getUserIdFromJwtToken(token);
-        } catch (Exception e) {
-            System.err.println("Error extracting user ID: " + e.getMessage());
-            return null;
-        }
-    }
 }
@@ -2,6 +2,8 @@ package com.workspace.app.controller;
 
 import com.workspace.app.dto.ApiResponse;
 import com.workspace.app.dto.MessageRequest;
+import com.workspace.app.dto.MessageSlice;
+import com.workspace.app.dto.PageResponse;
 import com.workspace.app.model.Message;
 import com.workspace.app.service.MessageService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -66,7 +68,7 @@ public class MessageController {
      * GET /api/messages/room/{roomId}?page=0&size=20
      */
     @GetMapping("/room/{roomId}")
-    public ResponseEntity<ApiResponse<Page<Message>>> getRoomMessages(
+    public ResponseEntity<ApiResponse<PageResponse<Message>>> getRoomMessages(
             @PathVariable String roomId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -83,7 +85,7 @@ public class MessageController {
             Page<Message> messages = messageService.getRoomMessages(roomId, page, size, userId);
             
             return ResponseEntity.ok(
-                ApiResponse.success("Messages retrieved", messages)
+                ApiResponse.success("Messages retrieved", PageResponse.from(messages))
             );
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(
@@ -96,6 +98,43 @@ public class MessageController {
         }
     }
     
+    /**
+     * Get room history with keyset (cursor) pagination
+     * GET /api/messages/room/{roomId}/history?before=cursor&limit=50
+     * GET /api/messages/room/{roomId}/history?after=cursor&limit=50
+     */
+    @GetMapping("/room/{roomId}/history")
+    public ResponseEntity<ApiResponse<MessageSlice>> getRoomHistory(
+            @PathVariable String roomId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            HttpServletRequest request) {
+        try {
+            String userId = (String) request.getAttribute("userId");
+            
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
+                    ApiResponse.error("User not authenticated")
+                );
+            }
+            
+            MessageSlice slice = messageService.getRoomHistory(roomId, before, after, limit, userId);
+            
+            return ResponseEntity.ok(
+                ApiResponse.success("Message history retrieved", slice)
+            );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                ApiResponse.error("Failed to get message history: " + e.getMessage())
+            );
+        }
+    }
+    
     /**
      * Get recent messages for a room (last 50)
      * GET /api/messages/room/{roomId}/recent
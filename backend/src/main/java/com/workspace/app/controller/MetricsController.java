@@ -0,0 +1,179 @@
+package com.workspace.app.controller;
+
+import com.workspace.app.dto.ApiResponse;
+import com.workspace.app.security.JwtUtils;
+import com.workspace.app.service.ClusterEventBus;
+import com.workspace.app.service.CompactPayloadService;
+import com.workspace.app.service.IndexCatalogService;
+import com.workspace.app.service.MessageIngestService;
+import com.workspace.app.service.RecentMessageBuffer;
+import com.workspace.app.service.RoomBroadcastService;
+import com.workspace.app.service.RoomAclCache;
+import com.workspace.app.service.RoomActivityTracker;
+import com.workspace.app.service.RoomMemberCountBackfill;
+import com.workspace.app.service.RoomMembershipIndex;
+import com.workspace.app.service.RoomMembershipMigrator;
+import com.workspace.app.service.RoomPresenceService;
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import com.workspace.app.service.TypingService;
+import com.workspace.app.service.UserPresenceService;
+import com.workspace.app.service.UserService;
+import com.workspace.app.websocket.DeflateStatsCollector;
+import com.workspace.app.websocket.IndexedSubscriptionRegistry;
+import com.workspace.app.websocket.OrderedInboundExecutor;
+import com.workspace.app.websocket.OutboundBackpressureManager;
+import com.workspace.app.websocket.ShardedBrokerExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST Controller exposing in-process performance counters
+ * Used to size batching and caching settings
+ */
+@RestController
+@RequestMapping("/metrics")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class MetricsController {
+
+    @Autowired
+    private MessageIngestService messageIngestService;
+
+    @Autowired
+    private RoomAclCache roomAclCache;
+
+    @Autowired
+    private RoomActivityTracker roomActivityTracker;
+
+    @Autowired
+    private RoomMembershipMigrator roomMembershipMigrator;
+
+    @Autowired
+    private RoomMembershipIndex roomMembershipIndex;
+
+    @Autowired
+    private RoomMemberCountBackfill roomMemberCountBackfill;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RecentMessageBuffer recentMessageBuffer;
+
+    @Autowired
+    private IndexCatalogService indexCatalogService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private RoomSubscriptionRegistry roomSubscriptionRegistry;
+
+    @Autowired
+    private TypingService typingService;
+
+    @Autowired
+    private RoomPresenceService roomPresenceService;
+
+    @Autowired
+    private RoomBroadcastService roomBroadcastService;
+
+    @Autowired
+    private CompactPayloadService compactPayloadService;
+
+    @Autowired
+    private UserPresenceService userPresenceService;
+
+    @Autowired
+    private OutboundBackpressureManager outboundBackpressureManager;
+
+    @Autowired
+    private DeflateStatsCollector deflateStatsCollector;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    // Declared as AbstractBrokerMessageHandler by the broker configuration; only the active one exists
+    @Autowired(required = false)
+    @Qualifier("simpleBrokerMessageHandler")
+    private AbstractBrokerMessageHandler simpleBrokerMessageHandler;
+
+    @Autowired(required = false)
+    @Qualifier("stompBrokerRelayMessageHandler")
+    private AbstractBrokerMessageHandler stompBrokerRelayMessageHandler;
+
+    @Autowired
+    @Qualifier("brokerChannelExecutor")
+    private ThreadPoolTaskExecutor brokerChannelExecutor;
+
+    @Autowired
+    @Qualifier("clientInboundChannelExecutor")
+    private ThreadPoolTaskExecutor clientInboundChannelExecutor;
+
+    /**
+     * Get all performance counters
+     * GET /api/metrics
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMetrics() {
+        try {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("messageIngest", messageIngestService.getStats());
+            metrics.put("roomAclCache", roomAclCache.getStats());
+            metrics.put("roomMembershipIndex", roomMembershipIndex.getStats());
+            metrics.put("roomActivity", roomActivityTracker.getStats());
+            metrics.put("roomMembershipMigration", roomMembershipMigrator.getStats());
+            metrics.put("roomMemberCounts", roomMemberCountBackfill.getStats());
+            metrics.put("userSummaryCache", userService.getUserSummaryCacheStats());
+            metrics.put("recentMessageBuffer", recentMessageBuffer.getStats());
+            metrics.put("indexCatalog", indexCatalogService.getReport());
+            metrics.put("jwtVerifiedCache", jwtUtils.getVerifiedCacheStats());
+            metrics.put("roomSubscriptions", roomSubscriptionRegistry.getStats());
+            metrics.put("typing", typingService.getStats());
+            metrics.put("roomPresence", roomPresenceService.getStats());
+            metrics.put("roomBroadcast", roomBroadcastService.getStats());
+            metrics.put("compactPayload", compactPayloadService.getStats());
+            metrics.put("userPresence", userPresenceService.getStats());
+            metrics.put("broker", getBrokerStats());
+            if (clientInboundChannelExecutor instanceof OrderedInboundExecutor orderedExecutor) {
+                metrics.put("inbound", orderedExecutor.getStats());
+            }
+            metrics.put("outbound", outboundBackpressureManager.getStats());
+            metrics.put("compression", deflateStatsCollector.getStats());
+
+            return ResponseEntity.ok(
+                ApiResponse.success("Metrics retrieved", metrics)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                ApiResponse.error("Failed to get metrics: " + e.getMessage())
+            );
+        }
+    }
+
+    private Map<String, Object> getBrokerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (brokerChannelExecutor instanceof ShardedBrokerExecutor shardedExecutor) {
+            stats.put("fanOut", shardedExecutor.getStats());
+        }
+        if (simpleBrokerMessageHandler instanceof SimpleBrokerMessageHandler simpleBroker
+                && simpleBroker.getSubscriptionRegistry() instanceof IndexedSubscriptionRegistry registry) {
+            stats.put("subscriptions", registry.getStats());
+        }
+        if (stompBrokerRelayMessageHandler instanceof StompBrokerRelayMessageHandler relay) {
+            stats.put("relayAvailable", relay.isBrokerAvailable());
+            stats.put("relayConnections", relay.getConnectionCount());
+            stats.put("clusterEvents", clusterEventBus.getStats());
+        }
+        return stats;
+    }
+}
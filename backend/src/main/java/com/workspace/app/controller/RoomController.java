@@ -2,11 +2,16 @@ package com.workspace.app.controller;
 
 import com.workspace.app.dto.ApiResponse;
 import com.workspace.app.dto.CreateRoomRequest;
+import com.workspace.app.dto.PageResponse;
+import com.workspace.app.dto.RoomSlice;
+import com.workspace.app.dto.RoomSummary;
 import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
 import com.workspace.app.service.RoomService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -61,11 +66,16 @@ public class RoomController {
     }
     
     /**
-     * Get all rooms (for browsing)
-     * GET /api/rooms
+     * Get all rooms (for browsing), as summaries with cursor paging
+     * GET /api/rooms?visibility=private&sort=newest&cursor=...&limit=50
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Room>>> getAllRooms(HttpServletRequest httpRequest) {
+    public ResponseEntity<ApiResponse<RoomSlice>> getAllRooms(
+            @RequestParam(required = false) String visibility,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            HttpServletRequest httpRequest) {
         try {
             String userId = (String) httpRequest.getAttribute("userId");
             
@@ -75,11 +85,15 @@ public class RoomController {
                 );
             }
             
-            List<Room> rooms = roomService.getAllRooms();
+            RoomSlice rooms = roomService.getAllRooms(visibility, sort, cursor, limit);
             
             return ResponseEntity.ok(
                 ApiResponse.success("All rooms retrieved", rooms)
             );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
                 ApiResponse.error("Failed to get rooms: " + e.getMessage())
@@ -89,16 +103,23 @@ public class RoomController {
     
     /**
      * Get all public rooms
-     * GET /api/rooms/public
+     * GET /api/rooms/public?sort=newest&cursor=...&limit=50
      */
     @GetMapping("/public")
-    public ResponseEntity<ApiResponse<List<Room>>> getPublicRooms() {
+    public ResponseEntity<ApiResponse<RoomSlice>> getPublicRooms(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<Room> rooms = roomService.getPublicRooms();
+            RoomSlice rooms = roomService.getPublicRooms(sort, cursor, limit);
             
             return ResponseEntity.ok(
                 ApiResponse.success("Public rooms retrieved", rooms)
             );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
                 ApiResponse.error("Failed to get public rooms: " + e.getMessage())
@@ -108,10 +129,14 @@ public class RoomController {
     
     /**
      * Get user's rooms
-     * GET /api/rooms/my
+     * GET /api/rooms/my?sort=recent&cursor=...&limit=50
      */
     @GetMapping("/my")
-    public ResponseEntity<ApiResponse<List<Room>>> getMyRooms(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<RoomSlice>> getMyRooms(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            HttpServletRequest request) {
         try {
             String userId = (String) request.getAttribute("userId");
             
@@ -121,11 +146,15 @@ public class RoomController {
                 );
             }
             
-            List<Room> rooms = roomService.getUserRooms(userId);
+            RoomSlice rooms = roomService.getUserRooms(userId, sort, cursor, limit);
             
             return ResponseEntity.ok(
                 ApiResponse.success("User rooms retrieved", rooms)
             );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
                 ApiResponse.error("Failed to get user rooms: " + e.getMessage())
@@ -135,10 +164,14 @@ public class RoomController {
     
     /**
      * Get rooms where user is admin
-     * GET /api/rooms/admin
+     * GET /api/rooms/admin?sort=newest&cursor=...&limit=50
      */
     @GetMapping("/admin")
-    public ResponseEntity<ApiResponse<List<Room>>> getAdminRooms(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<RoomSlice>> getAdminRooms(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            HttpServletRequest request) {
         try {
             String userId = (String) request.getAttribute("userId");
             
@@ -148,11 +181,15 @@ public class RoomController {
                 );
             }
             
-            List<Room> rooms = roomService.getUserAdminRooms(userId);
+            RoomSlice rooms = roomService.getUserAdminRooms(userId, sort, cursor, limit);
             
             return ResponseEntity.ok(
                 ApiResponse.success("Admin rooms retrieved", rooms)
             );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
                 ApiResponse.error("Failed to get admin rooms: " + e.getMessage())
@@ -361,16 +398,25 @@ public class RoomController {
     
     /**
      * Search rooms by name
-     * GET /api/rooms/search?name=room-name
+     * GET /api/rooms/search?name=room-name&visibility=public&sort=name&cursor=...&limit=50
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<Room>>> searchRooms(@RequestParam String name) {
+    public ResponseEntity<ApiResponse<RoomSlice>> searchRooms(
+            @RequestParam String name,
+            @RequestParam(required = false) String visibility,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<Room> rooms = roomService.searchRooms(name);
+            RoomSlice rooms = roomService.searchRooms(name, visibility, sort, cursor, limit);
             
             return ResponseEntity.ok(
                 ApiResponse.success("Rooms found", rooms)
             );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
                 ApiResponse.error("Search failed: " + e.getMessage())
@@ -379,17 +425,23 @@ public class RoomController {
     }
     
     /**
-     * Get popular rooms
-     * GET /api/rooms/popular
+     * Get popular rooms (public, most members first)
+     * GET /api/rooms/popular?cursor=...&limit=20
      */
     @GetMapping("/popular")
-    public ResponseEntity<ApiResponse<List<Room>>> getPopularRooms() {
+    public ResponseEntity<ApiResponse<RoomSlice>> getPopularRooms(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
         try {
-            List<Room> rooms = roomService.getPopularRooms();
+            RoomSlice rooms = roomService.getPopularRooms(cursor, limit);
             
             return ResponseEntity.ok(
                 ApiResponse.success("Popular rooms retrieved", rooms)
             );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
                 ApiResponse.error("Failed to get popular rooms: " + e.getMessage())
@@ -398,16 +450,78 @@ public class RoomController {
     }
     
     /**
-     * Get room members
-     * GET /api/rooms/{roomId}/members
+     * Get rooms with at least a minimum number of members
+     * GET /api/rooms/min-members?min=10&cursor=...&limit=20
+     */
+    @GetMapping("/min-members")
+    public ResponseEntity<ApiResponse<RoomSlice>> getRoomsWithMinimumMembers(
+            @RequestParam(defaultValue = "1") int min,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            RoomSlice rooms = roomService.getRoomsWithMinimumMembers(min, cursor, limit);
+            
+            return ResponseEntity.ok(
+                ApiResponse.success("Rooms retrieved", rooms)
+            );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                ApiResponse.error("Failed to get rooms: " + e.getMessage())
+            );
+        }
+    }
+    
+    /**
+     * Distinct and common members across rooms the current user belongs to
+     * GET /api/rooms/audience?roomIds=a,b,c
+     */
+    @GetMapping("/audience")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getRoomAudience(
+            @RequestParam List<String> roomIds,
+            HttpServletRequest httpRequest) {
+        try {
+            String userId = (String) httpRequest.getAttribute("userId");
+            
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
+                    ApiResponse.error("User not authenticated")
+                );
+            }
+            
+            Map<String, Object> audience = roomService.getRoomAudience(userId, roomIds);
+            
+            return ResponseEntity.ok(
+                ApiResponse.success("Room audience retrieved", audience)
+            );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                ApiResponse.error("Failed to get room audience: " + e.getMessage())
+            );
+        }
+    }
+    
+    /**
+     * Get room members (paged, oldest first)
+     * GET /api/rooms/{roomId}/members?page=0&size=50
      */
     @GetMapping("/{roomId}/members")
-    public ResponseEntity<ApiResponse<List<String>>> getRoomMembers(@PathVariable String roomId) {
+    public ResponseEntity<ApiResponse<PageResponse<RoomMember>>> getRoomMembers(
+            @PathVariable String roomId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
         try {
-            List<String> members = roomService.getRoomMembers(roomId);
+            Page<RoomMember> members = roomService.getRoomMembers(roomId, page, size);
             
             return ResponseEntity.ok(
-                ApiResponse.success("Room members retrieved", members)
+                ApiResponse.success("Room members retrieved", PageResponse.from(members))
             );
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(
@@ -1,7 +1,11 @@
 package com.workspace.app.controller;
 
 import com.workspace.app.dto.ApiResponse;
+import com.workspace.app.dto.RoomSummary;
+import com.workspace.app.dto.UserPresence;
 import com.workspace.app.model.User;
+import com.workspace.app.service.RoomService;
+import com.workspace.app.service.UserPresenceService;
 import com.workspace.app.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +29,14 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private UserPresenceService userPresenceService;
+    
+    @Autowired
+    private RoomService roomService;
+    
+    private static final int MAX_PRESENCE_IDS = 500;
+    
     /**
      * Get current user profile
      * GET /api/users/me
@@ -161,6 +173,33 @@ public class UserController {
         }
     }
     
+    /**
+     * Get live presence for a batch of users (served from memory)
+     * GET /api/users/presence?ids=id1,id2
+     */
+    @GetMapping("/presence")
+    public ResponseEntity<ApiResponse<Map<String, UserPresence>>> getPresence(@RequestParam List<String> ids) {
+        try {
+            if (ids.size() > MAX_PRESENCE_IDS) {
+                throw new RuntimeException("Too many user IDs! Maximum is " + MAX_PRESENCE_IDS);
+            }
+            
+            Map<String, UserPresence> presence = userPresenceService.getPresence(ids);
+            
+            return ResponseEntity.ok(
+                ApiResponse.success("Presence retrieved", presence)
+            );
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.error(e.getMessage())
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                ApiResponse.error("Failed to get presence: " + e.getMessage())
+            );
+        }
+    }
+    
     /**
      * Get user profile by ID
      * GET /api/users/{userId}
@@ -190,6 +229,35 @@ public class UserController {
         }
     }
     
+    /**
+     * Active rooms the current user shares with another user
+     * GET /api/users/{userId}/shared-rooms
+     */
+    @GetMapping("/{userId}/shared-rooms")
+    public ResponseEntity<ApiResponse<List<RoomSummary>>> getSharedRooms(
+            @PathVariable String userId,
+            HttpServletRequest request) {
+        try {
+            String currentUserId = (String) request.getAttribute("userId");
+            
+            if (currentUserId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
+                    ApiResponse.error("User not authenticated")
+                );
+            }
+            
+            List<RoomSummary> rooms = roomService.getSharedRooms(currentUserId, userId);
+            
+            return ResponseEntity.ok(
+                ApiResponse.success("Shared rooms retrieved", rooms)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                ApiResponse.error("Failed to get shared rooms: " + e.getMessage())
+            );
+        }
+    }
+    
     /**
      * Deactivate user account
      * DELETE /api/users/me
@@ -0,0 +1,116 @@
+package com.workspace.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.workspace.app.model.Message;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Lean wire view of a chat message for compact (CBOR) subscriptions
+ * Timestamps are epoch millis; nulls, false and zero values are omitted.
+ * Reactions and video call data are not carried.
+ */
+@JsonInclude(JsonInclude.Include.NON_DEFAULT)
+public class CompactMessage {
+
+    private final String id;
+    private final String roomId;
+    private final String senderId;
+    private final String senderUsername;
+    private final String text;
+    private final String type;
+    private final long createdAt;
+    private final long editedAt;
+    private final String attachmentUrl;
+    private final String attachmentName;
+    private final String attachmentType;
+    private final long attachmentSize;
+    private final String parentMessageId;
+    private final int replyCount;
+
+    // Constructors
+    private CompactMessage(Message message) {
+        this.id = message.getId();
+        this.roomId = message.getRoomId();
+        this.senderId = message.getSenderId();
+        this.senderUsername = message.getSenderUsername();
+        this.text = message.getText();
+        this.type = message.getType() == Message.MessageType.TEXT || message.getType() == null
+                ? null
+                : message.getType().name();
+        this.createdAt = toEpochMillis(message.getCreatedAt());
+        this.editedAt = message.isEdited() ? toEpochMillis(message.getEditedAt()) : 0;
+        this.attachmentUrl = message.getAttachmentUrl();
+        this.attachmentName = message.getAttachmentName();
+        this.attachmentType = message.getAttachmentType();
+        this.attachmentSize = message.getAttachmentSize();
+        this.parentMessageId = message.getParentMessageId();
+        this.replyCount = message.getReplyCount();
+    }
+
+    public static CompactMessage from(Message message) {
+        return new CompactMessage(message);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? 0 : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public String getSenderUsername() {
+        return senderUsername;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getEditedAt() {
+        return editedAt;
+    }
+
+    public String getAttachmentUrl() {
+        return attachmentUrl;
+    }
+
+    public String getAttachmentName() {
+        return attachmentName;
+    }
+
+    public String getAttachmentType() {
+        return attachmentType;
+    }
+
+    public long getAttachmentSize() {
+        return attachmentSize;
+    }
+
+    public String getParentMessageId() {
+        return parentMessageId;
+    }
+
+    public int getReplyCount() {
+        return replyCount;
+    }
+}
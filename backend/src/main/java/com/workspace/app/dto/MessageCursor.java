@@ -0,0 +1,63 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for message history (createdAt plus id)
+ */
+public class MessageCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    private final LocalDateTime createdAt;
+    private final String id;
+    
+    // Constructors
+    public MessageCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+    
+    public static MessageCursor of(Message message) {
+        // Mongo stores dates with millisecond precision
+        return new MessageCursor(message.getCreatedAt().truncatedTo(ChronoUnit.MILLIS), message.getId());
+    }
+    
+    /**
+     * Encode as a URL-safe token
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a token produced by {@link #encode()}
+     */
+    public static MessageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            return new MessageCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor!");
+        }
+    }
+    
+    // Getters
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public String getId() {
+        return id;
+    }
+}
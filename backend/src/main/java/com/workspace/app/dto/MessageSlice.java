@@ -0,0 +1,50 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.Message;
+
+import java.util.List;
+
+/**
+ * One slice of room history from a keyset query
+ * Messages are ordered newest first; there is no total count.
+ */
+public class MessageSlice {
+    
+    private List<Message> messages;
+    private boolean hasMore;
+    private String nextCursor; // Continue in the same direction with this cursor
+    
+    // Constructors
+    public MessageSlice() {}
+    
+    public MessageSlice(List<Message> messages, boolean hasMore, String nextCursor) {
+        this.messages = messages;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<Message> getMessages() {
+        return messages;
+    }
+    
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
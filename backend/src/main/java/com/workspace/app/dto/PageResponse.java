@@ -0,0 +1,121 @@
+package com.workspace.app.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * One page of an offset-paged listing, in the shape the client expects
+ * Spring's Page serializes its paging fields at the top level, while the
+ * client reads them from a nested "page" object (PaginationInfo).
+ */
+public class PageResponse<T> {
+    
+    private List<T> content;
+    private PageInfo page;
+    
+    // Constructors
+    public PageResponse() {}
+    
+    public PageResponse(List<T> content, PageInfo page) {
+        this.content = content;
+        this.page = page;
+    }
+    
+    public static <T> PageResponse<T> from(Page<T> page) {
+        return new PageResponse<>(page.getContent(), new PageInfo(
+            page.getNumber(),
+            page.getSize(),
+            page.getTotalElements(),
+            page.getTotalPages(),
+            page.hasNext(),
+            page.hasPrevious()
+        ));
+    }
+    
+    // Getters and Setters
+    public List<T> getContent() {
+        return content;
+    }
+    
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+    
+    public PageInfo getPage() {
+        return page;
+    }
+    
+    public void setPage(PageInfo page) {
+        this.page = page;
+    }
+    
+    public static class PageInfo {
+        
+        private int page;
+        private int size;
+        private long totalElements;
+        private int totalPages;
+        private boolean hasNext;
+        private boolean hasPrevious;
+        
+        public PageInfo() {}
+        
+        public PageInfo(int page, int size, long totalElements, int totalPages, boolean hasNext, boolean hasPrevious) {
+            this.page = page;
+            this.size = size;
+            this.totalElements = totalElements;
+            this.totalPages = totalPages;
+            this.hasNext = hasNext;
+            this.hasPrevious = hasPrevious;
+        }
+        
+        public int getPage() {
+            return page;
+        }
+        
+        public void setPage(int page) {
+            this.page = page;
+        }
+        
+        public int getSize() {
+            return size;
+        }
+        
+        public void setSize(int size) {
+            this.size = size;
+        }
+        
+        public long getTotalElements() {
+            return totalElements;
+        }
+        
+        public void setTotalElements(long totalElements) {
+            this.totalElements = totalElements;
+        }
+        
+        public int getTotalPages() {
+            return totalPages;
+        }
+        
+        public void setTotalPages(int totalPages) {
+            this.totalPages = totalPages;
+        }
+        
+        public boolean isHasNext() {
+            return hasNext;
+        }
+        
+        public void setHasNext(boolean hasNext) {
+            this.hasNext = hasNext;
+        }
+        
+        public boolean isHasPrevious() {
+            return hasPrevious;
+        }
+        
+        public void setHasPrevious(boolean hasPrevious) {
+            this.hasPrevious = hasPrevious;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.Room;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for room listings (sort, sort key plus id)
+ */
+public class RoomCursor {
+    
+    private static final String SEPARATOR = "|";
+    private static final String PRESENT = "=";
+    
+    private final RoomSort sort;
+    private final String key;
+    private final String id;
+    
+    // Constructors
+    public RoomCursor(RoomSort sort, String key, String id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+    
+    public static RoomCursor of(RoomSort sort, Room room) {
+        return new RoomCursor(sort, sort.keyOf(room), room.getId());
+    }
+    
+    /**
+     * Encode as a URL-safe token
+     */
+    public String encode() {
+        // The key goes last since names may contain the separator
+        String raw = sort.name() + SEPARATOR + id + SEPARATOR + (key == null ? "" : PRESENT + key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a token produced by {@link #encode()}
+     */
+    public static RoomCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 3);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            String key = parts[2].startsWith(PRESENT) ? parts[2].substring(PRESENT.length()) : null;
+            RoomSort sort = RoomSort.valueOf(parts[0]);
+            // An edited key must fail here rather than in the query
+            sort.parseKey(key);
+            return new RoomCursor(sort, key, parts[1]);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor!");
+        }
+    }
+    
+    // Getters
+    public RoomSort getSort() {
+        return sort;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,48 @@
+package com.workspace.app.dto;
+
+import java.util.List;
+
+/**
+ * One slice of a room listing from a keyset query
+ * Rooms are in the requested sort order; there is no total count.
+ */
+public class RoomSlice {
+    
+    private List<RoomSummary> rooms;
+    private boolean hasMore;
+    private String nextCursor; // Pass as ?cursor= with the same sort for the next slice
+    
+    // Constructors
+    public RoomSlice() {}
+    
+    public RoomSlice(List<RoomSummary> rooms, boolean hasMore, String nextCursor) {
+        this.rooms = rooms;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<RoomSummary> getRooms() {
+        return rooms;
+    }
+    
+    public void setRooms(List<RoomSummary> rooms) {
+        this.rooms = rooms;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
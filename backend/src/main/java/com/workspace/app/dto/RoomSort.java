@@ -0,0 +1,95 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.Room;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Server-side sort orders for room listings
+ * Each is a keyset order on (field, _id), so listings page with a cursor.
+ */
+public enum RoomSort {
+    
+    RECENT("lastMessageAt", Sort.Direction.DESC, true),
+    NEWEST("createdAt", Sort.Direction.DESC, false),
+    NAME("name", Sort.Direction.ASC, false),
+    MEMBERS("memberCount", Sort.Direction.DESC, false);
+    
+    private final String field;
+    private final Sort.Direction direction;
+    private final boolean nullable; // Missing values sort last (rooms without messages)
+    
+    RoomSort(String field, Sort.Direction direction, boolean nullable) {
+        this.field = field;
+        this.direction = direction;
+        this.nullable = nullable;
+    }
+    
+    /**
+     * Parse a ?sort= value, falling back to the listing's default
+     */
+    public static RoomSort parse(String value, RoomSort defaultSort) {
+        if (value == null || value.isBlank()) {
+            return defaultSort;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid sort! Use recent, newest, name or members.");
+        }
+    }
+    
+    public String getField() {
+        return field;
+    }
+    
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+    
+    public boolean isNullable() {
+        return nullable;
+    }
+    
+    public Sort toSort() {
+        return Sort.by(direction, field).and(Sort.by(direction, "_id"));
+    }
+    
+    /**
+     * The room's sort key as cursor text (null when the field is missing)
+     */
+    public String keyOf(Room room) {
+        switch (this) {
+            case RECENT:
+                // Mongo stores dates with millisecond precision
+                return room.getLastMessageAt() == null ? null : room.getLastMessageAt().truncatedTo(ChronoUnit.MILLIS).toString();
+            case NEWEST:
+                return room.getCreatedAt() == null ? null : room.getCreatedAt().truncatedTo(ChronoUnit.MILLIS).toString();
+            case NAME:
+                return room.getName();
+            default:
+                return String.valueOf(room.getMemberCount());
+        }
+    }
+    
+    /**
+     * Cursor text back to the value stored in Mongo
+     */
+    public Object parseKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        switch (this) {
+            case RECENT:
+            case NEWEST:
+                return LocalDateTime.parse(key);
+            case NAME:
+                return key;
+            default:
+                return Integer.parseInt(key);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.Room;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight view of a room for listings
+ * Built from a field projection (see FIELDS); full detail stays on GET /rooms/{roomId}.
+ */
+public class RoomSummary {
+    
+    // Room document fields a summary is built from
+    public static final String[] FIELDS = {
+        "name", "description", "adminId", "memberCount", "maxMembers", "lastMessageAt", "createdAt",
+        "isPrivate", "videoCallEnabled", "video.active"
+    };
+    
+    private final String id;
+    private final String name;
+    private final String description;
+    private final String adminId;
+    private final int memberCount;
+    private final int maxMembers;
+    private final LocalDateTime lastMessageAt;
+    private final LocalDateTime createdAt;
+    private final boolean isPrivate;
+    private final boolean videoCallEnabled;
+    private final boolean videoActive;
+    
+    // Constructors
+    public RoomSummary(String id, String name, String description, String adminId, int memberCount, int maxMembers,
+                       LocalDateTime lastMessageAt, LocalDateTime createdAt, boolean isPrivate,
+                       boolean videoCallEnabled, boolean videoActive) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.adminId = adminId;
+        this.memberCount = memberCount;
+        this.maxMembers = maxMembers;
+        this.lastMessageAt = lastMessageAt;
+        this.createdAt = createdAt;
+        this.isPrivate = isPrivate;
+        this.videoCallEnabled = videoCallEnabled;
+        this.videoActive = videoActive;
+    }
+    
+    public static RoomSummary from(Room room) {
+        boolean videoActive = room.getVideo() != null && Boolean.TRUE.equals(room.getVideo().getActive());
+        return new RoomSummary(room.getId(), room.getName(), room.getDescription(), room.getAdminId(),
+                room.getMemberCount(), room.getMaxMembers(), room.getLastMessageAt(), room.getCreatedAt(),
+                room.isPrivate(), room.isVideoCallEnabled(), videoActive);
+    }
+    
+    // Getters
+    public String getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public String getAdminId() {
+        return adminId;
+    }
+    
+    public int getMemberCount() {
+        return memberCount;
+    }
+    
+    public int getMaxMembers() {
+        return maxMembers;
+    }
+    
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public boolean isPrivate() {
+        return isPrivate;
+    }
+    
+    public boolean isVideoCallEnabled() {
+        return videoCallEnabled;
+    }
+    
+    public boolean isVideoActive() {
+        return videoActive;
+    }
+}
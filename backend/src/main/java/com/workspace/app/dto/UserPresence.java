@@ -0,0 +1,43 @@
+package com.workspace.app.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Live presence of a user, as tracked from WebSocket sessions
+ */
+public class UserPresence {
+
+    private final String userId;
+    private final String status;
+    private final int sessions;
+    private final LocalDateTime lastSeenAt;
+
+    // Constructors
+    public UserPresence(String userId, String status, int sessions, LocalDateTime lastSeenAt) {
+        this.userId = userId;
+        this.status = status;
+        this.sessions = sessions;
+        this.lastSeenAt = lastSeenAt;
+    }
+
+    public static UserPresence offline(String userId) {
+        return new UserPresence(userId, "offline", 0, null);
+    }
+
+    // Getters
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public LocalDateTime getLastSeenAt() {
+        return lastSeenAt;
+    }
+}
@@ -0,0 +1,49 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.User;
+
+/**
+ * Lightweight, immutable view of a user for message enrichment
+ */
+public class UserSummary {
+
+    private final String userId;
+    private final String username;
+    private final String displayName;
+    private final String avatarUrl;
+
+    // Constructors
+    public UserSummary(String userId, String username, String displayName, String avatarUrl) {
+        this.userId = userId;
+        this.username = username;
+        this.displayName = displayName;
+        this.avatarUrl = avatarUrl;
+    }
+
+    public static UserSummary from(User user) {
+        String displayName = user.getUsername();
+        if (user.getFirstName() != null && !user.getFirstName().isBlank()) {
+            displayName = user.getLastName() != null && !user.getLastName().isBlank()
+                    ? user.getFirstName() + " " + user.getLastName()
+                    : user.getFirstName();
+        }
+        return new UserSummary(user.getId(), user.getUsername(), displayName, user.getProfilePictureUrl());
+    }
+
+    // Getters
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+}
@@ -2,6 +2,8 @@ package com.workspace.app.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.NotBlank;
@@ -14,6 +16,11 @@ import java.time.LocalDateTime;
  * Represents a chat message within a room
  */
 @Document(collection = "messages")
+@CompoundIndexes({
+    @CompoundIndex(name = "room_history_idx", def = "{'roomId': 1, 'isDeleted': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "sender_history_idx", def = "{'senderId': 1, 'isDeleted': 1, 'createdAt': -1}"),
+    @CompoundIndex(name = "thread_idx", def = "{'parentMessageId': 1, 'isDeleted': 1, 'createdAt': 1}")
+})
 public class Message {
     
     @Id
@@ -1,14 +1,16 @@
 package com.workspace.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,6 +18,16 @@ import java.util.List;
  * Represents a chat room/workspace where users can communicate
  */
 @Document(collection = "rooms")
+@CompoundIndexes({
+    @CompoundIndex(name = "active_created_id_idx", def = "{'isActive': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "admin_active_created_id_idx", def = "{'adminId': 1, 'isActive': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "members_active_idx", def = "{'members': 1, 'isActive': 1, 'lastMessageAt': -1}"),
+    @CompoundIndex(name = "visibility_active_created_id_idx", def = "{'isPrivate': 1, 'isActive': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "visibility_active_members_id_idx", def = "{'isPrivate': 1, 'isActive': 1, 'memberCount': -1, '_id': -1}"),
+    @CompoundIndex(name = "active_members_id_idx", def = "{'isActive': 1, 'memberCount': -1, '_id': -1}"),
+    @CompoundIndex(name = "name_active_idx", def = "{'name': 1, 'isActive': 1}"),
+    @CompoundIndex(name = "video_active_idx", def = "{'videoCallEnabled': 1, 'isActive': 1, 'createdAt': -1}")
+})
 public class Room {
     
     @Id
@@ -31,7 +43,12 @@ public class Room {
     @NotBlank(message = "Admin ID is required")
     private String adminId; // User ID of the room creator/admin
     
-    private List<String> members = new ArrayList<>(); // User IDs of room members
+    // Legacy embedded member IDs; memberships live in room_members and
+    // RoomMembershipMigrator moves and unsets this list on old documents
+    @JsonIgnore
+    private List<String> members;
+    
+    private int memberCount; // Updated by join/leave, reconciled with room_members by RoomMemberCountBackfill
     
     @CreatedDate
     private LocalDateTime createdAt;
@@ -60,7 +77,7 @@ public class Room {
         this.description = description;
         this.adminId = adminId;
         this.createdAt = LocalDateTime.now();
-        this.members.add(adminId); // Admin is automatically a member
+        this.memberCount = 1; // Admin is automatically a member
     }
     
     // Getters and Setters
@@ -177,18 +194,9 @@ public class Room {
     }
     
     // Helper methods
-    public void addMember(String userId) {
-        if (!members.contains(userId) && members.size() < maxMembers) {
-            members.add(userId);
-        }
-    }
-    
-    public void removeMember(String userId) {
-        members.remove(userId);
-    }
-    
-    public boolean isMember(String userId) {
-        return members.contains(userId);
+    @JsonIgnore
+    public boolean hasEmbeddedMembers() {
+        return members != null;
     }
     
     public boolean isAdmin(String userId) {
@@ -196,11 +204,16 @@ public class Room {
     }
     
     public int getMemberCount() {
-        return members.size();
+        // Documents written before memberCount existed have no stored count
+        return memberCount > 0 || members == null ? memberCount : members.size();
+    }
+    
+    public void setMemberCount(int memberCount) {
+        this.memberCount = memberCount;
     }
     
     public boolean canAddMember() {
-        return members.size() < maxMembers;
+        return getMemberCount() < maxMembers;
     }
     
     // Future video call integration helper methods
@@ -0,0 +1,94 @@
+package com.workspace.app.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * RoomMember Model - Links users to rooms with roles
+ * Kept out of the Room document so rooms stay small however many members they have.
+ */
+@Document(collection = "room_members")
+@CompoundIndexes({
+    @CompoundIndex(name = "room_user_idx", def = "{'roomId': 1, 'userId': 1}", unique = true),
+    @CompoundIndex(name = "room_joined_idx", def = "{'roomId': 1, 'joinedAt': 1}"),
+    @CompoundIndex(name = "user_room_idx", def = "{'userId': 1, 'roomId': 1}")
+})
+public class RoomMember {
+    
+    public static final String ROLE_ADMIN = "admin";
+    public static final String ROLE_MEMBER = "member";
+    
+    @Id
+    private String id;
+    
+    private String roomId;
+    
+    private String userId;
+    
+    private String role; // 'admin', 'member'
+    
+    private LocalDateTime joinedAt;
+    
+    // Constructors
+    public RoomMember() {
+        this.joinedAt = LocalDateTime.now();
+        this.role = ROLE_MEMBER; // Default role
+    }
+    
+    public RoomMember(String roomId, String userId, String role) {
+        this();
+        this.roomId = roomId;
+        this.userId = userId;
+        this.role = role;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public void setRole(String role) {
+        this.role = role;
+    }
+    
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+    
+    public void setJoinedAt(LocalDateTime joinedAt) {
+        this.joinedAt = joinedAt;
+    }
+    
+    // Helper methods
+    public boolean isAdmin() {
+        return ROLE_ADMIN.equalsIgnoreCase(role);
+    }
+}
@@ -3,6 +3,8 @@ package com.workspace.app.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.Email;
@@ -18,6 +20,12 @@ import java.util.List;
  * Stores user information including authentication data
  */
 @Document(collection = "users")
+@CompoundIndexes({
+    @CompoundIndex(name = "active_idx", def = "{'isActive': 1}"),
+    @CompoundIndex(name = "joined_rooms_active_idx", def = "{'joinedRooms': 1, 'isActive': 1}"),
+    @CompoundIndex(name = "admin_rooms_active_idx", def = "{'adminRooms': 1, 'isActive': 1}"),
+    @CompoundIndex(name = "video_active_idx", def = "{'videoCallEnabled': 1, 'isActive': 1}")
+})
 public class User {
     
     @Id
@@ -27,6 +27,11 @@ public interface MessageRepository extends MongoRepository<Message, String> {
      */
     List<Message> findTop50ByRoomIdAndIsDeletedFalseOrderByCreatedAtDesc(String roomId);
     
+    /**
+     * Find a window of messages by room ID without a count query
+     */
+    List<Message> findByRoomIdAndIsDeletedFalse(String roomId, Pageable pageable);
+    
     /**
      * Find messages by sender ID
      */
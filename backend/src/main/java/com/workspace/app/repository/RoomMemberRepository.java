@@ -0,0 +1,49 @@
+package com.workspace.app.repository;
+
+import com.workspace.app.model.RoomMember;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for RoomMember entities
+ */
+@Repository
+public interface RoomMemberRepository extends MongoRepository<RoomMember, String> {
+    
+    /**
+     * Page through the members of a room, oldest first
+     */
+    Page<RoomMember> findByRoomIdOrderByJoinedAtAsc(String roomId, Pageable pageable);
+    
+    /**
+     * User IDs of all members of a room (projection only)
+     */
+    @Query(value = "{'roomId': ?0}", fields = "{'userId': 1, '_id': 0}")
+    List<RoomMember> findUserIdsByRoomId(String roomId);
+    
+    /**
+     * Room IDs of all rooms a user belongs to (projection only)
+     */
+    @Query(value = "{'userId': ?0}", fields = "{'roomId': 1, '_id': 0}")
+    List<RoomMember> findRoomIdsByUserId(String userId);
+    
+    /**
+     * Check if user is member of room
+     */
+    boolean existsByRoomIdAndUserId(String roomId, String userId);
+    
+    /**
+     * Count members in room
+     */
+    long countByRoomId(String roomId);
+    
+    /**
+     * Remove a membership with the given role
+     */
+    long deleteByRoomIdAndUserIdAndRole(String roomId, String userId, String role);
+}
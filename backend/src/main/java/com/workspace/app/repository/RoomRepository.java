@@ -26,7 +26,7 @@ public interface RoomRepository extends MongoRepository<Room, String> {
     List<Room> findByAdminIdAndIsActiveTrueOrderByCreatedAtDesc(String adminId);
     
     /**
-     * Find rooms where user is a member
+     * Find rooms where user is a member (rooms not yet migrated to room_members)
      */
     @Query("{'members': ?0, 'isActive': true}")
     List<Room> findByMembersContainingAndIsActiveTrueOrderByLastMessageAtDesc(String userId);
@@ -56,16 +56,4 @@ public interface RoomRepository extends MongoRepository<Room, String> {
      * Find rooms with video call enabled (for future video integration)
      */
     List<Room> findByVideoCallEnabledTrueAndIsActiveTrueOrderByCreatedAtDesc();
-    
-    /**
-     * Find rooms by member count (for analytics)
-     */
-    @Query("{'$expr': {'$gte': [{'$size': '$members'}, ?0]}, 'isActive': true}")
-    List<Room> findRoomsWithMinimumMembers(int minMembers);
-    
-    /**
-     * Find popular rooms (with most members)
-     */
-    @Query(value = "{'isPrivate': false, 'isActive': true}", sort = "{'members': -1}")
-    List<Room> findPopularRooms();
 }
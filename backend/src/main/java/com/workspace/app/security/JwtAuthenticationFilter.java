@@ -17,6 +17,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 
 /**
  * JWT Authentication Filter
@@ -37,10 +38,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
+            Optional<JwtPrincipal> principal = jwt != null ? jwtUtils.parseToken(jwt) : Optional.empty();
             
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String userId = jwtUtils.getUserIdFromJwtToken(jwt);
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
+            if (principal.isPresent()) {
+                String userId = principal.get().getUserId();
+                String username = principal.get().getUsername();
                 
                 // Create authentication object
                 UsernamePasswordAuthenticationToken authentication = 
@@ -0,0 +1,52 @@
+package com.workspace.app.security;
+
+import java.security.Principal;
+import java.util.Date;
+
+/**
+ * Verified identity extracted from a JWT
+ */
+public class JwtPrincipal implements Principal {
+
+    private final String userId;
+    private final String username;
+    private final String email;
+    private final Date expiresAt;
+
+    // Constructors
+    public JwtPrincipal(String userId, String username, String email, Date expiresAt) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Principal name is the user ID (used for user destinations)
+     */
+    @Override
+    public String getName() {
+        return userId;
+    }
+
+    // Getters
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.getTime() <= System.currentTimeMillis();
+    }
+}
@@ -1,29 +1,78 @@
 package com.workspace.app.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT Utility class for token generation and validation
+ * The signing key and parser are built once; verified tokens are cached by
+ * their SHA-256 hash until they expire, so each token is verified only once.
  */
 @Component
 public class JwtUtils {
-    
+
     @Value("${jwt.secret}")
     private String jwtSecret;
-    
+
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+
+    @Value("${jwt.verified-cache.max-size:100000}")
+    private long verifiedCacheMaxSize;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+                        // Keep an entry exactly until the token's exp
+                        long remainingMs = principal.getExpiresAt() == null
+                                ? jwtExpirationMs
+                                : principal.getExpiresAt().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
     }
-    
+
     /**
      * Generate JWT token for user
      */
@@ -34,96 +83,123 @@ public class JwtUtils {
                 .claim("email", email)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
-    
+
+    /**
+     * Verify a token once and return its principal
+     * Served from the verified-token cache when possible.
+     */
+    public Optional<JwtPrincipal> parseToken(String token) {
+        try {
+            return Optional.of(verify(token));
+        } catch (MalformedJwtException e) {
+            System.err.println("Invalid JWT token: " + e.getMessage());
+        } catch (ExpiredJwtException e) {
+            System.err.println("JWT token is expired: " + e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            System.err.println("JWT token is unsupported: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("JWT claims string is empty: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("JWT validation error: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Verify a token, throwing if it is invalid or expired
+     */
+    private JwtPrincipal verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+
+        String key = hash(token);
+        JwtPrincipal cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(key);
+        }
+
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        JwtPrincipal principal = new JwtPrincipal(
+            claims.getSubject(),
+            claims.get("username", String.class),
+            claims.get("email", String.class),
+            claims.getExpiration()
+        );
+        verifiedTokens.put(key, principal);
+        return principal;
+    }
+
     /**
      * Extract user ID from JWT token
      */
     public String getUserIdFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).getUserId();
     }
-    
+
     /**
      * Extract username from JWT token
      */
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("username", String.class);
+        return verify(token).getUsername();
     }
-    
+
     /**
      * Extract email from JWT token
      */
     public String getEmailFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("email", String.class);
+        return verify(token).getEmail();
     }
-    
+
     /**
      * Validate JWT token
      */
     public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
-        } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
-        } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
-        } catch (Exception e) {
-            System.err.println("JWT validation error: " + e.getMessage());
-        }
-        return false;
+        return parseToken(authToken).isPresent();
     }
-    
+
     /**
      * Check if token is expired
      */
     public boolean isTokenExpired(String token) {
         try {
-            Date expiration = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getExpiration();
-            return expiration.before(new Date());
+            return verify(token).isExpired();
         } catch (Exception e) {
             return true;
         }
     }
-    
+
     /**
      * Get expiration date from token
      */
     public Date getExpirationDateFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
+        return verify(token).getExpiresAt();
+    }
+
+    /**
+     * Verified-token cache counters
+     */
+    public Map<String, Object> getVerifiedCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", verifiedTokens.estimatedSize());
+        stats.put("hits", verifiedTokens.stats().hitCount());
+        stats.put("misses", verifiedTokens.stats().missCount());
+        stats.put("hitRate", verifiedTokens.stats().hitRate());
+        return stats;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
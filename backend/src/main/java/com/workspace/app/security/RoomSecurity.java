@@ -1,8 +1,6 @@
 package com.workspace.app.security;
 
-import com.workspace.app.model.Room;
-import com.workspace.app.repository.RoomRepository;
-import com.workspace.app.security.JwtUtils;
+import com.workspace.app.service.RoomAclCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -16,7 +14,7 @@ import java.util.Optional;
 public class RoomSecurity {
     
     @Autowired
-    private RoomRepository roomRepository;
+    private RoomAclCache roomAclCache;
     
     /**
      * Check if the current user can start a video call for the given room
@@ -30,12 +28,12 @@ public class RoomSecurity {
         // Get user ID from request attributes (set by JWT filter)
         String userId = getCurrentUserId();
         
-        Optional<Room> roomOptional = roomRepository.findById(roomId);
+        Optional<RoomAclCache.RoomAcl> roomOptional = roomAclCache.get(roomId);
         if (roomOptional.isEmpty()) {
             return false;
         }
         
-        Room room = roomOptional.get();
+        RoomAclCache.RoomAcl room = roomOptional.get();
         return room.isAdmin(userId);
     }
     
@@ -50,12 +48,12 @@ public class RoomSecurity {
         
         String userId = getCurrentUserId();
         
-        Optional<Room> roomOptional = roomRepository.findById(roomId);
+        Optional<RoomAclCache.RoomAcl> roomOptional = roomAclCache.get(roomId);
         if (roomOptional.isEmpty()) {
             return false;
         }
         
-        Room room = roomOptional.get();
+        RoomAclCache.RoomAcl room = roomOptional.get();
         return room.isMember(userId);
     }
     
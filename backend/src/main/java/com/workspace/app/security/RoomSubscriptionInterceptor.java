@@ -0,0 +1,101 @@
+package com.workspace.app.security;
+
+import com.workspace.app.service.RoomService;
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authorizes room topic subscriptions once, at SUBSCRIBE time
+ * Membership is checked against the cached room ACL; accepted subscriptions
+ * are tracked so they can be evicted when the user leaves or the room is deleted.
+ * The ACL is read again once the subscription is registered: a leave that
+ * landed after the first check either finds the registration and evicts it,
+ * or has already updated the ACL and the subscription is evicted here.
+ * Pattern destinations under /topic are refused outright.
+ */
+@Component
+public class RoomSubscriptionInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    @Lazy
+    private RoomService roomService;
+
+    @Autowired
+    private RoomSubscriptionRegistry subscriptionRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith("/topic")) {
+            return message;
+        }
+        // A pattern could match every room's topics at once
+        if (RoomSubscriptionRegistry.isPatternDestination(destination)) {
+            throw new MessageDeliveryException("Pattern subscriptions are not allowed");
+        }
+
+        String roomId = RoomSubscriptionRegistry.roomIdFromDestination(destination);
+        if (roomId == null) {
+            if (destination.startsWith(RoomSubscriptionRegistry.ROOM_TOPIC_PREFIX)) {
+                throw new MessageDeliveryException("Missing room ID");
+            }
+            return message;
+        }
+
+        // The base topic and every subtopic (typing, presence, edit, ...) need membership
+        if (!isAllowed(roomId, accessor.getUser())) {
+            throw new MessageDeliveryException("Not a member of this room");
+        }
+
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null || accessor.getSessionId() == null) {
+            return;
+        }
+
+        switch (accessor.getCommand()) {
+            case SUBSCRIBE -> {
+                String roomId = RoomSubscriptionRegistry.roomIdFromDestination(accessor.getDestination());
+                if (sent && ex == null && roomId != null && accessor.getUser() != null) {
+                    String userId = accessor.getUser().getName();
+                    subscriptionRegistry.register(roomId, userId, accessor.getSessionId(), accessor.getSubscriptionId());
+                    // The SUBSCRIBE is already queued, so this UNSUBSCRIBE is handled after it
+                    if (!isAllowed(roomId, accessor.getUser())) {
+                        subscriptionRegistry.evictSubscription(roomId, userId,
+                                accessor.getSessionId(), accessor.getSubscriptionId());
+                    }
+                }
+            }
+            case UNSUBSCRIBE -> subscriptionRegistry.unregister(accessor.getSessionId(), accessor.getSubscriptionId());
+            case DISCONNECT -> subscriptionRegistry.unregisterSession(accessor.getSessionId());
+            default -> {
+            }
+        }
+    }
+
+    private boolean isAllowed(String roomId, Principal user) {
+        return user != null && roomService.getRoomAcl(roomId)
+                .map(acl -> acl.isActive() && acl.isMember(user.getName()))
+                .orElse(false);
+    }
+}
@@ -0,0 +1,66 @@
+package com.workspace.app.security;
+
+import com.workspace.app.service.ClusterEventBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authenticates STOMP sessions on CONNECT
+ * The JWT from the CONNECT frame is verified once and bound to the session
+ * as a JwtPrincipal; later frames only get a cheap expiry check.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        StompCommand command = accessor.getCommand();
+
+        if (StompCommand.CONNECT.equals(command)) {
+            String authHeader = accessor.getFirstNativeHeader("Authorization");
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                throw new MessageDeliveryException("Missing authorization token");
+            }
+
+            JwtPrincipal principal = jwtUtils.parseToken(authHeader.substring(7))
+                    .orElseThrow(() -> new MessageDeliveryException("Invalid authorization token"));
+
+            accessor.setUser(principal);
+            return message;
+        }
+
+        if (StompCommand.SEND.equals(command) || StompCommand.SUBSCRIBE.equals(command)) {
+            Principal user = accessor.getUser();
+            if (user == null) {
+                throw new MessageDeliveryException("Not authenticated");
+            }
+            if (user instanceof JwtPrincipal jwtPrincipal && jwtPrincipal.isExpired()) {
+                throw new MessageDeliveryException("Session token expired, please reconnect");
+            }
+            // Node-to-node traffic shares the relay's broker; keep clients off it
+            String destination = accessor.getDestination();
+            if (destination != null && destination.startsWith(ClusterEventBus.SYSTEM_DESTINATION_PREFIX)) {
+                throw new MessageDeliveryException("System destination");
+            }
+        }
+
+        return message;
+    }
+}
@@ -0,0 +1,248 @@
+package com.workspace.app.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Node-to-node events over the broker relay
+ * In relay mode several instances share one STOMP broker, but room ACLs,
+ * subscriptions and presence are held in each instance's memory. Services
+ * publish their local changes here; every other node receives them on the
+ * relay's shared system connection and applies them to its own state, in
+ * the order they were published. With the simple or sharded broker there is
+ * only one node and publishing is a no-op.
+ */
+@Component
+public class ClusterEventBus implements MessageHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterEventBus.class);
+
+    /**
+     * Broker destinations reserved for the nodes; clients may not send or subscribe to them
+     */
+    public static final String SYSTEM_DESTINATION_PREFIX = "/topic/system.";
+
+    public static final String DESTINATION = SYSTEM_DESTINATION_PREFIX + "cluster-events";
+
+
+    // Asks every node to rebuild state that may have missed events
+    private static final String RESYNC = "cluster.resync";
+
+    private static final TypeReference<Map<String, Object>> EVENT_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.cluster.event-queue-capacity:10000}")
+    private int queueCapacity;
+
+    // One per application context, so nodes sharing a JVM still tell each other apart
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Consumer<Map<String, Object>>> listeners = new ConcurrentHashMap<>();
+
+    private final List<Runnable> resyncListeners = new CopyOnWriteArrayList<>();
+
+    private ThreadPoolTaskExecutor dispatcher;
+
+    private volatile boolean brokerAvailable;
+
+    // Set when an inbound event is dropped; the next dispatched event triggers a resync
+    private final AtomicBoolean missedEvents = new AtomicBoolean();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // One thread, so events from a node are applied in the order they were published
+        dispatcher = new ThreadPoolTaskExecutor();
+        dispatcher.setCorePoolSize(1);
+        dispatcher.setMaxPoolSize(1);
+        dispatcher.setQueueCapacity(queueCapacity);
+        dispatcher.setThreadNamePrefix("cluster-events-");
+        dispatcher.setDaemon(true);
+        dispatcher.initialize();
+
+        subscribe(RESYNC, event -> resync());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Events published while this node's relay connection was down never reach
+     * it, and its own events were dropped; once it is back, this node and
+     * every other one resync.
+     */
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        boolean wasAvailable = brokerAvailable;
+        brokerAvailable = event.isBrokerAvailable();
+        if (isClustered() && brokerAvailable && !wasAvailable) {
+            dispatchResync();
+            publish(RESYNC, Map.of());
+        }
+    }
+
+    /**
+     * Identifies this node in events and snapshots it publishes
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Whether other nodes may be sharing the broker
+     */
+    public boolean isClustered() {
+        return "relay".equalsIgnoreCase(brokerMode);
+    }
+
+    /**
+     * Handle events of one type published by other nodes
+     */
+    public void subscribe(String type, Consumer<Map<String, Object>> listener) {
+        listeners.put(type, listener);
+    }
+
+    /**
+     * Run after this node may have missed events from the others
+     * Listeners run on the dispatcher thread and should only schedule work.
+     */
+    public void onResync(Runnable listener) {
+        resyncListeners.add(listener);
+    }
+
+    /**
+     * Send an event to every other node
+     * Events raised while the relay is down are dropped; presence is repaired
+     * by the next snapshot and ACL entries by their expiry.
+     */
+    public void publish(String type, Map<String, Object> fields) {
+        if (!isClustered()) {
+            return;
+        }
+        if (!brokerAvailable) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>(fields);
+        event.put("type", type);
+        event.put("node", nodeId);
+        try {
+            messagingTemplate.convertAndSend(DESTINATION, event);
+            published.incrementAndGet();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("Could not publish cluster event {}: {}", type, e.getMessage());
+        }
+    }
+
+    /**
+     * Events arriving on the relay's system connection
+     */
+    @Override
+    public void handleMessage(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> dispatch(payload));
+        } catch (TaskRejectedException e) {
+            dropped.incrementAndGet();
+            missedEvents.set(true);
+            logger.warn("Cluster event queue is full, dropping event");
+        }
+    }
+
+    private void dispatchResync() {
+        try {
+            dispatcher.execute(this::resync);
+        } catch (TaskRejectedException e) {
+            missedEvents.set(true);
+        }
+    }
+
+    private void resync() {
+        resyncs.incrementAndGet();
+        for (Runnable listener : resyncListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                logger.warn("Cluster resync listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void dispatch(byte[] payload) {
+        if (missedEvents.getAndSet(false)) {
+            resync();
+        }
+        try {
+            Map<String, Object> event = objectMapper.readValue(payload, EVENT_TYPE);
+            if (nodeId.equals(event.get("node"))) {
+                return;
+            }
+            Consumer<Map<String, Object>> listener = listeners.get(String.valueOf(event.get("type")));
+            if (listener != null) {
+                received.incrementAndGet();
+                listener.accept(event);
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("Could not apply cluster event: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("node", nodeId);
+        stats.put("clustered", isClustered());
+        stats.put("brokerAvailable", brokerAvailable);
+        stats.put("published", published.get());
+        stats.put("received", received.get());
+        stats.put("queued", dispatcher.getThreadPoolExecutor().getQueue().size());
+        stats.put("dropped", dropped.get());
+        stats.put("failures", failures.get());
+        stats.put("resyncs", resyncs.get());
+        return stats;
+    }
+}
@@ -0,0 +1,187 @@
+package com.workspace.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.workspace.app.dto.CompactMessage;
+import com.workspace.app.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CBOR copies of room messages for subscribers that negotiated compact frames
+ * Compact subscribers listen on /topic/room/{roomId}/cbor. A broadcast is
+ * mapped to CompactMessage and encoded once only when the room has compact
+ * subscribers; the broker then hands the same bytes to each of them. In
+ * relay mode subscribers may be connected to other nodes, which this node
+ * cannot see, so every broadcast is encoded.
+ */
+@Service
+public class CompactPayloadService {
+
+    public static final String DESTINATION_SUFFIX = "/cbor";
+    public static final String ENCODING_HEADER = "x-encoding";
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactPayloadService.class);
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Value("${chat.compact.enabled:true}")
+    private boolean enabled;
+
+    private final ObjectMapper cborMapper = CBORMapper.builder().build();
+
+    // sessionId -> (subscriptionId -> roomId) for compact subscriptions
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    // roomId -> live compact subscriptions
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicLong framesEncoded = new AtomicLong();
+    private final AtomicLong bytesEncoded = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Destination a compact subscriber of the room listens on
+     */
+    public static String compactDestination(String roomId) {
+        return RoomSubscriptionRegistry.ROOM_TOPIC_PREFIX + roomId + DESTINATION_SUFFIX;
+    }
+
+    /**
+     * Encode a message (or batch of messages) once and send it to the room's compact subscribers
+     */
+    public void publish(String roomId, Object payload) {
+        if (!enabled || (!clusterEventBus.isClustered() && !subscribers.containsKey(roomId))) {
+            return;
+        }
+        Object compact = toCompact(payload);
+        if (compact == null) {
+            return;
+        }
+        try {
+            byte[] bytes = cborMapper.writeValueAsBytes(compact);
+
+            // octet-stream makes the STOMP handler send a binary WebSocket frame
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(ENCODING_HEADER, "cbor");
+            if (payload instanceof List<?> batch) {
+                accessor.setNativeHeader(RoomBroadcastService.BATCH_HEADER, String.valueOf(batch.size()));
+            }
+            accessor.setLeaveMutable(true);
+
+            messagingTemplate.send(compactDestination(roomId), MessageBuilder.createMessage(bytes, accessor.getMessageHeaders()));
+            framesEncoded.incrementAndGet();
+            bytesEncoded.addAndGet(bytes.length);
+        } catch (Exception e) {
+            logger.warn("Could not encode compact frame for room {}: {}", roomId, e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String roomId = compactRoomId(accessor.getDestination());
+        if (roomId == null || accessor.getSessionId() == null) {
+            return;
+        }
+        sessions.computeIfAbsent(accessor.getSessionId(), key -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), roomId);
+        subscribers.merge(roomId, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions == null) {
+            return;
+        }
+        String roomId = subscriptions.remove(accessor.getSubscriptionId());
+        if (roomId != null) {
+            release(roomId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int compactSubscriptions = 0;
+        for (Integer count : subscribers.values()) {
+            compactSubscriptions += count;
+        }
+        long frames = framesEncoded.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("rooms", subscribers.size());
+        stats.put("subscriptions", compactSubscriptions);
+        stats.put("framesEncoded", frames);
+        stats.put("bytesEncoded", bytesEncoded.get());
+        stats.put("averageFrameBytes", frames == 0 ? 0 : bytesEncoded.get() / frames);
+        return stats;
+    }
+
+    /**
+     * Room of a compact subscription destination, or null
+     */
+    public static String compactRoomId(String destination) {
+        String roomId = RoomSubscriptionRegistry.roomIdFromDestination(destination);
+        if (roomId == null || !destination.equals(compactDestination(roomId))) {
+            return null;
+        }
+        return roomId;
+    }
+
+    private void release(String roomId) {
+        subscribers.computeIfPresent(roomId, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static Object toCompact(Object payload) {
+        if (payload instanceof Message message) {
+            return CompactMessage.from(message);
+        }
+        if (payload instanceof List<?> batch) {
+            List<CompactMessage> messages = new ArrayList<>(batch.size());
+            for (Object item : batch) {
+                if (item instanceof Message message) {
+                    messages.add(CompactMessage.from(message));
+                }
+            }
+            return messages;
+        }
+        return null;
+    }
+}
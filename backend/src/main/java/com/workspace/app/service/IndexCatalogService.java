@@ -0,0 +1,343 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Message;
+import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
+import com.workspace.app.model.User;
+import com.workspace.app.model.Workspace;
+import com.workspace.app.model.WorkspaceInvite;
+import com.workspace.app.model.WorkspaceMember;
+import com.workspace.app.repository.MessageRepository;
+import com.workspace.app.repository.RoomMemberRepository;
+import com.workspace.app.repository.RoomRepository;
+import com.workspace.app.repository.UserRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.query.ConvertingParameterAccessor;
+import org.springframework.data.mongodb.repository.query.MongoParametersParameterAccessor;
+import org.springframework.data.mongodb.repository.query.MongoQueryMethod;
+import org.springframework.data.mongodb.repository.query.PartTreeMongoQuery;
+import org.springframework.data.mongodb.repository.query.StringBasedMongoQuery;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index catalog for all collections
+ * Index declarations live on the model classes (@Indexed / @CompoundIndex).
+ * At startup this service builds them and runs explain for the query of
+ * every repository method, as Spring Data builds it from the method name or
+ * @Query, reporting any query that still plans a COLLSCAN.
+ */
+@Service
+public class IndexCatalogService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexCatalogService.class);
+
+    private static final String SAMPLE_ID = "000000000000000000000000";
+
+    private static final List<Class<?>> DOCUMENT_CLASSES = List.of(
+        User.class, Room.class, RoomMember.class, Message.class, Workspace.class, WorkspaceMember.class, WorkspaceInvite.class
+    );
+
+    static final List<Class<?>> VERIFIED_REPOSITORIES = List.of(
+        MessageRepository.class, RoomRepository.class, RoomMemberRepository.class, UserRepository.class
+    );
+
+    // Sorts callers pass in a Pageable or Sort argument, which the repository metadata cannot show
+    private static final Map<String, Sort> CALLER_SORTS = Map.of(
+        "MessageRepository.findByRoomIdAndIsDeletedFalse", Sort.by(Sort.Direction.DESC, "createdAt")
+    );
+
+    private static final ExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+
+    @Value("${mongo.indexes.build-on-startup:true}")
+    private boolean buildOnStartup;
+
+    @Value("${mongo.indexes.verify-on-startup:true}")
+    private boolean verifyOnStartup;
+
+    @Value("${mongo.indexes.fail-on-collscan:false}")
+    private boolean failOnCollscan;
+
+    private final Map<String, Object> lastReport = new LinkedHashMap<>();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (failOnCollscan) {
+            // Strict mode: a missing index aborts startup
+            buildAndVerify();
+            return;
+        }
+
+        Thread worker = new Thread(() -> {
+            try {
+                buildAndVerify();
+            } catch (Exception e) {
+                logger.error("Index catalog check failed: {}", e.getMessage(), e);
+            }
+        }, "index-catalog");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void buildAndVerify() {
+        if (buildOnStartup) {
+            ensureIndexes();
+        }
+        if (verifyOnStartup) {
+            List<String> problems = verifyQueries();
+            if (!problems.isEmpty() && failOnCollscan) {
+                throw new IllegalStateException("Queries without index support: " + problems);
+            }
+        }
+    }
+
+    /**
+     * Create every index declared on the model classes
+     */
+    public int ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        int ensured = 0;
+
+        for (Class<?> documentClass : DOCUMENT_CLASSES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(documentClass);
+            for (IndexDefinition index : resolver.resolveIndexFor(documentClass)) {
+                try {
+                    indexOps.ensureIndex(index);
+                    ensured++;
+                } catch (Exception e) {
+                    logger.warn("Could not ensure index {} on {}: {}",
+                            index.getIndexKeys().toJson(), documentClass.getSimpleName(), e.getMessage());
+                }
+            }
+        }
+
+        logger.info("Ensured {} indexes across {} collections", ensured, DOCUMENT_CLASSES.size());
+        synchronized (lastReport) {
+            lastReport.put("indexesEnsured", ensured);
+        }
+        return ensured;
+    }
+
+    /**
+     * Explain the query of every repository method
+     * Returns a list of problems (empty when every query uses an index)
+     */
+    public List<String> verifyQueries() {
+        List<String> problems = new ArrayList<>();
+        List<QueryProbe> probes = probes(problems);
+
+        List<String> collscans = new ArrayList<>();
+        for (QueryProbe probe : probes) {
+            try {
+                Document plan = mongoTemplate.getCollection(probe.collection)
+                        .find(probe.filter)
+                        .sort(probe.sort)
+                        .limit(1)
+                        .explain();
+                if (containsStage(plan.get("queryPlanner"), "COLLSCAN")) {
+                    collscans.add(probe.name);
+                    problems.add(probe.name + ": COLLSCAN");
+                }
+            } catch (Exception e) {
+                problems.add(probe.name + ": explain failed (" + e.getMessage() + ")");
+            }
+        }
+
+        if (problems.isEmpty()) {
+            logger.info("All {} repository query probes use an index", probes.size());
+        } else {
+            problems.forEach(problem -> logger.warn("Index check: {}", problem));
+        }
+
+        synchronized (lastReport) {
+            lastReport.put("probes", probes.size());
+            lastReport.put("collscans", collscans);
+            lastReport.put("problems", problems);
+            lastReport.put("verifiedAt", LocalDateTime.now());
+        }
+        return problems;
+    }
+
+    /**
+     * Result of the last build/verify run
+     */
+    public Map<String, Object> getReport() {
+        synchronized (lastReport) {
+            return new LinkedHashMap<>(lastReport);
+        }
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            for (Object value : document.values()) {
+                if (containsStage(value, stage)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object value : list) {
+                if (containsStage(value, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The query Spring Data runs for each method of the verified repositories
+     * Built from the method name or its @Query, bound to sample arguments and
+     * mapped to stored field names. Methods that cannot be derived are
+     * reported as problems.
+     */
+    List<QueryProbe> probes(List<String> problems) {
+        List<QueryProbe> probes = new ArrayList<>();
+        MongoOperations operations = mongoTemplate;
+        ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+
+        for (Class<?> repository : VERIFIED_REPOSITORIES) {
+            RepositoryMetadata metadata = AbstractRepositoryMetadata.getMetadata(repository);
+            for (Method method : repository.getDeclaredMethods()) {
+                if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = repository.getSimpleName() + "." + method.getName();
+                try {
+                    MongoQueryMethod queryMethod = new MongoQueryMethod(method, metadata, projectionFactory, mongoMappingContext);
+                    ConvertingParameterAccessor accessor = new ConvertingParameterAccessor(mongoTemplate.getConverter(),
+                            new MongoParametersParameterAccessor(queryMethod, sampleArguments(name, method)));
+                    Query query = queryMethod.hasAnnotatedQuery()
+                            ? new AnnotatedQuery(queryMethod, operations).create(accessor)
+                            : new DerivedQuery(queryMethod, operations).create(accessor);
+
+                    Document sort = query.getSortObject();
+                    if (sort.isEmpty() && queryMethod.hasAnnotatedSort()) {
+                        sort = Document.parse(queryMethod.getAnnotatedSort());
+                    }
+                    MongoPersistentEntity<?> entity = mongoMappingContext.getRequiredPersistentEntity(
+                            queryMethod.getEntityInformation().getJavaType());
+                    probes.add(new QueryProbe(name, entity.getCollection(),
+                            queryMapper.getMappedObject(query.getQueryObject(), entity),
+                            queryMapper.getMappedSort(sort, entity)));
+                } catch (Exception e) {
+                    problems.add(name + ": could not derive index probe (" + e.getMessage() + ")");
+                }
+            }
+        }
+        return probes;
+    }
+
+    /**
+     * A sample value for each parameter; only the filter's shape matters to the planner
+     */
+    private static Object[] sampleArguments(String name, Method method) {
+        LocalDateTime now = LocalDateTime.now();
+        Class<?>[] types = method.getParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (type == String.class) {
+                arguments[i] = SAMPLE_ID;
+            } else if (type == boolean.class || type == Boolean.class) {
+                arguments[i] = true;
+            } else if (type == int.class || type == Integer.class) {
+                arguments[i] = 1;
+            } else if (type == long.class || type == Long.class) {
+                arguments[i] = 1L;
+            } else if (type == LocalDateTime.class) {
+                arguments[i] = now.minusDays(types.length - i);
+            } else if (type.isEnum()) {
+                arguments[i] = type.getEnumConstants()[0];
+            } else if (Collection.class.isAssignableFrom(type)) {
+                arguments[i] = List.of(SAMPLE_ID);
+            } else if (type == Pageable.class) {
+                arguments[i] = PageRequest.of(0, 1, CALLER_SORTS.getOrDefault(name, Sort.unsorted()));
+            } else if (type == Sort.class) {
+                arguments[i] = CALLER_SORTS.getOrDefault(name, Sort.unsorted());
+            } else {
+                throw new IllegalArgumentException("no sample value for " + type.getSimpleName());
+            }
+        }
+        return arguments;
+    }
+
+    // Exposes the query a name-derived repository method builds
+    private static class DerivedQuery extends PartTreeMongoQuery {
+        DerivedQuery(MongoQueryMethod method, MongoOperations operations) {
+            super(method, operations, EXPRESSION_PARSER, QueryMethodEvaluationContextProvider.DEFAULT);
+        }
+
+        Query create(ConvertingParameterAccessor accessor) {
+            return createQuery(accessor);
+        }
+    }
+
+    // Exposes the query an @Query repository method builds
+    private static class AnnotatedQuery extends StringBasedMongoQuery {
+        AnnotatedQuery(MongoQueryMethod method, MongoOperations operations) {
+            super(method, operations, EXPRESSION_PARSER, QueryMethodEvaluationContextProvider.DEFAULT);
+        }
+
+        Query create(ConvertingParameterAccessor accessor) {
+            return createQuery(accessor);
+        }
+    }
+
+    static class QueryProbe {
+        final String name;
+        final String collection;
+        final Document filter;
+        final Document sort;
+
+        QueryProbe(String name, String collection, Document filter, Document sort) {
+            this.name = name;
+            this.collection = collection;
+            this.filter = filter;
+            this.sort = sort;
+        }
+    }
+}
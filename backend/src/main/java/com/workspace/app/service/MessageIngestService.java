@@ -0,0 +1,318 @@
+package com.workspace.app.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.workspace.app.model.Message;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Write-behind ingest stage for chat messages
+ * Collects messages from the send paths and persists them with a single
+ * unordered bulk insert per batch. Each caller gets a future that completes
+ * once its message is durable, so broadcasts never run ahead of the
+ * database; a message rejected by the insert fails only its own future.
+ * Futures are completed on completion threads striped by room, so callers'
+ * callbacks stay in order per room without holding up the next flush.
+ */
+@Service
+public class MessageIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageIngestService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private RecentMessageBuffer recentMessageBuffer;
+
+    @Value("${chat.ingest.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${chat.ingest.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${chat.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.ingest.completion-threads:4}")
+    private int completionThreads;
+
+    private BlockingQueue<PendingMessage> queue;
+    private Thread flusher;
+    private ThreadPoolTaskExecutor[] completers;
+    private volatile boolean running;
+
+    // Batch metrics
+    private final AtomicLong batchesFlushed = new AtomicLong();
+    private final AtomicLong messagesFlushed = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private final AtomicLong sizeFlushes = new AtomicLong();
+    private final AtomicLong latencyFlushes = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        // One thread per stripe keeps a room's completions in order; a full stripe makes the flusher wait
+        completers = new ThreadPoolTaskExecutor[Math.max(1, completionThreads)];
+        for (int i = 0; i < completers.length; i++) {
+            ThreadPoolTaskExecutor completer = new ThreadPoolTaskExecutor();
+            completer.setCorePoolSize(1);
+            completer.setMaxPoolSize(1);
+            completer.setQueueCapacity(queueCapacity);
+            completer.setThreadNamePrefix("message-ingest-complete-" + i + "-");
+            completer.setDaemon(true);
+            completer.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            completer.setWaitForTasksToCompleteOnShutdown(true);
+            completer.setAwaitTerminationSeconds(5);
+            completer.initialize();
+            completers[i] = completer;
+        }
+
+        running = true;
+        flusher = new Thread(this::runFlushLoop, "message-ingest-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Message ingest started (maxBatchSize={}, flushIntervalMs={}, queueCapacity={}, completionThreads={})",
+                maxBatchSize, flushIntervalMs, queueCapacity, completers.length);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Let the flusher finish its current batch instead of interrupting Mongo I/O
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Persist anything that arrived after the flusher exited
+        List<PendingMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        while (!remaining.isEmpty()) {
+            int end = Math.min(maxBatchSize, remaining.size());
+            flush(new ArrayList<>(remaining.subList(0, end)));
+            remaining.subList(0, end).clear();
+        }
+
+        for (ThreadPoolTaskExecutor completer : completers) {
+            completer.shutdown();
+        }
+    }
+
+    /**
+     * Queue a message for persistence
+     * The returned future completes with the saved message (id populated)
+     */
+    public CompletableFuture<Message> submit(Message message) {
+        CompletableFuture<Message> future = new CompletableFuture<>();
+
+        if (!running) {
+            future.completeExceptionally(new RuntimeException("Message ingest is shut down!"));
+            return future;
+        }
+
+        if (!queue.offer(new PendingMessage(message, future))) {
+            future.completeExceptionally(new RuntimeException("Server is busy, please try again!"));
+        }
+
+        return future;
+    }
+
+    /**
+     * Collect a batch bounded by size and latency, then flush it
+     */
+    private void runFlushLoop() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+
+        while (running) {
+            try {
+                PendingMessage first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    if (batch.size() >= maxBatchSize) {
+                        break;
+                    }
+
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+
+                    PendingMessage next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                if (batch.size() >= maxBatchSize) {
+                    sizeFlushes.incrementAndGet();
+                } else {
+                    latencyFlushes.incrementAndGet();
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in message ingest loop: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Persist a batch with a single unordered bulk insert and complete its futures
+     */
+    private void flush(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            // Bulk inserts do not write generated ids back, so assign them up front
+            if (pending.message.getId() == null) {
+                pending.message.setId(new ObjectId().toHexString());
+            }
+            messages.add(pending.message);
+        }
+
+        // Position in the batch -> why that message was rejected
+        Map<Integer, RuntimeException> rejected = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class)
+                    .insert(messages)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                rejected.put(error.getIndex(), new RuntimeException("Message was not saved: " + error.getMessage()));
+            }
+            failedMessages.addAndGet(rejected.size());
+            logger.error("{} of {} messages in batch were not saved: {}", rejected.size(), batch.size(), e.getMessage());
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            failedMessages.addAndGet(batch.size());
+            logger.error("Failed to persist message batch of {}: {}", batch.size(), e.getMessage(), e);
+            complete(batch, index -> e);
+            return;
+        }
+
+        batchesFlushed.incrementAndGet();
+        messagesFlushed.addAndGet(batch.size() - rejected.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (!rejected.containsKey(i)) {
+                recentMessageBuffer.append(batch.get(i).message);
+            }
+        }
+        complete(batch, rejected::get);
+
+        // Record room activity; the tracker coalesces it into one update per room
+        for (int i = 0; i < batch.size(); i++) {
+            if (!rejected.containsKey(i)) {
+                Message message = batch.get(i).message;
+                roomService.updateRoomLastMessageTime(message.getRoomId(), message.getCreatedAt());
+            }
+        }
+    }
+
+    /**
+     * Hand each future to its room's completion stripe, in batch order
+     * A null error completes the future with its saved message.
+     */
+    private void complete(List<PendingMessage> batch, IntFunction<? extends Exception> errors) {
+        List<List<Runnable>> stripes = new ArrayList<>(completers.length);
+        for (int i = 0; i < completers.length; i++) {
+            stripes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage pending = batch.get(i);
+            Exception error = errors.apply(i);
+            int stripe = Math.floorMod(String.valueOf(pending.message.getRoomId()).hashCode(), completers.length);
+            stripes.get(stripe).add(error == null
+                    ? () -> pending.future.complete(pending.message)
+                    : () -> pending.future.completeExceptionally(error));
+        }
+        for (int i = 0; i < completers.length; i++) {
+            List<Runnable> completions = stripes.get(i);
+            if (!completions.isEmpty()) {
+                completers[i].execute(() -> completions.forEach(Runnable::run));
+            }
+        }
+    }
+
+    /**
+     * Batch size metrics
+     */
+    public Map<String, Object> getStats() {
+        long batches = batchesFlushed.get();
+        long messages = messagesFlushed.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("batchesFlushed", batches);
+        stats.put("messagesFlushed", messages);
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("failedMessages", failedMessages.get());
+        stats.put("averageBatchSize", batches == 0 ? 0.0 : (double) messages / batches);
+        stats.put("largestBatch", largestBatch.get());
+        stats.put("sizeTriggeredFlushes", sizeFlushes.get());
+        stats.put("latencyTriggeredFlushes", latencyFlushes.get());
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("flushIntervalMs", flushIntervalMs);
+        return stats;
+    }
+
+    private static class PendingMessage {
+        private final Message message;
+        private final CompletableFuture<Message> future;
+
+        PendingMessage(Message message, CompletableFuture<Message> future) {
+            this.message = message;
+            this.future = future;
+        }
+    }
+}
@@ -1,19 +1,29 @@
 package com.workspace.app.service;
 
+import com.workspace.app.dto.MessageCursor;
 import com.workspace.app.dto.MessageRequest;
+import com.workspace.app.dto.MessageSlice;
+import com.workspace.app.dto.UserSummary;
 import com.workspace.app.model.Message;
-import com.workspace.app.model.Room;
-import com.workspace.app.model.User;
 import com.workspace.app.repository.MessageRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class for message management and chat operations
@@ -30,17 +40,43 @@ public class MessageService {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private MessageIngestService messageIngestService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private RecentMessageBuffer recentMessageBuffer;
+    
+    private static final int MAX_HISTORY_LIMIT = 100;
+    
     /**
-     * Send a message to a room
+     * Send a message to a room and wait until it is persisted
      */
     public Message sendMessage(MessageRequest request, String senderId) {
+        try {
+            return sendMessageAsync(request, senderId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to save message!", e.getCause());
+        }
+    }
+    
+    /**
+     * Send a message to a room through the write-behind ingest stage
+     * The returned future completes once the message is durable
+     */
+    public CompletableFuture<Message> sendMessageAsync(MessageRequest request, String senderId) {
         // Validate room exists and user is a member
-        Optional<Room> roomOptional = roomService.getRoomById(request.getRoomId());
+        Optional<RoomAclCache.RoomAcl> roomOptional = roomService.getRoomAcl(request.getRoomId());
         if (roomOptional.isEmpty()) {
             throw new RuntimeException("Room not found!");
         }
         
-        Room room = roomOptional.get();
+        RoomAclCache.RoomAcl room = roomOptional.get();
         if (!room.isActive()) {
             throw new RuntimeException("Room is not active!");
         }
@@ -50,12 +86,12 @@ public class MessageService {
         }
         
         // Get sender information
-        Optional<User> senderOptional = userService.getUserById(senderId);
+        Optional<UserSummary> senderOptional = userService.getUserSummary(senderId);
         if (senderOptional.isEmpty()) {
             throw new RuntimeException("Sender not found!");
         }
         
-        User sender = senderOptional.get();
+        UserSummary sender = senderOptional.get();
         
         // Create message
         Message message = new Message();
@@ -67,13 +103,8 @@ public class MessageService {
         message.setCreatedAt(LocalDateTime.now());
         message.setType(Message.MessageType.TEXT);
         
-        // Save message
-        Message savedMessage = messageRepository.save(message);
-        
-        // Update room's last message time
-        roomService.updateRoomLastMessageTime(request.getRoomId());
-        
-        return savedMessage;
+        // Queue for batched insert (room's last message time is bumped per batch)
+        return messageIngestService.submit(message);
     }
     
     /**
@@ -89,6 +120,69 @@ public class MessageService {
         return messageRepository.findByRoomIdAndIsDeletedFalseOrderByCreatedAtDesc(roomId, pageable);
     }
     
+    /**
+     * Get a slice of room history using a keyset cursor
+     * "before" walks back to older messages, "after" forward to newer ones;
+     * with neither, the newest messages are returned. Each page is an index
+     * range scan on (roomId, isDeleted, createdAt, _id) with no count query.
+     */
+    public MessageSlice getRoomHistory(String roomId, String before, String after, int limit, String userId) {
+        // Verify user is a member of the room
+        if (!roomService.isUserMemberOfRoom(userId, roomId)) {
+            throw new RuntimeException("User is not a member of this room!");
+        }
+        
+        if (before != null && after != null) {
+            throw new RuntimeException("Use either 'before' or 'after', not both!");
+        }
+        
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+        boolean forward = after != null;
+        
+        Criteria criteria = Criteria.where("roomId").is(roomId).and("isDeleted").is(false);
+        
+        String cursorToken = forward ? after : before;
+        if (cursorToken != null) {
+            MessageCursor cursor = MessageCursor.decode(cursorToken);
+            Object cursorId = ObjectId.isValid(cursor.getId()) ? new ObjectId(cursor.getId()) : cursor.getId();
+            
+            // (createdAt, _id) tuple comparison, bounded on createdAt so it stays a range scan
+            if (forward) {
+                criteria.and("createdAt").gte(cursor.getCreatedAt()).orOperator(
+                    Criteria.where("createdAt").gt(cursor.getCreatedAt()),
+                    Criteria.where("_id").gt(cursorId)
+                );
+            } else {
+                criteria.and("createdAt").lte(cursor.getCreatedAt()).orOperator(
+                    Criteria.where("createdAt").lt(cursor.getCreatedAt()),
+                    Criteria.where("_id").lt(cursorId)
+                );
+            }
+        }
+        
+        Sort.Direction direction = forward ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Query query = new Query(criteria)
+                .with(Sort.by(direction, "createdAt").and(Sort.by(direction, "_id")))
+                .limit(pageSize + 1);
+        
+        List<Message> messages = mongoTemplate.find(query, Message.class);
+        
+        boolean hasMore = messages.size() > pageSize;
+        if (hasMore) {
+            messages = messages.subList(0, pageSize);
+        }
+        
+        String nextCursor = messages.isEmpty() ? null : MessageCursor.of(messages.get(messages.size() - 1)).encode();
+        
+        if (forward) {
+            // Keep newest-first ordering regardless of direction
+            messages = new ArrayList<>(messages);
+            Collections.reverse(messages);
+        }
+        
+        return new MessageSlice(messages, hasMore, nextCursor);
+    }
+    
     /**
      * Get recent messages for a room (last 50)
      */
@@ -98,7 +192,7 @@ public class MessageService {
             throw new RuntimeException("User is not a member of this room!");
         }
         
-        return messageRepository.findTop50ByRoomIdAndIsDeletedFalseOrderByCreatedAtDesc(roomId);
+        return recentMessageBuffer.getRecent(roomId);
     }
     
     /**
@@ -131,7 +225,10 @@ public class MessageService {
         message.setText(newText);
         message.markAsEdited();
         
-        return messageRepository.save(message);
+        Message savedMessage = messageRepository.save(message);
+        recentMessageBuffer.update(savedMessage);
+        
+        return savedMessage;
     }
     
     /**
@@ -160,7 +257,10 @@ public class MessageService {
         // Mark message as deleted
         message.markAsDeleted();
         
-        return messageRepository.save(message);
+        Message savedMessage = messageRepository.save(message);
+        recentMessageBuffer.update(savedMessage);
+        
+        return savedMessage;
     }
     
     /**
@@ -218,16 +318,14 @@ public class MessageService {
      * Get latest message in a room
      */
     public Optional<Message> getLatestMessageInRoom(String roomId) {
-        Message latestMessage = messageRepository.findTopByRoomIdAndIsDeletedFalseOrderByCreatedAtDesc(roomId);
-        return Optional.ofNullable(latestMessage);
+        return recentMessageBuffer.getLatest(roomId);
     }
     
     /**
      * Send system message
      */
     public Message sendSystemMessage(String roomId, String text) {
-        Optional<Room> roomOptional = roomService.getRoomById(roomId);
-        if (roomOptional.isEmpty()) {
+        if (roomService.getRoomAcl(roomId).isEmpty()) {
             throw new RuntimeException("Room not found!");
         }
         
@@ -235,6 +333,7 @@ public class MessageService {
         
         // Save message
         Message savedMessage = messageRepository.save(systemMessage);
+        recentMessageBuffer.append(savedMessage);
         
         // Update room's last message time
         roomService.updateRoomLastMessageTime(roomId);
@@ -247,29 +346,30 @@ public class MessageService {
      */
     public Message sendVideoCallStartMessage(String roomId, String senderId, String videoCallData) {
         // Validate room exists and user is a member
-        Optional<Room> roomOptional = roomService.getRoomById(roomId);
+        Optional<RoomAclCache.RoomAcl> roomOptional = roomService.getRoomAcl(roomId);
         if (roomOptional.isEmpty()) {
             throw new RuntimeException("Room not found!");
         }
         
-        Room room = roomOptional.get();
+        RoomAclCache.RoomAcl room = roomOptional.get();
         if (!room.isMember(senderId)) {
             throw new RuntimeException("User is not a member of this room!");
         }
         
         // Get sender information
-        Optional<User> senderOptional = userService.getUserById(senderId);
+        Optional<UserSummary> senderOptional = userService.getUserSummary(senderId);
         if (senderOptional.isEmpty()) {
             throw new RuntimeException("Sender not found!");
         }
         
-        User sender = senderOptional.get();
+        UserSummary sender = senderOptional.get();
         
         // Create video call start message
         Message message = Message.createVideoCallStartMessage(roomId, senderId, sender.getUsername(), videoCallData);
         
         // Save message
         Message savedMessage = messageRepository.save(message);
+        recentMessageBuffer.append(savedMessage);
         
         // Update room's last message time
         roomService.updateRoomLastMessageTime(roomId);
@@ -282,29 +382,30 @@ public class MessageService {
      */
     public Message sendVideoCallEndMessage(String roomId, String senderId, String videoCallData) {
         // Validate room exists and user is a member
-        Optional<Room> roomOptional = roomService.getRoomById(roomId);
+        Optional<RoomAclCache.RoomAcl> roomOptional = roomService.getRoomAcl(roomId);
         if (roomOptional.isEmpty()) {
             throw new RuntimeException("Room not found!");
         }
         
-        Room room = roomOptional.get();
+        RoomAclCache.RoomAcl room = roomOptional.get();
         if (!room.isMember(senderId)) {
             throw new RuntimeException("User is not a member of this room!");
         }
         
         // Get sender information
-        Optional<User> senderOptional = userService.getUserById(senderId);
+        Optional<UserSummary> senderOptional = userService.getUserSummary(senderId);
         if (senderOptional.isEmpty()) {
             throw new RuntimeException("Sender not found!");
         }
         
-        User sender = senderOptional.get();
+        UserSummary sender = senderOptional.get();
         
         // Create video call end message
         Message message = Message.createVideoCallEndMessage(roomId, senderId, sender.getUsername(), videoCallData);
         
         // Save message
         Message savedMessage = messageRepository.save(message);
+        recentMessageBuffer.append(savedMessage);
         
         // Update room's last message time
         roomService.updateRoomLastMessageTime(roomId);
@@ -334,5 +435,6 @@ public class MessageService {
         }
         
         messageRepository.deleteByRoomId(roomId);
+        recentMessageBuffer.invalidate(roomId);
     }
 }
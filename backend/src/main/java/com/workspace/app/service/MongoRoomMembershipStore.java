@@ -0,0 +1,108 @@
+package com.workspace.app.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.workspace.app.model.RoomMember;
+import com.workspace.app.repository.RoomMemberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Room memberships in the room_members collection
+ * The unique (roomId, userId) index makes adds idempotent and race-free.
+ */
+@Service
+public class MongoRoomMembershipStore implements RoomMembershipStore {
+
+    @Autowired
+    private RoomMemberRepository roomMemberRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean addMember(String roomId, String userId, String role) {
+        try {
+            mongoTemplate.insert(new RoomMember(roomId, userId, role));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean removeMember(String roomId, String userId) {
+        return roomMemberRepository.deleteByRoomIdAndUserIdAndRole(roomId, userId, RoomMember.ROLE_MEMBER) > 0;
+    }
+
+    @Override
+    public boolean isMember(String roomId, String userId) {
+        return roomMemberRepository.existsByRoomIdAndUserId(roomId, userId);
+    }
+
+    @Override
+    public Optional<RoomMember> getMember(String roomId, String userId) {
+        return Optional.ofNullable(mongoTemplate.findOne(membership(roomId, userId), RoomMember.class));
+    }
+
+    @Override
+    public void setRole(String roomId, String userId, String role) {
+        mongoTemplate.updateFirst(membership(roomId, userId), new Update().set("role", role), RoomMember.class);
+    }
+
+    @Override
+    public Page<RoomMember> getMembers(String roomId, int page, int size) {
+        return roomMemberRepository.findByRoomIdOrderByJoinedAtAsc(roomId, PageRequest.of(page, size));
+    }
+
+    @Override
+    public List<String> getMemberIds(String roomId) {
+        return roomMemberRepository.findUserIdsByRoomId(roomId).stream()
+                .map(RoomMember::getUserId)
+                .toList();
+    }
+
+    @Override
+    public List<String> getRoomIdsOfUser(String userId) {
+        return roomMemberRepository.findRoomIdsByUserId(userId).stream()
+                .map(RoomMember::getRoomId)
+                .toList();
+    }
+
+    @Override
+    public long countMembers(String roomId) {
+        return roomMemberRepository.countByRoomId(roomId);
+    }
+
+    @Override
+    public int importMembers(String roomId, String adminId, Collection<String> userIds, LocalDateTime joinedAt) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RoomMember.class);
+        for (String userId : userIds) {
+            String role = userId.equals(adminId) ? RoomMember.ROLE_ADMIN : RoomMember.ROLE_MEMBER;
+            bulk.upsert(membership(roomId, userId), new Update()
+                    .setOnInsert("role", role)
+                    .setOnInsert("joinedAt", joinedAt != null ? joinedAt : LocalDateTime.now()));
+        }
+        BulkWriteResult result = bulk.execute();
+        return result.getUpserts().size();
+    }
+
+    private static Query membership(String roomId, String userId) {
+        return new Query(Criteria.where("roomId").is(roomId).and("userId").is(userId));
+    }
+}
@@ -0,0 +1,230 @@
+package com.workspace.app.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.workspace.app.model.Message;
+import com.workspace.app.repository.MessageRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory tail of the most recent messages per active room
+ * A room's buffer is filled from Mongo on first read, then kept current by
+ * the send, edit and delete paths. Idle rooms are evicted under a global
+ * memory budget. Buffers are immutable snapshots, replaced on every change
+ * so the cache can re-weigh them. In relay mode each change is also applied
+ * to the other nodes' buffers through the cluster event bus.
+ */
+@Component
+public class RecentMessageBuffer {
+
+    // Rough per-message overhead (object headers, ids, dates, enum)
+    private static final int MESSAGE_OVERHEAD_BYTES = 256;
+
+    // Cluster events
+    private static final String APPENDED = "recent.appended";
+    private static final String UPDATED = "recent.updated";
+    private static final String INVALIDATED = "recent.invalidated";
+
+    private static final TypeReference<Map<String, Object>> FIELDS_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${chat.recent-buffer.size:50}")
+    private int bufferSize;
+
+    @Value("${chat.recent-buffer.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${chat.recent-buffer.expire-after-access-minutes:30}")
+    private long expireAfterAccessMinutes;
+
+    private Cache<String, List<Message>> buffers;
+
+    @PostConstruct
+    public void init() {
+        buffers = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String roomId, List<Message> messages) -> weigh(messages))
+                .expireAfterAccess(Duration.ofMinutes(expireAfterAccessMinutes))
+                .recordStats()
+                .build();
+
+        clusterEventBus.subscribe(APPENDED, event -> appendLocally(fromEvent(event)));
+        clusterEventBus.subscribe(UPDATED, event -> updateLocally(fromEvent(event)));
+        clusterEventBus.subscribe(INVALIDATED, event -> buffers.invalidate((String) event.get("roomId")));
+        // Buffers may have missed changes; they are reloaded from Mongo on next read
+        clusterEventBus.onResync(() -> buffers.invalidateAll());
+    }
+
+    /**
+     * Most recent messages in a room, newest first
+     */
+    public List<Message> getRecent(String roomId) {
+        return buffers.get(roomId, this::load);
+    }
+
+    /**
+     * Latest message in a room
+     */
+    public Optional<Message> getLatest(String roomId) {
+        List<Message> messages = getRecent(roomId);
+        return messages.isEmpty() ? Optional.empty() : Optional.of(messages.get(0));
+    }
+
+    /**
+     * Add a newly persisted message to its room's buffer, if the room is buffered
+     */
+    public void append(Message message) {
+        if (message == null || message.getRoomId() == null || message.isDeleted()) {
+            return;
+        }
+        appendLocally(message);
+        publish(APPENDED, message);
+    }
+
+    /**
+     * Replace an edited message, or drop a deleted one
+     */
+    public void update(Message message) {
+        if (message == null || message.getRoomId() == null) {
+            return;
+        }
+        updateLocally(message);
+        publish(UPDATED, message);
+    }
+
+    /**
+     * Forget a room's buffer (it is reloaded on next read)
+     */
+    public void invalidate(String roomId) {
+        if (roomId != null) {
+            buffers.invalidate(roomId);
+            clusterEventBus.publish(INVALIDATED, Map.of("roomId", roomId));
+        }
+    }
+
+    private void appendLocally(Message message) {
+        buffers.asMap().computeIfPresent(message.getRoomId(), (roomId, current) -> {
+            List<Message> updated = new ArrayList<>(current.size() + 1);
+            boolean inserted = false;
+            for (Message existing : current) {
+                if (existing.getId() != null && existing.getId().equals(message.getId())) {
+                    // Already present (loaded from Mongo after it was persisted)
+                    return current;
+                }
+                if (!inserted && isNewerOrEqual(message, existing)) {
+                    updated.add(message);
+                    inserted = true;
+                }
+                updated.add(existing);
+            }
+            if (!inserted) {
+                updated.add(message);
+            }
+            return trim(updated);
+        });
+    }
+
+    private void updateLocally(Message message) {
+        buffers.asMap().computeIfPresent(message.getRoomId(), (roomId, current) -> {
+            List<Message> updated = new ArrayList<>(current.size());
+            boolean changed = false;
+            for (Message existing : current) {
+                if (existing.getId() != null && existing.getId().equals(message.getId())) {
+                    changed = true;
+                    if (!message.isDeleted()) {
+                        updated.add(message);
+                    }
+                } else {
+                    updated.add(existing);
+                }
+            }
+            return changed ? Collections.unmodifiableList(updated) : current;
+        });
+    }
+
+    /**
+     * Buffer counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rooms", buffers.estimatedSize());
+        stats.put("estimatedBytes", buffers.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L));
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", buffers.stats().hitCount());
+        stats.put("misses", buffers.stats().missCount());
+        stats.put("evictions", buffers.stats().evictionCount());
+        return stats;
+    }
+
+    private void publish(String type, Message message) {
+        if (clusterEventBus.isClustered()) {
+            clusterEventBus.publish(type, Map.of("message", objectMapper.convertValue(message, FIELDS_TYPE)));
+        }
+    }
+
+    private Message fromEvent(Map<String, Object> event) {
+        return objectMapper.convertValue(event.get("message"), Message.class);
+    }
+
+    private List<Message> load(String roomId) {
+        List<Message> messages = messageRepository.findByRoomIdAndIsDeletedFalse(
+                roomId, PageRequest.of(0, bufferSize, Sort.by(Sort.Direction.DESC, "createdAt")));
+        return trim(new ArrayList<>(messages));
+    }
+
+    private List<Message> trim(List<Message> messages) {
+        if (messages.size() > bufferSize) {
+            messages = new ArrayList<>(messages.subList(0, bufferSize));
+        }
+        return Collections.unmodifiableList(messages);
+    }
+
+    private static boolean isNewerOrEqual(Message candidate, Message existing) {
+        LocalDateTime candidateTime = candidate.getCreatedAt();
+        LocalDateTime existingTime = existing.getCreatedAt();
+        if (candidateTime == null || existingTime == null) {
+            return true;
+        }
+        return !candidateTime.isBefore(existingTime);
+    }
+
+    private static int weigh(List<Message> messages) {
+        long bytes = 64;
+        for (Message message : messages) {
+            bytes += MESSAGE_OVERHEAD_BYTES;
+            if (message.getText() != null) {
+                bytes += 2L * message.getText().length();
+            }
+            if (message.getVideoCallData() != null) {
+                bytes += 2L * message.getVideoCallData().length();
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
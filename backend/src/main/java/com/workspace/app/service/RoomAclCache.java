@@ -0,0 +1,201 @@
+package com.workspace.app.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.workspace.app.model.Room;
+import com.workspace.app.repository.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through cache of room access-control snapshots
+ * Answers membership and admin checks from memory; RoomService invalidates
+ * an entry whenever it mutates the room's admin or status, and reports
+ * joins and leaves so RoomMembershipIndex is updated in place. Members are
+ * not copied into the snapshot: loading a room refreshes its bitmap in the
+ * index, which then answers membership checks. In relay mode the same
+ * changes are published to the other nodes' caches.
+ */
+@Component
+public class RoomAclCache {
+
+    private static final String MEMBER_JOINED = "room.member-joined";
+    private static final String MEMBER_LEFT = "room.member-left";
+    private static final String INVALIDATED = "room.invalidated";
+
+    // A load is retried when a join or leave lands while it reads the room
+    private static final int MAX_LOAD_ATTEMPTS = 5;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomMembershipStore roomMembershipStore;
+
+    @Autowired
+    private RoomMembershipIndex roomMembershipIndex;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Value("${room.acl-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${room.acl-cache.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    private LoadingCache<String, RoomAcl> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build(this::load);
+
+        clusterEventBus.subscribe(MEMBER_JOINED, event ->
+                roomMembershipIndex.addMember((String) event.get("roomId"), (String) event.get("userId")));
+        clusterEventBus.subscribe(MEMBER_LEFT, event ->
+                roomMembershipIndex.removeMember((String) event.get("roomId"), (String) event.get("userId")));
+        clusterEventBus.subscribe(INVALIDATED, event -> cache.invalidate((String) event.get("roomId")));
+    }
+
+    /**
+     * Get the ACL snapshot for a room, loading it on a miss
+     */
+    public Optional<RoomAcl> get(String roomId) {
+        if (roomId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(roomId));
+    }
+
+    /**
+     * Drop a room's snapshot after it has been mutated
+     */
+    public void invalidate(String roomId) {
+        if (roomId != null) {
+            cache.invalidate(roomId);
+            clusterEventBus.publish(INVALIDATED, Map.of("roomId", roomId));
+        }
+    }
+
+    private RoomAcl load(String roomId) {
+        for (int attempt = 1; ; attempt++) {
+            long readSequence = roomMembershipIndex.currentSequence();
+            Room room = roomRepository.findById(roomId).orElse(null);
+            if (room == null) {
+                return null;
+            }
+            // Rooms not migrated yet still carry their members inline
+            Collection<String> members = room.hasEmbeddedMembers()
+                    ? room.getMembers()
+                    : roomMembershipStore.getMemberIds(roomId);
+            if (roomMembershipIndex.loadRoom(roomId, members, readSequence)) {
+                return RoomAcl.from(room, roomMembershipIndex);
+            }
+            if (attempt == MAX_LOAD_ATTEMPTS) {
+                throw new RuntimeException("Room membership kept changing while loading!");
+            }
+        }
+    }
+
+    /**
+     * Record a join without reloading the room
+     */
+    public void memberJoined(String roomId, String userId) {
+        roomMembershipIndex.addMember(roomId, userId);
+        clusterEventBus.publish(MEMBER_JOINED, Map.of("roomId", roomId, "userId", userId));
+    }
+
+    /**
+     * Record a leave without reloading the room
+     */
+    public void memberLeft(String roomId, String userId) {
+        roomMembershipIndex.removeMember(roomId, userId);
+        clusterEventBus.publish(MEMBER_LEFT, Map.of("roomId", roomId, "userId", userId));
+    }
+
+    /**
+     * Hit/miss counters for sizing the cache
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    /**
+     * Access-control view of a room; membership is answered by the index
+     */
+    public static final class RoomAcl {
+        private final String roomId;
+        private final String adminId;
+        private final RoomMembershipIndex members;
+        private final boolean active;
+        private final boolean videoCallEnabled;
+
+        private RoomAcl(String roomId, String adminId, RoomMembershipIndex members, boolean active, boolean videoCallEnabled) {
+            this.roomId = roomId;
+            this.adminId = adminId;
+            this.members = members;
+            this.active = active;
+            this.videoCallEnabled = videoCallEnabled;
+        }
+
+        static RoomAcl from(Room room, RoomMembershipIndex members) {
+            return new RoomAcl(
+                room.getId(),
+                room.getAdminId(),
+                members,
+                room.isActive(),
+                room.isVideoCallEnabled()
+            );
+        }
+
+        public String getRoomId() {
+            return roomId;
+        }
+
+        public String getAdminId() {
+            return adminId;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public boolean isVideoCallEnabled() {
+            return videoCallEnabled;
+        }
+
+        public int getMemberCount() {
+            return members.countMembers(roomId);
+        }
+
+        public boolean isMember(String userId) {
+            return userId != null && members.isMember(roomId, userId);
+        }
+
+        public boolean isAdmin(String userId) {
+            return adminId != null && adminId.equals(userId);
+        }
+    }
+}
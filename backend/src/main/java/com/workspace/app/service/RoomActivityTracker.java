@@ -0,0 +1,115 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces room activity timestamps in memory
+ * Each interval, every touched room gets a single atomic $max update on
+ * lastMessageAt, so room documents are never loaded or rewritten just to
+ * record that a message was sent.
+ */
+@Service
+public class RoomActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomActivityTracker.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong touches = new AtomicLong();
+    private final AtomicLong roomsFlushed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    /**
+     * Record activity in a room (keeps the latest timestamp)
+     */
+    public void touch(String roomId, LocalDateTime timestamp) {
+        if (roomId == null || timestamp == null) {
+            return;
+        }
+        touches.incrementAndGet();
+        keepLatest(roomId, timestamp);
+    }
+
+    /**
+     * Flush pending timestamps with one bulk write
+     */
+    @Scheduled(fixedDelayString = "${room.activity.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> roomIds = new ArrayList<>(pending.keySet());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Room.class);
+        Map<String, LocalDateTime> batch = new LinkedHashMap<>();
+
+        for (String roomId : roomIds) {
+            LocalDateTime timestamp = pending.remove(roomId);
+            if (timestamp == null) {
+                continue;
+            }
+            batch.put(roomId, timestamp);
+            bulk.updateOne(
+                new Query(Criteria.where("_id").is(roomId)),
+                new Update().max("lastMessageAt", timestamp)
+            );
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            bulk.execute();
+            flushes.incrementAndGet();
+            roomsFlushed.addAndGet(batch.size());
+        } catch (Exception e) {
+            logger.error("Failed to flush room activity for {} rooms: {}", batch.size(), e.getMessage(), e);
+            // Put the timestamps back so the next tick retries them; $max makes a repeat harmless
+            batch.forEach(this::keepLatest);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void keepLatest(String roomId, LocalDateTime timestamp) {
+        pending.merge(roomId, timestamp, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * Coalescing metrics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingRooms", pending.size());
+        stats.put("touches", touches.get());
+        stats.put("flushes", flushes.get());
+        stats.put("roomsFlushed", roomsFlushed.get());
+        return stats;
+    }
+}
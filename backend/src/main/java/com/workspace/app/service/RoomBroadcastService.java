@@ -0,0 +1,201 @@
+package com.workspace.app.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers room messages on /topic/room/{roomId}
+ * Quiet rooms get one frame per message. When batching is enabled and a
+ * room goes over the rate threshold, its messages are coalesced for one
+ * window and sent as a single JSON array frame (header "x-batch" carries
+ * the count). The room drops back to single frames once its rate falls
+ * below half the threshold. Subscribers that negotiated compact encoding
+ * get the same frames as CBOR on the room's /cbor destination.
+ */
+@Service
+public class RoomBroadcastService {
+
+    public static final String BATCH_HEADER = "x-batch";
+
+    private static final long RATE_BUCKET_MS = 1000;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private CompactPayloadService compactPayloadService;
+
+    @Value("${chat.batching.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.batching.threshold-per-second:20}")
+    private int thresholdPerSecond;
+
+    @Value("${chat.batching.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${chat.batching.idle-room-ms:60000}")
+    private long idleRoomMs;
+
+    private final Map<String, RoomStream> rooms = new ConcurrentHashMap<>();
+
+    // Rooms with messages waiting for the next window
+    private final Set<String> pendingRooms = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong singleFrames = new AtomicLong();
+    private final AtomicLong batchFrames = new AtomicLong();
+    private final AtomicLong batchedMessages = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    /**
+     * Send a message to everyone subscribed to the room
+     */
+    public void broadcast(String roomId, Object message) {
+        if (!enabled) {
+            send(roomId, message);
+            return;
+        }
+
+        RoomStream stream = rooms.computeIfAbsent(roomId, key -> new RoomStream());
+        synchronized (stream) {
+            long now = System.currentTimeMillis();
+            stream.count(now);
+
+            if (!stream.batching && stream.currentCount > thresholdPerSecond) {
+                stream.batching = true;
+            } else if (stream.batching && stream.previousCount < thresholdPerSecond / 2
+                    && stream.currentCount < thresholdPerSecond / 2) {
+                stream.batching = false;
+            }
+
+            if (stream.batching) {
+                stream.pending.add(message);
+                if (stream.pending.size() >= maxBatchSize) {
+                    flush(roomId, stream);
+                } else {
+                    pendingRooms.add(roomId);
+                }
+            } else if (!stream.pending.isEmpty()) {
+                // Keep order when leaving batch mode mid-window
+                stream.pending.add(message);
+                flush(roomId, stream);
+            } else {
+                send(roomId, message);
+            }
+        }
+    }
+
+    /**
+     * Send each batching room's coalesced messages once per window
+     */
+    @Scheduled(fixedRateString = "${chat.batching.window-ms:30}")
+    public void flushPending() {
+        if (pendingRooms.isEmpty()) {
+            return;
+        }
+        for (String roomId : new ArrayList<>(pendingRooms)) {
+            pendingRooms.remove(roomId);
+            RoomStream stream = rooms.get(roomId);
+            if (stream != null) {
+                synchronized (stream) {
+                    flush(roomId, stream);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget rate state of rooms that have gone quiet
+     */
+    @Scheduled(fixedDelayString = "${chat.batching.idle-room-ms:60000}")
+    public void pruneIdleRooms() {
+        long cutoff = System.currentTimeMillis() - idleRoomMs;
+        rooms.forEach((roomId, stream) -> {
+            synchronized (stream) {
+                if (stream.lastMessageAt < cutoff && stream.pending.isEmpty()) {
+                    rooms.remove(roomId, stream);
+                }
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        int batching = 0;
+        for (RoomStream stream : rooms.values()) {
+            if (stream.batching) {
+                batching++;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("trackedRooms", rooms.size());
+        stats.put("batchingRooms", batching);
+        stats.put("singleFrames", singleFrames.get());
+        stats.put("batchFrames", batchFrames.get());
+        stats.put("batchedMessages", batchedMessages.get());
+        stats.put("largestBatch", largestBatch.get());
+        return stats;
+    }
+
+    private void flush(String roomId, RoomStream stream) {
+        if (stream.pending.isEmpty()) {
+            return;
+        }
+        List<Object> batch = stream.pending;
+        stream.pending = new ArrayList<>();
+
+        if (batch.size() == 1) {
+            send(roomId, batch.get(0));
+            return;
+        }
+        messagingTemplate.convertAndSend("/topic/room/" + roomId, batch, Map.of(BATCH_HEADER, batch.size()));
+        compactPayloadService.publish(roomId, batch);
+        batchFrames.incrementAndGet();
+        batchedMessages.addAndGet(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+    }
+
+    private void send(String roomId, Object message) {
+        messagingTemplate.convertAndSend("/topic/room/" + roomId, message);
+        compactPayloadService.publish(roomId, message);
+        singleFrames.incrementAndGet();
+    }
+
+    private static class RoomStream {
+        private long bucketStart;
+        private int currentCount;
+        private int previousCount;
+        private long lastMessageAt;
+        private boolean batching;
+        private List<Object> pending = new ArrayList<>();
+
+        /**
+         * Count a message in the current one-second bucket
+         */
+        void count(long now) {
+            long elapsed = now - bucketStart;
+            if (elapsed >= 2 * RATE_BUCKET_MS) {
+                previousCount = 0;
+                currentCount = 0;
+                bucketStart = now;
+            } else if (elapsed >= RATE_BUCKET_MS) {
+                previousCount = currentCount;
+                currentCount = 0;
+                bucketStart += RATE_BUCKET_MS;
+            }
+            currentCount++;
+            lastMessageAt = now;
+        }
+    }
+}
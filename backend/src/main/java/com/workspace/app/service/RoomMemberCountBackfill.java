@@ -0,0 +1,160 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Backfill and reconciliation of Room.memberCount
+ * Popular and minimum-members listings sort and filter on memberCount, and
+ * joins are capped by it. At startup, rooms written before the field existed
+ * get it set. A periodic pass then recounts room_members: join and leave
+ * write the count and the membership separately, so a failure between the
+ * two writes leaves the count off by one until this pass corrects it.
+ */
+@Service
+public class RoomMemberCountBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomMemberCountBackfill.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RoomMembershipStore roomMembershipStore;
+
+    @Value("${room.members.backfill-counts-on-startup:true}")
+    private boolean enabled;
+
+    @Value("${room.members.reconcile-counts.enabled:true}")
+    private boolean reconcileEnabled;
+
+    // roomId -> [memberCount, membership count] seen differing on the previous pass
+    private Map<String, List<Long>> pendingDrift = new HashMap<>();
+
+    private final AtomicLong reconcileRuns = new AtomicLong();
+    private final AtomicLong countsCorrected = new AtomicLong();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long backfilled = backfill();
+            if (backfilled > 0) {
+                logger.info("Backfilled memberCount on {} rooms", backfilled);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not backfill room member counts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Set memberCount on every room that lacks it; returns how many rooms were updated
+     */
+    public long backfill() {
+        // Rooms still embedding their members: one server-side update counts the array
+        Query embedded = new Query(Criteria.where("memberCount").exists(false).and("members").exists(true));
+        AggregationUpdate fromArray = AggregationUpdate.update()
+                .set("memberCount").toValue(ArrayOperators.Size.lengthOfArray("members"));
+        long updated = mongoTemplate.updateMulti(embedded, fromArray, Room.class).getModifiedCount();
+
+        // Rooms already in room_members: count their memberships
+        Query migrated = new Query(Criteria.where("memberCount").exists(false).and("members").exists(false));
+        migrated.fields().include("_id");
+        for (Room room : mongoTemplate.find(migrated, Room.class)) {
+            long count = roomMembershipStore.countMembers(room.getId());
+            Query query = new Query(Criteria.where("_id").is(room.getId()).and("memberCount").exists(false));
+            updated += mongoTemplate.updateFirst(query, new Update().set("memberCount", (int) count), Room.class)
+                    .getModifiedCount();
+        }
+        return updated;
+    }
+
+    /**
+     * Recount memberships and correct rooms whose memberCount has drifted
+     * A join or leave in flight shows the same mismatch for a moment, so a room
+     * is only corrected when a pass sees the exact mismatch the previous pass
+     * saw, and only if memberCount still holds that value when it is written.
+     * Runs on the maintenance scheduler (SchedulingConfig).
+     */
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        try {
+            reconcileCounts();
+        } catch (Exception e) {
+            logger.warn("Could not reconcile room member counts: {}", e.getMessage());
+        }
+    }
+
+    long reconcileCounts() {
+        Map<String, Long> memberships = new HashMap<>();
+        Aggregation countByRoom = Aggregation.newAggregation(Aggregation.group("roomId").count().as("count"));
+        try (Stream<Document> counts = mongoTemplate.aggregateStream(countByRoom, RoomMember.class, Document.class)) {
+            counts.forEach(count -> memberships.put(count.getString("_id"), ((Number) count.get("count")).longValue()));
+        }
+
+        // Rooms still embedding their members are counted when RoomMembershipMigrator moves them
+        Query migrated = new Query(Criteria.where("members").exists(false).and("memberCount").exists(true));
+        migrated.fields().include("_id", "memberCount");
+
+        Map<String, List<Long>> drift = new HashMap<>();
+        long corrected = 0;
+        try (Stream<Room> rooms = mongoTemplate.stream(migrated, Room.class)) {
+            for (Room room : (Iterable<Room>) rooms::iterator) {
+                long expected = memberships.getOrDefault(room.getId(), 0L);
+                if (room.getMemberCount() == expected) {
+                    continue;
+                }
+                List<Long> seen = List.of((long) room.getMemberCount(), expected);
+                if (!seen.equals(pendingDrift.get(room.getId()))) {
+                    drift.put(room.getId(), seen);
+                    continue;
+                }
+                Query query = new Query(Criteria.where("_id").is(room.getId()).and("memberCount").is(room.getMemberCount()));
+                if (mongoTemplate.updateFirst(query, new Update().set("memberCount", (int) expected), Room.class)
+                        .getModifiedCount() > 0) {
+                    corrected++;
+                    logger.warn("Corrected memberCount of room {} from {} to {}", room.getId(), room.getMemberCount(), expected);
+                }
+            }
+        }
+        pendingDrift = drift;
+        reconcileRuns.incrementAndGet();
+        countsCorrected.addAndGet(corrected);
+        return corrected;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reconcileEnabled", reconcileEnabled);
+        stats.put("reconcileRuns", reconcileRuns.get());
+        stats.put("countsCorrected", countsCorrected.get());
+        stats.put("pendingDrift", pendingDrift.size());
+        return stats;
+    }
+}
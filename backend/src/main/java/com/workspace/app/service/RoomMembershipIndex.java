@@ -0,0 +1,557 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory membership index for every room
+ * User and room IDs are interned to dense ints; each room's members and each
+ * user's rooms are kept as Roaring bitmaps, so membership checks, a user's
+ * rooms and intersections across rooms never touch Mongo or compare ID
+ * strings. A room's bitmap is replaced whenever RoomAclCache reloads the
+ * room and is updated in place on join and leave; a background warm-up
+ * loads all rooms once at startup.
+ * Loads read Mongo outside the lock, so every join and leave stamps its
+ * room with a new sequence number, and a load whose read began before the
+ * room's last stamp is discarded instead of undoing that change. Rooms that
+ * are changed while not loaded, or whose load was discarded, are reloaded
+ * in the background; a cluster resync reloads every room.
+ */
+@Component
+public class RoomMembershipIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomMembershipIndex.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${room.acl-index.warm-up-enabled:true}")
+    private boolean warmUpEnabled;
+
+    @Value("${room.acl-index.warm-up-retry-ms:30000}")
+    private long warmUpRetryMs;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    // A background reload is retried when a join or leave lands while it reads the room
+    private static final int MAX_RELOAD_ATTEMPTS = 5;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Interned IDs: string -> dense int, and back
+    private final Map<String, Integer> userIndex = new HashMap<>();
+    private final List<String> users = new ArrayList<>();
+    private final Map<String, Integer> roomIndex = new HashMap<>();
+    private final List<String> rooms = new ArrayList<>();
+
+    // Indexed by interned room / user int; a null room entry means "not loaded"
+    private final List<RoaringBitmap> roomMembers = new ArrayList<>();
+    private final List<RoaringBitmap> userRooms = new ArrayList<>();
+
+    // Indexed by interned room int: sequence number of the room's last join or leave
+    private final List<Long> roomChangedAt = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile boolean warmedUp;
+
+    // Rooms waiting for a background reload; roomsOfUser is partial until it drains
+    private final Set<String> pendingReloads = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService loader;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong roomLoads = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private final AtomicLong staleLoads = new AtomicLong();
+    private final AtomicLong backgroundReloads = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("acl-index-loader-");
+        threadFactory.setDaemon(true);
+        loader = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        clusterEventBus.onResync(this::resync);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    public boolean isMember(String roomId, String userId) {
+        lookups.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            RoaringBitmap members = membersOf(roomId);
+            Integer user = userId == null ? null : userIndex.get(userId);
+            return members != null && user != null && members.contains(user);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countMembers(String roomId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap members = membersOf(roomId);
+            return members == null ? 0 : members.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether every room is loaded, so roomsOfUser and sharedRooms are complete
+     * Until then callers should fall back to the membership store.
+     */
+    public boolean isComplete() {
+        return warmedUp && pendingReloads.isEmpty();
+    }
+
+    /**
+     * Loaded rooms the user belongs to (all of them once complete)
+     */
+    public List<String> roomsOfUser(String userId) {
+        lock.readLock().lock();
+        try {
+            return toRoomIds(roomsOf(userId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rooms two users have in common
+     */
+    public List<String> sharedRooms(String userId, String otherUserId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap first = roomsOf(userId);
+            RoaringBitmap second = roomsOf(otherUserId);
+            if (first == null || second == null) {
+                return List.of();
+            }
+            return toRoomIds(RoaringBitmap.and(first, second));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users that are members of every one of the given rooms
+     */
+    public List<String> membersOfAll(Collection<String> roomIds) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = bitmapsOf(roomIds);
+            if (bitmaps.isEmpty() || bitmaps.size() < roomIds.size()) {
+                return List.of();
+            }
+            return toUserIds(FastAggregation.and(bitmaps.iterator()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distinct users across the given rooms
+     */
+    public int countDistinctMembers(Collection<String> roomIds) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> bitmaps = bitmapsOf(roomIds);
+            return bitmaps.isEmpty() ? 0 : FastAggregation.or(bitmaps.iterator()).getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sequence number to take before reading a room's members for loadRoom
+     */
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Replace a room's members with a list read after readSequence was taken
+     * Returns false, leaving the index unchanged, if the room was joined or
+     * left since then; the caller should read the room again.
+     */
+    public boolean loadRoom(String roomId, Collection<String> userIds, long readSequence) {
+        return install(roomId, userIds, readSequence, false);
+    }
+
+    /**
+     * Record a join; a not-loaded room gets a new sequence stamp and a background reload
+     */
+    public void addMember(String roomId, String userId) {
+        lock.writeLock().lock();
+        try {
+            int room = stamp(roomId);
+            RoaringBitmap members = roomMembers.get(room);
+            if (members == null) {
+                scheduleReload(roomId);
+                return;
+            }
+            int user = internUser(userId);
+            members.add(user);
+            userRooms.get(user).add(room);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        incrementalUpdates.incrementAndGet();
+    }
+
+    /**
+     * Record a leave
+     */
+    public void removeMember(String roomId, String userId) {
+        lock.writeLock().lock();
+        try {
+            int room = stamp(roomId);
+            RoaringBitmap members = roomMembers.get(room);
+            if (members == null) {
+                scheduleReload(roomId);
+                return;
+            }
+            Integer user = userIndex.get(userId);
+            if (user == null) {
+                return;
+            }
+            members.remove(user);
+            userRooms.get(user).remove(room);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        incrementalUpdates.incrementAndGet();
+    }
+
+    /**
+     * Load all rooms on a background thread once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmUp() {
+        if (!warmUpEnabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("acl-index-warm-up-");
+        threadFactory.setDaemon(true);
+        threadFactory.newThread(() -> {
+            while (!warmUp()) {
+                try {
+                    Thread.sleep(warmUpRetryMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }).start();
+    }
+
+    /**
+     * Load every room's members once; rooms already loaded by RoomAclCache are kept
+     */
+    boolean warmUp() {
+        return loadAll(true);
+    }
+
+    /**
+     * Reload every room after this node may have missed cluster events
+     */
+    private void resync() {
+        warmedUp = false;
+        loader.execute(() -> {
+            if (!loadAll(false)) {
+                loader.schedule(this::resync, warmUpRetryMs, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private boolean loadAll(boolean onlyIfAbsent) {
+        long started = System.currentTimeMillis();
+        // Rooms joined or left while the stream runs are skipped and reloaded on their own
+        long readSequence = currentSequence();
+        Set<String> streamed = new HashSet<>();
+        try {
+            Query query = new Query().with(Sort.by("roomId", "userId"));
+            query.fields().include("roomId", "userId").exclude("_id");
+
+            String currentRoom = null;
+            List<String> currentMembers = new ArrayList<>();
+            try (Stream<RoomMember> memberships = mongoTemplate.stream(query, RoomMember.class)) {
+                for (RoomMember membership : (Iterable<RoomMember>) memberships::iterator) {
+                    if (!membership.getRoomId().equals(currentRoom)) {
+                        loadStreamed(currentRoom, currentMembers, readSequence, onlyIfAbsent);
+                        streamed.add(currentRoom);
+                        currentRoom = membership.getRoomId();
+                        currentMembers = new ArrayList<>();
+                    }
+                    currentMembers.add(membership.getUserId());
+                }
+            }
+            loadStreamed(currentRoom, currentMembers, readSequence, onlyIfAbsent);
+            streamed.add(currentRoom);
+
+            // Rooms RoomMembershipMigrator has not reached yet
+            Query legacy = new Query(Criteria.where("members").exists(true));
+            legacy.fields().include("members");
+            for (Room room : mongoTemplate.find(legacy, Room.class)) {
+                loadStreamed(room.getId(), room.getMembers(), readSequence, onlyIfAbsent);
+                streamed.add(room.getId());
+            }
+
+            // A full reload must also empty loaded rooms that no longer have any members
+            if (!onlyIfAbsent) {
+                loadedRoomIds().stream()
+                        .filter(roomId -> !streamed.contains(roomId))
+                        .forEach(this::scheduleReload);
+            }
+
+            warmedUp = true;
+            logger.info("Room membership index warmed up in {} ms", System.currentTimeMillis() - started);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Could not warm up room membership index: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long memberships = 0;
+        long bitmapBytes = 0;
+        int loadedRooms = 0;
+        int internedUsers;
+        lock.readLock().lock();
+        try {
+            internedUsers = users.size();
+            for (RoaringBitmap members : roomMembers) {
+                if (members != null) {
+                    loadedRooms++;
+                    memberships += members.getLongCardinality();
+                    bitmapBytes += members.getLongSizeInBytes();
+                }
+            }
+            for (RoaringBitmap joined : userRooms) {
+                bitmapBytes += joined.getLongSizeInBytes();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("warmedUp", warmedUp);
+        stats.put("complete", isComplete());
+        stats.put("pendingReloads", pendingReloads.size());
+        stats.put("rooms", loadedRooms);
+        stats.put("users", internedUsers);
+        stats.put("memberships", memberships);
+        stats.put("bitmapBytes", bitmapBytes);
+        stats.put("lookups", lookups.get());
+        stats.put("roomLoads", roomLoads.get());
+        stats.put("incrementalUpdates", incrementalUpdates.get());
+        stats.put("staleLoadsDiscarded", staleLoads.get());
+        stats.put("backgroundReloads", backgroundReloads.get());
+        return stats;
+    }
+
+    private void loadStreamed(String roomId, Collection<String> userIds, long readSequence, boolean onlyIfAbsent) {
+        // Rooms joined or left while the stream ran are read again on their own
+        if (roomId != null && userIds != null && !install(roomId, userIds, readSequence, onlyIfAbsent)) {
+            scheduleReload(roomId);
+        }
+    }
+
+    private List<String> loadedRoomIds() {
+        lock.readLock().lock();
+        try {
+            List<String> ids = new ArrayList<>();
+            for (int room = 0; room < rooms.size(); room++) {
+                if (roomMembers.get(room) != null) {
+                    ids.add(rooms.get(room));
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scheduleReload(String roomId) {
+        if (pendingReloads.add(roomId)) {
+            loader.execute(() -> reload(roomId));
+        }
+    }
+
+    /**
+     * Read one room's members again, retrying while joins and leaves keep landing
+     */
+    private void reload(String roomId) {
+        try {
+            for (int attempt = 1; attempt <= MAX_RELOAD_ATTEMPTS; attempt++) {
+                long readSequence = currentSequence();
+                if (install(roomId, readMembers(roomId), readSequence, false)) {
+                    backgroundReloads.incrementAndGet();
+                    pendingReloads.remove(roomId);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not reload room {} into membership index: {}", roomId, e.getMessage());
+        }
+        // Still pending; try again later
+        loader.schedule(() -> reload(roomId), warmUpRetryMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A room's members from the room itself (not migrated yet) or room_members; none if it is gone
+     */
+    private Collection<String> readMembers(String roomId) {
+        Query roomQuery = new Query(Criteria.where("_id").is(roomId));
+        roomQuery.fields().include("members");
+        Room room = mongoTemplate.findOne(roomQuery, Room.class);
+        if (room == null) {
+            return List.of();
+        }
+        if (room.hasEmbeddedMembers()) {
+            return room.getMembers();
+        }
+        Query memberQuery = new Query(Criteria.where("roomId").is(roomId));
+        memberQuery.fields().include("userId").exclude("_id");
+        return mongoTemplate.find(memberQuery, RoomMember.class).stream()
+                .map(RoomMember::getUserId)
+                .toList();
+    }
+
+    private boolean install(String roomId, Collection<String> userIds, long readSequence, boolean onlyIfAbsent) {
+        lock.writeLock().lock();
+        try {
+            int room = internRoom(roomId);
+            if (roomChangedAt.get(room) > readSequence) {
+                staleLoads.incrementAndGet();
+                return false;
+            }
+            if (onlyIfAbsent && roomMembers.get(room) != null) {
+                return true;
+            }
+            RoaringBitmap loaded = new RoaringBitmap();
+            for (String userId : userIds) {
+                loaded.add(internUser(userId));
+            }
+            loaded.runOptimize();
+            RoaringBitmap previous = roomMembers.get(room);
+            if (previous != null) {
+                RoaringBitmap.andNot(previous, loaded).forEach((int user) -> userRooms.get(user).remove(room));
+                RoaringBitmap.andNot(loaded, previous).forEach((int user) -> userRooms.get(user).add(room));
+            } else {
+                loaded.forEach((int user) -> userRooms.get(user).add(room));
+            }
+            roomMembers.set(room, loaded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        roomLoads.incrementAndGet();
+        return true;
+    }
+
+    // Callers hold the lock
+
+    private RoaringBitmap membersOf(String roomId) {
+        Integer room = roomId == null ? null : roomIndex.get(roomId);
+        return room == null ? null : roomMembers.get(room);
+    }
+
+    private RoaringBitmap roomsOf(String userId) {
+        Integer user = userId == null ? null : userIndex.get(userId);
+        return user == null ? null : userRooms.get(user);
+    }
+
+    private List<RoaringBitmap> bitmapsOf(Collection<String> roomIds) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>(roomIds.size());
+        for (String roomId : roomIds) {
+            RoaringBitmap members = membersOf(roomId);
+            if (members != null) {
+                bitmaps.add(members);
+            }
+        }
+        return bitmaps;
+    }
+
+    private List<String> toRoomIds(RoaringBitmap bitmap) {
+        if (bitmap == null) {
+            return List.of();
+        }
+        List<String> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int room) -> ids.add(rooms.get(room)));
+        return ids;
+    }
+
+    private List<String> toUserIds(RoaringBitmap bitmap) {
+        List<String> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int user) -> ids.add(users.get(user)));
+        return ids;
+    }
+
+    // Callers hold the write lock
+
+    private int stamp(String roomId) {
+        int room = internRoom(roomId);
+        roomChangedAt.set(room, sequence.incrementAndGet());
+        return room;
+    }
+
+    private int internUser(String userId) {
+        Integer user = userIndex.get(userId);
+        if (user == null) {
+            user = users.size();
+            userIndex.put(userId, user);
+            users.add(userId);
+            userRooms.add(new RoaringBitmap());
+        }
+        return user;
+    }
+
+    private int internRoom(String roomId) {
+        Integer room = roomIndex.get(roomId);
+        if (room == null) {
+            room = rooms.size();
+            roomIndex.put(roomId, room);
+            rooms.add(roomId);
+            roomMembers.add(null);
+            roomChangedAt.add(0L);
+        }
+        return room;
+    }
+}
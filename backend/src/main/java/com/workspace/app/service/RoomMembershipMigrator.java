@@ -0,0 +1,202 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Online migration of embedded Room.members into room_members
+ * Rooms are migrated lazily the first time a membership operation touches
+ * them, and a background sweep works through the rest in small batches.
+ * A migration first claims the room with a findAndModify that also returns
+ * its current member list; only the claimant imports, and only that list.
+ * Once the embedded list is unset, users can leave, so an import from an
+ * older read would bring them back. Memberships are imported with
+ * idempotent upserts before the list is unset, so a migration interrupted
+ * at any point is repeated once its claim expires.
+ */
+@Service
+public class RoomMembershipMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomMembershipMigrator.class);
+
+    // Marks a room whose members are being migrated, and when it was claimed
+    private static final String CLAIM = "membersMigrationClaim";
+    private static final String CLAIMED_AT = "membersMigrationClaimedAt";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RoomMembershipStore roomMembershipStore;
+
+    @Autowired
+    private RoomAclCache roomAclCache;
+
+    @Value("${room.members.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${room.members.migration.batch-size:50}")
+    private int batchSize;
+
+    @Value("${room.members.migration.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    // How long a join or leave waits for another node's migration of the same room
+    @Value("${room.members.migration.wait-ms:5000}")
+    private long waitMs;
+
+    // Set once a sweep finds no legacy rooms; new rooms are never written with embedded members
+    private volatile boolean complete;
+
+    private final AtomicLong roomsMigrated = new AtomicLong();
+    private final AtomicLong membershipsImported = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong claimsLost = new AtomicLong();
+
+    /**
+     * Whether every room has been moved off the embedded member list
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Move one room's embedded members into the membership store (no-op if already migrated)
+     * If another node or thread is migrating the room, waits for it to finish.
+     */
+    public void migrateRoom(Room room) {
+        if (room == null || !room.hasEmbeddedMembers()) {
+            return;
+        }
+        if (!migrate(room.getId())) {
+            awaitMigration(room.getId());
+        }
+    }
+
+    /**
+     * Claim, import and unset; returns false if someone else holds the claim
+     */
+    private boolean migrate(String roomId) {
+        String claim = UUID.randomUUID().toString();
+        Room room = claim(roomId, claim);
+        if (room == null) {
+            return !isLegacy(roomId);
+        }
+
+        int imported = roomMembershipStore.importMembers(room.getId(), room.getAdminId(), room.getMembers(), room.getCreatedAt());
+        long count = roomMembershipStore.countMembers(room.getId());
+
+        Query query = new Query(Criteria.where("_id").is(room.getId())
+                .and("members").exists(true)
+                .and(CLAIM).is(claim));
+        Update update = new Update()
+                .unset("members")
+                .unset(CLAIM)
+                .unset(CLAIMED_AT)
+                .set("memberCount", (int) count);
+        if (mongoTemplate.updateFirst(query, update, Room.class).getModifiedCount() > 0) {
+            roomsMigrated.incrementAndGet();
+            membershipsImported.addAndGet(imported);
+        } else {
+            // Our claim expired and was taken over; the new claimant finishes the room
+            claimsLost.incrementAndGet();
+            logger.warn("Migration claim on room {} expired before it finished", roomId);
+        }
+        roomAclCache.invalidate(room.getId());
+        return true;
+    }
+
+    /**
+     * Take the room for migration and read its members in the same operation
+     * Claims older than the timeout belong to a migration that died and are taken over.
+     */
+    private Room claim(String roomId, String claim) {
+        Date now = new Date();
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("_id").is(roomId),
+                Criteria.where("members").exists(true),
+                new Criteria().orOperator(
+                        Criteria.where(CLAIMED_AT).exists(false),
+                        Criteria.where(CLAIMED_AT).lt(new Date(now.getTime() - claimTimeoutMs)))));
+        Update update = new Update().set(CLAIM, claim).set(CLAIMED_AT, now);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Room.class);
+    }
+
+    private boolean isLegacy(String roomId) {
+        return mongoTemplate.exists(new Query(Criteria.where("_id").is(roomId).and("members").exists(true)), Room.class);
+    }
+
+    private void awaitMigration(String roomId) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (isLegacy(roomId)) {
+            if (System.currentTimeMillis() >= deadline) {
+                throw new RuntimeException("Room members are being migrated, try again!");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Room members are being migrated, try again!");
+            }
+        }
+    }
+
+    /**
+     * Migrate the next batch of legacy rooms
+     * Runs every room.members.migration.interval-ms on the maintenance scheduler (SchedulingConfig).
+     */
+    public void sweep() {
+        if (!enabled || complete) {
+            return;
+        }
+        try {
+            Query query = new Query(Criteria.where("members").exists(true)).limit(batchSize);
+            query.fields().include("_id");
+            List<Room> rooms = mongoTemplate.find(query, Room.class);
+            if (rooms.isEmpty()) {
+                complete = true;
+                logger.info("Room membership migration complete ({} rooms migrated)", roomsMigrated.get());
+                return;
+            }
+            for (Room room : rooms) {
+                try {
+                    // Rooms claimed by a lazy migration are left to it
+                    migrate(room.getId());
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    logger.warn("Could not migrate members of room {}: {}", room.getId(), e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("Room membership migration sweep failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("complete", complete);
+        stats.put("roomsMigrated", roomsMigrated.get());
+        stats.put("membershipsImported", membershipsImported.get());
+        stats.put("failures", failures.get());
+        stats.put("claimsLost", claimsLost.get());
+        return stats;
+    }
+}
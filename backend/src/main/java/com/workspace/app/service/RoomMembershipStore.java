@@ -0,0 +1,49 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.RoomMember;
+import org.springframework.data.domain.Page;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Source of truth for who belongs to which room
+ * RoomService goes through this instead of the Room document, so room size
+ * does not affect the size of the room document.
+ */
+public interface RoomMembershipStore {
+
+    /**
+     * Add a membership; returns false if the user is already a member
+     */
+    boolean addMember(String roomId, String userId, String role);
+
+    /**
+     * Remove a plain (non-admin) membership; returns false if there was none
+     */
+    boolean removeMember(String roomId, String userId);
+
+    boolean isMember(String roomId, String userId);
+
+    Optional<RoomMember> getMember(String roomId, String userId);
+
+    void setRole(String roomId, String userId, String role);
+
+    /**
+     * One page of members, oldest first
+     */
+    Page<RoomMember> getMembers(String roomId, int page, int size);
+
+    List<String> getMemberIds(String roomId);
+
+    List<String> getRoomIdsOfUser(String userId);
+
+    long countMembers(String roomId);
+
+    /**
+     * Idempotently add existing members (migration); returns how many were new
+     */
+    int importMembers(String roomId, String adminId, Collection<String> userIds, LocalDateTime joinedAt);
+}
@@ -0,0 +1,318 @@
+package com.workspace.app.service;
+
+import com.workspace.app.security.JwtPrincipal;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ephemeral room presence driven by STOMP subscriptions
+ * A user is "in" a room while any of their sessions subscribes to
+ * /topic/room/{roomId} (or its compact variant). Changes are debounced so reconnects and page
+ * reloads do not flap, then published on /topic/room/{roomId}/presence.
+ * Nothing is persisted. In relay mode each node also publishes its local
+ * changes and a periodic snapshot of who is present through it, and a node
+ * only announces "joined" or "left" when no other node has the user in the
+ * room, so closing one of several sessions spread over nodes stays silent.
+ */
+@Service
+public class RoomPresenceService {
+
+    private static final String PRESENCE_DELTA = "room-presence.delta";
+    private static final String PRESENCE_SNAPSHOT = "room-presence.snapshot";
+    private static final String PRESENCE_FORGET = "room-presence.forget";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Value("${chat.presence.debounce-ms:2000}")
+    private long debounceMs;
+
+    @Value("${chat.presence.cluster-sync-ms:5000}")
+    private long clusterSyncMs;
+
+    // sessionId -> base room topic subscriptions of that session
+    private final Map<String, SessionRooms> sessions = new ConcurrentHashMap<>();
+
+    // roomId:userId -> live subscription count
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+
+    // roomId:userId -> latest unpublished change
+    private final Map<String, PendingChange> pending = new ConcurrentHashMap<>();
+
+    // roomId:userId present in the last published state
+    private final Map<String, Boolean> published = new ConcurrentHashMap<>();
+
+    // Relay mode: nodeId -> roomId:userId keys present through that node
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
+
+    private volatile long lastSnapshotAt;
+
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private final AtomicLong changesSuppressed = new AtomicLong();
+    private final AtomicLong presentElsewhere = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        clusterEventBus.subscribe(PRESENCE_DELTA, this::onRemoteDelta);
+        clusterEventBus.subscribe(PRESENCE_SNAPSHOT, this::onRemoteSnapshot);
+        clusterEventBus.subscribe(PRESENCE_FORGET, event ->
+                forgetLocally((String) event.get("roomId"), (String) event.get("userId"), false));
+        // Republish our snapshot on the next tick for nodes that missed our deltas
+        clusterEventBus.onResync(() -> lastSnapshotAt = 0);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String roomId = baseRoomId(accessor.getDestination());
+        Principal user = event.getUser();
+        if (roomId == null || user == null || accessor.getSessionId() == null) {
+            return;
+        }
+
+        sessions.computeIfAbsent(accessor.getSessionId(), key -> new SessionRooms(user.getName()))
+                .subscriptions.put(accessor.getSubscriptionId(), roomId);
+        increment(roomId, user);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        SessionRooms sessionRooms = sessions.get(accessor.getSessionId());
+        if (sessionRooms == null || event.getUser() == null) {
+            return;
+        }
+        String roomId = sessionRooms.subscriptions.remove(accessor.getSubscriptionId());
+        if (roomId != null) {
+            decrement(roomId, event.getUser());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        SessionRooms sessionRooms = sessions.remove(event.getSessionId());
+        if (sessionRooms == null || event.getUser() == null) {
+            return;
+        }
+        sessionRooms.subscriptions.values().forEach(roomId -> decrement(roomId, event.getUser()));
+    }
+
+    /**
+     * Drop a user's presence in a room immediately (membership removed)
+     */
+    public void forget(String roomId, String userId) {
+        forgetLocally(roomId, userId, true);
+        // The user's sessions on other nodes are evicted there too
+        clusterEventBus.publish(PRESENCE_FORGET, Map.of("roomId", roomId, "userId", userId));
+    }
+
+    /**
+     * Publish changes that have been stable for the debounce window
+     */
+    @Scheduled(fixedDelayString = "${chat.presence.tick-ms:500}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        if (clusterEventBus.isClustered()) {
+            syncCluster(now);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.forEach((key, change) -> {
+            if (change.changedAt + debounceMs > now || !pending.remove(key, change)) {
+                return;
+            }
+            boolean wasPresent = published.containsKey(key);
+            if (change.present == wasPresent) {
+                // Left and came back (or the reverse) within the window
+                changesSuppressed.incrementAndGet();
+                return;
+            }
+            if (change.present) {
+                published.put(key, Boolean.TRUE);
+            } else {
+                published.remove(key);
+            }
+            if (isPresentElsewhere(key)) {
+                // Another node already announced the user and will announce them leaving
+                presentElsewhere.incrementAndGet();
+                return;
+            }
+            publish(change.roomId, change.userId, change.username, change.present);
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("present", published.size());
+        stats.put("pending", pending.size());
+        stats.put("eventsPublished", eventsPublished.get());
+        stats.put("changesSuppressed", changesSuppressed.get());
+        stats.put("presentElsewhere", presentElsewhere.get());
+        stats.put("remoteNodes", remoteNodes.size());
+        return stats;
+    }
+
+    private void increment(String roomId, Principal user) {
+        String key = key(roomId, user.getName());
+        if (counts.merge(key, 1, Integer::sum) == 1) {
+            pending.put(key, new PendingChange(roomId, user.getName(), username(user), true));
+            publishDelta(roomId, user.getName(), true);
+        }
+    }
+
+    private void decrement(String roomId, Principal user) {
+        String key = key(roomId, user.getName());
+        Integer remaining = counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            pending.put(key, new PendingChange(roomId, user.getName(), username(user), false));
+            publishDelta(roomId, user.getName(), false);
+        }
+    }
+
+    private void forgetLocally(String roomId, String userId, boolean announce) {
+        String key = key(roomId, userId);
+        counts.remove(key);
+        pending.remove(key);
+        remoteNodes.values().forEach(node -> node.keys.remove(key));
+        if (published.remove(key) != null && announce) {
+            publish(roomId, userId, null, false);
+        }
+        sessions.values().forEach(sessionRooms -> {
+            if (sessionRooms.userId.equals(userId)) {
+                sessionRooms.subscriptions.values().removeIf(roomId::equals);
+            }
+        });
+    }
+
+    /**
+     * Local changes go out at once, ahead of the debounce, so other nodes know before they publish
+     */
+    private void publishDelta(String roomId, String userId, boolean present) {
+        clusterEventBus.publish(PRESENCE_DELTA, Map.of("roomId", roomId, "userId", userId, "present", present));
+    }
+
+    /**
+     * Publish this node's present users every sync interval, and forget nodes that stopped reporting
+     */
+    private void syncCluster(long now) {
+        if (now - lastSnapshotAt >= clusterSyncMs) {
+            clusterEventBus.publish(PRESENCE_SNAPSHOT, Map.of("keys", new ArrayList<>(counts.keySet())));
+            lastSnapshotAt = now;
+        }
+        long cutoff = now - clusterSyncMs * 3;
+        remoteNodes.values().removeIf(node -> node.reportedAt < cutoff);
+    }
+
+    private void onRemoteDelta(Map<String, Object> event) {
+        RemoteNode node = remoteNodes.computeIfAbsent((String) event.get("node"), key -> new RemoteNode());
+        node.reportedAt = System.currentTimeMillis();
+        String key = key((String) event.get("roomId"), (String) event.get("userId"));
+        if (Boolean.TRUE.equals(event.get("present"))) {
+            node.keys.add(key);
+        } else {
+            node.keys.remove(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onRemoteSnapshot(Map<String, Object> event) {
+        RemoteNode node = remoteNodes.computeIfAbsent((String) event.get("node"), key -> new RemoteNode());
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        keys.addAll((List<String>) event.get("keys"));
+        node.keys = keys;
+        node.reportedAt = System.currentTimeMillis();
+    }
+
+    private boolean isPresentElsewhere(String key) {
+        for (RemoteNode node : remoteNodes.values()) {
+            if (node.keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publish(String roomId, String userId, String username, boolean present) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("roomId", roomId);
+        event.put("userId", userId);
+        event.put("username", username);
+        event.put("status", present ? "joined" : "left");
+        event.put("timestamp", LocalDateTime.now());
+        messagingTemplate.convertAndSend("/topic/room/" + roomId + "/presence", event);
+        eventsPublished.incrementAndGet();
+    }
+
+    private static String baseRoomId(String destination) {
+        String roomId = RoomSubscriptionRegistry.roomIdFromDestination(destination);
+        if (roomId == null) {
+            return null;
+        }
+        // Compact (CBOR) subscribers receive the room's messages on their own destination
+        if (destination.length() != RoomSubscriptionRegistry.ROOM_TOPIC_PREFIX.length() + roomId.length()
+                && CompactPayloadService.compactRoomId(destination) == null) {
+            return null;
+        }
+        return roomId;
+    }
+
+    private static String username(Principal user) {
+        return user instanceof JwtPrincipal jwtPrincipal ? jwtPrincipal.getUsername() : null;
+    }
+
+    private static String key(String roomId, String userId) {
+        return roomId + ":" + userId;
+    }
+
+    private static class SessionRooms {
+        private final String userId;
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+        SessionRooms(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static class RemoteNode {
+        private volatile Set<String> keys = ConcurrentHashMap.newKeySet();
+        private volatile long reportedAt = System.currentTimeMillis();
+    }
+
+    private static class PendingChange {
+        private final String roomId;
+        private final String userId;
+        private final String username;
+        private final boolean present;
+        private final long changedAt = System.currentTimeMillis();
+
+        PendingChange(String roomId, String userId, String username, boolean present) {
+            this.roomId = roomId;
+            this.userId = userId;
+            this.username = username;
+            this.present = present;
+        }
+    }
+}
@@ -1,15 +1,41 @@
 package com.workspace.app.service;
 
 import com.workspace.app.dto.CreateRoomRequest;
+import com.workspace.app.dto.RoomCursor;
+import com.workspace.app.dto.RoomSlice;
+import com.workspace.app.dto.RoomSort;
+import com.workspace.app.dto.RoomSummary;
+import com.workspace.app.dto.UserSummary;
+import com.workspace.app.model.Message;
 import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
 import com.workspace.app.model.User;
 import com.workspace.app.repository.RoomRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 import reactor.core.publisher.Mono;
 
 /**
@@ -18,12 +44,52 @@ import reactor.core.publisher.Mono;
 @Service
 public class RoomService {
     
+    private static final Logger logger = LoggerFactory.getLogger(RoomService.class);
+    
+    private static final int MAX_MEMBER_PAGE_SIZE = 200;
+    
+    private static final int MAX_ROOM_PAGE_SIZE = 100;
+    
+    private static final int MAX_AUDIENCE_ROOMS = 100;
+    
     @Autowired
     private RoomRepository roomRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private RoomMembershipStore roomMembershipStore;
+    
+    @Autowired
+    private RoomMembershipMigrator roomMembershipMigrator;
+    
+    @Autowired
+    private RoomAclCache roomAclCache;
+    
+    @Autowired
+    private RoomMembershipIndex roomMembershipIndex;
+    
+    @Autowired
+    private RoomActivityTracker roomActivityTracker;
+    
+    @Autowired
+    private RoomSubscriptionRegistry roomSubscriptionRegistry;
+    
+    @Autowired
+    private RoomPresenceService roomPresenceService;
+    
+    @Autowired
+    @Lazy
+    private MessageService messageService;
+    
+    @Autowired
+    @Lazy
+    private RoomBroadcastService roomBroadcastService;
+    
     /**
      * Create a new room
      */
@@ -53,10 +119,12 @@ public class RoomService {
         room.setActive(true);
         
         // Admin is automatically a member
-        room.addMember(adminId);
+        room.setMemberCount(1);
         
         // Save room
         Room savedRoom = roomRepository.save(room);
+        roomMembershipStore.addMember(savedRoom.getId(), adminId, RoomMember.ROLE_ADMIN);
+        roomAclCache.memberJoined(savedRoom.getId(), adminId);
         
         // Update user's admin rooms list
         userService.makeUserAdminOfRoom(adminId, savedRoom.getId());
@@ -80,63 +148,91 @@ public class RoomService {
     }
     
     /**
-     * Get all rooms (for browsing - same as getAllActiveRooms for now)
+     * Get all active rooms (for browsing), one slice at a time
+     * visibility narrows them to public or private rooms; null keeps both.
      */
-    public List<Room> getAllRooms() {
-        return getAllActiveRooms();
+    public RoomSlice getAllRooms(String visibility, String sort, String cursor, int limit) {
+        return listRooms(withVisibility(visibility, Criteria.where("isActive").is(true)),
+                RoomSort.parse(sort, RoomSort.NEWEST), cursor, limit);
     }
     
     /**
      * Get public rooms
      */
-    public List<Room> getPublicRooms() {
-        return roomRepository.findByIsPrivateFalseAndIsActiveTrueOrderByCreatedAtDesc();
+    public RoomSlice getPublicRooms(String sort, String cursor, int limit) {
+        return listRooms(List.of(Criteria.where("isPrivate").is(false), Criteria.where("isActive").is(true)),
+                RoomSort.parse(sort, RoomSort.NEWEST), cursor, limit);
     }
     
     /**
      * Get rooms where user is a member
      */
-    public List<Room> getUserRooms(String userId) {
-        return roomRepository.findByMembersContainingAndIsActiveTrueOrderByLastMessageAtDesc(userId);
+    public RoomSlice getUserRooms(String userId, String sort, String cursor, int limit) {
+        if (roomMembershipIndex.isComplete()) {
+            // The index holds every room, migrated or not
+            return listRooms(List.of(Criteria.where("_id").in(roomMembershipIndex.roomsOfUser(userId)),
+                            Criteria.where("isActive").is(true)),
+                    RoomSort.parse(sort, RoomSort.RECENT), cursor, limit);
+        }
+        Criteria membership = Criteria.where("_id").in(roomMembershipStore.getRoomIdsOfUser(userId));
+        if (!roomMembershipMigrator.isComplete()) {
+            // Rooms not migrated yet still carry their members inline
+            membership = new Criteria().orOperator(membership, Criteria.where("members").is(userId));
+        }
+        return listRooms(List.of(membership, Criteria.where("isActive").is(true)),
+                RoomSort.parse(sort, RoomSort.RECENT), cursor, limit);
     }
     
     /**
      * Get rooms where user is an admin
      */
-    public List<Room> getUserAdminRooms(String userId) {
-        return roomRepository.findByAdminIdAndIsActiveTrueOrderByCreatedAtDesc(userId);
+    public RoomSlice getUserAdminRooms(String userId, String sort, String cursor, int limit) {
+        return listRooms(List.of(Criteria.where("adminId").is(userId), Criteria.where("isActive").is(true)),
+                RoomSort.parse(sort, RoomSort.NEWEST), cursor, limit);
     }
     
     /**
      * Join a room
+     * A conditional $inc first reserves a seat (active room, memberCount under
+     * maxMembers), so concurrent joins cannot overfill the room; the unique
+     * membership insert then decides whether the user was already in it, in
+     * which case the seat is given back.
      */
     public Room joinRoom(String roomId, String userId) {
-        Optional<Room> roomOptional = roomRepository.findById(roomId);
-        if (roomOptional.isEmpty()) {
-            throw new RuntimeException("Room not found!");
-        }
-        
-        Room room = roomOptional.get();
-        
-        if (!room.isActive()) {
-            throw new RuntimeException("Room is not active!");
+        Query query = new Query(Criteria.where("_id").is(roomId)
+                .and("isActive").is(true)
+                .and("members").exists(false)
+                .andOperator(Criteria.expr(ComparisonOperators.Lt.valueOf("memberCount").lessThan("maxMembers"))));
+        
+        Room savedRoom = mongoTemplate.findAndModify(query, new Update().inc("memberCount", 1),
+                FindAndModifyOptions.options().returnNew(true), Room.class);
+        if (savedRoom == null) {
+            Room room = explainRejectedMembershipChange(roomId);
+            if (!room.isActive()) {
+                throw new RuntimeException("Room is not active!");
+            }
+            if (room.hasEmbeddedMembers()) {
+                roomMembershipMigrator.migrateRoom(room);
+                return joinRoom(roomId, userId);
+            }
+            if (roomMembershipStore.isMember(roomId, userId)) {
+                throw new RuntimeException("User is already a member of this room!");
+            }
+            throw new RuntimeException("Room is full!");
         }
         
-        if (room.isMember(userId)) {
+        if (!roomMembershipStore.addMember(roomId, userId, RoomMember.ROLE_MEMBER)) {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(roomId)),
+                    new Update().inc("memberCount", -1), Room.class);
             throw new RuntimeException("User is already a member of this room!");
         }
-        
-        if (!room.canAddMember()) {
-            throw new RuntimeException("Room is full!");
-        }
-        
-        // Add user to room
-        room.addMember(userId);
-        Room savedRoom = roomRepository.save(room);
+        roomAclCache.memberJoined(roomId, userId);
         
         // Update user's joined rooms list
         userService.addUserToRoom(userId, roomId);
         
+        announceMembershipChange(roomId, userId, "joined");
+        
         return savedRoom;
     }
     
@@ -144,28 +240,29 @@ public class RoomService {
      * Leave a room
      */
     public Room leaveRoom(String roomId, String userId) {
-        Optional<Room> roomOptional = roomRepository.findById(roomId);
-        if (roomOptional.isEmpty()) {
-            throw new RuntimeException("Room not found!");
-        }
-        
-        Room room = roomOptional.get();
-        
-        if (!room.isMember(userId)) {
-            throw new RuntimeException("User is not a member of this room!");
-        }
-        
-        if (room.isAdmin(userId)) {
+        // Only a plain member membership is removed; the admin's never matches
+        if (!roomMembershipStore.removeMember(roomId, userId)) {
+            Room room = explainRejectedMembershipChange(roomId);
+            if (room.hasEmbeddedMembers()) {
+                roomMembershipMigrator.migrateRoom(room);
+                return leaveRoom(roomId, userId);
+            }
+            if (!roomMembershipStore.isMember(roomId, userId)) {
+                throw new RuntimeException("User is not a member of this room!");
+            }
             throw new RuntimeException("Admin cannot leave the room! Transfer admin rights first or delete the room.");
         }
         
-        // Remove user from room
-        room.removeMember(userId);
-        Room savedRoom = roomRepository.save(room);
+        Room savedRoom = updateRoomFields(roomId, new Update().inc("memberCount", -1));
+        roomAclCache.memberLeft(roomId, userId);
+        roomSubscriptionRegistry.evictUser(roomId, userId);
+        roomPresenceService.forget(roomId, userId);
         
         // Update user's joined rooms list
         userService.removeUserFromRoom(userId, roomId);
         
+        announceMembershipChange(roomId, userId, "left");
+        
         return savedRoom;
     }
     
@@ -185,13 +282,13 @@ public class RoomService {
         }
         
         // Mark room as inactive instead of deleting
-        room.setActive(false);
-        roomRepository.save(room);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(roomId)),
+                new Update().set("isActive", false), Room.class);
+        roomAclCache.invalidate(roomId);
+        roomSubscriptionRegistry.evictRoom(roomId);
         
         // Remove room from all users' lists
-        for (String memberId : room.getMembers()) {
-            userService.removeUserFromRoom(memberId, roomId);
-        }
+        userService.removeRoomFromAllUsers(roomId);
         
         // Remove from admin's admin rooms list
         userService.removeUserAsAdminOfRoom(userId, roomId);
@@ -212,30 +309,34 @@ public class RoomService {
             throw new RuntimeException("Only room admin can update the room!");
         }
         
-        // Update allowed fields
+        // Update allowed fields (only these; a full save would race with membership updates)
+        Update update = new Update();
         if (updatedRoom.getName() != null && !updatedRoom.getName().trim().isEmpty()) {
             // Check if new name already exists (exclude current room)
             Optional<Room> existingRoom = roomRepository.findByNameAndIsActiveTrue(updatedRoom.getName());
             if (existingRoom.isPresent() && !existingRoom.get().getId().equals(roomId)) {
                 throw new RuntimeException("Room name already exists!");
             }
-            room.setName(updatedRoom.getName());
+            update.set("name", updatedRoom.getName());
         }
         
         if (updatedRoom.getDescription() != null) {
-            room.setDescription(updatedRoom.getDescription());
+            update.set("description", updatedRoom.getDescription());
         }
         
         if (updatedRoom.getMaxMembers() > 0) {
-            room.setMaxMembers(updatedRoom.getMaxMembers());
+            update.set("maxMembers", updatedRoom.getMaxMembers());
         }
         
-        room.setPrivate(updatedRoom.isPrivate());
-        room.setAllowFileSharing(updatedRoom.isAllowFileSharing());
-        room.setVideoCallEnabled(updatedRoom.isVideoCallEnabled());
-        room.setMaxVideoParticipants(updatedRoom.getMaxVideoParticipants());
+        update.set("isPrivate", updatedRoom.isPrivate());
+        update.set("allowFileSharing", updatedRoom.isAllowFileSharing());
+        update.set("videoCallEnabled", updatedRoom.isVideoCallEnabled());
+        update.set("maxVideoParticipants", updatedRoom.getMaxVideoParticipants());
+        
+        Room savedRoom = updateRoomFields(roomId, update);
+        roomAclCache.invalidate(roomId);
         
-        return roomRepository.save(room);
+        return savedRoom;
     }
     
     /**
@@ -254,9 +355,7 @@ public class RoomService {
         videoMeta.setLastStartedBy(startedByUserId);
         videoMeta.setLastStartedAt(java.time.Instant.now());
         
-        room.setVideo(videoMeta);
-        
-        return roomRepository.save(room);
+        return updateRoomFields(room.getId(), new Update().set("video", videoMeta));
     }
     
     /**
@@ -274,11 +373,11 @@ public class RoomService {
             throw new RuntimeException("Only room admin can end video call!");
         }
         
-        if (room.getVideo() != null) {
-            room.getVideo().setActive(false);
+        if (room.getVideo() == null) {
+            return room;
         }
         
-        return roomRepository.save(room);
+        return updateRoomFields(roomId, new Update().set("video.active", false));
     }
     
     /**
@@ -296,13 +395,16 @@ public class RoomService {
             throw new RuntimeException("Only current admin can transfer admin rights!");
         }
         
-        if (!room.isMember(newAdminId)) {
+        roomMembershipMigrator.migrateRoom(room);
+        if (!roomMembershipStore.isMember(roomId, newAdminId)) {
             throw new RuntimeException("New admin must be a member of the room!");
         }
         
         // Transfer admin rights
-        room.setAdminId(newAdminId);
-        Room savedRoom = roomRepository.save(room);
+        Room savedRoom = updateRoomFields(roomId, new Update().set("adminId", newAdminId));
+        roomMembershipStore.setRole(roomId, currentAdminId, RoomMember.ROLE_MEMBER);
+        roomMembershipStore.setRole(roomId, newAdminId, RoomMember.ROLE_ADMIN);
+        roomAclCache.invalidate(roomId);
         
         // Update users' admin rooms lists
         userService.removeUserAsAdminOfRoom(currentAdminId, roomId);
@@ -314,55 +416,136 @@ public class RoomService {
     /**
      * Search rooms by name
      */
-    public List<Room> searchRooms(String name) {
-        return roomRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(name);
+    public RoomSlice searchRooms(String name, String visibility, String sort, String cursor, int limit) {
+        return listRooms(withVisibility(visibility, Criteria.where("name").regex(Pattern.quote(name), "i"),
+                        Criteria.where("isActive").is(true)),
+                RoomSort.parse(sort, RoomSort.NAME), cursor, limit);
+    }
+    
+    private List<Criteria> withVisibility(String visibility, Criteria... filters) {
+        List<Criteria> criteria = new ArrayList<>(List.of(filters));
+        if (visibility == null || visibility.isBlank()) {
+            return criteria;
+        }
+        switch (visibility.trim().toLowerCase(Locale.ROOT)) {
+            case "public" -> criteria.add(Criteria.where("isPrivate").is(false));
+            case "private" -> criteria.add(Criteria.where("isPrivate").is(true));
+            default -> throw new RuntimeException("Invalid visibility! Use public or private.");
+        }
+        return criteria;
+    }
+    
+    /**
+     * Get popular rooms (public, most members first), one slice at a time
+     */
+    public RoomSlice getPopularRooms(String cursor, int limit) {
+        return listRooms(List.of(Criteria.where("isPrivate").is(false), Criteria.where("isActive").is(true)),
+                RoomSort.MEMBERS, cursor, limit);
     }
     
     /**
-     * Get popular rooms (by member count)
+     * Get active rooms with at least the given number of members, largest first
      */
-    public List<Room> getPopularRooms() {
-        return roomRepository.findPopularRooms();
+    public RoomSlice getRoomsWithMinimumMembers(int minMembers, String cursor, int limit) {
+        return listRooms(List.of(Criteria.where("isActive").is(true), Criteria.where("memberCount").gte(minMembers)),
+                RoomSort.MEMBERS, cursor, limit);
     }
     
     /**
      * Check if user is admin of room
      */
     public boolean isUserAdminOfRoom(String userId, String roomId) {
-        Optional<Room> roomOptional = roomRepository.findById(roomId);
-        return roomOptional.isPresent() && roomOptional.get().isAdmin(userId);
+        return roomAclCache.get(roomId)
+                .map(acl -> acl.isAdmin(userId))
+                .orElse(false);
     }
     
     /**
      * Check if user is member of room
      */
     public boolean isUserMemberOfRoom(String userId, String roomId) {
-        Optional<Room> roomOptional = roomRepository.findById(roomId);
-        return roomOptional.isPresent() && roomOptional.get().isMember(userId);
+        return roomAclCache.get(roomId)
+                .map(acl -> acl.isMember(userId))
+                .orElse(false);
     }
     
     /**
-     * Get room members
+     * Get active rooms two users are both members of, by name
      */
-    public List<String> getRoomMembers(String roomId) {
+    public List<RoomSummary> getSharedRooms(String userId, String otherUserId) {
+        List<String> roomIds;
+        if (roomMembershipIndex.isComplete()) {
+            roomIds = roomMembershipIndex.sharedRooms(userId, otherUserId);
+        } else {
+            Set<String> ownRooms = new HashSet<>(roomMembershipStore.getRoomIdsOfUser(userId));
+            roomIds = roomMembershipStore.getRoomIdsOfUser(otherUserId).stream()
+                    .filter(ownRooms::contains)
+                    .toList();
+        }
+        if (roomIds.isEmpty()) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("_id").in(roomIds).and("isActive").is(true))
+                .with(Sort.by("name"));
+        query.fields().include(RoomSummary.FIELDS);
+        return mongoTemplate.find(query, Room.class).stream().map(RoomSummary::from).toList();
+    }
+    
+    /**
+     * Members across several of the user's rooms: how many distinct users
+     * they reach and which users are in all of them
+     */
+    public Map<String, Object> getRoomAudience(String userId, List<String> roomIds) {
+        List<String> distinctRoomIds = roomIds.stream().distinct().toList();
+        if (distinctRoomIds.isEmpty() || distinctRoomIds.size() > MAX_AUDIENCE_ROOMS) {
+            throw new RuntimeException("Give between 1 and " + MAX_AUDIENCE_ROOMS + " room IDs!");
+        }
+        // Each check loads the room into the membership index
+        for (String roomId : distinctRoomIds) {
+            if (!isUserMemberOfRoom(userId, roomId)) {
+                throw new RuntimeException("Not a member of room " + roomId + "!");
+            }
+        }
+        
+        Map<String, Object> audience = new LinkedHashMap<>();
+        audience.put("rooms", distinctRoomIds.size());
+        audience.put("distinctMembers", roomMembershipIndex.countDistinctMembers(distinctRoomIds));
+        audience.put("commonMembers", roomMembershipIndex.membersOfAll(distinctRoomIds));
+        return audience;
+    }
+    
+    /**
+     * Get cached access-control snapshot of a room
+     */
+    public Optional<RoomAclCache.RoomAcl> getRoomAcl(String roomId) {
+        return roomAclCache.get(roomId);
+    }
+    
+    /**
+     * Get one page of room members, oldest first
+     */
+    public Page<RoomMember> getRoomMembers(String roomId, int page, int size) {
         Optional<Room> roomOptional = roomRepository.findById(roomId);
         if (roomOptional.isEmpty()) {
             throw new RuntimeException("Room not found!");
         }
         
-        return roomOptional.get().getMembers();
+        roomMembershipMigrator.migrateRoom(roomOptional.get());
+        return roomMembershipStore.getMembers(roomId, Math.max(0, page), Math.max(1, Math.min(size, MAX_MEMBER_PAGE_SIZE)));
     }
     
     /**
      * Update room's last message time
      */
     public void updateRoomLastMessageTime(String roomId) {
-        Optional<Room> roomOptional = roomRepository.findById(roomId);
-        if (roomOptional.isPresent()) {
-            Room room = roomOptional.get();
-            room.setLastMessageAt(LocalDateTime.now());
-            roomRepository.save(room);
-        }
+        updateRoomLastMessageTime(roomId, LocalDateTime.now());
+    }
+    
+    /**
+     * Update room's last message time (coalesced, applied as an atomic $max)
+     */
+    public void updateRoomLastMessageTime(String roomId, LocalDateTime timestamp) {
+        roomActivityTracker.touch(roomId, timestamp);
     }
     
     /**
@@ -376,7 +559,7 @@ public class RoomService {
         
         Room room = roomOptional.get();
         
-        if (!room.isMember(userId)) {
+        if (!isUserMemberOfRoom(userId, roomId)) {
             throw new RuntimeException("User is not a member of this room!");
         }
         
@@ -386,7 +569,7 @@ public class RoomService {
         
         // Initialize video call (placeholder)
         room.initializeVideoCall();
-        roomRepository.save(room);
+        updateRoomFields(roomId, new Update().set("videoCallRoomId", room.getVideoCallRoomId()));
         
         return room.getVideoCallRoomId();
     }
@@ -417,4 +600,97 @@ public class RoomService {
             }
         }
     }
+    
+    /**
+     * Run a room listing as a keyset query over summary fields only
+     * Fetches one extra row to tell whether another slice follows; there is
+     * no count query.
+     */
+    private RoomSlice listRooms(List<Criteria> filters, RoomSort sort, String cursorToken, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_ROOM_PAGE_SIZE));
+        
+        List<Criteria> criteria = new ArrayList<>(filters);
+        if (cursorToken != null) {
+            RoomCursor cursor = RoomCursor.decode(cursorToken);
+            if (cursor.getSort() != sort) {
+                throw new RuntimeException("Cursor does not match the requested sort!");
+            }
+            criteria.add(after(sort, cursor));
+        }
+        
+        Query query = new Query(new Criteria().andOperator(criteria))
+                .with(sort.toSort())
+                .limit(pageSize + 1);
+        query.fields().include(RoomSummary.FIELDS);
+        
+        List<Room> rooms = mongoTemplate.find(query, Room.class);
+        
+        boolean hasMore = rooms.size() > pageSize;
+        if (hasMore) {
+            rooms = rooms.subList(0, pageSize);
+        }
+        
+        String nextCursor = hasMore ? RoomCursor.of(sort, rooms.get(rooms.size() - 1)).encode() : null;
+        return new RoomSlice(rooms.stream().map(RoomSummary::from).toList(), hasMore, nextCursor);
+    }
+    
+    /**
+     * Rooms strictly after the cursor in (sort field, _id) order
+     */
+    private static Criteria after(RoomSort sort, RoomCursor cursor) {
+        Object key = sort.parseKey(cursor.getKey());
+        Object cursorId = ObjectId.isValid(cursor.getId()) ? new ObjectId(cursor.getId()) : cursor.getId();
+        boolean descending = sort.getDirection() == Sort.Direction.DESC;
+        String field = sort.getField();
+        
+        Criteria idAfter = descending ? Criteria.where("_id").lt(cursorId) : Criteria.where("_id").gt(cursorId);
+        if (key == null) {
+            // Only rooms missing the key remain; they sort last
+            return new Criteria().andOperator(Criteria.where(field).is(null), idAfter);
+        }
+        
+        List<Criteria> branches = new ArrayList<>();
+        branches.add(descending ? Criteria.where(field).lt(key) : Criteria.where(field).gt(key));
+        branches.add(new Criteria().andOperator(Criteria.where(field).is(key), idAfter));
+        if (sort.isNullable()) {
+            branches.add(Criteria.where(field).is(null));
+        }
+        return new Criteria().orOperator(branches);
+    }
+    
+    /**
+     * Apply a field-level update and return the updated room
+     */
+    private Room updateRoomFields(String roomId, Update update) {
+        Room room = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(roomId)), update,
+                FindAndModifyOptions.options().returnNew(true), Room.class);
+        if (room == null) {
+            throw new RuntimeException("Room not found!");
+        }
+        return room;
+    }
+    
+    /**
+     * Load a room only to explain why a conditional membership update did not match
+     */
+    private Room explainRejectedMembershipChange(String roomId) {
+        return roomRepository.findById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found!"));
+    }
+    
+    /**
+     * Persist and broadcast a membership change as a system message
+     * Only explicit joins/leaves are recorded; connection presence is ephemeral.
+     */
+    private void announceMembershipChange(String roomId, String userId, String action) {
+        try {
+            String name = userService.getUserSummary(userId)
+                    .map(UserSummary::getDisplayName)
+                    .orElse("A user");
+            Message systemMessage = messageService.sendSystemMessage(roomId, name + " " + action + " the room");
+            roomBroadcastService.broadcast(roomId, systemMessage);
+        } catch (Exception e) {
+            logger.warn("Could not announce {} of user {} in room {}: {}", action, userId, roomId, e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,305 @@
+package com.workspace.app.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks live STOMP subscriptions to room topics
+ * Lets handlers check "is this session in the room" without a DB lookup,
+ * and lets RoomService evict subscriptions when a user leaves a room or the
+ * room is deleted. Evictions are published to the other nodes in relay mode,
+ * since the user's sessions may be connected to any of them. The broker
+ * UNSUBSCRIBE for an eviction goes through the inbound channel under the
+ * session's ordering key, so it is handled after the SUBSCRIBE it undoes.
+ */
+@Component
+public class RoomSubscriptionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomSubscriptionRegistry.class);
+
+    public static final String ROOM_TOPIC_PREFIX = "/topic/room/";
+
+    private static final String EVICT_USER = "subscriptions.evict-user";
+    private static final String EVICT_ROOM = "subscriptions.evict-room";
+
+    // Marks the UNSUBSCRIBE frames this registry sends on behalf of a session
+    private static final String EVICTION_HEADER = "roomEviction";
+
+    // roomId -> (sessionId:subscriptionId -> subscription)
+    private final Map<String, Map<String, RoomSubscription>> byRoom = new ConcurrentHashMap<>();
+
+    // sessionId -> (subscriptionId -> subscription)
+    private final Map<String, Map<String, RoomSubscription>> bySession = new ConcurrentHashMap<>();
+
+    @Autowired
+    @Lazy
+    @Qualifier("clientInboundChannel")
+    private MessageChannel clientInboundChannel;
+
+    @Autowired
+    @Lazy
+    @Qualifier("brokerChannel")
+    private MessageChannel brokerChannel;
+
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @PostConstruct
+    public void init() {
+        clusterEventBus.subscribe(EVICT_USER, event ->
+                evictUserLocally((String) event.get("roomId"), (String) event.get("userId")));
+        clusterEventBus.subscribe(EVICT_ROOM, event -> evictRoomLocally((String) event.get("roomId")));
+    }
+
+    /**
+     * Whether a destination would be matched as a pattern by a broker
+     * The simple and indexed registries match subscriptions with
+     * AntPathMatcher (*, ?, {var}); external brokers use # and > as wildcards.
+     */
+    public static boolean isPatternDestination(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        for (int i = 0; i < destination.length(); i++) {
+            switch (destination.charAt(i)) {
+                case '*', '?', '{', '#', '>' -> {
+                    return true;
+                }
+                default -> {
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an inbound frame is an eviction sent by the server rather than by the client
+     */
+    public static boolean isEviction(Message<?> message) {
+        return Boolean.TRUE.equals(message.getHeaders().get(EVICTION_HEADER));
+    }
+
+    /**
+     * Extract the room ID from a /topic/room/{roomId}[/...] destination
+     */
+    public static String roomIdFromDestination(String destination) {
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) {
+            return null;
+        }
+        String rest = destination.substring(ROOM_TOPIC_PREFIX.length());
+        int slash = rest.indexOf('/');
+        String roomId = slash < 0 ? rest : rest.substring(0, slash);
+        return roomId.isEmpty() ? null : roomId;
+    }
+
+    public void register(String roomId, String userId, String sessionId, String subscriptionId) {
+        RoomSubscription subscription = new RoomSubscription(roomId, userId, sessionId, subscriptionId);
+        // Insert inside compute so removeFromRoom cannot prune the room's map between lookup and put
+        byRoom.compute(roomId, (key, roomSubscriptions) -> {
+            Map<String, RoomSubscription> subscriptions = roomSubscriptions != null ? roomSubscriptions : new ConcurrentHashMap<>();
+            subscriptions.put(sessionId + ":" + subscriptionId, subscription);
+            return subscriptions;
+        });
+        bySession.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>()).put(subscriptionId, subscription);
+    }
+
+    public void unregister(String sessionId, String subscriptionId) {
+        Map<String, RoomSubscription> sessionSubscriptions = bySession.get(sessionId);
+        if (sessionSubscriptions == null) {
+            return;
+        }
+        RoomSubscription subscription = sessionSubscriptions.remove(subscriptionId);
+        if (subscription != null) {
+            removeFromRoom(subscription);
+        }
+    }
+
+    public void unregisterSession(String sessionId) {
+        Map<String, RoomSubscription> sessionSubscriptions = bySession.remove(sessionId);
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.values().forEach(this::removeFromRoom);
+        }
+    }
+
+    /**
+     * Whether a session holds any subscription in a room (O(1), no DB access)
+     */
+    public boolean isSessionSubscribed(String sessionId, String roomId) {
+        Map<String, RoomSubscription> sessionSubscriptions = bySession.get(sessionId);
+        if (sessionSubscriptions == null) {
+            return false;
+        }
+        for (RoomSubscription subscription : sessionSubscriptions.values()) {
+            if (subscription.roomId.equals(roomId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Users with at least one live subscription in a room
+     */
+    public Set<String> getSubscribedUsers(String roomId) {
+        Map<String, RoomSubscription> roomSubscriptions = byRoom.get(roomId);
+        if (roomSubscriptions == null) {
+            return Set.of();
+        }
+        Set<String> users = ConcurrentHashMap.newKeySet();
+        roomSubscriptions.values().forEach(subscription -> users.add(subscription.userId));
+        return users;
+    }
+
+    /**
+     * Drop a user's subscriptions to a room (after leaving it)
+     */
+    public void evictUser(String roomId, String userId) {
+        evictUserLocally(roomId, userId);
+        clusterEventBus.publish(EVICT_USER, Map.of("roomId", roomId, "userId", userId));
+    }
+
+    /**
+     * Drop every subscription to a room (after it is deleted)
+     */
+    public void evictRoom(String roomId) {
+        evictRoomLocally(roomId);
+        clusterEventBus.publish(EVICT_ROOM, Map.of("roomId", roomId));
+    }
+
+    /**
+     * Drop one subscription whose user lost access while its SUBSCRIBE was in flight
+     */
+    public void evictSubscription(String roomId, String userId, String sessionId, String subscriptionId) {
+        evict(List.of(new RoomSubscription(roomId, userId, sessionId, subscriptionId)));
+    }
+
+    private void evictUserLocally(String roomId, String userId) {
+        Map<String, RoomSubscription> roomSubscriptions = byRoom.get(roomId);
+        if (roomSubscriptions == null) {
+            return;
+        }
+        List<RoomSubscription> evicted = new ArrayList<>();
+        for (RoomSubscription subscription : roomSubscriptions.values()) {
+            if (subscription.userId.equals(userId)) {
+                evicted.add(subscription);
+            }
+        }
+        evict(evicted);
+        if (!evicted.isEmpty()) {
+            notifyRemoved(userId, roomId, "left");
+        }
+    }
+
+    private void evictRoomLocally(String roomId) {
+        Map<String, RoomSubscription> roomSubscriptions = byRoom.get(roomId);
+        if (roomSubscriptions == null) {
+            return;
+        }
+        List<RoomSubscription> evicted = new ArrayList<>(roomSubscriptions.values());
+        evict(evicted);
+
+        Set<String> users = ConcurrentHashMap.newKeySet();
+        evicted.forEach(subscription -> users.add(subscription.userId));
+        users.forEach(userId -> notifyRemoved(userId, roomId, "deleted"));
+    }
+
+    public Map<String, Object> getStats() {
+        int subscriptions = 0;
+        for (Map<String, RoomSubscription> roomSubscriptions : byRoom.values()) {
+            subscriptions += roomSubscriptions.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rooms", byRoom.size());
+        stats.put("sessions", bySession.size());
+        stats.put("subscriptions", subscriptions);
+        return stats;
+    }
+
+    private void evict(List<RoomSubscription> subscriptions) {
+        for (RoomSubscription subscription : subscriptions) {
+            Map<String, RoomSubscription> sessionSubscriptions = bySession.get(subscription.sessionId);
+            if (sessionSubscriptions != null) {
+                sessionSubscriptions.remove(subscription.subscriptionId);
+            }
+            removeFromRoom(subscription);
+
+            // Remove the subscription from the broker so no further frames are delivered
+            Message<byte[]> unsubscribe = unsubscribeFrame(subscription);
+            try {
+                clientInboundChannel.send(unsubscribe);
+            } catch (Exception e) {
+                // The session's inbound queue is full; unsubscribe at the broker directly
+                try {
+                    brokerChannel.send(unsubscribe);
+                } catch (Exception brokerException) {
+                    logger.warn("Could not evict subscription {} of session {}: {}",
+                            subscription.subscriptionId, subscription.sessionId, brokerException.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Message<byte[]> unsubscribeFrame(RoomSubscription subscription) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(subscription.sessionId);
+        accessor.setSubscriptionId(subscription.subscriptionId);
+        accessor.setHeader(EVICTION_HEADER, true);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void removeFromRoom(RoomSubscription subscription) {
+        byRoom.computeIfPresent(subscription.roomId, (roomId, roomSubscriptions) -> {
+            roomSubscriptions.remove(subscription.sessionId + ":" + subscription.subscriptionId);
+            return roomSubscriptions.isEmpty() ? null : roomSubscriptions;
+        });
+    }
+
+    private void notifyRemoved(String userId, String roomId, String reason) {
+        try {
+            messagingTemplate.convertAndSendToUser(
+                userId,
+                "/queue/room-access",
+                Map.of("roomId", roomId, "status", "removed", "reason", reason)
+            );
+        } catch (Exception e) {
+            logger.warn("Could not notify user {} of removal from room {}: {}", userId, roomId, e.getMessage());
+        }
+    }
+
+    private static class RoomSubscription {
+        private final String roomId;
+        private final String userId;
+        private final String sessionId;
+        private final String subscriptionId;
+
+        RoomSubscription(String roomId, String userId, String sessionId, String subscriptionId) {
+            this.roomId = roomId;
+            this.userId = userId;
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+        }
+    }
+}
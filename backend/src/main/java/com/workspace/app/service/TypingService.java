@@ -0,0 +1,138 @@
+package com.workspace.app.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory typing state with per-user expiry
+ * Typing events are O(1) map updates; each tick, rooms whose typer set
+ * changed get one "who is typing" snapshot on /topic/room/{roomId}/typing.
+ * Snapshots carry this instance's node ID so clients behind a broker relay
+ * can merge the sets published by different nodes.
+ */
+@Service
+public class TypingService {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Value("${chat.typing.ttl-ms:5000}")
+    private long ttlMs;
+
+    // roomId -> (userId -> typer)
+    private final Map<String, Map<String, Typer>> rooms = new ConcurrentHashMap<>();
+    private final Set<String> dirtyRooms = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong snapshotsPublished = new AtomicLong();
+
+    /**
+     * Record a typing start/stop event
+     */
+    public void update(String roomId, String userId, String username, boolean isTyping) {
+        if (roomId == null || userId == null) {
+            return;
+        }
+        events.incrementAndGet();
+
+        if (isTyping) {
+            Typer typer = new Typer(userId, username, System.currentTimeMillis() + ttlMs);
+            // Insert inside compute so publish cannot drop the room's map between lookup and put
+            rooms.compute(roomId, (key, typers) -> {
+                Map<String, Typer> roomTypers = typers != null ? typers : new ConcurrentHashMap<>();
+                if (roomTypers.put(userId, typer) == null) {
+                    dirtyRooms.add(roomId);
+                }
+                return roomTypers;
+            });
+        } else {
+            stopTyping(roomId, userId);
+        }
+    }
+
+    /**
+     * Clear a user's typing state (stop event, message sent, left room)
+     */
+    public void stopTyping(String roomId, String userId) {
+        Map<String, Typer> typers = rooms.get(roomId);
+        if (typers != null && typers.remove(userId) != null) {
+            dirtyRooms.add(roomId);
+        }
+    }
+
+    /**
+     * Expire stale typers and publish snapshots for rooms that changed
+     */
+    @Scheduled(fixedRateString = "${chat.typing.publish-interval-ms:333}")
+    public void publish() {
+        long now = System.currentTimeMillis();
+        rooms.forEach((roomId, typers) -> {
+            if (typers.values().removeIf(typer -> typer.expiresAt <= now)) {
+                dirtyRooms.add(roomId);
+            }
+        });
+
+        if (dirtyRooms.isEmpty()) {
+            return;
+        }
+
+        for (String roomId : new ArrayList<>(dirtyRooms)) {
+            dirtyRooms.remove(roomId);
+
+            List<Map<String, String>> typing = new ArrayList<>();
+            rooms.computeIfPresent(roomId, (key, typers) -> {
+                typers.values().forEach(typer -> typing.add(Map.of(
+                    "userId", typer.userId,
+                    "username", typer.username != null ? typer.username : ""
+                )));
+                return typers.isEmpty() ? null : typers;
+            });
+
+            messagingTemplate.convertAndSend("/topic/room/" + roomId + "/typing", Map.of(
+                "roomId", roomId,
+                "node", clusterEventBus.getNodeId(),
+                "typing", typing
+            ));
+            snapshotsPublished.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int typers = 0;
+        for (Map<String, Typer> roomTypers : rooms.values()) {
+            typers += roomTypers.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rooms", rooms.size());
+        stats.put("typers", typers);
+        stats.put("events", events.get());
+        stats.put("snapshotsPublished", snapshotsPublished.get());
+        return stats;
+    }
+
+    private static class Typer {
+        private final String userId;
+        private final String username;
+        private final long expiresAt;
+
+        Typer(String userId, String username, long expiresAt) {
+            this.userId = userId;
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.workspace.app.service;
+
+import com.workspace.app.dto.UserPresence;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user presence from live WebSocket sessions
+ * Sessions are counted per user across devices in a sharded map; a user is
+ * online while at least one session is alive. Sessions that stop sending
+ * frames or heartbeats expire, and come back online with their next frame
+ * (STOMP allows clients without heartbeats). Status changes are batched per tick and
+ * pushed only to users subscribed to one of the changed user's rooms, as
+ * known to the membership index or opened by the user's own sessions.
+ * In relay mode each node also publishes its status changes and a periodic
+ * snapshot of its online users, so presence lookups and room deltas cover
+ * sessions connected to any node.
+ */
+@Service
+public class UserPresenceService {
+
+    private static final int SHARDS = 16;
+
+    private static final String PRESENCE_DELTA = "presence.delta";
+    private static final String PRESENCE_SNAPSHOT = "presence.snapshot";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RoomSubscriptionRegistry roomSubscriptionRegistry;
+
+    @Autowired
+    private RoomMembershipIndex roomMembershipIndex;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Value("${user.presence.session-timeout-ms:45000}")
+    private long sessionTimeoutMs;
+
+    @Value("${user.presence.offline-retention-minutes:1440}")
+    private long offlineRetentionMinutes;
+
+    @Value("${user.presence.cluster-sync-ms:5000}")
+    private long clusterSyncMs;
+
+    private final PresenceShard[] shards = new PresenceShard[SHARDS];
+
+    // sessionId -> session
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+
+    // userId -> rooms whose members should hear about this user's change
+    private final Map<String, PendingDelta> pendingDeltas = new ConcurrentHashMap<>();
+
+    // Relay mode: nodeId -> that node's online users, and deltas other nodes published
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
+    private final Map<String, PendingDelta> remoteDeltas = new ConcurrentHashMap<>();
+
+    // userId -> when the user was last online on another node
+    private final Map<String, Long> remoteLastSeen = new ConcurrentHashMap<>();
+
+    private volatile long lastSnapshotAt;
+
+    private final AtomicLong deltasPublished = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong sessionsExpired = new AtomicLong();
+
+    public UserPresenceService() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new PresenceShard();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        clusterEventBus.subscribe(PRESENCE_DELTA, this::onRemoteDelta);
+        clusterEventBus.subscribe(PRESENCE_SNAPSHOT, this::onRemoteSnapshot);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (event.getUser() == null || accessor.getSessionId() == null) {
+            return;
+        }
+        String userId = event.getUser().getName();
+        LiveSession session = new LiveSession(userId);
+        if (sessions.putIfAbsent(accessor.getSessionId(), session) != null) {
+            return;
+        }
+        synchronized (shard(userId)) {
+            startSession(session);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        endSession(event.getSessionId());
+    }
+
+    /**
+     * Remember which rooms an online user is in, and tell those rooms about them
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String roomId = RoomSubscriptionRegistry.roomIdFromDestination(accessor.getDestination());
+        if (roomId == null || event.getUser() == null) {
+            return;
+        }
+        String userId = event.getUser().getName();
+        PresenceShard shard = shard(userId);
+        synchronized (shard) {
+            UserEntry entry = shard.users.get(userId);
+            if (entry == null || entry.sessions == 0 || !entry.rooms.add(roomId)) {
+                return;
+            }
+        }
+        pendingDeltas.compute(userId, (key, delta) -> {
+            if (delta == null || !delta.online) {
+                delta = new PendingDelta(true, new HashSet<>());
+            }
+            delta.rooms.add(roomId);
+            return delta;
+        });
+    }
+
+    /**
+     * Any inbound frame (including STOMP heartbeats) keeps a session alive,
+     * and brings an expired but still connected session back online
+     */
+    public void touch(String sessionId) {
+        LiveSession session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        session.lastSeenAt = System.currentTimeMillis();
+        if (session.expired) {
+            synchronized (shard(session.userId)) {
+                // A disconnect may have removed it since the lookup
+                if (session.expired && sessions.get(sessionId) == session) {
+                    startSession(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Presence for a batch of users, served from memory (this node plus the other nodes' reports)
+     */
+    public Map<String, UserPresence> getPresence(List<String> userIds) {
+        Map<String, UserPresence> result = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            int sessions = 0;
+            long lastSeenAt = 0;
+            PresenceShard shard = shard(userId);
+            synchronized (shard) {
+                UserEntry entry = shard.users.get(userId);
+                if (entry != null) {
+                    sessions = entry.sessions;
+                    lastSeenAt = entry.lastSeenAt;
+                }
+            }
+            for (RemoteNode node : remoteNodes.values()) {
+                Integer remoteSessions = node.users.get(userId);
+                if (remoteSessions != null) {
+                    sessions += remoteSessions;
+                    lastSeenAt = Math.max(lastSeenAt, node.reportedAt);
+                }
+            }
+            lastSeenAt = Math.max(lastSeenAt, remoteLastSeen.getOrDefault(userId, 0L));
+
+            result.put(userId, sessions == 0 && lastSeenAt == 0
+                    ? UserPresence.offline(userId)
+                    : new UserPresence(userId, sessions > 0 ? "online" : "offline",
+                            sessions, toDateTime(lastSeenAt)));
+        }
+        return result;
+    }
+
+    public boolean isOnline(String userId) {
+        PresenceShard shard = shard(userId);
+        synchronized (shard) {
+            UserEntry entry = shard.users.get(userId);
+            if (entry != null && entry.sessions > 0) {
+                return true;
+            }
+        }
+        return isOnlineElsewhere(userId);
+    }
+
+    /**
+     * Expire silent sessions, then push batched deltas
+     */
+    @Scheduled(fixedDelayString = "${user.presence.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        sessions.forEach((sessionId, session) -> {
+            if (session.expired || session.lastSeenAt + sessionTimeoutMs >= now) {
+                return;
+            }
+            // Kept in sessions until it disconnects, so its next frame can revive it
+            synchronized (shard(session.userId)) {
+                if (!session.expired && session.lastSeenAt + sessionTimeoutMs < now) {
+                    sessionsExpired.incrementAndGet();
+                    endSession(session);
+                }
+            }
+        });
+
+        if (clusterEventBus.isClustered()) {
+            syncCluster(now);
+        }
+
+        if (!pendingDeltas.isEmpty() || !remoteDeltas.isEmpty()) {
+            publishDeltas();
+        }
+    }
+
+    /**
+     * Drop long-offline users so the map only holds recently active ones
+     */
+    @Scheduled(fixedDelayString = "${user.presence.prune-interval-ms:600000}")
+    public void prune() {
+        long cutoff = System.currentTimeMillis() - offlineRetentionMinutes * 60_000L;
+        for (PresenceShard shard : shards) {
+            synchronized (shard) {
+                shard.users.values().removeIf(entry -> entry.sessions == 0 && entry.lastSeenAt < cutoff);
+            }
+        }
+        remoteLastSeen.values().removeIf(lastSeenAt -> lastSeenAt < cutoff);
+    }
+
+    public Map<String, Object> getStats() {
+        int users = 0;
+        int online = 0;
+        for (PresenceShard shard : shards) {
+            synchronized (shard) {
+                users += shard.users.size();
+                for (UserEntry entry : shard.users.values()) {
+                    if (entry.sessions > 0) {
+                        online++;
+                    }
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedUsers", users);
+        stats.put("onlineUsers", online);
+        stats.put("sessions", sessions.size());
+        stats.put("expiredSessions", (int) sessions.values().stream().filter(session -> session.expired).count());
+        stats.put("pendingDeltas", pendingDeltas.size());
+        stats.put("deltasPublished", deltasPublished.get());
+        stats.put("batchesSent", batchesSent.get());
+        stats.put("sessionsExpired", sessionsExpired.get());
+        stats.put("remoteNodes", remoteNodes.size());
+        stats.put("remoteOnlineUsers", remoteNodes.values().stream().mapToInt(node -> node.users.size()).sum());
+        return stats;
+    }
+
+    private void endSession(String sessionId) {
+        LiveSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        synchronized (shard(session.userId)) {
+            if (!session.expired) {
+                endSession(session);
+            }
+        }
+    }
+
+    /**
+     * Count a session towards its user; caller holds the user's shard lock
+     */
+    private void startSession(LiveSession session) {
+        session.expired = false;
+        UserEntry entry = shard(session.userId).users.computeIfAbsent(session.userId, key -> new UserEntry());
+        entry.sessions++;
+        entry.lastSeenAt = System.currentTimeMillis();
+        if (entry.sessions == 1) {
+            pendingDeltas.put(session.userId, new PendingDelta(true, new HashSet<>(entry.rooms)));
+        }
+    }
+
+    /**
+     * Stop counting a session towards its user; caller holds the user's shard lock
+     */
+    private void endSession(LiveSession session) {
+        session.expired = true;
+        UserEntry entry = shard(session.userId).users.get(session.userId);
+        if (entry == null || entry.sessions == 0) {
+            return;
+        }
+        entry.sessions--;
+        entry.lastSeenAt = Math.max(entry.lastSeenAt, session.lastSeenAt);
+        if (entry.sessions == 0) {
+            pendingDeltas.put(session.userId, new PendingDelta(false, new HashSet<>(entry.rooms)));
+            entry.rooms.clear();
+        }
+    }
+
+    private void publishDeltas() {
+        // recipient -> changes, so each recipient gets one frame per tick
+        Map<String, List<Map<String, Object>>> batches = new HashMap<>();
+
+        for (String userId : new ArrayList<>(pendingDeltas.keySet())) {
+            PendingDelta delta = pendingDeltas.remove(userId);
+            if (delta == null) {
+                continue;
+            }
+            clusterEventBus.publish(PRESENCE_DELTA, Map.of(
+                "userId", userId,
+                "online", delta.online,
+                "lastSeenAt", localLastSeen(userId),
+                "rooms", delta.rooms
+            ));
+            addChange(batches, userId, delta);
+        }
+
+        // Changes on other nodes, for this node's room subscribers
+        for (String userId : new ArrayList<>(remoteDeltas.keySet())) {
+            PendingDelta delta = remoteDeltas.remove(userId);
+            if (delta != null) {
+                addChange(batches, userId, delta);
+            }
+        }
+
+        batches.forEach((recipient, changes) -> {
+            messagingTemplate.convertAndSendToUser(recipient, "/queue/presence", Map.of("changes", changes));
+            batchesSent.incrementAndGet();
+        });
+    }
+
+    private void addChange(Map<String, List<Map<String, Object>>> batches, String userId, PendingDelta delta) {
+        // A user going offline on one node may still be online on another
+        if (!delta.online && isOnline(userId)) {
+            return;
+        }
+        // Every room the user belongs to hears about it, not only the ones their sessions opened
+        Set<String> rooms = new HashSet<>(delta.rooms);
+        rooms.addAll(roomMembershipIndex.roomsOfUser(userId));
+        if (rooms.isEmpty()) {
+            return;
+        }
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("userId", userId);
+        change.put("status", delta.online ? "online" : "offline");
+
+        Set<String> recipients = new HashSet<>();
+        for (String roomId : rooms) {
+            recipients.addAll(roomSubscriptionRegistry.getSubscribedUsers(roomId));
+        }
+        recipients.remove(userId);
+        for (String recipient : recipients) {
+            batches.computeIfAbsent(recipient, key -> new ArrayList<>()).add(change);
+        }
+        deltasPublished.incrementAndGet();
+    }
+
+    /**
+     * Publish this node's online users every sync interval, and forget nodes that stopped reporting
+     */
+    private void syncCluster(long now) {
+        if (now - lastSnapshotAt >= clusterSyncMs) {
+            Map<String, Integer> online = new HashMap<>();
+            for (PresenceShard shard : shards) {
+                synchronized (shard) {
+                    shard.users.forEach((userId, entry) -> {
+                        if (entry.sessions > 0) {
+                            online.put(userId, entry.sessions);
+                        }
+                    });
+                }
+            }
+            clusterEventBus.publish(PRESENCE_SNAPSHOT, Map.of("users", online));
+            lastSnapshotAt = now;
+        }
+
+        long cutoff = now - clusterSyncMs * 3;
+        remoteNodes.entrySet().removeIf(node -> {
+            if (node.getValue().reportedAt >= cutoff) {
+                return false;
+            }
+            node.getValue().users.keySet().forEach(userId ->
+                    remoteLastSeen.merge(userId, node.getValue().reportedAt, Math::max));
+            return true;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onRemoteDelta(Map<String, Object> event) {
+        String userId = (String) event.get("userId");
+        boolean online = Boolean.TRUE.equals(event.get("online"));
+        RemoteNode node = remoteNodes.computeIfAbsent((String) event.get("node"), key -> new RemoteNode());
+        node.reportedAt = System.currentTimeMillis();
+        if (online) {
+            node.users.putIfAbsent(userId, 1);
+        } else {
+            node.users.remove(userId);
+            remoteLastSeen.merge(userId, ((Number) event.get("lastSeenAt")).longValue(), Math::max);
+        }
+        remoteDeltas.put(userId, new PendingDelta(online, new HashSet<>((List<String>) event.get("rooms"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onRemoteSnapshot(Map<String, Object> event) {
+        long now = System.currentTimeMillis();
+        RemoteNode node = remoteNodes.computeIfAbsent((String) event.get("node"), key -> new RemoteNode());
+        Map<String, Integer> online = new ConcurrentHashMap<>();
+        ((Map<String, Number>) event.get("users")).forEach((userId, sessions) -> online.put(userId, sessions.intValue()));
+        node.users.keySet().forEach(userId -> {
+            if (!online.containsKey(userId)) {
+                remoteLastSeen.merge(userId, now, Math::max);
+            }
+        });
+        node.users = online;
+        node.reportedAt = now;
+    }
+
+    private boolean isOnlineElsewhere(String userId) {
+        for (RemoteNode node : remoteNodes.values()) {
+            if (node.users.containsKey(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long localLastSeen(String userId) {
+        PresenceShard shard = shard(userId);
+        synchronized (shard) {
+            UserEntry entry = shard.users.get(userId);
+            return entry == null ? 0 : entry.lastSeenAt;
+        }
+    }
+
+    private PresenceShard shard(String userId) {
+        return shards[Math.floorMod(userId.hashCode(), SHARDS)];
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return epochMillis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static class PresenceShard {
+        private final Map<String, UserEntry> users = new HashMap<>();
+    }
+
+    private static class UserEntry {
+        private int sessions;
+        private long lastSeenAt;
+        private final Set<String> rooms = new HashSet<>();
+    }
+
+    private static class RemoteNode {
+        private volatile Map<String, Integer> users = new ConcurrentHashMap<>();
+        private volatile long reportedAt = System.currentTimeMillis();
+    }
+
+    private static class LiveSession {
+        private final String userId;
+        private volatile long lastSeenAt = System.currentTimeMillis();
+        // Written under the user's shard lock; set while expired or disconnected
+        private volatile boolean expired;
+
+        LiveSession(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static class PendingDelta {
+        private final boolean online;
+        private final Set<String> rooms;
+
+        PendingDelta(boolean online, Set<String> rooms) {
+            this.online = online;
+            this.rooms = rooms;
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package com.workspace.app.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.workspace.app.dto.AuthResponse;
 import com.workspace.app.dto.LoginRequest;
 import com.workspace.app.dto.RegisterRequest;
+import com.workspace.app.dto.UserSummary;
 import com.workspace.app.model.User;
 import com.workspace.app.model.WorkspaceInvite;
 import com.workspace.app.repository.UserRepository;
 import com.workspace.app.security.JwtUtils;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,6 +37,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
     
@@ -39,6 +54,24 @@ public class UserService {
     @Lazy
     private WorkspaceService workspaceService;
     
+    @Value("${user.summary-cache.max-size:50000}")
+    private long summaryCacheMaxSize;
+    
+    @Value("${user.summary-cache.expire-after-write-minutes:60}")
+    private long summaryCacheExpireMinutes;
+    
+    // Sender profile cache shared by all message-producing paths
+    private LoadingCache<String, UserSummary> userSummaryCache;
+    
+    @PostConstruct
+    public void initUserSummaryCache() {
+        userSummaryCache = Caffeine.newBuilder()
+                .maximumSize(summaryCacheMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(summaryCacheExpireMinutes))
+                .recordStats()
+                .build(userId -> userRepository.findById(userId).map(UserSummary::from).orElse(null));
+    }
+    
     /**
      * Register a new user - UPDATED LOGIC FOR WORKSPACE INVITE FLOW
      */
@@ -185,9 +218,10 @@ public class UserService {
             throw new RuntimeException("Invalid credentials!");
         }
         
-        // Update last login time
+        // Update last login time (field-level, so it cannot overwrite concurrent room list updates)
         user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.getId())),
+                new Update().set("lastLoginAt", user.getLastLoginAt()), User.class);
         
         // Generate JWT token
         String token = jwtUtils.generateJwtToken(
@@ -215,6 +249,28 @@ public class UserService {
         return userRepository.findById(userId);
     }
     
+    /**
+     * Get cached user summary (username, display name, avatar) by ID
+     */
+    public Optional<UserSummary> getUserSummary(String userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(userSummaryCache.get(userId));
+    }
+    
+    /**
+     * User summary cache counters
+     */
+    public Map<String, Object> getUserSummaryCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", userSummaryCache.estimatedSize());
+        stats.put("hits", userSummaryCache.stats().hitCount());
+        stats.put("misses", userSummaryCache.stats().missCount());
+        stats.put("hitRate", userSummaryCache.stats().hitRate());
+        return stats;
+    }
+    
     /**
      * Get user by username
      */
@@ -269,7 +325,10 @@ public class UserService {
         
         user.setVideoCallEnabled(updatedUser.isVideoCallEnabled());
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userSummaryCache.invalidate(userId);
+        
+        return savedUser;
     }
     
     /**
@@ -324,6 +383,7 @@ public class UserService {
         User user = userOptional.get();
         user.setActive(false);
         userRepository.save(user);
+        userSummaryCache.invalidate(userId);
     }
     
     /**
@@ -341,55 +401,43 @@ public class UserService {
     }
     
     /**
-     * Add user to room
+     * Add user to room (single atomic $addToSet, no read)
      */
     public void addUserToRoom(String userId, String roomId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            user.addJoinedRoom(roomId);
-            userRepository.save(user);
-        }
+        updateUserRooms(userId, new Update().addToSet("joinedRooms", roomId));
     }
     
     /**
-     * Remove user from room
+     * Remove user from room (single atomic $pull, no read)
      */
     public void removeUserFromRoom(String userId, String roomId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            user.removeJoinedRoom(roomId);
-            userRepository.save(user);
-        }
+        updateUserRooms(userId, new Update().pull("joinedRooms", roomId));
     }
     
+    /**
+     * Remove a room from every user's joined rooms (one $pull across users)
+     */
+    public void removeRoomFromAllUsers(String roomId) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("joinedRooms").is(roomId)),
+                new Update().pull("joinedRooms", roomId), User.class);
+    }
+
     /**
      * Make user admin of room
      */
     public void makeUserAdminOfRoom(String userId, String roomId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            user.addAdminRoom(roomId);
-            userRepository.save(user);
-        }
+        updateUserRooms(userId, new Update().addToSet("adminRooms", roomId));
     }
     
     /**
      * Remove user as admin of room
      */
     public void removeUserAsAdminOfRoom(String userId, String roomId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            user.removeAdminRoom(roomId);
-            userRepository.save(user);
-        }
+        updateUserRooms(userId, new Update().pull("adminRooms", roomId));
+    }
+    
+    private void updateUserRooms(String userId, Update update) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)), update, User.class);
     }
     
     /**
@@ -403,11 +451,7 @@ public class UserService {
      * Validate JWT token and get user
      */
     public Optional<User> validateTokenAndGetUser(String token) {
-        if (!jwtUtils.validateJwtToken(token)) {
-            return Optional.empty();
-        }
-        
-        String userId = jwtUtils.getUserIdFromJwtToken(token);
-        return userRepository.findById(userId);
+        return jwtUtils.parseToken(token)
+                .flatMap(principal -> userRepository.findById(principal.getUserId()));
     }
 }
@@ -0,0 +1,268 @@
+package com.workspace.app.websocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Per-session outbound queue with traffic-class aware backpressure
+ * sendMessage never blocks: frames are queued and written by one drain task
+ * at a time on the shared sender pool. Control frames jump the queue,
+ * ephemeral frames (typing, presence) are dropped once the session falls
+ * behind, and chat frames are always kept. A drain task writes a bounded
+ * batch and then yields its thread back to the pool. A session that stays
+ * over the buffer or send-time limit, whose current write outlives the
+ * send-time limit (checked by the manager's watchdog), or that cannot get a
+ * thread from the bounded sender pool, is closed with a "resync" reason so
+ * the client reconnects and reloads recent history.
+ */
+public class BackpressureSessionDecorator extends WebSocketSessionDecorator {
+
+    public static final CloseStatus RESYNC = CloseStatus.SESSION_NOT_RELIABLE.withReason("resync");
+
+    static final int DRAIN_BATCH = 32;
+
+    enum TrafficClass { CONTROL, CHAT, EPHEMERAL }
+
+    private final OutboundBackpressureManager manager;
+    private final Executor sender;
+
+    private final ArrayDeque<WebSocketMessage<?>> control = new ArrayDeque<>();
+    private final ArrayDeque<WebSocketMessage<?>> regular = new ArrayDeque<>();
+    private long queuedBytes;
+    private long highWaterBytes;
+    private boolean draining;
+    private boolean closing;
+    private long overLimitSince;
+    private volatile long sendStartedAt;
+
+    public BackpressureSessionDecorator(WebSocketSession delegate, OutboundBackpressureManager manager, Executor sender) {
+        super(delegate);
+        this.manager = manager;
+        this.sender = sender;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        TrafficClass trafficClass = classify(message);
+        int length = message.getPayloadLength();
+        long now = System.currentTimeMillis();
+        boolean startDrain = false;
+        boolean disconnect = false;
+
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            if (trafficClass == TrafficClass.EPHEMERAL && isBehind(now)) {
+                manager.recordDrop(trafficClass);
+                return;
+            }
+
+            (trafficClass == TrafficClass.CONTROL ? control : regular).add(message);
+            queuedBytes += length;
+            highWaterBytes = Math.max(highWaterBytes, queuedBytes);
+            manager.recordHighWater(highWaterBytes);
+
+            if (isOverLimit(now)) {
+                if (overLimitSince == 0) {
+                    overLimitSince = now;
+                }
+                disconnect = now - overLimitSince >= manager.getOverLimitGraceMs()
+                        || queuedBytes >= 2L * manager.getBufferSizeLimit();
+            } else {
+                overLimitSince = 0;
+            }
+
+            if (disconnect) {
+                closing = true;
+                control.clear();
+                regular.clear();
+                queuedBytes = 0;
+            } else if (!draining) {
+                draining = true;
+                startDrain = true;
+            }
+        }
+
+        if (disconnect) {
+            manager.recordSlowDisconnect();
+            execute(this::closeForResync);
+        } else if (startDrain) {
+            execute(this::drain);
+        }
+    }
+
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public synchronized long getHighWaterBytes() {
+        return highWaterBytes;
+    }
+
+    /**
+     * Close the session if its current write has outlived the send-time limit
+     * Called by the manager's watchdog, so a client that stopped reading is
+     * dropped even when no further frames arrive for it.
+     */
+    void closeIfStalled(long now) {
+        long started = sendStartedAt;
+        if (started == 0 || now - started <= manager.getSendTimeLimitMs()) {
+            return;
+        }
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            control.clear();
+            regular.clear();
+            queuedBytes = 0;
+        }
+        manager.recordSlowDisconnect();
+        manager.recordStalledSend();
+        closeForResync();
+    }
+
+    /**
+     * Write up to one batch, then yield the thread back to the pool
+     * so a busy session cannot starve the others
+     */
+    private void drain() {
+        try {
+            for (int sent = 0; sent < DRAIN_BATCH; sent++) {
+                WebSocketMessage<?> next;
+                synchronized (this) {
+                    next = control.poll();
+                    if (next == null) {
+                        next = regular.poll();
+                    }
+                    if (next == null || closing) {
+                        draining = false;
+                        return;
+                    }
+                    queuedBytes -= next.getPayloadLength();
+                }
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(next);
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+            boolean more;
+            synchronized (this) {
+                more = !closing && (!control.isEmpty() || !regular.isEmpty());
+                draining = more;
+            }
+            if (more) {
+                execute(this::drain);
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                draining = false;
+                closing = true;
+                control.clear();
+                regular.clear();
+                queuedBytes = 0;
+            }
+            closeQuietly(CloseStatus.SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Run on the sender pool; when it is saturated, give up on this session instead of queueing without bound
+     */
+    private void execute(Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            manager.recordSenderRejection();
+            boolean wasClosing;
+            synchronized (this) {
+                wasClosing = closing;
+                draining = false;
+                closing = true;
+                control.clear();
+                regular.clear();
+                queuedBytes = 0;
+            }
+            if (!wasClosing) {
+                manager.recordSlowDisconnect();
+            }
+            closeForResync();
+        }
+    }
+
+    private boolean isBehind(long now) {
+        long started = sendStartedAt;
+        return queuedBytes >= manager.getEphemeralDropBytes()
+                || (started > 0 && now - started >= manager.getEphemeralDropSendMs());
+    }
+
+    private boolean isOverLimit(long now) {
+        long started = sendStartedAt;
+        return queuedBytes > manager.getBufferSizeLimit()
+                || (started > 0 && now - started > manager.getSendTimeLimitMs());
+    }
+
+    private void closeForResync() {
+        closeQuietly(RESYNC);
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (Exception ignored) {
+            // Connection is already gone
+        }
+    }
+
+    /**
+     * Classify an encoded STOMP frame from its command and destination header
+     */
+    static TrafficClass classify(WebSocketMessage<?> message) {
+        String head;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            head = payload.length() > 256 ? payload.substring(0, 256) : payload;
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            byte[] bytes = new byte[Math.min(256, buffer.remaining())];
+            buffer.get(bytes);
+            head = new String(bytes, StandardCharsets.ISO_8859_1);
+        } else {
+            return TrafficClass.CONTROL;
+        }
+
+        if (!head.startsWith("MESSAGE")) {
+            return TrafficClass.CONTROL; // CONNECTED, RECEIPT, ERROR, heartbeats
+        }
+        int start = head.indexOf("\ndestination:");
+        if (start < 0) {
+            return TrafficClass.CHAT;
+        }
+        start += "\ndestination:".length();
+        int end = head.indexOf('\n', start);
+        String destination = end < 0 ? head.substring(start) : head.substring(start, end);
+
+        if (destination.endsWith("/typing") || destination.endsWith("/presence") || destination.contains("/queue/presence")) {
+            return TrafficClass.EPHEMERAL;
+        }
+        if (destination.contains("/queue/errors") || destination.contains("/queue/room-")) {
+            return TrafficClass.CONTROL;
+        }
+        return TrafficClass.CHAT;
+    }
+}
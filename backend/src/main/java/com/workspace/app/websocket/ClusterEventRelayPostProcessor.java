@@ -0,0 +1,35 @@
+package com.workspace.app.websocket;
+
+import com.workspace.app.service.ClusterEventBus;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Subscribes the relay's system connection to the cluster event destination,
+ * next to the user registry subscriptions Spring already sets up
+ */
+@Component
+public class ClusterEventRelayPostProcessor implements BeanPostProcessor {
+
+    @Autowired
+    @Lazy
+    private ClusterEventBus clusterEventBus;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof StompBrokerRelayMessageHandler handler) {
+            Map<String, MessageHandler> subscriptions = new HashMap<>(handler.getSystemSubscriptions());
+            subscriptions.put(ClusterEventBus.DESTINATION, clusterEventBus);
+            handler.setSystemSubscriptions(subscriptions);
+        }
+        return bean;
+    }
+}
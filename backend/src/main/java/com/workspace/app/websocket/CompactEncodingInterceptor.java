@@ -0,0 +1,57 @@
+package com.workspace.app.websocket;
+
+import com.workspace.app.service.CompactPayloadService;
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Negotiates compact encoding on room SUBSCRIBE frames
+ * A native WebSocket client that sends "accept: application/cbor" when
+ * subscribing to /topic/room/{roomId} is moved to the room's CBOR
+ * destination. SockJS clients and clients without the header keep JSON.
+ */
+@Component
+public class CompactEncodingInterceptor implements ChannelInterceptor {
+
+    public static final String ACCEPT_HEADER = "accept";
+    public static final String CBOR_MIME_TYPE = "application/cbor";
+
+    @Autowired
+    @Lazy
+    private CompactPayloadService compactPayloadService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                || !compactPayloadService.isEnabled()) {
+            return message;
+        }
+
+        String accept = accessor.getFirstNativeHeader(ACCEPT_HEADER);
+        String destination = accessor.getDestination();
+        String roomId = RoomSubscriptionRegistry.roomIdFromDestination(destination);
+        if (accept == null || !accept.contains(CBOR_MIME_TYPE)
+                || roomId == null || !destination.equals(RoomSubscriptionRegistry.ROOM_TOPIC_PREFIX + roomId)) {
+            return message;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(NativeTransportHandshakeInterceptor.NATIVE_TRANSPORT_ATTRIBUTE))) {
+            return message;
+        }
+
+        accessor.setDestination(CompactPayloadService.compactDestination(roomId));
+        return message;
+    }
+}
@@ -0,0 +1,120 @@
+package com.workspace.app.websocket;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Shapes the client's permessage-deflate offer before the container negotiates it
+ * Tomcat accepts whatever deflate offer the client makes, so the offer is
+ * rewritten here: dropped when compression is off, otherwise extended with
+ * the no-context-takeover parameters we want, which bounds how much deflate
+ * state a session keeps between messages.
+ */
+@Component
+public class DeflateOfferFilter extends OncePerRequestFilter {
+
+    public static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    @Value("${websocket.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${websocket.compression.server-context-takeover:false}")
+    private boolean serverContextTakeover;
+
+    @Value("${websocket.compression.client-context-takeover:true}")
+    private boolean clientContextTakeover;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Enumeration<String> offered = request.getHeaders(EXTENSIONS_HEADER);
+        if (offered == null || !offered.hasMoreElements()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        List<String> extensions = new ArrayList<>();
+        while (offered.hasMoreElements()) {
+            for (String extension : offered.nextElement().split(",")) {
+                String rewritten = rewrite(extension.trim());
+                if (rewritten != null) {
+                    extensions.add(rewritten);
+                }
+            }
+        }
+        filterChain.doFilter(new ExtensionsRequestWrapper(request, extensions), response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"websocket".equalsIgnoreCase(request.getHeader("Upgrade"));
+    }
+
+    /**
+     * Rewrite one offered extension, or return null to drop it
+     */
+    private String rewrite(String extension) {
+        if (extension.isEmpty()) {
+            return null;
+        }
+        String name = extension.split(";", 2)[0].trim();
+        if (!PERMESSAGE_DEFLATE.equalsIgnoreCase(name)) {
+            return extension;
+        }
+        if (!enabled) {
+            return null;
+        }
+
+        // RFC 7692 lets the server add these to its response even if the client did not offer them
+        StringBuilder offer = new StringBuilder(extension);
+        if (!serverContextTakeover && !extension.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+            offer.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (!clientContextTakeover && !extension.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+            offer.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return offer.toString();
+    }
+
+    private static class ExtensionsRequestWrapper extends HttpServletRequestWrapper {
+
+        private final List<String> extensions;
+
+        ExtensionsRequestWrapper(HttpServletRequest request, List<String> extensions) {
+            super(request);
+            this.extensions = extensions;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return extensions.isEmpty() ? null : String.join(", ", extensions);
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return Collections.enumeration(extensions);
+            }
+            return super.getHeaders(name);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.workspace.app.websocket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Compression ratio and CPU cost of permessage-deflate, per session
+ * The container does the actual compression and exposes no counters, so
+ * every Nth outbound frame of a deflate session is compressed again here
+ * with the same settings (default level, 15-bit window, fresh context per
+ * message as negotiated by DeflateOfferFilter). Sampling runs on the
+ * outbound sender threads, not on the broker. A sample interval of 0 (or
+ * less) turns sampling off; deflate sessions are then only counted.
+ */
+@Component
+public class DeflateStatsCollector implements WebSocketHandlerDecoratorFactory {
+
+    private static final int TOP_SESSIONS = 20;
+
+    // permessage-deflate strips the 0x00 0x00 0xff 0xff tail of each sync-flushed message
+    private static final int SYNC_FLUSH_TAIL = 4;
+
+    @Value("${websocket.compression.stats-sample-every:10}")
+    private int sampleEvery;
+
+    private final Map<String, SessionStats> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong uncompressedSessions = new AtomicLong();
+
+    private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (!isDeflateNegotiated(session)) {
+                    uncompressedSessions.incrementAndGet();
+                    super.afterConnectionEstablished(session);
+                    return;
+                }
+                SessionStats stats = new SessionStats();
+                sessions.put(session.getId(), stats);
+                super.afterConnectionEstablished(sampleEvery > 0 ? new SamplingSession(session, stats) : session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    public Map<String, Object> getStats() {
+        long sampled = 0;
+        long rawBytes = 0;
+        long deflatedBytes = 0;
+        long cpuNanos = 0;
+        List<Map.Entry<String, SessionStats>> bySize = new ArrayList<>(sessions.entrySet());
+        for (Map.Entry<String, SessionStats> entry : bySize) {
+            SessionStats stats = entry.getValue();
+            sampled += stats.sampled.get();
+            rawBytes += stats.rawBytes.get();
+            deflatedBytes += stats.deflatedBytes.get();
+            cpuNanos += stats.cpuNanos.get();
+        }
+        bySize.sort((a, b) -> Long.compare(b.getValue().rawBytes.get(), a.getValue().rawBytes.get()));
+
+        Map<String, Object> perSession = new LinkedHashMap<>();
+        for (Map.Entry<String, SessionStats> entry : bySize.subList(0, Math.min(TOP_SESSIONS, bySize.size()))) {
+            perSession.put(entry.getKey(), entry.getValue().toMap());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("deflateSessions", sessions.size());
+        stats.put("uncompressedSessions", uncompressedSessions.get());
+        stats.put("sampleEvery", sampleEvery);
+        stats.put("sampledFrames", sampled);
+        stats.put("ratio", ratio(deflatedBytes, rawBytes));
+        stats.put("cpuMicrosPerKb", cpuMicrosPerKb(cpuNanos, rawBytes));
+        stats.put("sessions", perSession);
+        return stats;
+    }
+
+    private void sample(WebSocketMessage<?> message, SessionStats stats) {
+        if (stats.frames.incrementAndGet() % sampleEvery != 0) {
+            return;
+        }
+        byte[] payload;
+        if (message instanceof TextMessage text) {
+            payload = text.asBytes();
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            payload = new byte[buffer.remaining()];
+            buffer.get(payload);
+        } else {
+            return;
+        }
+
+        long started = System.nanoTime();
+        Deflater deflater = deflaters.get();
+        byte[] buffer = buffers.get();
+        deflater.reset();
+        deflater.setInput(payload);
+        long deflated = 0;
+        int written;
+        do {
+            written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            deflated += written;
+        } while (written == buffer.length);
+        long elapsed = System.nanoTime() - started;
+
+        stats.sampled.incrementAndGet();
+        stats.rawBytes.addAndGet(payload.length);
+        stats.deflatedBytes.addAndGet(Math.max(0, deflated - SYNC_FLUSH_TAIL));
+        stats.cpuNanos.addAndGet(elapsed);
+    }
+
+    private static boolean isDeflateNegotiated(WebSocketSession session) {
+        for (WebSocketExtension extension : session.getExtensions()) {
+            if (DeflateOfferFilter.PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double ratio(long deflatedBytes, long rawBytes) {
+        return rawBytes == 0 ? 0 : Math.round(deflatedBytes * 1000.0 / rawBytes) / 1000.0;
+    }
+
+    private static double cpuMicrosPerKb(long cpuNanos, long rawBytes) {
+        return rawBytes == 0 ? 0 : Math.round(cpuNanos * 1024.0 / rawBytes) / 1000.0;
+    }
+
+    private class SamplingSession extends WebSocketSessionDecorator {
+
+        private final SessionStats stats;
+
+        SamplingSession(WebSocketSession delegate, SessionStats stats) {
+            super(delegate);
+            this.stats = stats;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            sample(message, stats);
+            super.sendMessage(message);
+        }
+    }
+
+    private static class SessionStats {
+        private final AtomicLong frames = new AtomicLong();
+        private final AtomicLong sampled = new AtomicLong();
+        private final AtomicLong rawBytes = new AtomicLong();
+        private final AtomicLong deflatedBytes = new AtomicLong();
+        private final AtomicLong cpuNanos = new AtomicLong();
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("frames", frames.get());
+            map.put("sampledFrames", sampled.get());
+            map.put("sampledBytes", rawBytes.get());
+            map.put("ratio", ratio(deflatedBytes.get(), rawBytes.get()));
+            map.put("cpuMicros", cpuNanos.get() / 1000);
+            return map;
+        }
+    }
+}
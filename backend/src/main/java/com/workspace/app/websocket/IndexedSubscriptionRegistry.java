@@ -0,0 +1,114 @@
+package com.workspace.app.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription registry indexed by exact destination
+ * Broadcast lookup is a single map get instead of a scan over all sessions.
+ * Pattern subscriptions (rare) are kept apart and matched only when present.
+ * Message selectors are not supported.
+ */
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    // destination -> (sessionId -> subscriptionIds)
+    private final Map<String, Map<String, Set<String>>> exact = new ConcurrentHashMap<>();
+
+    // pattern -> (sessionId -> subscriptionIds)
+    private final Map<String, Map<String, Set<String>>> patterns = new ConcurrentHashMap<>();
+
+    // sessionId -> (subscriptionId -> destination)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        Map<String, Map<String, Set<String>>> index = pathMatcher.isPattern(destination) ? patterns : exact;
+        // One compute per destination, so a concurrent remove cannot prune the map this id goes into
+        index.compute(destination, (key, subscribers) -> {
+            Map<String, Set<String>> destinationSubscribers = subscribers != null ? subscribers : new ConcurrentHashMap<>();
+            destinationSubscribers.computeIfAbsent(sessionId, session -> ConcurrentHashMap.newKeySet()).add(subscriptionId);
+            return destinationSubscribers;
+        });
+        sessions.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> sessionSubscriptions = sessions.get(sessionId);
+        if (sessionSubscriptions == null) {
+            return;
+        }
+        String destination = sessionSubscriptions.remove(subscriptionId);
+        if (destination != null) {
+            remove(destination, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> sessionSubscriptions = sessions.remove(sessionId);
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.forEach((subscriptionId, destination) -> remove(destination, sessionId, subscriptionId));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        collect(exact.get(destination), result);
+        if (!patterns.isEmpty()) {
+            patterns.forEach((pattern, subscribers) -> {
+                if (pathMatcher.match(pattern, destination)) {
+                    collect(subscribers, result);
+                }
+            });
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        int subscriptions = 0;
+        for (Map<String, String> sessionSubscriptions : sessions.values()) {
+            subscriptions += sessionSubscriptions.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("destinations", exact.size());
+        stats.put("patterns", patterns.size());
+        stats.put("sessions", sessions.size());
+        stats.put("subscriptions", subscriptions);
+        return stats;
+    }
+
+    private void remove(String destination, String sessionId, String subscriptionId) {
+        Map<String, Map<String, Set<String>>> index = pathMatcher.isPattern(destination) ? patterns : exact;
+        index.computeIfPresent(destination, (key, subscribers) -> {
+            subscribers.computeIfPresent(sessionId, (session, ids) -> {
+                ids.remove(subscriptionId);
+                return ids.isEmpty() ? null : ids;
+            });
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static void collect(Map<String, Set<String>> subscribers, MultiValueMap<String, String> result) {
+        if (subscribers == null) {
+            return;
+        }
+        subscribers.forEach((sessionId, subscriptionIds) -> {
+            for (String subscriptionId : subscriptionIds) {
+                result.add(sessionId, subscriptionId);
+            }
+        });
+    }
+}
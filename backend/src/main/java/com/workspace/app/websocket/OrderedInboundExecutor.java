@@ -0,0 +1,294 @@
+package com.workspace.app.websocket;
+
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inbound channel executor that keeps frames for the same key in order
+ * SEND frames are keyed by room ID (from the destination or the JSON
+ * payload); session frames (CONNECT, SUBSCRIBE, UNSUBSCRIBE, DISCONNECT,
+ * heartbeats) are keyed by session, so a session's subscription changes
+ * reach the broker in the order it sent them. Each frame has exactly one key.
+ * Ordering between a session's two kinds of frames is kept by dependencies
+ * rather than by moving frames between queues: a SEND waits for the session
+ * frames sent before it, and a session frame waits for the session's SENDs
+ * still queued or in flight. Each key has a bounded FIFO queue and at most
+ * one frame in flight, so different rooms run fully in parallel on the
+ * shared pool while each room is processed strictly in arrival order.
+ */
+public class OrderedInboundExecutor extends ThreadPoolTaskExecutor {
+
+    private static final Pattern ROOM_ID_FIELD = Pattern.compile("\"roomId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final int TOP_KEYS = 10;
+
+    private final int maxQueuedPerKey;
+    private final Map<String, KeyQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, SessionFrames> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong maxDepthSeen = new AtomicLong();
+
+    public OrderedInboundExecutor(int threads, int maxQueuedPerKey) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+        this.maxQueuedPerKey = maxQueuedPerKey;
+        setCorePoolSize(poolSize);
+        setMaxPoolSize(poolSize);
+        setAllowCoreThreadTimeOut(true);
+        setThreadNamePrefix("inbound-ordered-");
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!(task instanceof MessageHandlingRunnable runnable)) {
+            super.execute(task);
+            return;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(runnable.getMessage().getHeaders());
+        String sessionKey = sessionId != null ? "session:" + sessionId : null;
+        String key = routingKey(runnable.getMessage(), sessionKey);
+        if (key == null) {
+            super.execute(task);
+            return;
+        }
+
+        while (true) {
+            KeyQueue queue = queues.computeIfAbsent(key, KeyQueue::new);
+            synchronized (queue) {
+                if (queue.retired) {
+                    continue; // drained and removed concurrently, take a fresh queue
+                }
+                if (queue.tasks.size() >= maxQueuedPerKey) {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Inbound queue for " + key + " is full");
+                }
+                Pending frame = new Pending(task, sessionId, queue);
+                if (sessionId != null) {
+                    track(frame, key.equals(sessionKey));
+                }
+                queue.tasks.add(frame);
+                maxDepthSeen.accumulateAndGet(queue.tasks.size(), Math::max);
+                if (queue.running) {
+                    return;
+                }
+                queue.running = true;
+            }
+            super.execute(() -> runNext(queue));
+            return;
+        }
+    }
+
+    /**
+     * Run one frame for a key, then yield the thread back to the pool
+     * so a busy room cannot starve the others. A queue whose head still
+     * waits on another queue parks until {@link #release} resumes it.
+     */
+    private void runNext(KeyQueue queue) {
+        Pending frame;
+        synchronized (queue) {
+            frame = queue.tasks.peek();
+            if (frame != null && frame.waitingOn.get() > 0) {
+                queue.running = false;
+                return;
+            }
+            queue.tasks.poll();
+        }
+        try {
+            if (frame != null) {
+                frame.task.run();
+            }
+        } finally {
+            if (frame != null) {
+                release(frame);
+            }
+            boolean more;
+            synchronized (queue) {
+                more = !queue.tasks.isEmpty();
+                if (!more) {
+                    queue.running = false;
+                    queue.retired = true;
+                    queues.remove(queue.key, queue);
+                }
+            }
+            if (more) {
+                super.execute(() -> runNext(queue));
+            }
+        }
+    }
+
+    /**
+     * Record what a new frame must wait for. Runs on the session's inbound
+     * thread before the frame is queued, so nothing can run it early.
+     */
+    private void track(Pending frame, boolean sessionKeyed) {
+        sessions.compute(frame.sessionId, (id, state) -> {
+            SessionFrames frames = state != null ? state : new SessionFrames();
+            if (sessionKeyed) {
+                // Earlier session frames are ahead of it in the same queue
+                frames.roomFrames.forEach(send -> dependOn(frame, send));
+                frames.roomFrames.clear();
+                frames.lastSessionFrame = frame;
+            } else {
+                // Earlier SENDs to this room are ahead of it in the same queue
+                if (frames.lastSessionFrame != null) {
+                    dependOn(frame, frames.lastSessionFrame);
+                }
+                frames.roomFrames.add(frame);
+            }
+            return frames;
+        });
+    }
+
+    private static void dependOn(Pending frame, Pending earlier) {
+        earlier.dependents.add(frame);
+        frame.waitingOn.incrementAndGet();
+    }
+
+    private void release(Pending frame) {
+        if (frame.sessionId == null) {
+            return;
+        }
+        List<Pending> ready = new ArrayList<>();
+        sessions.computeIfPresent(frame.sessionId, (id, frames) -> {
+            if (frames.lastSessionFrame == frame) {
+                frames.lastSessionFrame = null;
+            }
+            frames.roomFrames.remove(frame);
+            for (Pending dependent : frame.dependents) {
+                if (dependent.waitingOn.decrementAndGet() == 0) {
+                    ready.add(dependent);
+                }
+            }
+            frame.dependents.clear();
+            return frames.lastSessionFrame == null && frames.roomFrames.isEmpty() ? null : frames;
+        });
+        for (Pending dependent : ready) {
+            KeyQueue queue = dependent.queue;
+            synchronized (queue) {
+                if (queue.running || queue.tasks.peek() != dependent) {
+                    continue;
+                }
+                queue.running = true;
+            }
+            super.execute(() -> runNext(queue));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        int totalQueued = 0;
+        for (Map.Entry<String, KeyQueue> entry : queues.entrySet()) {
+            int depth;
+            synchronized (entry.getValue()) {
+                depth = entry.getValue().tasks.size();
+            }
+            totalQueued += depth;
+            depths.put(entry.getKey(), depth);
+        }
+
+        Map<String, Integer> deepest = new LinkedHashMap<>();
+        depths.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_KEYS)
+                .forEach(entry -> deepest.put(entry.getKey(), entry.getValue()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeKeys", depths.size());
+        stats.put("queued", totalQueued);
+        stats.put("maxQueuedPerKey", maxQueuedPerKey);
+        stats.put("maxDepthSeen", maxDepthSeen.get());
+        stats.put("rejected", rejected.get());
+        stats.put("deepestKeys", deepest);
+        return stats;
+    }
+
+    /**
+     * Runs on the session's own inbound thread, so a session's frames are routed in the order it sent them
+     */
+    private static String routingKey(Message<?> message, String sessionKey) {
+        if (!SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))) {
+            return sessionKey;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        String roomId = RoomSubscriptionRegistry.roomIdFromDestination(destination);
+        if (roomId == null) {
+            roomId = roomIdFromAppDestination(destination);
+        }
+        if (roomId == null && message.getPayload() instanceof byte[] payload) {
+            roomId = roomIdFromPayload(payload);
+        }
+        return roomId != null ? "room:" + roomId : sessionKey;
+    }
+
+    /**
+     * /app/chat.joinRoom/{roomId} style destinations
+     */
+    private static String roomIdFromAppDestination(String destination) {
+        if (destination == null || !destination.startsWith("/app/chat.")) {
+            return null;
+        }
+        int slash = destination.indexOf('/', "/app/chat.".length());
+        if (slash < 0 || slash == destination.length() - 1) {
+            return null;
+        }
+        return destination.substring(slash + 1);
+    }
+
+    private static String roomIdFromPayload(byte[] payload) {
+        Matcher matcher = ROOM_ID_FIELD.matcher(new String(payload, StandardCharsets.UTF_8));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static class KeyQueue {
+        private final String key;
+        private final ArrayDeque<Pending> tasks = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired;
+
+        private KeyQueue(String key) {
+            this.key = key;
+        }
+    }
+
+    private static class Pending {
+        private final Runnable task;
+        private final String sessionId;
+        private final KeyQueue queue;
+        private final AtomicInteger waitingOn = new AtomicInteger();
+        // Guarded by the session's entry in sessions
+        private final List<Pending> dependents = new ArrayList<>();
+
+        private Pending(Runnable task, String sessionId, KeyQueue queue) {
+            this.task = task;
+            this.sessionId = sessionId;
+            this.queue = queue;
+        }
+    }
+
+    /**
+     * A session's frames that are queued or in flight and that later frames of the other kind must wait for
+     */
+    private static class SessionFrames {
+        private Pending lastSessionFrame;
+        private final Set<Pending> roomFrames = new HashSet<>();
+    }
+}
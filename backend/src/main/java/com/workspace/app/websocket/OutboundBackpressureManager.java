@@ -0,0 +1,200 @@
+package com.workspace.app.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps every WebSocket session in a BackpressureSessionDecorator
+ * Holds the limits, the shared sender pool and the drop/disconnect counters.
+ * The pool is bounded: a session that is currently writing holds one of its
+ * threads, and once every thread is busy and the queue is full, a session
+ * that needs a sender is closed with "resync" like any other slow consumer.
+ * A watchdog closes sessions whose current write has outlived the send-time
+ * limit, so clients that stop reading cannot hold sender threads until the
+ * container's own blocking-send timeout.
+ */
+@Component
+public class OutboundBackpressureManager implements WebSocketHandlerDecoratorFactory {
+
+    private static final int TOP_SESSIONS = 10;
+
+    @Value("${websocket.outbound.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    @Value("${websocket.outbound.buffer-size-limit:524288}")
+    private long bufferSizeLimit;
+
+    @Value("${websocket.outbound.ephemeral-drop-bytes:65536}")
+    private long ephemeralDropBytes;
+
+    @Value("${websocket.outbound.ephemeral-drop-send-ms:1000}")
+    private long ephemeralDropSendMs;
+
+    @Value("${websocket.outbound.over-limit-grace-ms:2000}")
+    private long overLimitGraceMs;
+
+    @Value("${websocket.outbound.sender-threads:0}")
+    private int senderThreads;
+
+    @Value("${websocket.outbound.sender-queue-capacity:10000}")
+    private int senderQueueCapacity;
+
+    private ThreadPoolTaskExecutor sender;
+
+    private final Map<String, BackpressureSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    private final Map<BackpressureSessionDecorator.TrafficClass, AtomicLong> dropped = new ConcurrentHashMap<>();
+    private final AtomicLong slowDisconnects = new AtomicLong();
+    private final AtomicLong senderRejections = new AtomicLong();
+    private final AtomicLong stalledSends = new AtomicLong();
+    private final AtomicLong highWaterBytes = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = senderThreads > 0 ? senderThreads : Runtime.getRuntime().availableProcessors() * 4;
+        sender = new ThreadPoolTaskExecutor();
+        sender.setCorePoolSize(poolSize);
+        sender.setMaxPoolSize(poolSize);
+        sender.setQueueCapacity(senderQueueCapacity);
+        sender.setAllowCoreThreadTimeOut(true);
+        sender.setThreadNamePrefix("ws-sender-");
+        sender.setDaemon(true);
+        sender.initialize();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                BackpressureSessionDecorator decorated =
+                        new BackpressureSessionDecorator(session, OutboundBackpressureManager.this, sender);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(decorated(session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(decorated(session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                BackpressureSessionDecorator decorated = sessions.remove(session.getId());
+                super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Close sessions stuck in one write for longer than the send-time limit
+     */
+    @Scheduled(fixedDelayString = "${websocket.outbound.watchdog-interval-ms:1000}")
+    public void closeStalledSessions() {
+        long now = System.currentTimeMillis();
+        sessions.values().forEach(session -> session.closeIfStalled(now));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> droppedByClass = new LinkedHashMap<>();
+        dropped.forEach((trafficClass, count) -> droppedByClass.put(trafficClass.name().toLowerCase(), count.get()));
+
+        Map<String, Long> largestQueues = new LinkedHashMap<>();
+        sessions.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().getQueuedBytes()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_SESSIONS)
+                .forEach(entry -> largestQueues.put(entry.getKey(), entry.getValue()));
+
+        long sessionHighWater = 0;
+        for (BackpressureSessionDecorator session : sessions.values()) {
+            sessionHighWater = Math.max(sessionHighWater, session.getHighWaterBytes());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("droppedFrames", droppedByClass);
+        stats.put("slowDisconnects", slowDisconnects.get());
+        stats.put("senderRejections", senderRejections.get());
+        stats.put("stalledSends", stalledSends.get());
+        stats.put("senderThreads", sender.getPoolSize());
+        stats.put("senderActive", sender.getActiveCount());
+        stats.put("senderQueued", sender.getThreadPoolExecutor().getQueue().size());
+        stats.put("highWaterBytes", highWaterBytes.get());
+        stats.put("liveSessionHighWaterBytes", sessionHighWater);
+        stats.put("largestQueuedBytes", largestQueues);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.getThreadPoolExecutor().shutdownNow();
+    }
+
+    void recordDrop(BackpressureSessionDecorator.TrafficClass trafficClass) {
+        dropped.computeIfAbsent(trafficClass, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    void recordSlowDisconnect() {
+        slowDisconnects.incrementAndGet();
+    }
+
+    void recordSenderRejection() {
+        senderRejections.incrementAndGet();
+    }
+
+    void recordStalledSend() {
+        stalledSends.incrementAndGet();
+    }
+
+    void recordHighWater(long bytes) {
+        highWaterBytes.accumulateAndGet(bytes, Math::max);
+    }
+
+    long getSendTimeLimitMs() {
+        return sendTimeLimitMs;
+    }
+
+    long getBufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    long getEphemeralDropBytes() {
+        return ephemeralDropBytes;
+    }
+
+    long getEphemeralDropSendMs() {
+        return ephemeralDropSendMs;
+    }
+
+    long getOverLimitGraceMs() {
+        return overLimitGraceMs;
+    }
+
+    private WebSocketSession decorated(WebSocketSession session) {
+        BackpressureSessionDecorator decorated = sessions.get(session.getId());
+        return decorated != null ? decorated : session;
+    }
+}
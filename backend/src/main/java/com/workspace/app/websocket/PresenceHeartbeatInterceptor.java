@@ -0,0 +1,32 @@
+package com.workspace.app.websocket;
+
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import com.workspace.app.service.UserPresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Marks a session as alive on every inbound frame, including STOMP heartbeats
+ */
+@Component
+public class PresenceHeartbeatInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    @Lazy
+    private UserPresenceService userPresenceService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        // Evictions are sent by the server and say nothing about the client
+        if (sessionId != null && !RoomSubscriptionRegistry.isEviction(message)) {
+            userPresenceService.touch(sessionId);
+        }
+        return message;
+    }
+}
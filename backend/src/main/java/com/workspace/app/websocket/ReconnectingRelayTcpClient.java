@@ -0,0 +1,59 @@
+package com.workspace.app.websocket;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.ReconnectStrategy;
+import org.springframework.messaging.tcp.TcpConnectionHandler;
+import org.springframework.messaging.tcp.TcpOperations;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * TCP client for the STOMP broker relay
+ * Wraps the Reactor Netty client (shared event loops and connection pool)
+ * and replaces the relay's fixed 5s reconnect interval with capped
+ * exponential backoff, so a broker restart is picked up quickly without
+ * every node hammering it while it is down.
+ */
+public class ReconnectingRelayTcpClient implements TcpOperations<byte[]> {
+
+    private final ReactorNettyTcpClient<byte[]> delegate;
+    private final ReconnectStrategy reconnectStrategy;
+
+    public ReconnectingRelayTcpClient(String host, int port, int connectTimeoutMs,
+                                      long initialReconnectMs, long maxReconnectMs) {
+        this.delegate = new ReactorNettyTcpClient<>(
+            client -> client
+                .host(host)
+                .port(port)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true),
+            new StompReactorNettyCodec()
+        );
+        this.reconnectStrategy = attempt -> {
+            long delay = initialReconnectMs << Math.min(attempt, 16);
+            return Math.min(delay, maxReconnectMs);
+        };
+    }
+
+    @Override
+    public CompletableFuture<Void> connectAsync(TcpConnectionHandler<byte[]> connectionHandler) {
+        return delegate.connectAsync(connectionHandler);
+    }
+
+    @Override
+    public CompletableFuture<Void> connectAsync(TcpConnectionHandler<byte[]> connectionHandler, ReconnectStrategy ignored) {
+        return delegate.connectAsync(connectionHandler, reconnectStrategy);
+    }
+
+    @Override
+    public CompletableFuture<Void> shutdownAsync() {
+        return delegate.shutdownAsync();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
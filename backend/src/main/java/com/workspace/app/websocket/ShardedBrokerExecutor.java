@@ -0,0 +1,100 @@
+package com.workspace.app.websocket;
+
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broker channel executor that shards fan-out across N single-threaded workers
+ * Messages are routed by room ID (or destination), so every room is delivered
+ * in publish order on one worker while a burst in one large room cannot stall
+ * the others. Session frames (CONNECT, SUBSCRIBE, UNSUBSCRIBE, DISCONNECT) are
+ * routed by session, so a DISCONNECT cannot overtake a SUBSCRIBE queued on
+ * another shard and leave its subscription behind.
+ */
+public class ShardedBrokerExecutor extends ThreadPoolTaskExecutor {
+
+    private final int shardCount;
+    private final List<ThreadPoolExecutor> shards = new ArrayList<>();
+
+    public ShardedBrokerExecutor(int shardCount) {
+        this.shardCount = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        setThreadNamePrefix("broker-shard-");
+    }
+
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+        for (int i = 0; i < shardCount; i++) {
+            CustomizableThreadFactory shardThreadFactory = new CustomizableThreadFactory("broker-shard-" + i + "-");
+            shardThreadFactory.setDaemon(true);
+            shards.add(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), shardThreadFactory, rejectedExecutionHandler));
+        }
+        return super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        String key = routingKey(task);
+        if (key == null || shards.isEmpty()) {
+            super.execute(task);
+            return;
+        }
+        shards.get(Math.floorMod(key.hashCode(), shardCount)).execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        shards.forEach(ThreadPoolExecutor::shutdown);
+        super.shutdown();
+    }
+
+    public Map<String, Object> getStats() {
+        List<Integer> queued = new ArrayList<>();
+        long completed = 0;
+        for (ThreadPoolExecutor shard : shards) {
+            queued.add(shard.getQueue().size());
+            completed += shard.getCompletedTaskCount();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", shardCount);
+        stats.put("queuedPerShard", queued);
+        stats.put("completed", completed);
+        return stats;
+    }
+
+    private static String routingKey(Runnable task) {
+        if (!(task instanceof MessageHandlingRunnable runnable)) {
+            return null;
+        }
+        Message<?> message = runnable.getMessage();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null && !SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))) {
+            return "session:" + sessionId;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        String roomId = RoomSubscriptionRegistry.roomIdFromDestination(destination);
+        if (roomId != null) {
+            return roomId;
+        }
+        if (destination != null) {
+            return destination;
+        }
+        return sessionId != null ? "session:" + sessionId : null;
+    }
+}
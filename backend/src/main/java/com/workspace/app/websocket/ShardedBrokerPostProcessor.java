@@ -0,0 +1,26 @@
+package com.workspace.app.websocket;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Swaps the simple broker's subscription registry for the indexed one
+ * when websocket.broker.mode is "sharded"
+ */
+@Component
+public class ShardedBrokerPostProcessor implements BeanPostProcessor {
+
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof SimpleBrokerMessageHandler handler && "sharded".equalsIgnoreCase(brokerMode)) {
+            handler.setSubscriptionRegistry(new IndexedSubscriptionRegistry());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,69 @@
+package com.workspace.app.config;
+
+import com.workspace.app.service.RoomMemberCountBackfill;
+import com.workspace.app.service.RoomMembershipMigrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SchedulingConfigTest {
+
+    private static final CompletableFuture<String> sweepThread = new CompletableFuture<>();
+    private static final CompletableFuture<String> reconcileThread = new CompletableFuture<>();
+    private static final CompletableFuture<String> tickThread = new CompletableFuture<>();
+
+    @Test
+    void runsMongoJobsOnTheMaintenanceSchedulerAndTicksOffTheBrokerScheduler() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                    "room.members.migration.interval-ms", "10",
+                    "room.members.reconcile-counts.interval-ms", "10")));
+            // Registered as ready-made singletons so their Mongo dependencies are not injected
+            RoomMembershipMigrator migrator = mock(RoomMembershipMigrator.class);
+            doAnswer(invocation -> sweepThread.complete(Thread.currentThread().getName())).when(migrator).sweep();
+            RoomMemberCountBackfill backfill = mock(RoomMemberCountBackfill.class);
+            doAnswer(invocation -> reconcileThread.complete(Thread.currentThread().getName())).when(backfill).reconcile();
+            context.getBeanFactory().registerSingleton("roomMembershipMigrator", migrator);
+            context.getBeanFactory().registerSingleton("roomMemberCountBackfill", backfill);
+            context.register(Jobs.class);
+            context.refresh();
+
+            assertThat(sweepThread.get(5, TimeUnit.SECONDS)).startsWith("mongo-maintenance-");
+            assertThat(reconcileThread.get(5, TimeUnit.SECONDS)).startsWith("mongo-maintenance-");
+            assertThat(tickThread.get(5, TimeUnit.SECONDS)).startsWith("scheduled-");
+        }
+    }
+
+    @Configuration
+    @EnableScheduling
+    @Import(SchedulingConfig.class)
+    static class Jobs {
+
+        // The broker's scheduler, which @Scheduled methods would otherwise share with heartbeats
+        @Bean
+        ThreadPoolTaskScheduler messageBrokerTaskScheduler() {
+            ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+            scheduler.setThreadNamePrefix("broker-");
+            return scheduler;
+        }
+
+        @Scheduled(fixedDelay = 10)
+        public void tick() {
+            tickThread.complete(Thread.currentThread().getName());
+        }
+    }
+}
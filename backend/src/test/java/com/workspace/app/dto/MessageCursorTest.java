@@ -0,0 +1,45 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageCursorTest {
+
+    @Test
+    void roundTripsThroughItsToken() {
+        MessageCursor cursor = new MessageCursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000), "65e1f0a0c0ffee0000000001");
+
+        MessageCursor decoded = MessageCursor.decode(cursor.encode());
+
+        assertThat(decoded.getCreatedAt()).isEqualTo(cursor.getCreatedAt());
+        assertThat(decoded.getId()).isEqualTo(cursor.getId());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new MessageCursor(LocalDateTime.of(2024, 3, 1, 12, 30), "id/with+odd?chars").encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void truncatesToTheMillisecondsMongoStores() {
+        Message message = new Message("general", "alice", "alice", "hi");
+        message.setId("65e1f0a0c0ffee0000000001");
+        message.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_789));
+
+        assertThat(MessageCursor.of(message).getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> MessageCursor.decode("not a cursor")).hasMessage("Invalid cursor!");
+        assertThatThrownBy(() -> MessageCursor.decode("bm8tc2VwYXJhdG9y")).hasMessage("Invalid cursor!");
+        assertThatThrownBy(() -> MessageCursor.decode("eHxpZA")).hasMessage("Invalid cursor!");
+    }
+}
@@ -0,0 +1,31 @@
+package com.workspace.app.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageResponseTest {
+
+    @Test
+    void serializesPagingFieldsUnderPage() throws Exception {
+        PageResponse<String> response = PageResponse.from(new PageImpl<>(List.of("c", "d"), PageRequest.of(1, 2), 5));
+
+        JsonNode json = new ObjectMapper().valueToTree(response);
+
+        assertThat(json.get("content")).hasSize(2);
+        assertThat(json.get("totalElements")).isNull();
+        JsonNode page = json.get("page");
+        assertThat(page.get("page").asInt()).isEqualTo(1);
+        assertThat(page.get("size").asInt()).isEqualTo(2);
+        assertThat(page.get("totalElements").asLong()).isEqualTo(5);
+        assertThat(page.get("totalPages").asInt()).isEqualTo(3);
+        assertThat(page.get("hasNext").asBoolean()).isTrue();
+        assertThat(page.get("hasPrevious").asBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,99 @@
+package com.workspace.app.dto;
+
+import com.workspace.app.model.Room;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomCursorTest {
+
+    @ParameterizedTest
+    @EnumSource(RoomSort.class)
+    void roundTripsThroughItsTokenForEverySort(RoomSort sort) {
+        RoomCursor cursor = RoomCursor.of(sort, room());
+
+        RoomCursor decoded = RoomCursor.decode(cursor.encode());
+
+        assertThat(decoded.getSort()).isEqualTo(sort);
+        assertThat(decoded.getKey()).isEqualTo(cursor.getKey()).isNotNull();
+        assertThat(decoded.getId()).isEqualTo("65e1f0a0c0ffee0000000001");
+        assertThat(sort.parseKey(decoded.getKey())).isEqualTo(sort.parseKey(sort.keyOf(room())));
+    }
+
+    @Test
+    void keepsNamesContainingTheSeparators() {
+        Room room = room();
+        room.setName("a|b=c|");
+
+        RoomCursor decoded = RoomCursor.decode(RoomCursor.of(RoomSort.NAME, room).encode());
+
+        assertThat(decoded.getKey()).isEqualTo("a|b=c|");
+        assertThat(decoded.getId()).isEqualTo(room.getId());
+    }
+
+    @Test
+    void tellsAMissingKeyFromAnEmptyOne() {
+        Room room = room();
+        room.setLastMessageAt(null);
+        room.setName("");
+
+        assertThat(RoomCursor.decode(RoomCursor.of(RoomSort.RECENT, room).encode()).getKey()).isNull();
+        assertThat(RoomCursor.decode(RoomCursor.of(RoomSort.NAME, room).encode()).getKey()).isEmpty();
+    }
+
+    @Test
+    void truncatesDatesToTheMillisecondsMongoStores() {
+        Room room = room();
+        room.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_789));
+
+        assertThat(RoomSort.NEWEST.parseKey(RoomCursor.of(RoomSort.NEWEST, room).getKey()))
+                .isEqualTo(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000));
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        Room room = room();
+        room.setName("name/with+odd?chars ünïcode");
+
+        assertThat(RoomCursor.of(RoomSort.NAME, room).encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "BOGUS|65e1f0a0c0ffee0000000001|=3",
+        "MEMBERS|65e1f0a0c0ffee0000000001|=three",
+        "MEMBERS|65e1f0a0c0ffee0000000001|=3 OR 1=1",
+        "NEWEST|65e1f0a0c0ffee0000000001|=yesterday",
+        "RECENT|65e1f0a0c0ffee0000000001|=2024-03-02T08:15:30Z",
+        "members|65e1f0a0c0ffee0000000001|=3",
+        "MEMBERS|65e1f0a0c0ffee0000000001"
+    })
+    void rejectsEditedTokens(String raw) {
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> RoomCursor.decode(token)).hasMessage("Invalid cursor!");
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> RoomCursor.decode("not a cursor")).hasMessage("Invalid cursor!");
+        assertThatThrownBy(() -> RoomCursor.decode("")).hasMessage("Invalid cursor!");
+    }
+
+    private static Room room() {
+        Room room = new Room("general", "", "alice");
+        room.setId("65e1f0a0c0ffee0000000001");
+        room.setMemberCount(12);
+        room.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0));
+        room.setLastMessageAt(LocalDateTime.of(2024, 3, 2, 8, 15, 30));
+        return room;
+    }
+}
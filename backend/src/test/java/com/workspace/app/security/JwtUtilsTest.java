@@ -0,0 +1,132 @@
+package com.workspace.app.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "WorkspaceAppSecretKeyForJWTToken2023ExtraLongSecureKeyForHS512AlgorithmCompliance2024";
+    private static final String FOREIGN_SECRET = "SomeOtherServiceSecretKeyThatIsAlsoLongEnoughForHS512SignaturesToBeAccepted2024";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", 100L);
+        jwtUtils.init();
+    }
+
+    @Test
+    void verifiesATokenOnceAndServesItFromTheCache() {
+        String token = jwtUtils.generateJwtToken("user-1", "alice", "alice@example.com");
+
+        JwtPrincipal first = jwtUtils.parseToken(token).orElseThrow();
+        JwtPrincipal second = jwtUtils.parseToken(token).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getUserId()).isEqualTo("user-1");
+        assertThat(first.getUsername()).isEqualTo("alice");
+        assertThat(jwtUtils.getVerifiedCacheStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void rejectsATamperedSignatureAfterTheGenuineTokenWasCached() {
+        String token = signed(SECRET, "user-1", "alice", 60_000);
+        assertThat(jwtUtils.parseToken(token)).isPresent();
+
+        String[] parts = token.split("\\.");
+        char last = parts[2].charAt(0);
+        String tampered = parts[0] + "." + parts[1] + "." + (last == 'A' ? 'B' : 'A') + parts[2].substring(1);
+
+        assertThat(jwtUtils.parseToken(tampered)).isEmpty();
+    }
+
+    @Test
+    void rejectsATamperedPayloadAfterTheGenuineTokenWasCached() {
+        String token = signed(SECRET, "user-1", "alice", 60_000);
+        assertThat(jwtUtils.parseToken(token)).isPresent();
+
+        // Same signature over claims naming another user
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("user-1", "user-2");
+        String tampered = parts[0] + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + "." + parts[2];
+
+        assertThat(jwtUtils.parseToken(tampered)).isEmpty();
+    }
+
+    @Test
+    void rejectsTheSameClaimsSignedWithAForeignKey() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        assertThat(jwtUtils.parseToken(signedUntil(SECRET, "user-1", "alice", expiresAt))).isPresent();
+
+        assertThat(jwtUtils.parseToken(signedUntil(FOREIGN_SECRET, "user-1", "alice", expiresAt))).isEmpty();
+    }
+
+    @Test
+    void rejectsTheSameClaimsUnsigned() {
+        String token = signed(SECRET, "user-1", "alice", 60_000);
+        assertThat(jwtUtils.parseToken(token)).isPresent();
+
+        String unsigned = Jwts.builder()
+                .setSubject("user-1")
+                .claim("username", "alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .compact();
+
+        assertThat(jwtUtils.parseToken(unsigned)).isEmpty();
+    }
+
+    @Test
+    void rejectsAnExpiredTokenWithTheSameClaims() {
+        assertThat(jwtUtils.parseToken(signed(SECRET, "user-1", "alice", 60_000))).isPresent();
+
+        assertThat(jwtUtils.parseToken(signed(SECRET, "user-1", "alice", -60_000))).isEmpty();
+        assertThat(jwtUtils.isTokenExpired(signed(SECRET, "user-1", "alice", -60_000))).isTrue();
+    }
+
+    @Test
+    void stopsServingACachedTokenAtItsExpiry() throws Exception {
+        // exp has second precision, so aim just past the next full second
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = signedUntil(SECRET, "user-1", "alice", expiresAt);
+        assertThat(jwtUtils.parseToken(token)).isPresent();
+        assertThat(jwtUtils.parseToken(token)).isPresent();
+
+        Thread.sleep(Math.max(0, expiresAt - System.currentTimeMillis()) + 50);
+
+        assertThat(jwtUtils.parseToken(token)).isEmpty();
+        assertThat(jwtUtils.validateJwtToken(token)).isFalse();
+    }
+
+    private static String signed(String secret, String userId, String username, long expiresInMs) {
+        return signedUntil(secret, userId, username, System.currentTimeMillis() + expiresInMs);
+    }
+
+    private static String signedUntil(String secret, String userId, String username, long expiresAt) {
+        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes());
+        return Jwts.builder()
+                .setSubject(userId)
+                .claim("username", username)
+                .claim("email", username + "@example.com")
+                .setExpiration(new Date(expiresAt))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
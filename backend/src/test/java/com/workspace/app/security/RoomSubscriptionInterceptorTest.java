@@ -0,0 +1,253 @@
+package com.workspace.app.security;
+
+import com.workspace.app.service.ClusterEventBus;
+import com.workspace.app.service.RoomAclCache;
+import com.workspace.app.service.RoomService;
+import com.workspace.app.service.RoomSubscriptionRegistry;
+import com.workspace.app.websocket.OrderedInboundExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Principal;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RoomSubscriptionInterceptorTest {
+
+    private static final Principal MEMBER = () -> "member";
+    private static final Principal OUTSIDER = () -> "outsider";
+
+    @Mock
+    private RoomService roomService;
+
+    @Mock
+    private RoomSubscriptionRegistry subscriptionRegistry;
+
+    @InjectMocks
+    private RoomSubscriptionInterceptor interceptor;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "/topic/**",
+        "/topic/room/*",
+        "/topic/room/**",
+        "/topic/*/room-1",
+        "/topic/room/{id}",
+        "/topic/room/room-?",
+        "/topic/room.#",
+        "/topic/room/room-1/*",
+        "/topic/>"
+    })
+    void rejectsPatternDestinations(String destination) {
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe(destination, MEMBER), null));
+        verifyNoInteractions(roomService);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "/topic/room/room-1",
+        "/topic/room/room-1/typing",
+        "/topic/room/room-1/presence",
+        "/topic/room/room-1/edit",
+        "/topic/room/room-1/delete",
+        "/topic/room/room-1/video"
+    })
+    void authorizesEveryRoomSubtopic(String destination) {
+        givenRoomWithMember("room-1", "member");
+
+        Message<?> message = subscribe(destination, MEMBER);
+        assertSame(message, interceptor.preSend(message, null));
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe(destination, OUTSIDER), null));
+    }
+
+    @Test
+    void rejectsRoomTopicWithoutRoomId() {
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe("/topic/room/", MEMBER), null));
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe("/topic/room//typing", MEMBER), null));
+    }
+
+    @Test
+    void rejectsUnknownRoom() {
+        when(roomService.getRoomAcl("missing")).thenReturn(Optional.empty());
+
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe("/topic/room/missing", MEMBER), null));
+    }
+
+    @Test
+    void rejectsInactiveRoom() {
+        RoomAclCache.RoomAcl acl = mock(RoomAclCache.RoomAcl.class);
+        when(acl.isActive()).thenReturn(false);
+        when(roomService.getRoomAcl("room-1")).thenReturn(Optional.of(acl));
+
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe("/topic/room/room-1", MEMBER), null));
+    }
+
+    @Test
+    void ignoresUserQueues() {
+        Message<?> message = subscribe("/user/queue/errors", MEMBER);
+        assertSame(message, interceptor.preSend(message, null));
+        verifyNoInteractions(roomService);
+    }
+
+    @Test
+    void registersAcceptedSubtopicSubscriptions() {
+        givenRoomWithMember("room-1", "member");
+
+        interceptor.afterSendCompletion(subscribe("/topic/room/room-1/typing", MEMBER), null, true, null);
+
+        verify(subscriptionRegistry).register("room-1", "member", "session-1", "sub-1");
+        verify(subscriptionRegistry, never()).evictSubscription(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void doesNotRegisterRejectedSubscriptions() {
+        interceptor.afterSendCompletion(subscribe("/topic/room/room-1", OUTSIDER), null, false,
+                new MessageDeliveryException("Not a member of this room"));
+
+        verify(subscriptionRegistry, never()).register(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void evictsASubscriptionWhoseUserLeftBeforeItWasRegistered() {
+        when(roomService.getRoomAcl("room-1")).thenReturn(Optional.empty());
+
+        interceptor.afterSendCompletion(subscribe("/topic/room/room-1", MEMBER), null, true, null);
+
+        InOrder inOrder = inOrder(subscriptionRegistry);
+        inOrder.verify(subscriptionRegistry).register("room-1", "member", "session-1", "sub-1");
+        inOrder.verify(subscriptionRegistry).evictSubscription("room-1", "member", "session-1", "sub-1");
+    }
+
+    @Test
+    void leaveBeforeRegistrationUnsubscribesAfterTheSubscribe() throws Exception {
+        // The ACL check in preSend passes, then the member leaves before the subscription is registered
+        assertLeaveDuringSubscribeEndsUnsubscribed(1);
+    }
+
+    @Test
+    void leaveAfterRegistrationUnsubscribesAfterTheSubscribe() throws Exception {
+        // The member leaves once the subscription is registered, just after the second ACL read
+        assertLeaveDuringSubscribeEndsUnsubscribed(2);
+    }
+
+    /**
+     * Run a SUBSCRIBE through an ordered inbound channel while the member leaves right after an ACL read
+     */
+    private void assertLeaveDuringSubscribeEndsUnsubscribed(int leaveAfterRead) throws Exception {
+        OrderedInboundExecutor executor = new OrderedInboundExecutor(4, 100);
+        executor.initialize();
+        try {
+            ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel(executor);
+            RoomSubscriptionRegistry registry = new RoomSubscriptionRegistry();
+            ReflectionTestUtils.setField(registry, "clientInboundChannel", inbound);
+            ReflectionTestUtils.setField(registry, "brokerChannel", mock(MessageChannel.class));
+            ReflectionTestUtils.setField(registry, "messagingTemplate", mock(SimpMessagingTemplate.class));
+            ReflectionTestUtils.setField(registry, "clusterEventBus", mock(ClusterEventBus.class));
+            RoomSubscriptionInterceptor realInterceptor = new RoomSubscriptionInterceptor();
+            ReflectionTestUtils.setField(realInterceptor, "roomService", roomService);
+            ReflectionTestUtils.setField(realInterceptor, "subscriptionRegistry", registry);
+            inbound.addInterceptor(realInterceptor);
+
+            // A leave updates the ACL first and then evicts the user's subscriptions
+            AtomicBoolean member = new AtomicBoolean(true);
+            AtomicInteger reads = new AtomicInteger();
+            when(roomService.getRoomAcl("room-1")).thenAnswer(invocation -> {
+                Optional<RoomAclCache.RoomAcl> read = Optional.of(acl(member.get()));
+                if (reads.incrementAndGet() == leaveAfterRead) {
+                    member.set(false);
+                    registry.evictUser("room-1", "member");
+                }
+                return read;
+            });
+
+            // Stands in for the broker: applies subscription frames in the order it handles them
+            Set<String> brokerSubscriptions = ConcurrentHashMap.newKeySet();
+            CountDownLatch handled = new CountDownLatch(2);
+            inbound.subscribe(received -> {
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(received);
+                if (accessor.getMessageType() == SimpMessageType.SUBSCRIBE) {
+                    brokerSubscriptions.add(accessor.getSubscriptionId());
+                } else if (accessor.getMessageType() == SimpMessageType.UNSUBSCRIBE) {
+                    brokerSubscriptions.remove(accessor.getSubscriptionId());
+                }
+                handled.countDown();
+            });
+
+            inbound.send(subscribe("/topic/room/room-1", MEMBER));
+
+            assertTrue(handled.await(5, TimeUnit.SECONDS));
+            assertTrue(brokerSubscriptions.isEmpty());
+            assertFalse(registry.isSessionSubscribed("session-1", "room-1"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static RoomAclCache.RoomAcl acl(boolean member) {
+        RoomAclCache.RoomAcl acl = mock(RoomAclCache.RoomAcl.class);
+        when(acl.isActive()).thenReturn(true);
+        if (member) {
+            when(acl.isMember("member")).thenReturn(true);
+        }
+        return acl;
+    }
+
+    private void givenRoomWithMember(String roomId, String userId) {
+        RoomAclCache.RoomAcl acl = mock(RoomAclCache.RoomAcl.class);
+        when(acl.isActive()).thenReturn(true);
+        when(acl.isMember(userId)).thenReturn(true);
+        when(roomService.getRoomAcl(roomId)).thenReturn(Optional.of(acl));
+    }
+
+    private static Message<byte[]> subscribe(String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-1");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
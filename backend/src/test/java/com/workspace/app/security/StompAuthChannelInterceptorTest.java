@@ -0,0 +1,152 @@
+package com.workspace.app.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.security.Principal;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StompAuthChannelInterceptorTest {
+
+    private static final JwtPrincipal LIVE = principal(60_000);
+    private static final JwtPrincipal EXPIRED = principal(-1_000);
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @InjectMocks
+    private StompAuthChannelInterceptor interceptor;
+
+    @Test
+    void bindsTheVerifiedPrincipalOnConnect() {
+        when(jwtUtils.parseToken("valid-token")).thenReturn(Optional.of(LIVE));
+
+        Message<?> message = connect("Bearer valid-token");
+        assertSame(message, interceptor.preSend(message, null));
+
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        assertSame(LIVE, accessor.getUser());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "valid-token", "Basic dXNlcjpwYXNz", "bearer valid-token"})
+    void rejectsConnectWithoutABearerToken(String authorization) {
+        MessageDeliveryException e = assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(connect(authorization), null));
+
+        assertEquals("Missing authorization token", e.getMessage());
+        verify(jwtUtils, never()).parseToken(anyString());
+    }
+
+    @Test
+    void rejectsConnectWithoutAnAuthorizationHeader() {
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(connect(null), null));
+    }
+
+    @Test
+    void rejectsConnectWithATokenThatFailsVerification() {
+        // Tampered, expired and foreign-key tokens all fail verification in JwtUtils
+        when(jwtUtils.parseToken("tampered-token")).thenReturn(Optional.empty());
+
+        MessageDeliveryException e = assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(connect("Bearer tampered-token"), null));
+
+        assertEquals("Invalid authorization token", e.getMessage());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = StompCommand.class, names = {"SEND", "SUBSCRIBE"})
+    void acceptsFramesFromALiveSessionWithoutVerifyingAgain(StompCommand command) {
+        Message<?> message = frame(command, "/app/chat.sendMessage", LIVE);
+
+        assertSame(message, interceptor.preSend(message, null));
+        verify(jwtUtils, never()).parseToken(anyString());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = StompCommand.class, names = {"SEND", "SUBSCRIBE"})
+    void rejectsFramesOnceTheSessionTokenHasExpired(StompCommand command) {
+        MessageDeliveryException e = assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(frame(command, "/topic/room/room-1", EXPIRED), null));
+
+        assertEquals("Session token expired, please reconnect", e.getMessage());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = StompCommand.class, names = {"SEND", "SUBSCRIBE"})
+    void rejectsFramesFromUnauthenticatedSessions(StompCommand command) {
+        MessageDeliveryException e = assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(frame(command, "/topic/room/room-1", null), null));
+
+        assertEquals("Not authenticated", e.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/topic/system.events", "/topic/system.presence", "/topic/system."})
+    void blocksClientsFromTheNodeToNodeDestinations(String destination) {
+        for (StompCommand command : new StompCommand[] {StompCommand.SEND, StompCommand.SUBSCRIBE}) {
+            MessageDeliveryException e = assertThrows(MessageDeliveryException.class,
+                    () -> interceptor.preSend(frame(command, destination, LIVE), null));
+            assertEquals("System destination", e.getMessage());
+        }
+    }
+
+    @Test
+    void allowsDestinationsThatOnlyResembleTheSystemPrefix() {
+        Message<?> message = frame(StompCommand.SUBSCRIBE, "/topic/systems", LIVE);
+        assertSame(message, interceptor.preSend(message, null));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = StompCommand.class, names = {"UNSUBSCRIBE", "DISCONNECT"})
+    void letsAnExpiredSessionUnsubscribeAndDisconnect(StompCommand command) {
+        Message<?> message = frame(command, null, EXPIRED);
+        assertSame(message, interceptor.preSend(message, null));
+    }
+
+    private static JwtPrincipal principal(long expiresInMs) {
+        return new JwtPrincipal("user-1", "alice", "alice@example.com",
+                new Date(System.currentTimeMillis() + expiresInMs));
+    }
+
+    private static Message<byte[]> connect(String authorization) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        if (authorization != null) {
+            accessor.setNativeHeader("Authorization", authorization);
+        }
+        accessor.setSessionId("session-1");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        accessor.setSessionId("session-1");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,154 @@
+package com.workspace.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.workspace.app.model.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompactPayloadServiceTest {
+
+    private final ObjectMapper cborMapper = CBORMapper.builder().build();
+
+    private CompactPayloadService service;
+    private SimpMessagingTemplate messagingTemplate;
+    private ClusterEventBus clusterEventBus;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        clusterEventBus = mock(ClusterEventBus.class);
+        service = new CompactPayloadService();
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "clusterEventBus", clusterEventBus);
+        ReflectionTestUtils.setField(service, "enabled", true);
+    }
+
+    @Test
+    void encodesEachBroadcastOnceForAllCompactSubscribers() throws Exception {
+        service.onSubscribe(subscribe("s1", "sub-1", "/topic/room/general/cbor"));
+        service.onSubscribe(subscribe("s2", "sub-1", "/topic/room/general/cbor"));
+        service.onSubscribe(subscribe("s3", "sub-4", "/topic/room/general/cbor"));
+
+        service.publish("general", message("m1", "hello"));
+
+        ArgumentCaptor<org.springframework.messaging.Message<?>> sent = ArgumentCaptor.forClass(org.springframework.messaging.Message.class);
+        verify(messagingTemplate).send(eq("/topic/room/general/cbor"), sent.capture());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(sent.getValue());
+        assertThat(accessor.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(accessor.getFirstNativeHeader(CompactPayloadService.ENCODING_HEADER)).isEqualTo("cbor");
+
+        Map<?, ?> decoded = cborMapper.readValue((byte[]) sent.getValue().getPayload(), Map.class);
+        assertThat(decoded.get("id")).isEqualTo("m1");
+        assertThat(decoded.get("text")).isEqualTo("hello");
+        assertThat(service.getStats()).containsEntry("framesEncoded", 1L).containsEntry("subscriptions", 3);
+    }
+
+    @Test
+    void encodesABatchAsOneFrame() throws Exception {
+        service.onSubscribe(subscribe("s1", "sub-1", "/topic/room/general/cbor"));
+
+        service.publish("general", List.of(message("m1", "one"), message("m2", "two")));
+
+        ArgumentCaptor<org.springframework.messaging.Message<?>> sent = ArgumentCaptor.forClass(org.springframework.messaging.Message.class);
+        verify(messagingTemplate).send(eq("/topic/room/general/cbor"), sent.capture());
+        assertThat(SimpMessageHeaderAccessor.wrap(sent.getValue()).getFirstNativeHeader(RoomBroadcastService.BATCH_HEADER))
+                .isEqualTo("2");
+        assertThat(cborMapper.readValue((byte[]) sent.getValue().getPayload(), List.class)).hasSize(2);
+        assertThat(service.getStats()).containsEntry("framesEncoded", 1L);
+    }
+
+    @Test
+    void skipsEncodingForRoomsWithoutCompactSubscribers() {
+        // JSON subscribers of the room do not count
+        service.onSubscribe(subscribe("s1", "sub-1", "/topic/room/general"));
+        service.onSubscribe(subscribe("s2", "sub-1", "/topic/room/design/cbor"));
+
+        service.publish("general", message("m1", "hello"));
+
+        verify(messagingTemplate, never()).send(anyString(), any());
+        assertThat(service.getStats()).containsEntry("framesEncoded", 0L);
+    }
+
+    @Test
+    void stopsEncodingOnceTheLastCompactSubscriberLeaves() {
+        service.onSubscribe(subscribe("s1", "sub-1", "/topic/room/general/cbor"));
+        service.onSubscribe(subscribe("s2", "sub-1", "/topic/room/general/cbor"));
+
+        service.onUnsubscribe(unsubscribe("s1", "sub-1"));
+        service.publish("general", message("m1", "still one left"));
+        service.onDisconnect(new SessionDisconnectEvent(this, MessageBuilder.withPayload(new byte[0]).build(), "s2",
+                CloseStatus.NORMAL));
+        service.publish("general", message("m2", "nobody left"));
+
+        verify(messagingTemplate).send(eq("/topic/room/general/cbor"), any());
+        assertThat(service.getStats()).containsEntry("rooms", 0).containsEntry("framesEncoded", 1L);
+    }
+
+    @Test
+    void encodesEveryBroadcastInRelayMode() {
+        // Compact subscribers may be connected to other nodes
+        when(clusterEventBus.isClustered()).thenReturn(true);
+
+        service.publish("general", message("m1", "hello"));
+
+        verify(messagingTemplate).send(eq("/topic/room/general/cbor"), any());
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(service, "enabled", false);
+        service.onSubscribe(subscribe("s1", "sub-1", "/topic/room/general/cbor"));
+
+        service.publish("general", message("m1", "hello"));
+
+        verify(messagingTemplate, never()).send(anyString(), any());
+    }
+
+    private static Message message(String id, String text) {
+        Message message = new Message("general", "alice", "alice", text);
+        message.setId(id);
+        message.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0));
+        return message;
+    }
+
+    private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return new SessionSubscribeEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return new SessionUnsubscribeEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+}
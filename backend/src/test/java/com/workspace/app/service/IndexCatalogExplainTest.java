@@ -0,0 +1,65 @@
+package com.workspace.app.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.workspace.app.model.RoomMember;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Explains every repository query against a real MongoDB
+ * Fails when a repository method is added or changed without an index that
+ * supports it. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class IndexCatalogExplainTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:6.0");
+
+    private static MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+    private IndexCatalogService service;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(MONGO.getConnectionString());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(client, "index-catalog-explain");
+        mongoTemplate.getDb().drop();
+        service = IndexCatalogServiceTest.catalog(mongoTemplate);
+        // Also creates the collections; explain on a missing collection never reports a COLLSCAN
+        service.ensureIndexes();
+    }
+
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        assertThat(service.verifyQueries()).isEmpty();
+    }
+
+    @Test
+    void reportsQueriesWithoutAnIndex() {
+        mongoTemplate.indexOps(RoomMember.class).dropAllIndexes();
+
+        assertThat(service.verifyQueries()).contains(
+                "RoomMemberRepository.countByRoomId: COLLSCAN",
+                "RoomMemberRepository.findUserIdsByRoomId: COLLSCAN");
+    }
+}
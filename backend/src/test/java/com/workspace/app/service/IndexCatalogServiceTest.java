@@ -0,0 +1,111 @@
+package com.workspace.app.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Probes are derived from the repositories without a database; the explain
+ * itself is covered by IndexCatalogExplainTest.
+ */
+class IndexCatalogServiceTest {
+
+    // Never contacted: deriving probes only needs the mapping metadata
+    private static MongoClient client;
+
+    private Map<String, IndexCatalogService.QueryProbe> probes;
+    private List<String> problems;
+
+    @BeforeAll
+    static void createClient() {
+        client = MongoClients.create("mongodb://localhost:1/?serverSelectionTimeoutMS=100");
+    }
+
+    @AfterAll
+    static void closeClient() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        IndexCatalogService service = catalog(new MongoTemplate(client, "index-catalog-test"));
+        problems = new ArrayList<>();
+        probes = service.probes(problems).stream()
+                .collect(Collectors.toMap(probe -> probe.name, Function.identity()));
+    }
+
+    static IndexCatalogService catalog(MongoTemplate mongoTemplate) {
+        IndexCatalogService service = new IndexCatalogService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "mongoMappingContext",
+                (MongoMappingContext) mongoTemplate.getConverter().getMappingContext());
+        return service;
+    }
+
+    @Test
+    void derivesAProbeForEveryRepositoryMethod() {
+        Set<String> methods = new HashSet<>();
+        for (Class<?> repository : IndexCatalogService.VERIFIED_REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                methods.add(repository.getSimpleName() + "." + method.getName());
+            }
+        }
+
+        assertThat(problems).isEmpty();
+        assertThat(probes.keySet()).isEqualTo(methods);
+    }
+
+    @Test
+    void derivedQueriesUseStoredFieldNames() {
+        IndexCatalogService.QueryProbe byName = probes.get("MessageRepository.findByRoomIdAndTypeAndIsDeletedFalseOrderByCreatedAtDesc");
+        assertThat(byName.collection).isEqualTo("messages");
+        assertThat(byName.filter).isEqualTo(new Document("roomId", "000000000000000000000000")
+                .append("type", "TEXT")
+                .append("isDeleted", false));
+        assertThat(byName.sort).isEqualTo(new Document("createdAt", -1));
+
+        IndexCatalogService.QueryProbe range = probes.get("MessageRepository.findByRoomIdAndCreatedAtBetweenAndIsDeletedFalseOrderByCreatedAtAsc");
+        Document createdAt = range.filter.get("createdAt", Document.class);
+        assertThat(createdAt.keySet()).containsExactlyInAnyOrder("$gt", "$lt");
+        assertThat(createdAt.get("$gt")).isInstanceOf(Date.class);
+        assertThat(range.sort).isEqualTo(new Document("createdAt", 1));
+
+        assertThat(probes.get("RoomMemberRepository.existsByRoomIdAndUserId").collection).isEqualTo("room_members");
+    }
+
+    @Test
+    void annotatedQueriesKeepTheirFilterAndSort() {
+        IndexCatalogService.QueryProbe byMember = probes.get("RoomRepository.findByMembersContainingAndIsActiveTrueOrderByLastMessageAtDesc");
+        assertThat(byMember.collection).isEqualTo("rooms");
+        assertThat(byMember.filter).isEqualTo(new Document("members", "000000000000000000000000").append("isActive", true));
+
+        IndexCatalogService.QueryProbe login = probes.get("UserRepository.findByEmailOrUsername");
+        assertThat(login.filter.getList("$or", Document.class)).hasSize(2);
+    }
+
+    @Test
+    void appliesTheSortCallersPass() {
+        IndexCatalogService.QueryProbe recent = probes.get("MessageRepository.findByRoomIdAndIsDeletedFalse");
+        assertThat(recent.filter).isEqualTo(new Document("roomId", "000000000000000000000000").append("isDeleted", false));
+        assertThat(recent.sort).isEqualTo(new Document("createdAt", -1));
+    }
+}
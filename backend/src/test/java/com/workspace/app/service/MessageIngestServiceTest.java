@@ -0,0 +1,179 @@
+package com.workspace.app.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.workspace.app.model.Message;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageIngestServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private RoomService roomService;
+    private RecentMessageBuffer recentMessageBuffer;
+    private MessageIngestService ingest;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        roomService = mock(RoomService.class);
+        recentMessageBuffer = mock(RecentMessageBuffer.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        ingest = new MessageIngestService();
+        ReflectionTestUtils.setField(ingest, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(ingest, "roomService", roomService);
+        ReflectionTestUtils.setField(ingest, "recentMessageBuffer", recentMessageBuffer);
+        ReflectionTestUtils.setField(ingest, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(ingest, "flushIntervalMs", 200L);
+        ReflectionTestUtils.setField(ingest, "queueCapacity", 100);
+        ReflectionTestUtils.setField(ingest, "completionThreads", 2);
+        ingest.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingest.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void persistsQueuedMessagesInOneBulkInsert() throws Exception {
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(ingest.submit(message("general", "hello " + i)));
+        }
+
+        for (CompletableFuture<Message> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        ArgumentCaptor<List<Message>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(inserted.capture());
+        assertThat(inserted.getValue()).extracting(Message::getText).containsExactly("hello 0", "hello 1", "hello 2");
+        verify(recentMessageBuffer, times(3)).append(any(Message.class));
+        // Room activity is recorded by the flusher after the futures are handed off
+        verify(roomService, timeout(1_000).times(3)).updateRoomLastMessageTime(eq("general"), any());
+        assertThat(ingest.getStats()).containsEntry("sizeTriggeredFlushes", 1L);
+    }
+
+    @Test
+    void flushesAPartialBatchAfterTheInterval() throws Exception {
+        CompletableFuture<Message> future = ingest.submit(message("general", "alone"));
+
+        assertThat(future.get(5, TimeUnit.SECONDS).getText()).isEqualTo("alone");
+        assertThat(ingest.getStats()).containsEntry("latencyTriggeredFlushes", 1L);
+    }
+
+    @Test
+    void failsOnlyTheMessagesTheBulkInsertRejected() throws Exception {
+        BulkWriteError duplicate = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(mock(BulkWriteResult.class), List.of(duplicate), null, new ServerAddress())));
+
+        CompletableFuture<Message> first = ingest.submit(message("general", "one"));
+        CompletableFuture<Message> second = ingest.submit(message("general", "two"));
+        CompletableFuture<Message> third = ingest.submit(message("general", "three"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getText()).isEqualTo("one");
+        assertThat(third.get(5, TimeUnit.SECONDS).getText()).isEqualTo("three");
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("duplicate key");
+        verify(recentMessageBuffer, never()).append(argThat(message -> "two".equals(message.getText())));
+        verify(recentMessageBuffer, times(2)).append(any(Message.class));
+        assertThat(ingest.getStats()).containsEntry("failedMessages", 1L).containsEntry("messagesFlushed", 2L);
+    }
+
+    @Test
+    void failsTheWholeBatchWhenTheInsertFails() {
+        when(bulkOperations.execute()).thenThrow(new IllegalStateException("connection reset"));
+
+        CompletableFuture<Message> future = ingest.submit(message("general", "lost"));
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).hasMessageContaining("connection reset");
+        verify(recentMessageBuffer, never()).append(any(Message.class));
+        verify(roomService, never()).updateRoomLastMessageTime(any(), any());
+    }
+
+    @Test
+    void callbacksRunOffTheFlusherAndDoNotHoldUpTheNextBatch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> callbackThread = new AtomicReference<>();
+        CompletableFuture<Void> slow = ingest.submit(message("general", "slow")).thenAccept(message -> {
+            callbackThread.set(Thread.currentThread().getName());
+            awaitQuietly(release);
+        });
+
+        // The first callback is still blocked while the next message is persisted
+        verify(bulkOperations, timeout(5_000)).execute();
+        CompletableFuture<Message> next = ingest.submit(message("general", "next"));
+        verify(bulkOperations, timeout(5_000).times(2)).execute();
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertThat(next.get(5, TimeUnit.SECONDS).getText()).isEqualTo("next");
+        assertThat(callbackThread.get()).startsWith("message-ingest-complete-");
+    }
+
+    @Test
+    void completesEachRoomInSubmissionOrder() throws Exception {
+        List<String> completed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String text = "m" + i;
+            futures.add(ingest.submit(message("room-" + (i % 2), text)).thenAccept(message -> completed.add(text)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(completed.stream().filter(text -> Integer.parseInt(text.substring(1)) % 2 == 0))
+                .containsExactly("m0", "m2", "m4", "m6", "m8", "m10");
+        assertThat(completed.stream().filter(text -> Integer.parseInt(text.substring(1)) % 2 == 1))
+                .containsExactly("m1", "m3", "m5", "m7", "m9", "m11");
+    }
+
+    private static Message message(String roomId, String text) {
+        return new Message(roomId, "alice", "alice", text);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.workspace.app.service;
+
+import com.workspace.app.dto.MessageSlice;
+import com.workspace.app.model.Message;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keyset paging through room history
+ * The mocked MongoTemplate evaluates each query against an in-memory room,
+ * so the cursor predicates and sort are exercised end to end.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MessageServiceHistoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RoomService roomService;
+
+    @InjectMocks
+    private MessageService messageService;
+
+    // Oldest first; every three messages share a timestamp, so ties are decided by _id
+    private final List<Message> room = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 25; i++) {
+            Message message = new Message("general", "alice", "alice", "m" + i);
+            message.setId(new ObjectId(new java.util.Date(1_700_000_000_000L), i).toHexString());
+            message.setCreatedAt(START.plusSeconds(i / 3));
+            room.add(message);
+        }
+        Message deleted = new Message("general", "alice", "alice", "gone");
+        deleted.setId(new ObjectId().toHexString());
+        deleted.setCreatedAt(START.plusSeconds(4));
+        deleted.setDeleted(true);
+        room.add(deleted);
+
+        when(roomService.isUserMemberOfRoom("alice", "general")).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Message.class)))
+                .thenAnswer(invocation -> evaluate(invocation.getArgument(0)));
+    }
+
+    @Test
+    void pagesBackwardThroughEveryMessageOnce() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        MessageSlice slice;
+        do {
+            slice = messageService.getRoomHistory("general", cursor, null, 10, "alice");
+            slice.getMessages().forEach(message -> seen.add(message.getText()));
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (slice.isHasMore());
+
+        assertThat(pages).isEqualTo(3);
+        List<String> newestFirst = new ArrayList<>();
+        for (int i = 24; i >= 0; i--) {
+            newestFirst.add("m" + i);
+        }
+        assertThat(seen).isEqualTo(newestFirst);
+    }
+
+    @Test
+    void pagesForwardFromACursorNewestFirstWithinEachPage() {
+        // Cursor at m7, in the middle of a run of equal timestamps
+        MessageSlice older = messageService.getRoomHistory("general", null, null, 18, "alice");
+        String atM7 = older.getNextCursor();
+        assertThat(older.getMessages().get(older.getMessages().size() - 1).getText()).isEqualTo("m7");
+
+        MessageSlice newer = messageService.getRoomHistory("general", null, atM7, 5, "alice");
+
+        assertThat(newer.getMessages()).extracting(Message::getText).containsExactly("m12", "m11", "m10", "m9", "m8");
+        assertThat(newer.isHasMore()).isTrue();
+
+        MessageSlice rest = messageService.getRoomHistory("general", null, newer.getNextCursor(), 100, "alice");
+        assertThat(rest.getMessages()).extracting(Message::getText).hasSize(12).first().isEqualTo("m24");
+        assertThat(rest.isHasMore()).isFalse();
+    }
+
+    @Test
+    void clampsThePageSize() {
+        messageService.getRoomHistory("general", null, null, 10_000, "alice");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Message.class));
+        // One extra row tells whether there is another page
+        assertThat(query.getValue().getLimit()).isEqualTo(101);
+    }
+
+    @Test
+    void rejectsBothDirectionsAndNonMembers() {
+        assertThatThrownBy(() -> messageService.getRoomHistory("general", "a", "b", 10, "alice"))
+                .hasMessage("Use either 'before' or 'after', not both!");
+        assertThatThrownBy(() -> messageService.getRoomHistory("general", null, null, 10, "mallory"))
+                .hasMessage("User is not a member of this room!");
+        assertThatThrownBy(() -> messageService.getRoomHistory("general", "garbage", null, 10, "alice"))
+                .hasMessage("Invalid cursor!");
+    }
+
+    private List<Message> evaluate(Query query) {
+        Document filter = query.getQueryObject();
+        Document sort = query.getSortObject();
+        int direction = sort.getInteger("createdAt");
+        Comparator<Message> order = Comparator.comparing(Message::getCreatedAt).thenComparing(message -> new ObjectId(message.getId()));
+        return room.stream()
+                .filter(message -> matches(filter, message))
+                .sorted(direction > 0 ? order : order.reversed())
+                .limit(query.getLimit())
+                .toList();
+    }
+
+    private static boolean matches(Document filter, Message message) {
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            boolean matched = switch (entry.getKey()) {
+                case "$or" -> ((List<?>) entry.getValue()).stream().anyMatch(clause -> matches((Document) clause, message));
+                case "roomId" -> entry.getValue().equals(message.getRoomId());
+                case "isDeleted" -> entry.getValue().equals(message.isDeleted());
+                case "createdAt" -> compare((Document) entry.getValue(), message.getCreatedAt());
+                case "_id" -> compare((Document) entry.getValue(), new ObjectId(message.getId()));
+                default -> throw new IllegalArgumentException("Unexpected field " + entry.getKey());
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean compare(Document operators, Comparable value) {
+        for (Map.Entry<String, Object> operator : operators.entrySet()) {
+            int comparison = value.compareTo(operator.getValue());
+            boolean matched = switch (operator.getKey()) {
+                case "$gt" -> comparison > 0;
+                case "$gte" -> comparison >= 0;
+                case "$lt" -> comparison < 0;
+                case "$lte" -> comparison <= 0;
+                default -> throw new IllegalArgumentException("Unexpected operator " + operator.getKey());
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
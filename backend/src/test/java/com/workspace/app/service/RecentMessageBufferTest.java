@@ -0,0 +1,200 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Message;
+import com.workspace.app.repository.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecentMessageBufferTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private MessageRepository messageRepository;
+    private ClusterEventBus clusterEventBus;
+    private RecentMessageBuffer buffer;
+
+    private final Map<String, Consumer<Map<String, Object>>> listeners = new HashMap<>();
+    private Runnable resync;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        clusterEventBus = mock(ClusterEventBus.class);
+
+        buffer = new RecentMessageBuffer();
+        ReflectionTestUtils.setField(buffer, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(buffer, "clusterEventBus", clusterEventBus);
+        ReflectionTestUtils.setField(buffer, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(buffer, "bufferSize", 3);
+        ReflectionTestUtils.setField(buffer, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(buffer, "expireAfterAccessMinutes", 30L);
+        buffer.init();
+
+        ArgumentCaptor<String> types = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Consumer<Map<String, Object>>> handlers = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterEventBus, times(3)).subscribe(types.capture(), handlers.capture());
+        for (int i = 0; i < types.getAllValues().size(); i++) {
+            listeners.put(types.getAllValues().get(i), handlers.getAllValues().get(i));
+        }
+        ArgumentCaptor<Runnable> resyncListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(clusterEventBus).onResync(resyncListener.capture());
+        resync = resyncListener.getValue();
+
+        // Stored newest first, as the repository query sorts them
+        when(messageRepository.findByRoomIdAndIsDeletedFalse(eq("general"), any(Pageable.class)))
+                .thenReturn(List.of(message("m4", 4), message("m3", 3), message("m2", 2), message("m1", 1)));
+    }
+
+    @Test
+    void loadsTheNewestMessagesOnceAndTrimsToSize() {
+        assertThat(buffer.getRecent("general")).extracting(Message::getId).containsExactly("m4", "m3", "m2");
+        assertThat(buffer.getLatest("general")).map(Message::getId).contains("m4");
+
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(messageRepository, times(1)).findByRoomIdAndIsDeletedFalse(eq("general"), page.capture());
+        assertThat(page.getValue().getPageSize()).isEqualTo(3);
+        assertThat(page.getValue().getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "createdAt"));
+        assertThat(buffer.getStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void appendKeepsNewestFirstAndIgnoresDuplicates() {
+        buffer.getRecent("general");
+
+        buffer.append(message("m5", 5));
+        buffer.append(message("m5", 5));
+        // A late arrival lands in timestamp order
+        buffer.append(message("late", 4));
+
+        assertThat(buffer.getRecent("general")).extracting(Message::getId).containsExactly("m5", "late", "m4");
+    }
+
+    @Test
+    void appendSkipsRoomsThatAreNotBufferedAndDeletedMessages() {
+        buffer.append(message("m5", 5));
+        verify(messageRepository, never()).findByRoomIdAndIsDeletedFalse(anyString(), any(Pageable.class));
+
+        buffer.getRecent("general");
+        Message deleted = message("m6", 6);
+        deleted.setDeleted(true);
+        buffer.append(deleted);
+        assertThat(buffer.getRecent("general")).extracting(Message::getId).containsExactly("m4", "m3", "m2");
+    }
+
+    @Test
+    void updateReplacesEditsAndDropsDeletes() {
+        buffer.getRecent("general");
+
+        Message edited = message("m3", 3);
+        edited.setText("edited");
+        edited.setEdited(true);
+        buffer.update(edited);
+        Message deleted = message("m4", 4);
+        deleted.setDeleted(true);
+        buffer.update(deleted);
+
+        List<Message> recent = buffer.getRecent("general");
+        assertThat(recent).extracting(Message::getId).containsExactly("m3", "m2");
+        assertThat(recent.get(0).getText()).isEqualTo("edited");
+    }
+
+    @Test
+    void invalidateReloadsOnNextRead() {
+        buffer.getRecent("general");
+
+        buffer.invalidate("general");
+        buffer.getRecent("general");
+
+        verify(messageRepository, times(2)).findByRoomIdAndIsDeletedFalse(eq("general"), any(Pageable.class));
+        verify(clusterEventBus).publish("recent.invalidated", Map.of("roomId", "general"));
+    }
+
+    @Test
+    void publishesChangesOnlyWhenClustered() {
+        buffer.getRecent("general");
+        buffer.append(message("m5", 5));
+        verify(clusterEventBus, never()).publish(eq("recent.appended"), any());
+
+        when(clusterEventBus.isClustered()).thenReturn(true);
+        buffer.append(message("m6", 6));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> event = ArgumentCaptor.forClass(Map.class);
+        verify(clusterEventBus).publish(eq("recent.appended"), event.capture());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> fields = (Map<String, Object>) event.getValue().get("message");
+        assertThat(fields).containsEntry("id", "m6").containsEntry("roomId", "general").containsEntry("text", "text m6");
+    }
+
+    @Test
+    void appliesChangesFromOtherNodes() {
+        buffer.getRecent("general");
+
+        // What another node publishes is what this node applies
+        ClusterEventBus otherBus = mock(ClusterEventBus.class);
+        when(otherBus.isClustered()).thenReturn(true);
+        RecentMessageBuffer otherNode = new RecentMessageBuffer();
+        ReflectionTestUtils.setField(otherNode, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(otherNode, "clusterEventBus", otherBus);
+        ReflectionTestUtils.setField(otherNode, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        otherNode.init();
+        otherNode.append(message("m5", 5));
+        Message edited = message("m5", 5);
+        edited.setText("edited");
+        otherNode.update(edited);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> published = ArgumentCaptor.forClass(Map.class);
+        verify(otherBus, times(2)).publish(anyString(), published.capture());
+
+        listeners.get("recent.appended").accept(published.getAllValues().get(0));
+        assertThat(buffer.getRecent("general")).extracting(Message::getId).containsExactly("m5", "m4", "m3");
+        assertThat(buffer.getRecent("general").get(0).getCreatedAt()).isEqualTo(START.plusSeconds(5));
+
+        listeners.get("recent.updated").accept(published.getAllValues().get(1));
+        assertThat(buffer.getRecent("general").get(0).getText()).isEqualTo("edited");
+
+        listeners.get("recent.invalidated").accept(Map.of("roomId", "general"));
+        buffer.getRecent("general");
+        verify(messageRepository, times(2)).findByRoomIdAndIsDeletedFalse(eq("general"), any(Pageable.class));
+    }
+
+    @Test
+    void resyncDropsEveryBuffer() {
+        buffer.getRecent("general");
+
+        resync.run();
+        buffer.getRecent("general");
+
+        verify(messageRepository, times(2)).findByRoomIdAndIsDeletedFalse(eq("general"), any(Pageable.class));
+    }
+
+    private static Message message(String id, int second) {
+        Message message = new Message("general", "alice", "alice", "text " + id);
+        message.setId(id);
+        message.setCreatedAt(START.plusSeconds(second));
+        return message;
+    }
+}
@@ -0,0 +1,184 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import com.workspace.app.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomAclCacheTest {
+
+    private RoomRepository roomRepository;
+    private RoomMembershipStore roomMembershipStore;
+    private ClusterEventBus clusterEventBus;
+    private RoomMembershipIndex index;
+    private RoomAclCache cache;
+
+    private final Map<String, Consumer<Map<String, Object>>> listeners = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        roomRepository = mock(RoomRepository.class);
+        roomMembershipStore = mock(RoomMembershipStore.class);
+        clusterEventBus = mock(ClusterEventBus.class);
+
+        index = new RoomMembershipIndex();
+        ReflectionTestUtils.setField(index, "mongoTemplate", mock(MongoTemplate.class));
+        ReflectionTestUtils.setField(index, "clusterEventBus", clusterEventBus);
+        index.init();
+
+        cache = new RoomAclCache();
+        ReflectionTestUtils.setField(cache, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(cache, "roomMembershipStore", roomMembershipStore);
+        ReflectionTestUtils.setField(cache, "roomMembershipIndex", index);
+        ReflectionTestUtils.setField(cache, "clusterEventBus", clusterEventBus);
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterWriteSeconds", 300L);
+        cache.init();
+
+        ArgumentCaptor<String> types = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Consumer<Map<String, Object>>> handlers = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterEventBus, times(3)).subscribe(types.capture(), handlers.capture());
+        for (int i = 0; i < types.getAllValues().size(); i++) {
+            listeners.put(types.getAllValues().get(i), handlers.getAllValues().get(i));
+        }
+
+        when(roomRepository.findById("general")).thenReturn(Optional.of(room("general", "admin")));
+        when(roomMembershipStore.getMemberIds("general")).thenReturn(List.of("admin", "alice"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void loadsOnceAndAnswersFromTheIndex() {
+        RoomAclCache.RoomAcl acl = cache.get("general").orElseThrow();
+        cache.get("general");
+
+        assertThat(acl.isAdmin("admin")).isTrue();
+        assertThat(acl.isAdmin("alice")).isFalse();
+        assertThat(acl.isMember("alice")).isTrue();
+        assertThat(acl.isMember("bob")).isFalse();
+        assertThat(acl.isMember(null)).isFalse();
+        assertThat(acl.getMemberCount()).isEqualTo(2);
+        verify(roomRepository, times(1)).findById("general");
+        assertThat(cache.getStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void returnsEmptyForMissingRooms() {
+        when(roomRepository.findById("gone")).thenReturn(Optional.empty());
+
+        assertThat(cache.get("gone")).isEmpty();
+        assertThat(cache.get(null)).isEmpty();
+    }
+
+    @Test
+    void readsEmbeddedMembersOfUnmigratedRooms() {
+        Room legacy = room("legacy", "admin");
+        legacy.setMembers(List.of("admin", "carol"));
+        when(roomRepository.findById("legacy")).thenReturn(Optional.of(legacy));
+
+        assertThat(cache.get("legacy").orElseThrow().isMember("carol")).isTrue();
+        verify(roomMembershipStore, never()).getMemberIds("legacy");
+    }
+
+    @Test
+    void joinsAndLeavesUpdateTheSnapshotInPlace() {
+        RoomAclCache.RoomAcl acl = cache.get("general").orElseThrow();
+
+        cache.memberJoined("general", "bob");
+        cache.memberLeft("general", "alice");
+
+        assertThat(acl.isMember("bob")).isTrue();
+        assertThat(acl.isMember("alice")).isFalse();
+        verify(roomRepository, times(1)).findById("general");
+        verify(clusterEventBus).publish("room.member-joined", Map.of("roomId", "general", "userId", "bob"));
+        verify(clusterEventBus).publish("room.member-left", Map.of("roomId", "general", "userId", "alice"));
+    }
+
+    @Test
+    void invalidateReloadsAndTellsTheOtherNodes() {
+        cache.get("general");
+        Room transferred = room("general", "alice");
+        when(roomRepository.findById("general")).thenReturn(Optional.of(transferred));
+
+        cache.invalidate("general");
+
+        assertThat(cache.get("general").orElseThrow().isAdmin("alice")).isTrue();
+        verify(clusterEventBus).publish("room.invalidated", Map.of("roomId", "general"));
+    }
+
+    @Test
+    void appliesEventsFromOtherNodes() {
+        RoomAclCache.RoomAcl acl = cache.get("general").orElseThrow();
+
+        listeners.get("room.member-joined").accept(Map.of("roomId", "general", "userId", "dave"));
+        assertThat(acl.isMember("dave")).isTrue();
+        listeners.get("room.member-left").accept(Map.of("roomId", "general", "userId", "dave"));
+        assertThat(acl.isMember("dave")).isFalse();
+
+        when(roomRepository.findById("general")).thenReturn(Optional.of(room("general", "alice")));
+        listeners.get("room.invalidated").accept(Map.of("roomId", "general"));
+        assertThat(cache.get("general").orElseThrow().isAdmin("alice")).isTrue();
+        // Applying a remote event must not echo it back
+        verify(clusterEventBus, never()).publish(anyString(), any());
+    }
+
+    @Test
+    void retriesALoadThatRacedAJoin() {
+        cache.get("general");
+        cache.invalidate("general");
+
+        // bob joins while the reload is reading the members
+        when(roomMembershipStore.getMemberIds("general"))
+                .thenAnswer(invocation -> {
+                    index.addMember("general", "bob");
+                    return List.of("admin", "alice");
+                })
+                .thenReturn(List.of("admin", "alice", "bob"));
+
+        assertThat(cache.get("general").orElseThrow().isMember("bob")).isTrue();
+        assertThat(index.getStats()).containsEntry("staleLoadsDiscarded", 1L);
+    }
+
+    @Test
+    void givesUpWhenMembershipKeepsChanging() {
+        when(roomMembershipStore.getMemberIds("general")).thenAnswer(invocation -> {
+            index.addMember("general", "bob");
+            return List.of("admin", "alice");
+        });
+        index.loadRoom("general", List.of("admin"), index.currentSequence());
+
+        assertThatThrownBy(() -> cache.get("general")).hasMessage("Room membership kept changing while loading!");
+        verify(roomMembershipStore, times(5)).getMemberIds("general");
+    }
+
+    private static Room room(String id, String adminId) {
+        Room room = new Room(id, "", adminId);
+        room.setId(id);
+        return room;
+    }
+}
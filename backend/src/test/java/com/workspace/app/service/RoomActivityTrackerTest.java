@@ -0,0 +1,113 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomActivityTrackerTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private RoomActivityTracker tracker;
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+
+    // roomId -> the $max update queued for it in the current bulk write
+    private final Map<String, Document> queued = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Room.class)).thenAnswer(invocation -> {
+            queued.clear();
+            return bulk;
+        });
+        doAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Update update = invocation.getArgument(1);
+            queued.put(query.getQueryObject().getString("_id"), update.getUpdateObject());
+            return bulk;
+        }).when(bulk).updateOne(any(Query.class), any(Update.class));
+
+        tracker = new RoomActivityTracker();
+        ReflectionTestUtils.setField(tracker, "mongoTemplate", mongoTemplate);
+    }
+
+    @Test
+    void coalescesTouchesIntoOneMaxUpdatePerRoom() {
+        tracker.touch("general", T0.plusSeconds(1));
+        tracker.touch("general", T0.plusSeconds(3));
+        // Arrives late, so it must not move the timestamp back
+        tracker.touch("general", T0.plusSeconds(2));
+        tracker.touch("design", T0);
+
+        tracker.flush();
+
+        verify(mongoTemplate).bulkOps(BulkOperations.BulkMode.UNORDERED, Room.class);
+        verify(bulk).execute();
+        assertThat(queued).containsOnlyKeys("general", "design");
+        assertThat(queued.get("general")).isEqualTo(new Document("$max", new Document("lastMessageAt", T0.plusSeconds(3))));
+        assertThat(queued.get("design")).isEqualTo(new Document("$max", new Document("lastMessageAt", T0)));
+        assertThat(tracker.getStats())
+                .containsEntry("touches", 4L)
+                .containsEntry("flushes", 1L)
+                .containsEntry("roomsFlushed", 2L)
+                .containsEntry("pendingRooms", 0);
+    }
+
+    @Test
+    void writesNothingWhenNoRoomWasTouched() {
+        tracker.flush();
+
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Room.class));
+    }
+
+    @Test
+    void requeuesTheBatchAfterAFailedBulkWrite() {
+        when(bulk.execute()).thenThrow(new RuntimeException("connection reset"));
+        tracker.touch("general", T0.plusSeconds(5));
+        tracker.touch("design", T0);
+
+        tracker.flush();
+
+        assertThat(tracker.getStats())
+                .containsEntry("pendingRooms", 2)
+                .containsEntry("flushes", 0L)
+                .containsEntry("touches", 2L);
+
+        // A touch during the outage merges with the requeued timestamps
+        tracker.touch("general", T0.plusSeconds(4));
+        tracker.touch("design", T0.plusSeconds(1));
+        doReturn(null).when(bulk).execute();
+
+        tracker.flush();
+
+        assertThat(queued.get("general")).isEqualTo(new Document("$max", new Document("lastMessageAt", T0.plusSeconds(5))));
+        assertThat(queued.get("design")).isEqualTo(new Document("$max", new Document("lastMessageAt", T0.plusSeconds(1))));
+        assertThat(tracker.getStats())
+                .containsEntry("pendingRooms", 0)
+                .containsEntry("flushes", 1L)
+                .containsEntry("roomsFlushed", 2L);
+    }
+}
@@ -0,0 +1,149 @@
+package com.workspace.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RoomBroadcastServiceTest {
+
+    private RoomBroadcastService service;
+    private CompactPayloadService compactPayloadService;
+
+    // One entry per frame sent to the room topic: a message, or the list of a batch
+    private final List<Object> frames = Collections.synchronizedList(new ArrayList<>());
+    private final List<Object> batchHeaders = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        doAnswer(invocation -> frames.add(invocation.getArgument(1)))
+                .when(messagingTemplate).convertAndSend(anyString(), any(Object.class));
+        doAnswer(invocation -> {
+            frames.add(invocation.getArgument(1));
+            batchHeaders.add(((Map<?, ?>) invocation.getArgument(2)).get(RoomBroadcastService.BATCH_HEADER));
+            return null;
+        }).when(messagingTemplate).convertAndSend(anyString(), any(Object.class), anyMap());
+        compactPayloadService = mock(CompactPayloadService.class);
+
+        service = new RoomBroadcastService();
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "compactPayloadService", compactPayloadService);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "thresholdPerSecond", 4);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 5);
+        ReflectionTestUtils.setField(service, "idleRoomMs", 60_000L);
+    }
+
+    @Test
+    void sendsEveryMessageOnItsOwnWhenDisabled() {
+        ReflectionTestUtils.setField(service, "enabled", false);
+
+        broadcast("general", 1, 10);
+        service.flushPending();
+
+        assertThat(frames).containsExactly("m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9", "m10");
+        assertThat(service.getStats()).containsEntry("singleFrames", 10L).containsEntry("trackedRooms", 0);
+    }
+
+    @Test
+    void coalescesABusyRoomIntoOneFramePerWindow() {
+        broadcast("general", 1, 4);
+        assertThat(frames).containsExactly("m1", "m2", "m3", "m4");
+
+        // Over the threshold: held for the window
+        broadcast("general", 5, 7);
+        assertThat(frames).hasSize(4);
+        assertThat(service.getStats()).containsEntry("batchingRooms", 1);
+
+        service.flushPending();
+        assertThat(frames).last().isEqualTo(List.of("m5", "m6", "m7"));
+        assertThat(batchHeaders).containsExactly(3);
+        verify(compactPayloadService).publish("general", List.of("m5", "m6", "m7"));
+
+        // Other rooms are unaffected
+        broadcast("design", 1, 1);
+        assertThat(frames).last().isEqualTo("d1");
+    }
+
+    @Test
+    void sendsEarlyOnceAWindowIsFull() {
+        broadcast("general", 1, 4);
+        broadcast("general", 5, 9);
+
+        assertThat(frames).last().isEqualTo(List.of("m5", "m6", "m7", "m8", "m9"));
+        assertThat(service.getStats()).containsEntry("largestBatch", 5L);
+    }
+
+    @Test
+    void leavingBatchModeKeepsOrder() {
+        broadcast("general", 1, 6);
+        assertThat(frames).containsExactly("m1", "m2", "m3", "m4");
+
+        // The room goes quiet: both rate buckets drop below half the threshold
+        age("general", 2_000);
+        broadcast("general", 7, 7);
+
+        // Held messages go out with the new one, ahead of it
+        assertThat(frames).last().isEqualTo(List.of("m5", "m6", "m7"));
+        assertThat(service.getStats()).containsEntry("batchingRooms", 0);
+
+        broadcast("general", 8, 8);
+        assertThat(frames).last().isEqualTo("m8");
+        service.flushPending();
+        assertThat(frames).hasSize(6);
+    }
+
+    @Test
+    void aSingleHeldMessageIsSentAsAPlainFrame() {
+        broadcast("general", 1, 5);
+        service.flushPending();
+
+        assertThat(frames).containsExactly("m1", "m2", "m3", "m4", "m5");
+        assertThat(batchHeaders).isEmpty();
+    }
+
+    @Test
+    void forgetsIdleRooms() {
+        broadcast("general", 1, 1);
+        broadcast("design", 1, 1);
+        ReflectionTestUtils.setField(service, "idleRoomMs", 1_000L);
+        age("general", 5_000);
+
+        service.pruneIdleRooms();
+
+        assertThat(service.getStats()).containsEntry("trackedRooms", 1);
+    }
+
+    private void broadcast(String roomId, int from, int to) {
+        String prefix = roomId.equals("general") ? "m" : "d";
+        for (int i = from; i <= to; i++) {
+            service.broadcast(roomId, prefix + i);
+        }
+    }
+
+    /**
+     * Move a room's rate buckets and last message into the past
+     */
+    private void age(String roomId, long ms) {
+        Map<?, ?> rooms = (Map<?, ?>) ReflectionTestUtils.getField(service, "rooms");
+        Object stream = rooms.get(roomId);
+        synchronized (stream) {
+            ReflectionTestUtils.setField(stream, "bucketStart", (Long) ReflectionTestUtils.getField(stream, "bucketStart") - ms);
+            ReflectionTestUtils.setField(stream, "lastMessageAt", (Long) ReflectionTestUtils.getField(stream, "lastMessageAt") - ms);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.workspace.app.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * memberCount backfill and drift reconciliation
+ * The mocked MongoTemplate serves rooms and room_members counts from maps
+ * and applies conditional memberCount writes to them.
+ */
+class RoomMemberCountBackfillTest {
+
+    private MongoTemplate mongoTemplate;
+    private RoomMembershipStore roomMembershipStore;
+    private RoomMemberCountBackfill backfill;
+
+    // roomId -> stored memberCount, and roomId -> room_members count
+    private final Map<String, Integer> memberCounts = new LinkedHashMap<>();
+    private final Map<String, Integer> memberships = new LinkedHashMap<>();
+
+    // Runs just before a conditional write is applied (a join or leave landing in between)
+    private final AtomicReference<Runnable> beforeWrite = new AtomicReference<>(() -> { });
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        roomMembershipStore = mock(RoomMembershipStore.class);
+        backfill = new RoomMemberCountBackfill();
+        ReflectionTestUtils.setField(backfill, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(backfill, "roomMembershipStore", roomMembershipStore);
+        ReflectionTestUtils.setField(backfill, "enabled", true);
+        ReflectionTestUtils.setField(backfill, "reconcileEnabled", true);
+
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq(RoomMember.class), eq(Document.class)))
+                .thenAnswer(invocation -> memberships.entrySet().stream()
+                        .map(entry -> new Document("_id", entry.getKey()).append("count", entry.getValue())));
+        when(mongoTemplate.stream(any(Query.class), eq(Room.class)))
+                .thenAnswer(invocation -> memberCounts.entrySet().stream().map(entry -> room(entry.getKey(), entry.getValue())));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Room.class)))
+                .thenAnswer(invocation -> {
+                    beforeWrite.get().run();
+                    Document filter = ((Query) invocation.getArgument(0)).getQueryObject();
+                    String roomId = filter.getString("_id");
+                    Object expected = filter.get("memberCount");
+                    if (expected instanceof Integer count && !count.equals(memberCounts.get(roomId))) {
+                        return UpdateResult.acknowledged(0, 0L, null);
+                    }
+                    Document set = (Document) ((Update) invocation.getArgument(1)).getUpdateObject().get("$set");
+                    memberCounts.put(roomId, set.getInteger("memberCount"));
+                    return UpdateResult.acknowledged(1, 1L, null);
+                });
+
+        memberCounts.put("steady", 3);
+        memberships.put("steady", 3);
+    }
+
+    @Test
+    void correctsADriftSeenOnTwoPassesInARow() {
+        memberCounts.put("drifted", 5);
+        memberships.put("drifted", 4);
+
+        assertThat(backfill.reconcileCounts()).isZero();
+        assertThat(memberCounts).containsEntry("drifted", 5);
+        assertThat(backfill.getStats()).containsEntry("pendingDrift", 1);
+
+        assertThat(backfill.reconcileCounts()).isEqualTo(1);
+        assertThat(memberCounts).containsEntry("drifted", 4).containsEntry("steady", 3);
+        assertThat(backfill.getStats()).containsEntry("countsCorrected", 1L).containsEntry("pendingDrift", 0);
+    }
+
+    @Test
+    void leavesAMismatchThatChangesBetweenPassesAlone() {
+        // A join counted, its membership not written yet
+        memberCounts.put("busy", 5);
+        memberships.put("busy", 4);
+        backfill.reconcileCounts();
+
+        // The membership lands, and another join is mid-flight
+        memberCounts.put("busy", 6);
+        memberships.put("busy", 5);
+        assertThat(backfill.reconcileCounts()).isZero();
+
+        memberships.put("busy", 6);
+        assertThat(backfill.reconcileCounts()).isZero();
+        assertThat(memberCounts).containsEntry("busy", 6);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Room.class));
+    }
+
+    @Test
+    void doesNotOverwriteACountChangedSinceItWasRead() {
+        memberCounts.put("drifted", 5);
+        memberships.put("drifted", 4);
+        backfill.reconcileCounts();
+
+        // A leave decrements the count between the read and the correction
+        beforeWrite.set(() -> memberCounts.put("drifted", 4));
+        assertThat(backfill.reconcileCounts()).isZero();
+        assertThat(memberCounts).containsEntry("drifted", 4);
+        assertThat(backfill.getStats()).containsEntry("countsCorrected", 0L);
+    }
+
+    @Test
+    void countsRoomsWithoutMembershipsAsEmpty() {
+        memberCounts.put("abandoned", 2);
+
+        backfill.reconcileCounts();
+        backfill.reconcileCounts();
+
+        assertThat(memberCounts).containsEntry("abandoned", 0);
+    }
+
+    @Test
+    void reconcileIsSkippedWhenDisabledAndSurvivesFailures() {
+        ReflectionTestUtils.setField(backfill, "reconcileEnabled", false);
+        backfill.reconcile();
+        verify(mongoTemplate, never()).aggregateStream(any(Aggregation.class), eq(RoomMember.class), eq(Document.class));
+
+        ReflectionTestUtils.setField(backfill, "reconcileEnabled", true);
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq(RoomMember.class), eq(Document.class)))
+                .thenThrow(new RuntimeException("connection refused"));
+        backfill.reconcile();
+        assertThat(backfill.getStats()).containsEntry("reconcileRuns", 0L);
+    }
+
+    @Test
+    void backfillCountsEmbeddedArraysAndMigratedMemberships() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(AggregationUpdate.class), eq(Room.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+        when(mongoTemplate.find(any(Query.class), eq(Room.class))).thenReturn(List.of(room("migrated", 0)));
+        when(roomMembershipStore.countMembers("migrated")).thenReturn(7L);
+
+        assertThat(backfill.backfill()).isEqualTo(3);
+
+        assertThat(memberCounts).containsEntry("migrated", 7);
+        ArgumentCaptor<Query> embedded = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).updateMulti(embedded.capture(), any(AggregationUpdate.class), eq(Room.class));
+        assertThat(embedded.getValue().getQueryObject())
+                .containsEntry("memberCount", new Document("$exists", false))
+                .containsEntry("members", new Document("$exists", true));
+    }
+
+    private static Room room(String id, int memberCount) {
+        Room room = new Room();
+        room.setId(id);
+        room.setMemberCount(memberCount);
+        return room;
+    }
+}
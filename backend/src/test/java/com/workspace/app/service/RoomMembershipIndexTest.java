@@ -0,0 +1,220 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomMembershipIndexTest {
+
+    private MongoTemplate mongoTemplate;
+    private RoomMembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        index = new RoomMembershipIndex();
+        ReflectionTestUtils.setField(index, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(index, "clusterEventBus", mock(ClusterEventBus.class));
+        ReflectionTestUtils.setField(index, "warmUpRetryMs", 50L);
+        index.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void answersMembershipAndIntersections() {
+        load("general", "alice", "bob", "carol");
+        load("design", "alice", "bob");
+        load("ops", "carol");
+
+        assertThat(index.isMember("general", "alice")).isTrue();
+        assertThat(index.isMember("ops", "alice")).isFalse();
+        assertThat(index.isMember("unknown", "alice")).isFalse();
+        assertThat(index.countMembers("general")).isEqualTo(3);
+
+        assertThat(index.roomsOfUser("alice")).containsExactlyInAnyOrder("general", "design");
+        assertThat(index.roomsOfUser("nobody")).isEmpty();
+        assertThat(index.sharedRooms("alice", "carol")).containsExactly("general");
+        assertThat(index.membersOfAll(List.of("general", "design"))).containsExactlyInAnyOrder("alice", "bob");
+        assertThat(index.membersOfAll(List.of("general", "unknown"))).isEmpty();
+        assertThat(index.countDistinctMembers(List.of("design", "ops"))).isEqualTo(3);
+    }
+
+    @Test
+    void joinAndLeaveUpdateBothDirections() {
+        load("general", "alice");
+
+        index.addMember("general", "bob");
+        assertThat(index.isMember("general", "bob")).isTrue();
+        assertThat(index.roomsOfUser("bob")).containsExactly("general");
+
+        index.removeMember("general", "alice");
+        assertThat(index.isMember("general", "alice")).isFalse();
+        assertThat(index.roomsOfUser("alice")).isEmpty();
+    }
+
+    @Test
+    void reloadMovesUsersBetweenRooms() {
+        load("general", "alice", "bob");
+        load("general", "bob", "carol");
+
+        assertThat(index.roomsOfUser("alice")).isEmpty();
+        assertThat(index.roomsOfUser("bob")).containsExactly("general");
+        assertThat(index.roomsOfUser("carol")).containsExactly("general");
+    }
+
+    @Test
+    void discardsLoadReadBeforeALeave() {
+        load("general", "alice", "bob");
+
+        // A reload reads the room, then bob leaves before it is installed
+        long readSequence = index.currentSequence();
+        List<String> staleRead = List.of("alice", "bob");
+        index.removeMember("general", "bob");
+
+        assertThat(index.loadRoom("general", staleRead, readSequence)).isFalse();
+        assertThat(index.isMember("general", "bob")).isFalse();
+        assertThat(index.roomsOfUser("bob")).isEmpty();
+        assertThat(index.getStats()).containsEntry("staleLoadsDiscarded", 1L);
+    }
+
+    @Test
+    void discardsLoadReadBeforeAJoin() {
+        load("general", "alice");
+
+        long readSequence = index.currentSequence();
+        index.addMember("general", "bob");
+
+        assertThat(index.loadRoom("general", List.of("alice"), readSequence)).isFalse();
+        assertThat(index.isMember("general", "bob")).isTrue();
+    }
+
+    @Test
+    void reloadsRoomChangedWhileNotLoaded() throws Exception {
+        Room room = new Room();
+        room.setId("new-room");
+        when(mongoTemplate.findOne(any(Query.class), eq(Room.class))).thenReturn(room);
+        when(mongoTemplate.find(any(Query.class), eq(RoomMember.class)))
+                .thenReturn(List.of(new RoomMember("new-room", "alice", RoomMember.ROLE_ADMIN)));
+
+        index.addMember("new-room", "alice");
+
+        awaitTrue(() -> index.isMember("new-room", "alice"));
+        assertThat(index.roomsOfUser("alice")).containsExactly("new-room");
+        awaitTrue(() -> ((Integer) index.getStats().get("pendingReloads")) == 0);
+    }
+
+    @Test
+    void isIncompleteUntilWarmedUp() {
+        load("general", "alice");
+        assertThat(index.isComplete()).isFalse();
+    }
+
+    /**
+     * Joins and leaves race reloads that read "Mongo" at arbitrary points and
+     * install the result a little later; when the writers stop, the index
+     * must match the source of truth in both directions.
+     */
+    @Test
+    void concurrentLoadsNeverUndoJoinsOrLeaves() throws Exception {
+        String roomId = "busy";
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            users.add("user-" + i);
+        }
+        Set<String> truth = new HashSet<>(users.subList(0, 20));
+        load(roomId, truth.toArray(String[]::new));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        CountDownLatch writersDone = new CountDownLatch(4);
+        for (int w = 0; w < 4; w++) {
+            // Each writer owns a quarter of the users, so a user's joins and leaves reach the index in order
+            int writer = w;
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    String userId = users.get(random.nextInt(users.size() / 4) * 4 + writer);
+                    // Mongo write first, then the index, as RoomService does
+                    boolean joined;
+                    synchronized (truth) {
+                        joined = truth.add(userId);
+                        if (!joined) {
+                            truth.remove(userId);
+                        }
+                    }
+                    if (joined) {
+                        index.addMember(roomId, userId);
+                    } else {
+                        index.removeMember(roomId, userId);
+                    }
+                }
+                writersDone.countDown();
+            });
+        }
+        for (int l = 0; l < 2; l++) {
+            pool.execute(() -> {
+                while (running.get() && writersDone.getCount() > 0) {
+                    long readSequence = index.currentSequence();
+                    List<String> read;
+                    synchronized (truth) {
+                        read = new ArrayList<>(truth);
+                    }
+                    LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(200_000));
+                    index.loadRoom(roomId, read, readSequence);
+                }
+            });
+        }
+
+        assertThat(writersDone.await(30, TimeUnit.SECONDS)).isTrue();
+        running.set(false);
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        Set<String> expected = new HashSet<>(truth);
+        for (String userId : users) {
+            assertThat(index.isMember(roomId, userId)).as(userId).isEqualTo(expected.contains(userId));
+            assertThat(index.roomsOfUser(userId).contains(roomId)).as(userId).isEqualTo(expected.contains(userId));
+        }
+        assertThat(index.countMembers(roomId)).isEqualTo(expected.size());
+    }
+
+    private void load(String roomId, String... userIds) {
+        assertThat(index.loadRoom(roomId, List.of(userIds), index.currentSequence())).isTrue();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.workspace.app.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.workspace.app.model.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RoomMembershipMigratorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RoomMembershipStore roomMembershipStore;
+
+    @Mock
+    private RoomAclCache roomAclCache;
+
+    @InjectMocks
+    private RoomMembershipMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(migrator, "enabled", true);
+        ReflectionTestUtils.setField(migrator, "batchSize", 50);
+        ReflectionTestUtils.setField(migrator, "claimTimeoutMs", 300_000L);
+        ReflectionTestUtils.setField(migrator, "waitMs", 200L);
+    }
+
+    @Test
+    void importsTheMembersReadWithTheClaimNotTheCallersSnapshot() {
+        Room snapshot = legacyRoom("alice", "bob", "carol");
+        Room claimed = legacyRoom("alice", "bob");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Room.class)))
+                .thenReturn(claimed);
+        when(roomMembershipStore.countMembers("room-1")).thenReturn(2L);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Room.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        migrator.migrateRoom(snapshot);
+
+        verify(roomMembershipStore).importMembers(eq("room-1"), eq("alice"), eq(List.of("alice", "bob")), any());
+        verify(roomAclCache).invalidate("room-1");
+        assertThat(migrator.getStats()).containsEntry("roomsMigrated", 1L);
+    }
+
+    @Test
+    void finishesOnlyUnderItsOwnClaim() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Room.class)))
+                .thenReturn(legacyRoom("alice"));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Room.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        migrator.migrateRoom(legacyRoom("alice"));
+
+        ArgumentCaptor<Update> claim = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), claim.capture(), any(FindAndModifyOptions.class), eq(Room.class));
+        Object token = claim.getValue().getUpdateObject().get("$set", org.bson.Document.class).get("membersMigrationClaim");
+
+        ArgumentCaptor<Query> finish = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(finish.capture(), any(Update.class), eq(Room.class));
+        assertThat(finish.getValue().getQueryObject()).containsEntry("membersMigrationClaim", token);
+    }
+
+    /**
+     * The sweep read a batch; a lazy migration from join/leave finished one
+     * of its rooms and a user then left. The sweep must not import anything
+     * for that room, or the departed user would be written back.
+     */
+    @Test
+    void sweepSkipsRoomsMigratedSinceItsRead() {
+        when(mongoTemplate.find(any(Query.class), eq(Room.class))).thenReturn(List.of(legacyRoom("alice", "bob")));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Room.class)))
+                .thenReturn(null);
+        when(mongoTemplate.exists(any(Query.class), eq(Room.class))).thenReturn(false);
+
+        migrator.sweep();
+
+        verify(roomMembershipStore, never()).importMembers(anyString(), anyString(), anyCollection(), any());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Room.class));
+    }
+
+    @Test
+    void waitsForAnotherMigrationOfTheSameRoom() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Room.class)))
+                .thenReturn(null);
+        // Still legacy when the claim fails and on the first poll, then done
+        when(mongoTemplate.exists(any(Query.class), eq(Room.class))).thenReturn(true, true, false);
+
+        migrator.migrateRoom(legacyRoom("alice"));
+
+        verify(roomMembershipStore, never()).importMembers(anyString(), anyString(), anyCollection(), any());
+    }
+
+    @Test
+    void givesUpWaitingAfterTheTimeout() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Room.class)))
+                .thenReturn(null);
+        when(mongoTemplate.exists(any(Query.class), eq(Room.class))).thenReturn(true);
+
+        assertThatThrownBy(() -> migrator.migrateRoom(legacyRoom("alice")))
+                .hasMessage("Room members are being migrated, try again!");
+    }
+
+    @Test
+    void ignoresMigratedRooms() {
+        Room migrated = legacyRoom();
+        migrated.setMembers(null);
+
+        migrator.migrateRoom(migrated);
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Room.class));
+    }
+
+    private static Room legacyRoom(String... members) {
+        Room room = new Room();
+        room.setId("room-1");
+        room.setAdminId("alice");
+        room.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        room.setMembers(new ArrayList<>(List.of(members)));
+        return room;
+    }
+}
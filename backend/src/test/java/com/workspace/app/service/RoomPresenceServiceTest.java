@@ -0,0 +1,159 @@
+package com.workspace.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomPresenceServiceTest {
+
+    // Statuses published on /topic/room/general/presence by either node, in order
+    private final List<String> published = Collections.synchronizedList(new ArrayList<>());
+
+    private RoomPresenceService nodeA;
+    private RoomPresenceService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Map<String, Consumer<Map<String, Object>>>> listeners = new HashMap<>();
+        nodeA = newNode("a", "b", listeners);
+        nodeB = newNode("b", "a", listeners);
+    }
+
+    @Test
+    void staysSilentWhileTheUserIsStillInTheRoomThroughAnotherNode() {
+        nodeA.onSubscribe(subscribe("s1", "alice"));
+        nodeA.flush();
+        nodeB.onSubscribe(subscribe("s2", "alice"));
+        nodeB.flush();
+        assertThat(published).containsExactly("joined");
+
+        // alice's session on node a closes, but she is still in the room on node b
+        nodeA.onDisconnect(disconnect("s1", "alice"));
+        nodeA.flush();
+        nodeB.flush();
+        assertThat(published).containsExactly("joined");
+        assertThat(nodeA.getStats()).containsEntry("presentElsewhere", 1L);
+
+        nodeB.onDisconnect(disconnect("s2", "alice"));
+        nodeB.flush();
+        nodeA.flush();
+        assertThat(published).containsExactly("joined", "left");
+    }
+
+    @Test
+    void snapshotTellsANodeWhoIsPresentElsewhereAfterMissedDeltas() {
+        // Node b joins the cluster after alice's delta was sent
+        nodeB.onSubscribe(subscribe("s2", "alice"));
+        ReflectionTestUtils.setField(nodeA, "remoteNodes", new ConcurrentHashMap<>());
+        nodeB.flush();
+        assertThat(published).containsExactly("joined");
+
+        nodeA.onSubscribe(subscribe("s1", "alice"));
+        nodeA.flush();
+        nodeA.onDisconnect(disconnect("s1", "alice"));
+        nodeA.flush();
+        assertThat(published).containsExactly("joined");
+    }
+
+    @Test
+    void forgetRemovesTheUserOnEveryNodeAndAnnouncesOnce() {
+        nodeA.onSubscribe(subscribe("s1", "alice"));
+        nodeA.flush();
+        nodeB.onSubscribe(subscribe("s2", "alice"));
+        nodeB.flush();
+
+        nodeA.forget("general", "alice");
+        nodeA.flush();
+        nodeB.flush();
+        assertThat(published).containsExactly("joined", "left");
+
+        // Her session on node b is no longer counted in the room
+        nodeB.onDisconnect(disconnect("s2", "alice"));
+        nodeB.flush();
+        assertThat(published).containsExactly("joined", "left");
+    }
+
+    private RoomPresenceService newNode(String nodeId, String peerId,
+                                        Map<String, Map<String, Consumer<Map<String, Object>>>> listeners) {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        doAnswer(invocation -> {
+            published.add((String) ((Map<?, ?>) invocation.getArgument(1)).get("status"));
+            return null;
+        }).when(messagingTemplate).convertAndSend(any(String.class), any(Object.class));
+
+        // Events published by this node are delivered straight to its peer's listeners
+        ClusterEventBus clusterEventBus = mock(ClusterEventBus.class);
+        when(clusterEventBus.isClustered()).thenReturn(true);
+        when(clusterEventBus.getNodeId()).thenReturn(nodeId);
+        doAnswer(invocation -> {
+            listeners.computeIfAbsent(nodeId, key -> new HashMap<>())
+                    .put(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(clusterEventBus).subscribe(anyString(), any());
+        doAnswer(invocation -> {
+            Map<String, Object> event = new LinkedHashMap<>(invocation.getArgument(1));
+            event.put("node", nodeId);
+            Consumer<Map<String, Object>> listener = listeners.getOrDefault(peerId, Map.of())
+                    .get(invocation.<String>getArgument(0));
+            if (listener != null) {
+                listener.accept(event);
+            }
+            return null;
+        }).when(clusterEventBus).publish(anyString(), anyMap());
+
+        RoomPresenceService service = new RoomPresenceService();
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "clusterEventBus", clusterEventBus);
+        ReflectionTestUtils.setField(service, "debounceMs", 0L);
+        ReflectionTestUtils.setField(service, "clusterSyncMs", 5_000L);
+        service.init();
+        return service;
+    }
+
+    private static SessionSubscribeEvent subscribe(String sessionId, String userId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/room/general");
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return new SessionSubscribeEvent(RoomPresenceServiceTest.class, message, principal(userId));
+    }
+
+    private static SessionDisconnectEvent disconnect(String sessionId, String userId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return new SessionDisconnectEvent(RoomPresenceServiceTest.class, message, sessionId, CloseStatus.NORMAL,
+                principal(userId));
+    }
+
+    private static Principal principal(String userId) {
+        return () -> userId;
+    }
+}
@@ -0,0 +1,236 @@
+package com.workspace.app.service;
+
+import com.workspace.app.dto.RoomSlice;
+import com.workspace.app.dto.RoomSort;
+import com.workspace.app.dto.RoomSummary;
+import com.workspace.app.model.Room;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keyset paging through room listings
+ * The mocked MongoTemplate evaluates each query against in-memory rooms,
+ * so the cursor predicates and sort are exercised end to end.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RoomServiceListingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private RoomService roomService;
+
+    // Member counts, creation times and names repeat, so most ties are decided by _id
+    private final List<Room> rooms = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 40; i++) {
+            Room room = new Room("room-" + (i % 7), "", "alice");
+            room.setId(new ObjectId(new Date(1_700_000_000_000L), i).toHexString());
+            room.setMemberCount(i % 3 + (i % 10 == 0 ? 10 : 0));
+            room.setCreatedAt(START.plusSeconds(i / 4));
+            room.setLastMessageAt(i % 5 == 0 ? null : START.plusMinutes(i % 6));
+            room.setPrivate(i % 4 == 0);
+            room.setActive(i != 13);
+            rooms.add(room);
+        }
+
+        when(mongoTemplate.find(any(Query.class), eq(Room.class)))
+                .thenAnswer(invocation -> evaluate(invocation.getArgument(0)));
+    }
+
+    @Test
+    void pagesPopularRoomsByMemberCountWithoutGapsOrDuplicates() {
+        List<String> seen = pageAll((cursor, limit) -> roomService.getPopularRooms(cursor, limit), 3);
+
+        List<String> expected = rooms.stream()
+                .filter(room -> room.isActive() && !room.isPrivate())
+                .sorted(Comparator.comparingInt(Room::getMemberCount).thenComparing(room -> new ObjectId(room.getId())).reversed())
+                .map(Room::getId)
+                .toList();
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void pagesRoomsWithMinimumMembersAcrossTies() {
+        List<String> seen = pageAll((cursor, limit) -> roomService.getRoomsWithMinimumMembers(2, cursor, limit), 4);
+
+        List<String> expected = rooms.stream()
+                .filter(room -> room.isActive() && room.getMemberCount() >= 2)
+                .sorted(Comparator.comparingInt(Room::getMemberCount).thenComparing(room -> new ObjectId(room.getId())).reversed())
+                .map(Room::getId)
+                .toList();
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @EnumSource(RoomSort.class)
+    void pagesEverySortWithoutGapsOrDuplicatesAcrossTies(RoomSort sort) {
+        for (int limit : new int[] {1, 3, 7}) {
+            List<String> seen = pageAll((cursor, size) -> roomService.getAllRooms(null, sort.name(), cursor, size), limit);
+
+            Comparator<Room> byKey = Comparator.comparing(room -> value(sort.getField(), room),
+                    Comparator.nullsFirst(RoomServiceListingTest::compareValues));
+            Comparator<Room> order = byKey.thenComparing(room -> new ObjectId(room.getId()));
+            if (sort.getDirection() == Sort.Direction.DESC) {
+                // Descending, so rooms without the key (no messages yet) come last
+                order = order.reversed();
+            }
+            List<String> expected = rooms.stream()
+                    .filter(Room::isActive)
+                    .sorted(order)
+                    .map(Room::getId)
+                    .toList();
+            assertThat(seen).as("%s in slices of %d", sort, limit).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void rejectsACursorIssuedForAnotherSort() {
+        String cursor = roomService.getAllRooms(null, "name", null, 5).getNextCursor();
+
+        assertThatThrownBy(() -> roomService.getAllRooms(null, "newest", cursor, 5))
+                .hasMessage("Cursor does not match the requested sort!");
+    }
+
+    @Test
+    void rejectsAnEditedCursorBeforeQuerying() {
+        String raw = "MEMBERS|" + rooms.get(0).getId() + "|={\"$ne\": null}";
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> roomService.getPopularRooms(cursor, 5)).hasMessage("Invalid cursor!");
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Room.class));
+    }
+
+    interface Listing {
+        RoomSlice slice(String cursor, int limit);
+    }
+
+    private static List<String> pageAll(Listing listing, int limit) {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        RoomSlice slice;
+        do {
+            slice = listing.slice(cursor, limit);
+            assertThat(slice.getRooms().size()).isLessThanOrEqualTo(limit);
+            slice.getRooms().stream().map(RoomSummary::getId).forEach(seen::add);
+            cursor = slice.getNextCursor();
+        } while (slice.isHasMore());
+        return seen;
+    }
+
+    private List<Room> evaluate(Query query) {
+        Document sort = query.getSortObject();
+        Comparator<Room> order = null;
+        for (Map.Entry<String, Object> key : sort.entrySet()) {
+            String field = key.getKey();
+            Comparator<Room> byField = Comparator.comparing(room -> value(field, room),
+                    Comparator.nullsFirst(RoomServiceListingTest::compareValues));
+            if ((Integer) key.getValue() < 0) {
+                byField = byField.reversed();
+            }
+            order = order == null ? byField : order.thenComparing(byField);
+        }
+        return rooms.stream()
+                .filter(room -> matches(query.getQueryObject(), room))
+                .sorted(order)
+                .limit(query.getLimit())
+                .toList();
+    }
+
+    private static boolean matches(Document filter, Room room) {
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            boolean matched = switch (entry.getKey()) {
+                case "$and" -> ((List<?>) entry.getValue()).stream().allMatch(clause -> matches((Document) clause, room));
+                case "$or" -> ((List<?>) entry.getValue()).stream().anyMatch(clause -> matches((Document) clause, room));
+                default -> {
+                    Object value = value(entry.getKey(), room);
+                    if (entry.getValue() instanceof Document operators) {
+                        yield value != null && compare(operators, value);
+                    }
+                    yield entry.getValue() == null ? value == null : entry.getValue().equals(value);
+                }
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final Map<String, Function<Room, Object>> FIELDS = Map.of(
+        "_id", room -> new ObjectId(room.getId()),
+        "name", Room::getName,
+        "memberCount", Room::getMemberCount,
+        "createdAt", Room::getCreatedAt,
+        "lastMessageAt", Room::getLastMessageAt,
+        "isActive", Room::isActive,
+        "isPrivate", Room::isPrivate
+    );
+
+    private static Object value(String field, Room room) {
+        Function<Room, Object> getter = FIELDS.get(field);
+        if (getter == null) {
+            throw new IllegalArgumentException("Unexpected field " + field);
+        }
+        return getter.apply(room);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right) {
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private static boolean compare(Document operators, Object value) {
+        for (Map.Entry<String, Object> operator : operators.entrySet()) {
+            int comparison = compareValues(value, operator.getValue());
+            boolean matched = switch (operator.getKey()) {
+                case "$gt" -> comparison > 0;
+                case "$gte" -> comparison >= 0;
+                case "$lt" -> comparison < 0;
+                case "$lte" -> comparison <= 0;
+                default -> throw new IllegalArgumentException("Unexpected operator " + operator.getKey());
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,298 @@
+package com.workspace.app.service;
+
+import com.workspace.app.model.Room;
+import com.workspace.app.model.RoomMember;
+import com.workspace.app.repository.RoomRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Page;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Seat reservation and rollback in joinRoom/leaveRoom
+ * The mocked MongoTemplate applies memberCount updates to one in-memory room
+ * (honouring the join's isActive/maxMembers condition) and memberships live
+ * in an in-memory store with the unique (roomId, userId) rule.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RoomServiceMembershipTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private RoomMembershipMigrator roomMembershipMigrator;
+
+    @Mock
+    private RoomAclCache roomAclCache;
+
+    @Mock
+    private RoomSubscriptionRegistry roomSubscriptionRegistry;
+
+    @Mock
+    private RoomPresenceService roomPresenceService;
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private RoomBroadcastService roomBroadcastService;
+
+    @InjectMocks
+    private RoomService roomService;
+
+    private final InMemoryMembershipStore store = new InMemoryMembershipStore();
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(roomService, "roomMembershipStore", store);
+
+        room = new Room("general", "", "admin");
+        room.setId("general");
+        room.setMaxMembers(5);
+        store.addMember("general", "admin", RoomMember.ROLE_ADMIN);
+
+        when(roomRepository.findById("general")).thenAnswer(invocation -> Optional.of(snapshot()));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Room.class)))
+                .thenAnswer(invocation -> {
+                    Query query = invocation.getArgument(0);
+                    Update update = invocation.getArgument(1);
+                    synchronized (room) {
+                        // The join's conditional seat reservation
+                        if (query.getQueryObject().containsKey("isActive")
+                                && (!room.isActive() || room.getMemberCount() >= room.getMaxMembers())) {
+                            return null;
+                        }
+                        room.setMemberCount(room.getMemberCount() + increment(update));
+                        return snapshot();
+                    }
+                });
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Room.class)))
+                .thenAnswer(invocation -> {
+                    synchronized (room) {
+                        room.setMemberCount(room.getMemberCount() + increment(invocation.getArgument(1)));
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    void joinReservesASeatAndRecordsTheMembership() {
+        Room joined = roomService.joinRoom("general", "alice");
+
+        assertThat(joined.getMemberCount()).isEqualTo(2);
+        assertThat(store.isMember("general", "alice")).isTrue();
+        verify(roomAclCache).memberJoined("general", "alice");
+        verify(userService).addUserToRoom("alice", "general");
+    }
+
+    @Test
+    void duplicateJoinGivesTheSeatBack() {
+        roomService.joinRoom("general", "alice");
+
+        assertThatThrownBy(() -> roomService.joinRoom("general", "alice"))
+                .hasMessage("User is already a member of this room!");
+
+        assertThat(room.getMemberCount()).isEqualTo(2);
+        verify(userService).addUserToRoom("alice", "general");
+    }
+
+    @Test
+    void rejectsJoinsOnceTheRoomIsFull() {
+        for (String userId : List.of("u1", "u2", "u3", "u4")) {
+            roomService.joinRoom("general", userId);
+        }
+
+        assertThatThrownBy(() -> roomService.joinRoom("general", "u5")).hasMessage("Room is full!");
+        // A member of a full room is told so, not that the room is full
+        assertThatThrownBy(() -> roomService.joinRoom("general", "u1"))
+                .hasMessage("User is already a member of this room!");
+        assertThat(room.getMemberCount()).isEqualTo(5);
+        assertThat(store.countMembers("general")).isEqualTo(5);
+    }
+
+    @Test
+    void rejectsJoinsToInactiveRooms() {
+        room.setActive(false);
+
+        assertThatThrownBy(() -> roomService.joinRoom("general", "alice")).hasMessage("Room is not active!");
+        assertThat(store.isMember("general", "alice")).isFalse();
+        assertThat(room.getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentAndRepeatedJoinsNeverOverfillOrLeakSeats() throws Exception {
+        room.setMaxMembers(11);
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            users.add("user-" + i);
+        }
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            for (String userId : users) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        roomService.joinRoom("general", userId);
+                    } catch (Exception e) {
+                        failures.add(e.getMessage());
+                    }
+                });
+            }
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(failures).allMatch(message -> message.equals("Room is full!")
+                || message.equals("User is already a member of this room!"));
+        assertThat(store.countMembers("general")).isLessThanOrEqualTo(11);
+        // Every reserved seat belongs to a membership; duplicates gave theirs back
+        assertThat(room.getMemberCount()).isEqualTo((int) store.countMembers("general"));
+
+        // Seats given back are usable again
+        int free = 11 - room.getMemberCount();
+        for (int i = 0; i < free; i++) {
+            roomService.joinRoom("general", "late-" + i);
+        }
+        assertThatThrownBy(() -> roomService.joinRoom("general", "late-x")).hasMessage("Room is full!");
+    }
+
+    @Test
+    void leaveFreesTheSeatAndEvictsSubscriptions() {
+        roomService.joinRoom("general", "alice");
+
+        Room left = roomService.leaveRoom("general", "alice");
+
+        assertThat(left.getMemberCount()).isEqualTo(1);
+        assertThat(store.isMember("general", "alice")).isFalse();
+        verify(roomAclCache).memberLeft("general", "alice");
+        verify(roomSubscriptionRegistry).evictUser("general", "alice");
+        verify(userService).removeUserFromRoom("alice", "general");
+    }
+
+    @Test
+    void leaveRejectsNonMembersAndTheAdmin() {
+        assertThatThrownBy(() -> roomService.leaveRoom("general", "alice"))
+                .hasMessage("User is not a member of this room!");
+        assertThatThrownBy(() -> roomService.leaveRoom("general", "admin"))
+                .hasMessage("Admin cannot leave the room! Transfer admin rights first or delete the room.");
+
+        assertThat(room.getMemberCount()).isEqualTo(1);
+        verify(roomSubscriptionRegistry, never()).evictUser(anyString(), anyString());
+    }
+
+    private Room snapshot() {
+        synchronized (room) {
+            Room copy = new Room(room.getName(), room.getDescription(), room.getAdminId());
+            copy.setId(room.getId());
+            copy.setActive(room.isActive());
+            copy.setMaxMembers(room.getMaxMembers());
+            copy.setMemberCount(room.getMemberCount());
+            return copy;
+        }
+    }
+
+    private static int increment(Update update) {
+        return ((Number) ((Document) update.getUpdateObject().get("$inc")).get("memberCount")).intValue();
+    }
+
+    private static class InMemoryMembershipStore implements RoomMembershipStore {
+
+        // roomId|userId -> role
+        private final Map<String, String> memberships = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean addMember(String roomId, String userId, String role) {
+            return memberships.putIfAbsent(roomId + "|" + userId, role) == null;
+        }
+
+        @Override
+        public boolean removeMember(String roomId, String userId) {
+            return memberships.remove(roomId + "|" + userId, RoomMember.ROLE_MEMBER);
+        }
+
+        @Override
+        public boolean isMember(String roomId, String userId) {
+            return memberships.containsKey(roomId + "|" + userId);
+        }
+
+        @Override
+        public long countMembers(String roomId) {
+            return memberships.keySet().stream().filter(key -> key.startsWith(roomId + "|")).count();
+        }
+
+        @Override
+        public Optional<RoomMember> getMember(String roomId, String userId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setRole(String roomId, String userId, String role) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Page<RoomMember> getMembers(String roomId, int page, int size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getMemberIds(String roomId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getRoomIdsOfUser(String userId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int importMembers(String roomId, String adminId, Collection<String> userIds, LocalDateTime joinedAt) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
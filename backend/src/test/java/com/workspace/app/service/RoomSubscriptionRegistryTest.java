@@ -0,0 +1,129 @@
+package com.workspace.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RoomSubscriptionRegistryTest {
+
+    private RoomSubscriptionRegistry registry;
+    private MessageChannel clientInboundChannel;
+    private MessageChannel brokerChannel;
+    private SimpMessagingTemplate messagingTemplate;
+    private ClusterEventBus clusterEventBus;
+
+    // Session IDs of the UNSUBSCRIBE frames sent on the inbound channel
+    private final List<String> unsubscribed = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        clientInboundChannel = mock(MessageChannel.class);
+        doAnswer(invocation -> {
+            Message<?> message = invocation.getArgument(0);
+            assertThat(RoomSubscriptionRegistry.isEviction(message)).isTrue();
+            return unsubscribed.add(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        }).when(clientInboundChannel).send(any());
+        brokerChannel = mock(MessageChannel.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        clusterEventBus = mock(ClusterEventBus.class);
+        registry = newRegistry();
+    }
+
+    @Test
+    void evictsALeavingUsersSubscriptions() {
+        registry.register("general", "alice", "s1", "sub-1");
+        registry.register("general", "bob", "s2", "sub-1");
+        registry.register("design", "alice", "s1", "sub-2");
+
+        registry.evictUser("general", "alice");
+
+        assertThat(unsubscribed).containsExactly("s1");
+        assertThat(registry.getSubscribedUsers("general")).containsExactly("bob");
+        assertThat(registry.isSessionSubscribed("s1", "general")).isFalse();
+        assertThat(registry.isSessionSubscribed("s1", "design")).isTrue();
+    }
+
+    @Test
+    void unsubscribesAtTheBrokerWhenTheSessionsInboundQueueIsFull() {
+        doThrow(new MessageDeliveryException("Inbound queue for session:s1 is full")).when(clientInboundChannel).send(any());
+        registry.register("general", "alice", "s1", "sub-1");
+
+        registry.evictUser("general", "alice");
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(brokerChannel).send(sent.capture());
+        assertThat(SimpMessageHeaderAccessor.getSubscriptionId(sent.getValue().getHeaders())).isEqualTo("sub-1");
+        assertThat(registry.isSessionSubscribed("s1", "general")).isFalse();
+    }
+
+    @Test
+    void keepsRegistrationsMadeWhileOtherSessionsUnregisterTheSameRoom() throws Exception {
+        int sessions = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(sessions);
+        try {
+            for (int round = 0; round < 500; round++) {
+                registry = newRegistry();
+                unsubscribed.clear();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> running = new ArrayList<>();
+                for (int i = 0; i < sessions; i++) {
+                    String sessionId = "s" + i;
+                    // Even sessions churn and end unsubscribed, odd ones end subscribed
+                    boolean stays = i % 2 == 1;
+                    running.add(pool.submit(() -> {
+                        start.await(5, TimeUnit.SECONDS);
+                        for (int j = 0; j < 20; j++) {
+                            registry.register("general", "user-" + sessionId, sessionId, "sub-" + j);
+                            if (!stays || j < 19) {
+                                registry.unregister(sessionId, "sub-" + j);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : running) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+
+                // Every surviving subscription must still be reachable by a room eviction
+                registry.evictRoom("general");
+                assertThat(unsubscribed).containsExactlyInAnyOrder("s1", "s3", "s5", "s7");
+                assertThat(registry.getStats()).containsEntry("rooms", 0).containsEntry("subscriptions", 0);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private RoomSubscriptionRegistry newRegistry() {
+        RoomSubscriptionRegistry fresh = new RoomSubscriptionRegistry();
+        ReflectionTestUtils.setField(fresh, "clientInboundChannel", clientInboundChannel);
+        ReflectionTestUtils.setField(fresh, "brokerChannel", brokerChannel);
+        ReflectionTestUtils.setField(fresh, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(fresh, "clusterEventBus", clusterEventBus);
+        return fresh;
+    }
+}
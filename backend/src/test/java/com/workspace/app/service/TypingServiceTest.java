@@ -0,0 +1,131 @@
+package com.workspace.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TypingServiceTest {
+
+    private TypingService service;
+
+    // destination -> typing snapshots published to it, in order
+    private final Map<String, List<List<String>>> snapshots = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        doAnswer(invocation -> {
+            Map<?, ?> snapshot = invocation.getArgument(1);
+            List<String> users = new ArrayList<>();
+            for (Object typer : (List<?>) snapshot.get("typing")) {
+                users.add((String) ((Map<?, ?>) typer).get("userId"));
+            }
+            Collections.sort(users);
+            snapshots.computeIfAbsent(invocation.getArgument(0), key -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(users);
+            return null;
+        }).when(messagingTemplate).convertAndSend(anyString(), any(Object.class));
+        ClusterEventBus clusterEventBus = mock(ClusterEventBus.class);
+        when(clusterEventBus.getNodeId()).thenReturn("node-1");
+
+        service = new TypingService();
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "clusterEventBus", clusterEventBus);
+        ReflectionTestUtils.setField(service, "ttlMs", 60_000L);
+    }
+
+    @Test
+    void aggregatesARoomsTypersIntoOneSnapshotPerTick() {
+        service.update("general", "alice", "Alice", true);
+        service.update("general", "bob", "Bob", true);
+        service.update("design", "carol", "Carol", true);
+
+        service.publish();
+
+        assertThat(snapshots.get("/topic/room/general/typing")).containsExactly(List.of("alice", "bob"));
+        assertThat(snapshots.get("/topic/room/design/typing")).containsExactly(List.of("carol"));
+        assertThat(service.getStats()).containsEntry("rooms", 2).containsEntry("typers", 3)
+                .containsEntry("snapshotsPublished", 2L);
+    }
+
+    @Test
+    void publishesOnlyWhenTheTyperSetChanges() {
+        for (int i = 0; i < 10; i++) {
+            service.update("general", "alice", "Alice", true);
+        }
+        service.publish();
+        // Keep-alive events for someone already typing do not change the snapshot
+        service.update("general", "alice", "Alice", true);
+        service.publish();
+        service.publish();
+
+        assertThat(snapshots.get("/topic/room/general/typing")).containsExactly(List.of("alice"));
+        assertThat(service.getStats()).containsEntry("events", 11L).containsEntry("snapshotsPublished", 1L);
+
+        service.update("general", "alice", "Alice", false);
+        service.publish();
+        assertThat(snapshots.get("/topic/room/general/typing")).containsExactly(List.of("alice"), List.of());
+        assertThat(service.getStats()).containsEntry("rooms", 0);
+    }
+
+    @Test
+    void expiresTypersThatStopSendingEvents() {
+        ReflectionTestUtils.setField(service, "ttlMs", -1L);
+        service.update("general", "alice", "Alice", true);
+        ReflectionTestUtils.setField(service, "ttlMs", 60_000L);
+        service.update("general", "bob", "Bob", true);
+
+        service.publish();
+
+        assertThat(snapshots.get("/topic/room/general/typing")).containsExactly(List.of("bob"));
+        assertThat(service.getStats()).containsEntry("typers", 1);
+
+        service.stopTyping("general", "bob");
+        service.publish();
+        assertThat(snapshots.get("/topic/room/general/typing")).containsExactly(List.of("bob"), List.of());
+        assertThat(service.getStats()).containsEntry("rooms", 0).containsEntry("typers", 0);
+    }
+
+    @Test
+    void keepsTypersAddedWhilePublishDropsTheEmptyRoom() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread publisher = new Thread(() -> {
+            while (!done.get()) {
+                service.publish();
+            }
+        });
+        publisher.start();
+
+        AtomicInteger lost = new AtomicInteger();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                service.update("general", "user-" + i, null, true);
+                if (!Integer.valueOf(1).equals(service.getStats().get("typers"))) {
+                    lost.incrementAndGet();
+                }
+                service.stopTyping("general", "user-" + i);
+            }
+        } finally {
+            done.set(true);
+            publisher.join();
+        }
+
+        assertThat(lost).hasValue(0);
+    }
+}
@@ -0,0 +1,137 @@
+package com.workspace.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserPresenceServiceTest {
+
+    private UserPresenceService service;
+
+    // Statuses of alice pushed to bob, in order
+    private final List<Object> aliceStatuses = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        doAnswer(invocation -> {
+            Map<?, ?> batch = invocation.getArgument(2);
+            for (Object change : (List<?>) batch.get("changes")) {
+                if ("alice".equals(((Map<?, ?>) change).get("userId"))) {
+                    aliceStatuses.add(((Map<?, ?>) change).get("status"));
+                }
+            }
+            return null;
+        }).when(messagingTemplate).convertAndSendToUser(eq("bob"), eq("/queue/presence"), any(Object.class));
+
+        RoomMembershipIndex roomMembershipIndex = mock(RoomMembershipIndex.class);
+        when(roomMembershipIndex.roomsOfUser(anyString())).thenReturn(List.of("general"));
+        RoomSubscriptionRegistry roomSubscriptionRegistry = mock(RoomSubscriptionRegistry.class);
+        when(roomSubscriptionRegistry.getSubscribedUsers("general")).thenReturn(Set.of("alice", "bob"));
+
+        service = new UserPresenceService();
+        ReflectionTestUtils.setField(service, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "roomSubscriptionRegistry", roomSubscriptionRegistry);
+        ReflectionTestUtils.setField(service, "roomMembershipIndex", roomMembershipIndex);
+        ReflectionTestUtils.setField(service, "clusterEventBus", mock(ClusterEventBus.class));
+        ReflectionTestUtils.setField(service, "sessionTimeoutMs", 45_000L);
+    }
+
+    @Test
+    void countsAUserOnlineWhileAnySessionIsConnected() {
+        service.onConnected(connected("s1", "alice"));
+        service.onConnected(connected("s2", "alice"));
+        service.tick();
+        assertThat(service.isOnline("alice")).isTrue();
+
+        service.onDisconnect(disconnect("s1", "alice"));
+        service.tick();
+        assertThat(service.isOnline("alice")).isTrue();
+
+        service.onDisconnect(disconnect("s2", "alice"));
+        service.tick();
+        assertThat(service.isOnline("alice")).isFalse();
+        assertThat(aliceStatuses).containsExactly("online", "offline");
+        assertThat(service.getStats()).containsEntry("sessions", 0).containsEntry("onlineUsers", 0);
+    }
+
+    @Test
+    void bringsAnExpiredSessionBackOnlineWithItsNextFrame() {
+        service.onConnected(connected("s1", "alice"));
+        service.tick();
+
+        // No heartbeats: the session goes silent past the timeout but stays connected
+        ReflectionTestUtils.setField(service, "sessionTimeoutMs", -1L);
+        service.tick();
+        assertThat(service.isOnline("alice")).isFalse();
+        assertThat(service.getStats()).containsEntry("sessionsExpired", 1L).containsEntry("expiredSessions", 1);
+
+        ReflectionTestUtils.setField(service, "sessionTimeoutMs", 45_000L);
+        service.touch("s1");
+        service.tick();
+        assertThat(service.isOnline("alice")).isTrue();
+        assertThat(service.getStats()).containsEntry("onlineUsers", 1).containsEntry("expiredSessions", 0);
+
+        service.onDisconnect(disconnect("s1", "alice"));
+        service.touch("s1");
+        service.tick();
+        assertThat(service.isOnline("alice")).isFalse();
+        assertThat(aliceStatuses).containsExactly("online", "offline", "online", "offline");
+    }
+
+    @Test
+    void disconnectingAnExpiredSessionDoesNotCountItTwice() {
+        service.onConnected(connected("s1", "alice"));
+        ReflectionTestUtils.setField(service, "sessionTimeoutMs", -1L);
+        service.tick();
+        ReflectionTestUtils.setField(service, "sessionTimeoutMs", 45_000L);
+        service.onDisconnect(disconnect("s1", "alice"));
+
+        service.onConnected(connected("s2", "alice"));
+        service.tick();
+        assertThat(service.isOnline("alice")).isTrue();
+        assertThat(service.getPresence(List.of("alice")).get("alice").getSessions()).isEqualTo(1);
+    }
+
+    private static SessionConnectedEvent connected(String sessionId, String userId) {
+        return new SessionConnectedEvent(new Object(), frame(StompCommand.CONNECTED, sessionId), user(userId));
+    }
+
+    private static SessionDisconnectEvent disconnect(String sessionId, String userId) {
+        return new SessionDisconnectEvent(new Object(), frame(StompCommand.DISCONNECT, sessionId), sessionId,
+                CloseStatus.NORMAL, user(userId));
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Principal user(String userId) {
+        return () -> userId;
+    }
+}
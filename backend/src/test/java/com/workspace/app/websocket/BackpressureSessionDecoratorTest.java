@@ -0,0 +1,307 @@
+package com.workspace.app.websocket;
+
+import com.workspace.app.websocket.BackpressureSessionDecorator.TrafficClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BackpressureSessionDecoratorTest {
+
+    private OutboundBackpressureManager manager;
+    private WebSocketSession delegate;
+
+    // Drain tasks are run by the test, so frames stay queued until it says so
+    private final ArrayDeque<Runnable> senderTasks = new ArrayDeque<>();
+    private final Executor sender = senderTasks::add;
+
+    @BeforeEach
+    void setUp() {
+        manager = new OutboundBackpressureManager();
+        ReflectionTestUtils.setField(manager, "sendTimeLimitMs", 10_000L);
+        ReflectionTestUtils.setField(manager, "bufferSizeLimit", 1_000L);
+        ReflectionTestUtils.setField(manager, "ephemeralDropBytes", 200L);
+        ReflectionTestUtils.setField(manager, "ephemeralDropSendMs", 1_000L);
+        ReflectionTestUtils.setField(manager, "overLimitGraceMs", 60_000L);
+        ReflectionTestUtils.setField(manager, "senderThreads", 1);
+        ReflectionTestUtils.setField(manager, "senderQueueCapacity", 1);
+        manager.init();
+        delegate = mock(WebSocketSession.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void classifiesFramesByCommandAndDestination() {
+        assertThat(BackpressureSessionDecorator.classify(message("/topic/room/general"))).isEqualTo(TrafficClass.CHAT);
+        assertThat(BackpressureSessionDecorator.classify(message("/topic/room/general/typing"))).isEqualTo(TrafficClass.EPHEMERAL);
+        assertThat(BackpressureSessionDecorator.classify(message("/topic/room/general/presence"))).isEqualTo(TrafficClass.EPHEMERAL);
+        assertThat(BackpressureSessionDecorator.classify(message("/user/queue/presence"))).isEqualTo(TrafficClass.EPHEMERAL);
+        assertThat(BackpressureSessionDecorator.classify(message("/user/queue/errors"))).isEqualTo(TrafficClass.CONTROL);
+        assertThat(BackpressureSessionDecorator.classify(message("/user/queue/room-access"))).isEqualTo(TrafficClass.CONTROL);
+        assertThat(BackpressureSessionDecorator.classify(new TextMessage("CONNECTED\nversion:1.2\n\n\0"))).isEqualTo(TrafficClass.CONTROL);
+        assertThat(BackpressureSessionDecorator.classify(new TextMessage("\n"))).isEqualTo(TrafficClass.CONTROL);
+        assertThat(BackpressureSessionDecorator.classify(new TextMessage("MESSAGE\nsubscription:0\n\n{}\0"))).isEqualTo(TrafficClass.CHAT);
+        assertThat(BackpressureSessionDecorator.classify(new PingMessage())).isEqualTo(TrafficClass.CONTROL);
+
+        byte[] binary = frame("/topic/room/general/typing", 0).getBytes(StandardCharsets.ISO_8859_1);
+        assertThat(BackpressureSessionDecorator.classify(new BinaryMessage(binary))).isEqualTo(TrafficClass.EPHEMERAL);
+    }
+
+    @Test
+    void dropsEphemeralFramesOnceBehindButKeepsChat() throws Exception {
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(delegate, manager, sender);
+
+        TextMessage chat = message("/topic/room/general", 300);
+        session.sendMessage(chat);
+        TextMessage typing = message("/topic/room/general/typing");
+        session.sendMessage(typing);
+        TextMessage moreChat = message("/topic/room/general", 100);
+        session.sendMessage(moreChat);
+
+        drain();
+        verify(delegate).sendMessage(chat);
+        verify(delegate).sendMessage(moreChat);
+        verify(delegate, never()).sendMessage(typing);
+        assertThat(manager.getStats().get("droppedFrames")).isEqualTo(Map.of("ephemeral", 1L));
+
+        // Caught up again: typing is delivered
+        session.sendMessage(typing);
+        drain();
+        verify(delegate).sendMessage(typing);
+        assertThat(session.getQueuedBytes()).isZero();
+    }
+
+    @Test
+    void controlFramesJumpTheQueue() throws Exception {
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(delegate, manager, sender);
+        TextMessage chat = message("/topic/room/general");
+        TextMessage error = message("/user/queue/errors");
+        session.sendMessage(chat);
+        session.sendMessage(error);
+
+        drain();
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).sendMessage(error);
+        order.verify(delegate).sendMessage(chat);
+    }
+
+    @Test
+    void closesForResyncWhenFarOverTheBufferLimit() throws Exception {
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(delegate, manager, sender);
+        session.sendMessage(message("/topic/room/general", 1_500));
+        verify(delegate, never()).close(any());
+
+        session.sendMessage(message("/topic/room/general", 600));
+        drain();
+
+        verify(delegate).close(BackpressureSessionDecorator.RESYNC);
+        verify(delegate, never()).sendMessage(any());
+        assertThat(session.getQueuedBytes()).isZero();
+        assertThat(manager.getStats()).containsEntry("slowDisconnects", 1L);
+
+        // Closing: later frames are ignored
+        session.sendMessage(message("/topic/room/general"));
+        assertThat(senderTasks).isEmpty();
+    }
+
+    @Test
+    void closesForResyncOnceOverTheLimitForTheGracePeriod() throws Exception {
+        ReflectionTestUtils.setField(manager, "overLimitGraceMs", 0L);
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(delegate, manager, sender);
+
+        session.sendMessage(message("/topic/room/general", 1_100));
+        drain();
+
+        verify(delegate).close(BackpressureSessionDecorator.RESYNC);
+        assertThat(manager.getStats()).containsEntry("slowDisconnects", 1L);
+    }
+
+    @Test
+    void closesForResyncWhenTheSenderPoolRejects() throws Exception {
+        Executor saturated = task -> {
+            throw new RejectedExecutionException("full");
+        };
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(delegate, manager, saturated);
+
+        session.sendMessage(message("/topic/room/general"));
+
+        verify(delegate).close(BackpressureSessionDecorator.RESYNC);
+        assertThat(manager.getStats())
+                .containsEntry("senderRejections", 1L)
+                .containsEntry("slowDisconnects", 1L);
+        assertThat(session.getQueuedBytes()).isZero();
+    }
+
+    @Test
+    void closesWithServerErrorWhenAWriteFails() throws Exception {
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(delegate, manager, sender);
+        TextMessage chat = message("/topic/room/general");
+        doThrow(new IOException("broken pipe")).when(delegate).sendMessage(chat);
+
+        session.sendMessage(chat);
+        session.sendMessage(message("/topic/room/general"));
+        drain();
+
+        ArgumentCaptor<CloseStatus> status = ArgumentCaptor.forClass(CloseStatus.class);
+        verify(delegate).close(status.capture());
+        assertThat(status.getValue().getCode()).isEqualTo(CloseStatus.SERVER_ERROR.getCode());
+        verify(delegate, atLeastOnce()).sendMessage(chat);
+        assertThat(session.getQueuedBytes()).isZero();
+    }
+
+    @Test
+    void drainYieldsTheSenderThreadAfterABatch() throws Exception {
+        ReflectionTestUtils.setField(manager, "bufferSizeLimit", 100_000L);
+        BackpressureSessionDecorator session = new BackpressureSessionDecorator(delegate, manager, sender);
+        for (int i = 0; i < BackpressureSessionDecorator.DRAIN_BATCH + 5; i++) {
+            session.sendMessage(message("/topic/room/general"));
+        }
+
+        senderTasks.poll().run();
+        verify(delegate, times(BackpressureSessionDecorator.DRAIN_BATCH)).sendMessage(any());
+        assertThat(senderTasks).hasSize(1);
+
+        drain();
+        verify(delegate, times(BackpressureSessionDecorator.DRAIN_BATCH + 5)).sendMessage(any());
+        assertThat(session.getQueuedBytes()).isZero();
+    }
+
+    @Test
+    void watchdogClosesAStalledWriteWithoutNewTraffic() throws Exception {
+        ReflectionTestUtils.setField(manager, "sendTimeLimitMs", 50L);
+        BackpressureSessionDecorator session = connect(manager, stalled());
+        session.sendMessage(message("/topic/room/general"));
+        Thread writer = new Thread(this::drain);
+        writer.start();
+
+        Thread.sleep(100);
+        manager.closeStalledSessions();
+
+        writer.join(2_000);
+        assertThat(writer.isAlive()).isFalse();
+        assertThat(manager.getStats()).containsEntry("stalledSends", 1L).containsEntry("slowDisconnects", 1L);
+    }
+
+    @Test
+    void stalledSessionsDoNotCostHealthySessionsTheirSender() throws Exception {
+        OutboundBackpressureManager pooled = new OutboundBackpressureManager();
+        ReflectionTestUtils.setField(pooled, "sendTimeLimitMs", 50L);
+        ReflectionTestUtils.setField(pooled, "bufferSizeLimit", 1_000L);
+        ReflectionTestUtils.setField(pooled, "ephemeralDropBytes", 200L);
+        ReflectionTestUtils.setField(pooled, "ephemeralDropSendMs", 1_000L);
+        ReflectionTestUtils.setField(pooled, "overLimitGraceMs", 60_000L);
+        ReflectionTestUtils.setField(pooled, "senderThreads", 2);
+        ReflectionTestUtils.setField(pooled, "senderQueueCapacity", 1);
+        pooled.init();
+        try {
+            // Three clients stop reading: two hold both sender threads, one waits in the pool queue
+            for (int i = 0; i < 3; i++) {
+                connect(pooled, stalled()).sendMessage(message("/topic/room/general"));
+            }
+            long deadline = System.currentTimeMillis() + 2_000;
+            while ((Integer) pooled.getStats().get("senderActive") < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            Thread.sleep(100);
+            pooled.closeStalledSessions();
+            // The freed threads pick up the queued drain; the healthy session gets the other one
+            deadline = System.currentTimeMillis() + 2_000;
+            while ((Integer) pooled.getStats().get("senderQueued") > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            WebSocketSession healthyDelegate = mock(WebSocketSession.class);
+            when(healthyDelegate.getId()).thenReturn("healthy");
+            BackpressureSessionDecorator healthy = connect(pooled, healthyDelegate);
+            TextMessage chat = message("/topic/room/general");
+            healthy.sendMessage(chat);
+
+            verify(healthyDelegate, timeout(2_000)).sendMessage(chat);
+            verify(healthyDelegate, never()).close(any());
+            assertThat(pooled.getStats()).containsEntry("senderRejections", 0L);
+
+            Thread.sleep(100);
+            pooled.closeStalledSessions();
+            assertThat(pooled.getStats()).containsEntry("stalledSends", 3L);
+        } finally {
+            pooled.shutdown();
+        }
+    }
+
+    /**
+     * A session whose writes block until it is closed, like a client that stopped reading
+     */
+    private WebSocketSession stalled() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("stalled-" + System.nanoTime());
+        CountDownLatch closed = new CountDownLatch(1);
+        doAnswer(invocation -> closed.await(5, TimeUnit.SECONDS)).when(session).sendMessage(any());
+        doAnswer(invocation -> {
+            closed.countDown();
+            return null;
+        }).when(session).close(any());
+        return session;
+    }
+
+    private static BackpressureSessionDecorator connect(OutboundBackpressureManager manager, WebSocketSession session) throws Exception {
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        manager.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        return (BackpressureSessionDecorator) decorated.getValue();
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = senderTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static TextMessage message(String destination) {
+        return message(destination, 0);
+    }
+
+    private static TextMessage message(String destination, int bodyLength) {
+        return new TextMessage(frame(destination, bodyLength));
+    }
+
+    private static String frame(String destination, int bodyLength) {
+        return "MESSAGE\ndestination:" + destination + "\nsubscription:0\n\n" + "x".repeat(bodyLength) + "\0";
+    }
+}
@@ -0,0 +1,102 @@
+package com.workspace.app.websocket;
+
+import com.workspace.app.service.CompactPayloadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompactEncodingInterceptorTest {
+
+    private CompactEncodingInterceptor interceptor;
+    private CompactPayloadService compactPayloadService;
+
+    @BeforeEach
+    void setUp() {
+        compactPayloadService = mock(CompactPayloadService.class);
+        when(compactPayloadService.isEnabled()).thenReturn(true);
+        interceptor = new CompactEncodingInterceptor();
+        ReflectionTestUtils.setField(interceptor, "compactPayloadService", compactPayloadService);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"application/cbor", "application/cbor, application/json", "application/json;q=0.5, application/cbor"})
+    void movesNativeCborSubscribersToTheRoomsCborDestination(String accept) {
+        Message<?> message = subscribe(StompCommand.SUBSCRIBE, "/topic/room/general", accept, true);
+
+        assertThat(destinationAfter(message)).isEqualTo("/topic/room/general/cbor");
+    }
+
+    @Test
+    void keepsJsonForSockJsSessions() {
+        Message<?> message = subscribe(StompCommand.SUBSCRIBE, "/topic/room/general", "application/cbor", false);
+
+        assertThat(destinationAfter(message)).isEqualTo("/topic/room/general");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "application/json"})
+    void keepsJsonWithoutTheAcceptHeader(String accept) {
+        Message<?> message = subscribe(StompCommand.SUBSCRIBE, "/topic/room/general", accept.isEmpty() ? null : accept, true);
+
+        assertThat(destinationAfter(message)).isEqualTo("/topic/room/general");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/topic/room/general/typing", "/topic/room/general/presence", "/topic/room/general/cbor", "/user/queue/errors"})
+    void onlyRewritesTheBaseRoomTopic(String destination) {
+        Message<?> message = subscribe(StompCommand.SUBSCRIBE, destination, "application/cbor", true);
+
+        assertThat(destinationAfter(message)).isEqualTo(destination);
+    }
+
+    @Test
+    void keepsJsonWhenCompactEncodingIsDisabled() {
+        when(compactPayloadService.isEnabled()).thenReturn(false);
+        Message<?> message = subscribe(StompCommand.SUBSCRIBE, "/topic/room/general", "application/cbor", true);
+
+        assertThat(destinationAfter(message)).isEqualTo("/topic/room/general");
+    }
+
+    @Test
+    void leavesSendFramesAlone() {
+        Message<?> message = subscribe(StompCommand.SEND, "/topic/room/general", "application/cbor", true);
+
+        assertThat(destinationAfter(message)).isEqualTo("/topic/room/general");
+    }
+
+    private String destinationAfter(Message<?> message) {
+        Message<?> result = interceptor.preSend(message, null);
+        return MessageHeaderAccessor.getAccessor(result, StompHeaderAccessor.class).getDestination();
+    }
+
+    private static Message<byte[]> subscribe(StompCommand command, String destination, String accept, boolean nativeTransport) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-1");
+        if (accept != null) {
+            accessor.setNativeHeader(CompactEncodingInterceptor.ACCEPT_HEADER, accept);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeTransport) {
+            attributes.put(NativeTransportHandshakeInterceptor.NATIVE_TRANSPORT_ATTRIBUTE, true);
+        }
+        accessor.setSessionAttributes(attributes);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
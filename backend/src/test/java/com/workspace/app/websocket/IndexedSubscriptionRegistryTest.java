@@ -0,0 +1,102 @@
+package com.workspace.app.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexedSubscriptionRegistryTest {
+
+    private static final String DESTINATION = "/topic/room/general";
+
+    @Test
+    void findsSubscribersOfADestination() {
+        IndexedSubscriptionRegistry registry = new IndexedSubscriptionRegistry();
+        registry.registerSubscription(subscribe("s1", "sub-1", DESTINATION));
+        registry.registerSubscription(subscribe("s2", "sub-1", DESTINATION));
+        registry.registerSubscription(subscribe("s2", "sub-2", "/topic/room/design"));
+
+        assertThat(registry.findSubscriptions(message(DESTINATION)).keySet()).containsExactlyInAnyOrder("s1", "s2");
+
+        registry.unregisterSubscription(unsubscribe("s1", "sub-1"));
+        registry.unregisterAllSubscriptions("s2");
+        assertThat(registry.findSubscriptions(message(DESTINATION))).isEmpty();
+        assertThat(registry.getStats()).containsEntry("destinations", 0).containsEntry("subscriptions", 0);
+    }
+
+    @Test
+    void keepsSubscriptionsAddedWhileOtherSessionsUnsubscribeTheSameDestination() throws Exception {
+        int sessions = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(sessions);
+        try {
+            for (int round = 0; round < 500; round++) {
+                IndexedSubscriptionRegistry registry = new IndexedSubscriptionRegistry();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> running = new ArrayList<>();
+                for (int i = 0; i < sessions; i++) {
+                    String sessionId = "s" + i;
+                    // Even sessions churn and end unsubscribed, odd ones end subscribed
+                    boolean stays = i % 2 == 1;
+                    running.add(pool.submit(() -> {
+                        await(start);
+                        for (int j = 0; j < 20; j++) {
+                            registry.registerSubscription(subscribe(sessionId, "sub-" + j, DESTINATION));
+                            if (!stays || j < 19) {
+                                registry.unregisterSubscription(unsubscribe(sessionId, "sub-" + j));
+                            }
+                        }
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : running) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+
+                assertThat(registry.findSubscriptions(message(DESTINATION)).keySet())
+                        .containsExactlyInAnyOrder("s1", "s3", "s5", "s7");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
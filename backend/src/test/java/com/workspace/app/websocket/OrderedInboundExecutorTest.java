@@ -0,0 +1,249 @@
+package com.workspace.app.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderedInboundExecutorTest {
+
+    private OrderedInboundExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new OrderedInboundExecutor(8, 3);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void runsEachRoomsSendsInArrivalOrder() throws Exception {
+        OrderedInboundExecutor roomy = new OrderedInboundExecutor(8, 10_000);
+        roomy.initialize();
+        try {
+            Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+            AtomicInteger concurrent = new AtomicInteger();
+            List<Frame> frames = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String roomId = "room-" + (i % 4);
+                int sequence = i / 4;
+                // Senders differ per frame, so only the room key keeps them in order
+                frames.add(new Frame(send("s" + i, "/app/chat.sendMessage", "{\"roomId\":\"" + roomId + "\"}"), () -> {
+                    assertThat(concurrent.incrementAndGet()).isLessThanOrEqualTo(4);
+                    handled.computeIfAbsent(roomId, key -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                    concurrent.decrementAndGet();
+                }));
+            }
+            frames.forEach(roomy::execute);
+            for (Frame frame : frames) {
+                assertThat(frame.done.await(5, TimeUnit.SECONDS)).isTrue();
+            }
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                expected.add(i);
+            }
+            assertThat(handled).hasSize(4);
+            handled.values().forEach(sequences -> assertThat(sequences).isEqualTo(expected));
+        } finally {
+            roomy.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsOnceARoomsQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Frame blocker = new Frame(send("s0", "/app/chat.sendMessage", "{\"roomId\":\"general\"}"), () -> await(release));
+        executor.execute(blocker);
+        // The blocker may still be queued or already running; fill the room up to its limit either way
+        List<Frame> queued = new ArrayList<>();
+        while (true) {
+            Frame frame = new Frame(send("s1", "/app/chat.sendMessage", "{\"roomId\":\"general\"}"));
+            try {
+                executor.execute(frame);
+                queued.add(frame);
+            } catch (RejectedExecutionException e) {
+                assertThat(e.getMessage()).isEqualTo("Inbound queue for room:general is full");
+                break;
+            }
+            assertThat(queued.size()).isLessThanOrEqualTo(3);
+        }
+
+        // Other rooms are unaffected
+        Frame other = new Frame(send("s2", "/app/chat.sendMessage", "{\"roomId\":\"design\"}"));
+        executor.execute(other);
+        assertThat(other.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getStats()).containsEntry("rejected", 1L);
+
+        release.countDown();
+        for (Frame frame : queued) {
+            assertThat(frame.done.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void sendWaitsForItsSessionsPendingFrames() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(new Frame(frame(SimpMessageType.CONNECT, "s1", null), () -> {
+            await(release);
+            handled.add("CONNECT");
+        }));
+        executor.execute(new Frame(frame(SimpMessageType.SUBSCRIBE, "s1", "/topic/room/general"),
+                () -> handled.add("SUBSCRIBE")));
+        Frame send = new Frame(send("s1", "/app/chat.sendMessage", "{\"roomId\":\"general\"}"), () -> handled.add("SEND"));
+        executor.execute(send);
+
+        release.countDown();
+        assertThat(send.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly("CONNECT", "SUBSCRIBE", "SEND");
+    }
+
+    @Test
+    void heartbeatBehindABusyRoomDoesNotLetALaterSendOvertake() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Another session keeps the room busy so s1's first SEND has to wait
+        executor.execute(new Frame(send("s0", "/app/chat.sendMessage", "{\"roomId\":\"general\"}"), () -> {
+            await(release);
+            handled.add("busy");
+        }));
+        executor.execute(new Frame(send("s1", "/app/chat.sendMessage", "{\"roomId\":\"general\"}"),
+                () -> handled.add("SEND1")));
+        Frame heartbeat = new Frame(frame(SimpMessageType.HEARTBEAT, "s1", null), () -> handled.add("HEARTBEAT"));
+        executor.execute(heartbeat);
+        Frame second = new Frame(send("s1", "/app/chat.sendMessage", "{\"roomId\":\"general\"}"),
+                () -> handled.add("SEND2"));
+        executor.execute(second);
+
+        // Nothing of s1's may run while the room is blocked
+        Thread.sleep(100);
+        assertThat(handled).isEmpty();
+
+        release.countDown();
+        assertThat(second.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(heartbeat.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly("busy", "SEND1", "HEARTBEAT", "SEND2");
+    }
+
+    @Test
+    void sessionFramesWaitForTheSessionsSendsInOtherRooms() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(new Frame(send("s1", "/app/chat.sendMessage", "{\"roomId\":\"general\"}"), () -> {
+            await(release);
+            handled.add("SEND");
+        }));
+        Frame unsubscribe = new Frame(frame(SimpMessageType.UNSUBSCRIBE, "s1", "/topic/room/general"),
+                () -> handled.add("UNSUBSCRIBE"));
+        executor.execute(unsubscribe);
+        // A different session is not held up by s1's pending frames
+        Frame other = new Frame(frame(SimpMessageType.SUBSCRIBE, "s2", "/topic/room/general"),
+                () -> handled.add("other"));
+        executor.execute(other);
+        assertThat(other.done.await(5, TimeUnit.SECONDS)).isTrue();
+
+        release.countDown();
+        assertThat(unsubscribe.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly("other", "SEND", "UNSUBSCRIBE");
+        assertThat(executor.getStats()).containsEntry("queued", 0);
+    }
+
+    @Test
+    void keysSendsByDestinationBeforePayload() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Same room by path, different room in the body: the path wins
+        executor.execute(new Frame(send("s1", "/app/chat.joinRoom/general", "{\"roomId\":\"other\"}"), () -> {
+            await(release);
+            handled.add("join");
+        }));
+        Frame typing = new Frame(send("s2", "/topic/room/general/typing", "{}"), () -> handled.add("typing"));
+        executor.execute(typing);
+
+        release.countDown();
+        assertThat(typing.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly("join", "typing");
+        assertThat((Integer) executor.getStats().get("activeKeys")).isLessThanOrEqualTo(1);
+    }
+
+    private static Message<byte[]> send(String sessionId, String destination, String body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Frame implements MessageHandlingRunnable {
+        private final Message<?> message;
+        private final Runnable action;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        Frame(Message<?> message) {
+            this(message, () -> { });
+        }
+
+        Frame(Message<?> message, Runnable action) {
+            this.message = message;
+            this.action = action;
+        }
+
+        @Override
+        public Message<?> getMessage() {
+            return message;
+        }
+
+        @Override
+        public MessageHandler getMessageHandler() {
+            return received -> { };
+        }
+
+        @Override
+        public void run() {
+            action.run();
+            done.countDown();
+        }
+    }
+}
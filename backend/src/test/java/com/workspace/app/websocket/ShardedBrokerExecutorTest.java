@@ -0,0 +1,140 @@
+package com.workspace.app.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedBrokerExecutorTest {
+
+    private ShardedBrokerExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ShardedBrokerExecutor(4);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void runsEverySessionFrameOnTheSessionsShard() throws Exception {
+        List<Frame> frames = new ArrayList<>();
+        frames.add(new Frame(frame(SimpMessageType.CONNECT, "s1", null)));
+        for (int i = 0; i < 16; i++) {
+            frames.add(new Frame(frame(SimpMessageType.SUBSCRIBE, "s1", "/topic/room/room-" + i)));
+        }
+        frames.add(new Frame(frame(SimpMessageType.UNSUBSCRIBE, "s1", null)));
+        frames.add(new Frame(frame(SimpMessageType.DISCONNECT, "s1", null)));
+
+        runAll(frames);
+
+        Set<String> threads = new HashSet<>();
+        frames.forEach(frame -> threads.add(frame.thread));
+        assertThat(threads).hasSize(1);
+    }
+
+    @Test
+    void disconnectWaitsForASubscribeQueuedBeforeIt() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Hold the session's shard so the SUBSCRIBE is still queued when the DISCONNECT arrives
+        executor.execute(new Frame(frame(SimpMessageType.CONNECT, "s1", null), () -> await(release)));
+        executor.execute(new Frame(frame(SimpMessageType.SUBSCRIBE, "s1", "/topic/room/general"),
+                () -> handled.add("SUBSCRIBE")));
+        Frame disconnect = new Frame(frame(SimpMessageType.DISCONNECT, "s1", null), () -> handled.add("DISCONNECT"));
+        executor.execute(disconnect);
+
+        release.countDown();
+        assertThat(disconnect.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly("SUBSCRIBE", "DISCONNECT");
+    }
+
+    @Test
+    void keepsARoomsMessagesOnOneShard() throws Exception {
+        List<Frame> frames = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            frames.add(new Frame(frame(SimpMessageType.MESSAGE, null, "/topic/room/general" + (i % 2 == 0 ? "" : "/typing"))));
+        }
+
+        runAll(frames);
+
+        Set<String> threads = new HashSet<>();
+        frames.forEach(frame -> threads.add(frame.thread));
+        assertThat(threads).hasSize(1);
+    }
+
+    private void runAll(List<Frame> frames) throws InterruptedException {
+        frames.forEach(executor::execute);
+        for (Frame frame : frames) {
+            assertThat(frame.done.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Frame implements MessageHandlingRunnable {
+        private final Message<?> message;
+        private final Runnable action;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile String thread;
+
+        Frame(Message<?> message) {
+            this(message, () -> { });
+        }
+
+        Frame(Message<?> message, Runnable action) {
+            this.message = message;
+            this.action = action;
+        }
+
+        @Override
+        public Message<?> getMessage() {
+            return message;
+        }
+
+        @Override
+        public MessageHandler getMessageHandler() {
+            return received -> { };
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread().getName();
+            action.run();
+            done.countDown();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 'use client';
 
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { useRouter } from 'next/navigation';
 import { 
   Search, 
@@ -14,70 +14,91 @@ import {
 } from 'lucide-react';
 import DashboardLayout from '@/components/layout/DashboardLayout';
 import { roomAPI } from '@/lib/api';
-import { Room } from '@/types';
+import { RoomSlice, RoomSummary } from '@/types';
 import { useAuth } from '@/contexts/AuthContext';
 
 export default function BrowseRoomsPage() {
   const { user } = useAuth();
   const router = useRouter();
-  const [rooms, setRooms] = useState<Room[]>([]);
-  const [filteredRooms, setFilteredRooms] = useState<Room[]>([]);
+  const [rooms, setRooms] = useState<RoomSummary[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | undefined>(undefined);
   const [isLoading, setIsLoading] = useState(true);
+  const [hasLoaded, setHasLoaded] = useState(false);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
   const [error, setError] = useState<string | null>(null);
   const [searchTerm, setSearchTerm] = useState('');
+  const [query, setQuery] = useState('');
   const [filterType, setFilterType] = useState<'all' | 'public' | 'private'>('all');
   const [joiningRooms, setJoiningRooms] = useState<Set<string>>(new Set());
+  // Only the latest request may replace the list
+  const requestId = useRef(0);
 
+  // Wait for typing to pause before searching on the server
   useEffect(() => {
-    fetchPublicRooms();
-  }, []);
+    const timer = setTimeout(() => setQuery(searchTerm.trim()), 300);
+    return () => clearTimeout(timer);
+  }, [searchTerm]);
 
   useEffect(() => {
-    filterRooms();
-  }, [rooms, searchTerm, filterType]);
+    fetchPublicRooms();
+  }, [query, filterType]);
+
+  // Search, visibility and paging are all done by the server
+  const fetchSlice = (cursor?: string): Promise<RoomSlice> => {
+    const visibility = filterType === 'all' ? undefined : filterType;
+    if (query) {
+      return roomAPI.searchRooms(query, { visibility, cursor });
+    }
+    if (visibility === 'public') {
+      return roomAPI.getPublicRooms({ cursor });
+    }
+    return roomAPI.getAllRooms({ visibility, cursor });
+  };
 
   const fetchPublicRooms = async () => {
+    const request = ++requestId.current;
     setIsLoading(true);
     setError(null);
     try {
-      // For now, we'll get all rooms and filter on the frontend
-      // In a real app, you'd have a dedicated endpoint for public rooms
-      const allRooms = await roomAPI.getAllRooms();
-      setRooms(allRooms);
+      // First slice of room summaries; more are fetched on demand
+      const slice = await fetchSlice();
+      if (request !== requestId.current) return;
+      setRooms(slice.rooms);
+      setNextCursor(slice.hasMore ? slice.nextCursor : undefined);
     } catch (err: unknown) {
+      if (request !== requestId.current) return;
       console.error('Failed to fetch rooms:', err);
       setError(err instanceof Error ? err.message : 'Failed to load rooms.');
     } finally {
-      setIsLoading(false);
+      if (request === requestId.current) {
+        setIsLoading(false);
+        setHasLoaded(true);
+      }
     }
   };
 
-  const filterRooms = () => {
-    let filtered = rooms;
-
-    // Filter by search term
-    if (searchTerm) {
-      filtered = filtered.filter(room =>
-        room.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
-        room.description?.toLowerCase().includes(searchTerm.toLowerCase())
-      );
-    }
-
-    // Filter by type
-    if (filterType === 'public') {
-      filtered = filtered.filter(room => !room.private);
-    } else if (filterType === 'private') {
-      filtered = filtered.filter(room => room.private);
-    }
-
-    // Remove rooms the user is already a member of
-    if (user) {
-      filtered = filtered.filter(room => !room.members.includes(user.id));
+  const fetchMoreRooms = async () => {
+    if (!nextCursor) return;
+    const request = requestId.current;
+    setIsLoadingMore(true);
+    try {
+      const slice = await fetchSlice(nextCursor);
+      if (request !== requestId.current) return;
+      setRooms(prev => [...prev, ...slice.rooms]);
+      setNextCursor(slice.hasMore ? slice.nextCursor : undefined);
+    } catch (err: unknown) {
+      console.error('Failed to fetch more rooms:', err);
+      setError(err instanceof Error ? err.message : 'Failed to load rooms.');
+    } finally {
+      setIsLoadingMore(false);
     }
-
-    setFilteredRooms(filtered);
   };
 
+  // Hide rooms the user is already a member of
+  const filteredRooms = user
+    ? rooms.filter(room => !user.joinedRooms?.includes(room.id))
+    : rooms;
+
   const handleJoinRoom = async (roomId: string) => {
     if (!user || joiningRooms.has(roomId)) return;
 
@@ -100,7 +121,8 @@ export default function BrowseRoomsPage() {
     }
   };
 
-  if (isLoading) {
+  // Skeleton only for the first load, so the search box keeps focus afterwards
+  if (isLoading && !hasLoaded) {
     return (
       <DashboardLayout>
         <div className="animate-pulse space-y-6">
@@ -145,7 +167,7 @@ export default function BrowseRoomsPage() {
                 <Search className="absolute left-3 top-1/2 transform -translate-y-1/2 h-5 w-5 text-gray-400" />
                 <input
                   type="text"
-                  placeholder="Search rooms by name or description..."
+                  placeholder="Search rooms by name..."
                   value={searchTerm}
                   onChange={(e) => setSearchTerm(e.target.value)}
                   className="w-full pl-10 pr-4 py-3 border border-gray-300 rounded-lg focus:outline-none focus:ring-2 focus:ring-blue-500 focus:border-transparent text-gray-900 bg-white placeholder-gray-500 text-sm sm:text-base"
@@ -172,8 +194,14 @@ export default function BrowseRoomsPage() {
         {/* Results Summary */}
         <div className="mb-6">
           <p className="text-gray-600 text-sm sm:text-base">
-            Found {filteredRooms.length} room{filteredRooms.length !== 1 ? 's' : ''} 
-            {searchTerm && ` matching "${searchTerm}"`}
+            {isLoading
+              ? 'Searching...'
+              : <>
+                  Showing {filteredRooms.length} room{filteredRooms.length !== 1 ? 's' : ''}
+                  {query && ` matching "${query}"`}
+                  {nextCursor && ' (more available)'}
+                </>
+            }
           </p>
         </div>
 
@@ -183,8 +211,8 @@ export default function BrowseRoomsPage() {
             <MessageSquare className="h-16 w-16 text-gray-300 mx-auto mb-6" />
             <h3 className="text-lg font-medium text-gray-900 mb-2">No rooms found</h3>
             <p className="text-gray-600 mb-4 text-sm sm:text-base">
-              {searchTerm 
-                ? `No rooms match your search for "${searchTerm}"`
+              {query
+                ? `No rooms match your search for "${query}"`
                 : "There are no rooms available to join at the moment"
               }
             </p>
@@ -235,7 +263,7 @@ export default function BrowseRoomsPage() {
                 <div className="flex items-center justify-between text-sm text-gray-500 mb-4">
                   <div className="flex items-center">
                     <Users className="h-4 w-4 mr-1 flex-shrink-0" />
-                    <span className="truncate">{room.members.length}/{room.maxMembers || '∞'} members</span>
+                    <span className="truncate">{room.memberCount}/{room.maxMembers || '∞'} members</span>
                   </div>
                   <div className="flex items-center ml-2">
                     <MessageSquare className="h-4 w-4 mr-1 flex-shrink-0" />
@@ -266,6 +294,26 @@ export default function BrowseRoomsPage() {
             ))}
           </div>
         )}
+
+        {/* Load More */}
+        {nextCursor && (
+          <div className="flex justify-center">
+            <button
+              onClick={fetchMoreRooms}
+              disabled={isLoadingMore}
+              className="flex items-center px-4 py-2 text-sm font-medium text-blue-600 bg-white border border-gray-200 rounded-lg hover:bg-blue-50 disabled:opacity-50 disabled:cursor-not-allowed transition-colors"
+            >
+              {isLoadingMore ? (
+                <>
+                  <Loader2 className="h-4 w-4 mr-2 animate-spin" />
+                  Loading...
+                </>
+              ) : (
+                'Load more rooms'
+              )}
+            </button>
+          </div>
+        )}
       </div>
     </DashboardLayout>
   );
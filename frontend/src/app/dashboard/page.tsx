@@ -16,7 +16,7 @@ import {
 import DashboardLayout from '@/components/layout/DashboardLayout';
 import { useAuth } from '@/contexts/AuthContext';
 import { roomAPI, messageAPI } from '@/lib/api';
-import { Room, Message } from '@/types';
+import { RoomSummary, Message } from '@/types';
 import { formatUserDisplayName } from '@/utils/auth';
 
 interface DashboardStats {
@@ -35,7 +35,7 @@ export default function DashboardPage() {
     totalMessages: 0,
     recentActivity: 'No recent activity',
   });
-  const [recentRooms, setRecentRooms] = useState<Room[]>([]);
+  const [recentRooms, setRecentRooms] = useState<RoomSummary[]>([]);
   const [recentMessages, setRecentMessages] = useState<Message[]>([]);
   const [isLoading, setIsLoading] = useState(true);
 
@@ -62,10 +62,10 @@ export default function DashboardPage() {
       
       setIsLoading(true);
       
-      // Load user's rooms
+      // Load all of the user's rooms; the totals below count every slice
       const [myRooms, adminRooms] = await Promise.all([
-        roomAPI.getMyRooms(),
-        roomAPI.getAdminRooms(),
+        roomAPI.getAllMyRooms(),
+        roomAPI.getAllAdminRooms(),
       ]);
 
       // Calculate stats
@@ -272,7 +272,7 @@ export default function DashboardPage() {
                           <h3 className="font-medium text-gray-900 truncate">{room.name}</h3>
                           <div className="mt-1 flex items-center gap-2 flex-wrap">
                             <span className="inline-flex items-center text-xs text-gray-600 bg-gray-100 px-2 py-0.5 rounded">
-                              {room.members.length} members
+                              {room.memberCount} members
                             </span>
                             <span className={`inline-flex items-center text-xs ${room.private ? 'text-orange-700 bg-orange-100' : 'text-green-700 bg-green-100'} px-2 py-0.5 rounded`}>
                               {room.private ? 'Private' : 'Public'}
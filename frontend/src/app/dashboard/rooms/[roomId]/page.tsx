@@ -206,7 +206,7 @@ export default function RoomDetailPage() {
               )}
               <div className="mt-3 flex items-center justify-between flex-wrap gap-2">
                 <div className="flex items-center text-sm text-gray-500 flex-wrap gap-2">
-                  <span>{room.members?.length || 0} members</span>
+                  <span>{room.memberCount || 0} members</span>
                   {room.private && (
                     <span className="px-2 py-1 bg-orange-100 text-orange-700 rounded-full text-xs">
                       Private
@@ -19,10 +19,10 @@ import {
 } from 'lucide-react';
 import DashboardLayout from '@/components/layout/DashboardLayout';
 import { roomAPI } from '@/lib/api';
-import { Room } from '@/types';
+import { RoomSummary } from '@/types';
 
 export default function MyRoomsPage() {
-  const [rooms, setRooms] = useState<Room[]>([]);
+  const [rooms, setRooms] = useState<RoomSummary[]>([]);
   const [isLoading, setIsLoading] = useState<boolean>(true);
   const [error, setError] = useState<string | undefined>(undefined);
   const [searchTerm, setSearchTerm] = useState('');
@@ -32,7 +32,7 @@ export default function MyRoomsPage() {
     const loadRooms = async () => {
       try {
         setIsLoading(true);
-        const myRooms = await roomAPI.getMyRooms();
+        const myRooms = await roomAPI.getAllMyRooms();
         setRooms(myRooms);
       } catch (err: unknown) {
         setError(err instanceof Error ? err.message : 'Failed to load rooms');
@@ -43,30 +43,30 @@ export default function MyRoomsPage() {
     loadRooms();
   }, []);
 
+  const getRoomStatus = (room: RoomSummary) => {
+    if (room.videoActive) return 'live';
+    if (room.lastMessageAt) {
+      const lastMessageTime = new Date(room.lastMessageAt);
+      const now = new Date();
+      const diffHours = (now.getTime() - lastMessageTime.getTime()) / (1000 * 60 * 60);
+      if (diffHours < 1) return 'active';
+      if (diffHours < 24) return 'recent';
+    }
+    return 'quiet';
+  };
+
   const filteredRooms = rooms.filter(room => {
     const matchesSearch = room.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
                          (room.description && room.description.toLowerCase().includes(searchTerm.toLowerCase()));
     
     if (filterType === 'active') {
-      return matchesSearch && room.active;
+      return matchesSearch && (getRoomStatus(room) === 'active' || getRoomStatus(room) === 'live');
     } else if (filterType === 'recent') {
       return matchesSearch && room.lastMessageAt;
     }
     return matchesSearch;
   });
 
-  const getRoomStatus = (room: Room) => {
-    if (room.video?.active) return 'live';
-    if (room.lastMessageAt) {
-      const lastMessageTime = new Date(room.lastMessageAt);
-      const now = new Date();
-      const diffHours = (now.getTime() - lastMessageTime.getTime()) / (1000 * 60 * 60);
-      if (diffHours < 1) return 'active';
-      if (diffHours < 24) return 'recent';
-    }
-    return 'quiet';
-  };
-
   const getStatusColor = (status: string) => {
     switch (status) {
       case 'live': return 'bg-red-500';
@@ -193,7 +193,7 @@ export default function MyRoomsPage() {
               <div>
                 <p className="text-gray-600 text-sm font-medium">Live Calls</p>
                 <p className="text-3xl font-bold text-gray-900">
-                  {rooms.filter(r => r.video?.active).length}
+                  {rooms.filter(r => r.videoActive).length}
                 </p>
               </div>
               <div className="p-3 bg-red-100 rounded-xl">
@@ -283,7 +283,7 @@ export default function MyRoomsPage() {
                       <div className="flex items-center gap-4">
                         <div className="flex items-center gap-1 text-gray-600">
                           <Users className="h-4 w-4" />
-                          <span className="text-sm font-medium">{room.members?.length ?? 0}</span>
+                          <span className="text-sm font-medium">{room.memberCount ?? 0}</span>
                         </div>
                         {room.videoCallEnabled && (
                           <div className="flex items-center gap-1 text-gray-600">
@@ -6,11 +6,11 @@ import DashboardLayout from '@/components/layout/DashboardLayout';
 import Link from 'next/link';
 import { useAuth } from '@/contexts/AuthContext';
 import { roomAPI } from '@/lib/api';
-import { Room } from '@/types';
+import { RoomSummary } from '@/types';
 
 export default function VideoCallsPage() {
   const { user } = useAuth();
-  const [rooms, setRooms] = useState<Room[]>([]);
+  const [rooms, setRooms] = useState<RoomSummary[]>([]);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
@@ -19,7 +19,7 @@ export default function VideoCallsPage() {
 
   const loadRooms = async () => {
     try {
-      const userRooms = await roomAPI.getMyRooms();
+      const userRooms = await roomAPI.getAllMyRooms();
       setRooms(userRooms);
     } catch (error) {
       console.error('Failed to load rooms:', error);
@@ -28,8 +28,8 @@ export default function VideoCallsPage() {
     }
   };
 
-  const activeVideoCalls = rooms.filter(room => room.video?.active);
-  const videoEnabledRooms = rooms.filter(room => room.video || true); // All rooms can have video
+  const activeVideoCalls = rooms.filter(room => room.videoActive);
+  const videoEnabledRooms = rooms; // All rooms can have video
 
   return (
     <DashboardLayout>
@@ -160,17 +160,17 @@ export default function VideoCallsPage() {
                   <div key={room.id} className="flex items-center justify-between p-4 border border-gray-200 rounded-lg hover:border-gray-300 transition-colors">
                     <div className="flex items-center">
                       <div className={`w-10 h-10 rounded-lg flex items-center justify-center ${
-                        room.video?.active ? 'bg-green-100' : 'bg-gray-100'
+                        room.videoActive ? 'bg-green-100' : 'bg-gray-100'
                       }`}>
                         <Video className={`h-5 w-5 ${
-                          room.video?.active ? 'text-green-600' : 'text-gray-400'
+                          room.videoActive ? 'text-green-600' : 'text-gray-400'
                         }`} />
                       </div>
                       <div className="ml-4">
                         <h3 className="font-medium text-gray-900">{room.name}</h3>
                         <p className="text-sm text-gray-500">
                           {room.memberCount} members • 
-                          {room.video?.active ? (
+                          {room.videoActive ? (
                             <span className="text-green-600"> Video call active</span>
                           ) : (
                             <span> Video available</span>
@@ -185,7 +185,7 @@ export default function VideoCallsPage() {
                       >
                         View Room
                       </Link>
-                      {room.video?.active ? (
+                      {room.videoActive ? (
                         <Link
                           href={`/dashboard/rooms/${room.id}/call`}
                           className="bg-green-600 text-white px-4 py-2 rounded-lg hover:bg-green-700 transition-colors text-sm"
@@ -6,10 +6,14 @@ import {
   RegisterRequest, 
   User, 
   Room, 
+  RoomMember, 
+  RoomSummary, 
+  RoomSlice, 
+  RoomListParams, 
   CreateRoomRequest, 
   Message, 
   MessageRequest,
-  PaginationInfo
+  PageResponse
 } from '@/types';
 
 // API Base URL
@@ -194,6 +198,23 @@ export const userAPI = {
   },
 };
 
+// Largest slice the room list endpoints return
+const ROOM_SLICE_LIMIT = 100;
+
+// Follow nextCursor until the list is exhausted
+const fetchAllRooms = async (path: string, params: RoomListParams = {}): Promise<RoomSummary[]> => {
+  const rooms: RoomSummary[] = [];
+  let cursor: string | undefined = undefined;
+  do {
+    const response: AxiosResponse<ApiResponse<RoomSlice>> =
+      await apiClient.get(path, { params: { limit: ROOM_SLICE_LIMIT, ...params, cursor } });
+    const slice = response.data.data!;
+    rooms.push(...slice.rooms);
+    cursor = slice.hasMore ? slice.nextCursor : undefined;
+  } while (cursor);
+  return rooms;
+};
+
 // Room API
 export const roomAPI = {
   createRoom: async (data: CreateRoomRequest): Promise<Room> => {
@@ -201,26 +222,36 @@ export const roomAPI = {
     return response.data.data!;
   },
 
-  getAllRooms: async (): Promise<Room[]> => {
-    const response: AxiosResponse<ApiResponse<Room[]>> = await apiClient.get('/rooms');
+  getAllRooms: async (params: RoomListParams = {}): Promise<RoomSlice> => {
+    const response: AxiosResponse<ApiResponse<RoomSlice>> = await apiClient.get('/rooms', { params });
     return response.data.data!;
   },
 
-  getPublicRooms: async (): Promise<Room[]> => {
-    const response: AxiosResponse<ApiResponse<Room[]>> = await apiClient.get('/rooms/public');
+  getPublicRooms: async (params: RoomListParams = {}): Promise<RoomSlice> => {
+    const response: AxiosResponse<ApiResponse<RoomSlice>> = await apiClient.get('/rooms/public', { params });
     return response.data.data!;
   },
 
-  getMyRooms: async (): Promise<Room[]> => {
-    const response: AxiosResponse<ApiResponse<Room[]>> = await apiClient.get('/rooms/my');
+  getMyRooms: async (params: RoomListParams = {}): Promise<RoomSlice> => {
+    const response: AxiosResponse<ApiResponse<RoomSlice>> = await apiClient.get('/rooms/my', { params });
     return response.data.data!;
   },
 
-  getAdminRooms: async (): Promise<Room[]> => {
-    const response: AxiosResponse<ApiResponse<Room[]>> = await apiClient.get('/rooms/admin');
+  getAdminRooms: async (params: RoomListParams = {}): Promise<RoomSlice> => {
+    const response: AxiosResponse<ApiResponse<RoomSlice>> = await apiClient.get('/rooms/admin', { params });
     return response.data.data!;
   },
 
+  // Every room the user belongs to, across all slices
+  getAllMyRooms: async (params: RoomListParams = {}): Promise<RoomSummary[]> => {
+    return fetchAllRooms('/rooms/my', params);
+  },
+
+  // Every room the user administers, across all slices
+  getAllAdminRooms: async (params: RoomListParams = {}): Promise<RoomSummary[]> => {
+    return fetchAllRooms('/rooms/admin', params);
+  },
+
   getRoomById: async (roomId: string): Promise<Room> => {
     const response: AxiosResponse<ApiResponse<Room>> = await apiClient.get(`/rooms/${roomId}`);
     return response.data.data!;
@@ -252,18 +283,20 @@ export const roomAPI = {
     return response.data.data!;
   },
 
-  searchRooms: async (name: string): Promise<Room[]> => {
-    const response: AxiosResponse<ApiResponse<Room[]>> = await apiClient.get(`/rooms/search?name=${name}`);
+  searchRooms: async (name: string, params: RoomListParams = {}): Promise<RoomSlice> => {
+    const response: AxiosResponse<ApiResponse<RoomSlice>> = await apiClient.get('/rooms/search', { params: { name, ...params } });
     return response.data.data!;
   },
 
-  getPopularRooms: async (): Promise<Room[]> => {
-    const response: AxiosResponse<ApiResponse<Room[]>> = await apiClient.get('/rooms/popular');
+  // Public rooms, most members first
+  getPopularRooms: async (params: Pick<RoomListParams, 'cursor' | 'limit'> = {}): Promise<RoomSlice> => {
+    const response: AxiosResponse<ApiResponse<RoomSlice>> = await apiClient.get('/rooms/popular', { params });
     return response.data.data!;
   },
 
-  getRoomMembers: async (roomId: string): Promise<string[]> => {
-    const response: AxiosResponse<ApiResponse<string[]>> = await apiClient.get(`/rooms/${roomId}/members`);
+  getRoomMembers: async (roomId: string, page: number = 0, size: number = 50): Promise<PageResponse<RoomMember>> => {
+    const response: AxiosResponse<ApiResponse<PageResponse<RoomMember>>> = 
+      await apiClient.get(`/rooms/${roomId}/members?page=${page}&size=${size}`);
     return response.data.data!;
   },
 
@@ -285,8 +318,8 @@ export const messageAPI = {
     return response.data.data!;
   },
 
-  getRoomMessages: async (roomId: string, page: number = 0, size: number = 20): Promise<{content: Message[], page: PaginationInfo}> => {
-    const response: AxiosResponse<ApiResponse<{content: Message[], page: PaginationInfo}>> = 
+  getRoomMessages: async (roomId: string, page: number = 0, size: number = 20): Promise<PageResponse<Message>> => {
+    const response: AxiosResponse<ApiResponse<PageResponse<Message>>> = 
       await apiClient.get(`/messages/room/${roomId}?page=${page}&size=${size}`);
     return response.data.data!;
   },
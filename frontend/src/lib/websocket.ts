@@ -1,6 +1,6 @@
 import { Client, IMessage, StompSubscription } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
-import { Message, MessageRequest, TypingData, VideoCallData } from '@/types';
+import { Message, MessageRequest, TypingData, TypingRequest, TypingUser, VideoCallData } from '@/types';
 
 // WebSocket connection URL
 const WS_URL = process.env.NEXT_PUBLIC_WS_URL || 'http://localhost:8080/ws';
@@ -11,12 +11,15 @@ export class WebSocketService {
   private token: string | null = null;
   private isConnected: boolean = false;
 
+  // roomId -> (node -> users typing on that node), merged before reaching onTyping
+  private typingByRoom: Map<string, Map<string, TypingUser[]>> = new Map();
+
   // Event callbacks
   private onConnectCallback?: () => void;
   private onDisconnectCallback?: () => void;
   private onErrorCallback?: (error: unknown) => void;
   private onMessageCallback?: (message: Message) => void;
-  private onTypingCallback?: (typingData: Record<string, unknown>) => void;
+  private onTypingCallback?: (roomId: string, typing: TypingUser[]) => void;
   private onEditMessageCallback?: (message: Message) => void;
   private onDeleteMessageCallback?: (message: Message) => void;
   private onVideoCallCallback?: (videoData: Record<string, unknown>) => void;
@@ -64,6 +67,7 @@ export class WebSocketService {
   disconnect(): void {
     if (this.client) {
       this.subscriptions.clear();
+      this.typingByRoom.clear();
       this.client.deactivate();
       this.client = null;
       this.isConnected = false;
@@ -97,8 +101,10 @@ export class WebSocketService {
       `/topic/room/${roomId}`,
       (message: IMessage) => {
         try {
-          const parsedMessage: Message = JSON.parse(message.body);
-          this.onMessageCallback?.(parsedMessage);
+          // Busy rooms may deliver several messages in one array frame
+          const parsed: Message | Message[] = JSON.parse(message.body);
+          const messages = Array.isArray(parsed) ? parsed : [parsed];
+          messages.forEach((parsedMessage) => this.onMessageCallback?.(parsedMessage));
         } catch (error) {
           console.error('Error parsing message:', error);
         }
@@ -115,8 +121,8 @@ export class WebSocketService {
       `/topic/room/${roomId}/typing`,
       (message: IMessage) => {
         try {
-          const typingData = JSON.parse(message.body);
-          this.onTypingCallback?.(typingData);
+          const typingData: TypingData = JSON.parse(message.body);
+          this.onTypingCallback?.(roomId, this.mergeTyping(typingData));
         } catch (error) {
           console.error('Error parsing typing data:', error);
         }
@@ -206,10 +212,25 @@ export class WebSocketService {
       }
     });
 
+    this.typingByRoom.delete(roomId);
+
     // Leave the room
     this.leaveRoom(roomId);
   }
 
+  /**
+   * Replace one node's typers for a room and return everyone typing in it
+   */
+  private mergeTyping(typingData: TypingData): TypingUser[] {
+    const nodes = this.typingByRoom.get(typingData.roomId) ?? new Map<string, TypingUser[]>();
+    nodes.set(typingData.node, typingData.typing);
+    this.typingByRoom.set(typingData.roomId, nodes);
+
+    const typers = new Map<string, TypingUser>();
+    nodes.forEach((users) => users.forEach((user) => typers.set(user.userId, user)));
+    return Array.from(typers.values());
+  }
+
   /**
    * Send a message
    */
@@ -267,7 +288,7 @@ export class WebSocketService {
   /**
    * Send typing indicator
    */
-  sendTyping(typingData: TypingData): void {
+  sendTyping(typingData: TypingRequest): void {
     if (!this.client || !this.isConnected) {
       console.error('WebSocket not connected');
       return;
@@ -371,7 +392,7 @@ export class WebSocketService {
     this.onMessageCallback = callback;
   }
 
-  onTyping(callback: (typingData: Record<string, unknown>) => void): void {
+  onTyping(callback: (roomId: string, typing: TypingUser[]) => void): void {
     this.onTypingCallback = callback;
   }
 
@@ -49,7 +49,6 @@ export interface Room {
   name: string;
   description?: string;
   adminId: string;
-  members: string[];
   createdAt: string;
   lastMessageAt?: string;
   active: boolean;
@@ -59,7 +58,7 @@ export interface Room {
   videoCallEnabled: boolean;
   videoCallRoomId?: string;
   maxVideoParticipants: number;
-  memberCount?: number;
+  memberCount: number;
   video?: {
     provider?: string;
     videoRoomId?: string;
@@ -69,6 +68,46 @@ export interface Room {
   };
 }
 
+// Lightweight room view returned by listings; full detail comes from GET /rooms/{roomId}
+export interface RoomSummary {
+  id: string;
+  name: string;
+  description?: string;
+  adminId: string;
+  memberCount: number;
+  maxMembers: number;
+  lastMessageAt?: string;
+  createdAt: string;
+  private: boolean;
+  videoCallEnabled: boolean;
+  videoActive: boolean;
+}
+
+export type RoomSort = 'recent' | 'newest' | 'name' | 'members';
+
+export type RoomVisibility = 'public' | 'private';
+
+export interface RoomListParams {
+  visibility?: RoomVisibility;
+  sort?: RoomSort;
+  cursor?: string;
+  limit?: number;
+}
+
+export interface RoomSlice {
+  rooms: RoomSummary[];
+  hasMore: boolean;
+  nextCursor?: string;
+}
+
+export interface RoomMember {
+  id: string;
+  roomId: string;
+  userId: string;
+  role: 'admin' | 'member';
+  joinedAt: string;
+}
+
 export interface CreateRoomRequest {
   name: string;
   description?: string;
@@ -124,12 +163,26 @@ export interface ApiResponse<T> {
 }
 
 // WebSocket types
-export interface TypingData {
+// Sent to /app/chat.typing on typing start/stop
+export interface TypingRequest {
   roomId: string;
   username: string;
   isTyping: boolean;
 }
 
+export interface TypingUser {
+  userId: string;
+  username: string;
+}
+
+// "Who is typing" snapshot published on /topic/room/{roomId}/typing;
+// each backend node publishes its own set, identified by node
+export interface TypingData {
+  roomId: string;
+  node: string;
+  typing: TypingUser[];
+}
+
 export interface VideoCallData {
   roomId: string;
   videoCallData?: string;
@@ -166,6 +219,12 @@ export interface PaginationInfo {
   hasPrevious: boolean;
 }
 
+// Offset-paged listings (PageResponse on the server)
+export interface PageResponse<T> {
+  content: T[];
+  page: PaginationInfo;
+}
+
 export interface ErrorInfo {
   message: string;
   code?: string;